@@ -7,6 +7,14 @@ sourceSets {
     main {
         output.setResourcesDir(file("build/classes/java/main"))
     }
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
 }
 
 group = "com.github.srbenoit"
@@ -19,6 +27,8 @@ repositories {
 dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:6.0.1")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 publishing {
@@ -34,4 +44,20 @@ publishing {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Runs the JMH benchmarks at 1, 4, and 16 threads, writing results to build/reports/jmh/results-t<threads>.json.
+// A subset can be run with -Pjmh.include=<regex>, for example: gradle jmh -Pjmh.include=LogLevelBenchmark
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the logging benchmarks."
+    val jmhSourceSet = sourceSets["jmh"]
+    dependsOn(jmhSourceSet.classesTaskName)
+    classpath = jmhSourceSet.runtimeClasspath
+    mainClass.set("dev.mathops.commons.log.LogBenchmarks")
+    val reportDir = layout.buildDirectory.dir("reports/jmh").get().asFile
+    args(reportDir.absolutePath, (project.findProperty("jmh.include") ?: ".*Benchmark.*").toString())
+    doFirst {
+        reportDir.mkdirs()
+    }
+}
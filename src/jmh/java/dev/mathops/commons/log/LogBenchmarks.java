@@ -0,0 +1,55 @@
+package dev.mathops.commons.log;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the logging benchmarks at each thread count in {@code THREAD_COUNTS}, writing the results of each run to a JSON
+ * file (results-t1.json, results-t4.json, ...) so runs from different builds can be compared. This is run by the
+ * "jmh" Gradle task.
+ */
+public final class LogBenchmarks {
+
+    /** The numbers of threads at which each benchmark is run. */
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private LogBenchmarks() {
+
+        super();
+    }
+
+    /**
+     * Main method to run the benchmarks.
+     *
+     * @param args the directory to which to write results, then optionally a regular expression that selects the
+     *             benchmarks to run
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(final String... args) throws RunnerException {
+
+        final File reportDir = new File(args.length > 0 ? args[0] : ".");
+        final String include = args.length > 1 ? args[1] : ".*Benchmark.*";
+
+        for (final int threads : THREAD_COUNTS) {
+            final File result = new File(reportDir, "results-t" + threads + ".json");
+
+            final Options options = new OptionsBuilder()
+                    .include(include)
+                    .exclude(LogBenchmarks.class.getSimpleName())
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result.getAbsolutePath())
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.mathops.commons.log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of appending to a {@code LogEntryList} that has reached its maximum size, so every append evicts the
+ * oldest entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogEntryListBenchmark {
+
+    /** The number of entries the list retains. */
+    private static final int MAX_ENTRIES = 1000;
+
+    /** The list. */
+    private LogEntryList list = null;
+
+    /**
+     * Constructs a new {@code LogEntryListBenchmark}.
+     */
+    public LogEntryListBenchmark() {
+
+        // No action
+    }
+
+    /**
+     * Creates the list and fills it.
+     */
+    @Setup
+    public void setup() {
+
+        this.list = new LogEntryList();
+        this.list.startList(MAX_ENTRIES);
+        for (int i = 0; i < MAX_ENTRIES; ++i) {
+            this.list.addToList("Initial entry");
+        }
+    }
+
+    /**
+     * Appends an entry.
+     */
+    @Benchmark
+    public void append() {
+
+        this.list.addToList("Benchmark entry");
+    }
+}
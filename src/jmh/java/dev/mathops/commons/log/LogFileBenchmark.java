@@ -0,0 +1,125 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.installation.Installation;
+import dev.mathops.commons.installation.Installations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of writing a message to the log file through {@code LogWriter}, and of rotating log files. The log files
+ * are written to a temporary installation directory that is deleted afterward.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogFileBenchmark {
+
+    /** The temporary installation directory. */
+    private File installDir = null;
+
+    /** The writer. */
+    private LogWriter writer = null;
+
+    /**
+     * Constructs a new {@code LogFileBenchmark}.
+     */
+    public LogFileBenchmark() {
+
+        // No action
+    }
+
+    /**
+     * Creates a temporary installation that logs only to files, with buffered file output, keeping a few log files.
+     *
+     * @throws IOException if the installation could not be created
+     */
+    @Setup
+    public void setup() throws IOException {
+
+        this.installDir = Files.createTempDirectory("logbench").toFile();
+        final File cfg = new File(this.installDir, Installations.DEF_CFG_FILE_NAME);
+        final String props = "log-to-console=false\nlog-to-files=true\nlog-watch-settings=false\n";
+        Files.writeString(cfg.toPath(), props, StandardCharsets.UTF_8);
+
+        final Installation installation = Installations.get().getInstallation(this.installDir, null);
+        LoggingSubsystem.setInstallation(installation);
+        LoggingSubsystem.updateSettings(settings -> {
+            settings.setFilenameBase("bench");
+            settings.setLogFileCount(4);
+            settings.setFileFlushSize(65536);
+        });
+
+        this.writer = Log.getWriter();
+        this.writer.stopList();
+    }
+
+    /**
+     * Writes a message to the log file.
+     */
+    @Benchmark
+    public void write() {
+
+        this.writer.writeMessage(LogBase.INFO_BIT, "Benchmark message written to the log file", true);
+    }
+
+    /**
+     * Writes a message, then rotates the log files.
+     */
+    @Benchmark
+    public void rotate() {
+
+        this.writer.writeMessage(LogBase.INFO_BIT, "Benchmark message before rotation", true);
+        this.writer.rotateLogs();
+    }
+
+    /**
+     * Closes the log files and deletes the installation directory.
+     */
+    @TearDown
+    public void tearDown() {
+
+        this.writer.flush();
+        LoggingSubsystem.setInstallation(null);
+        deleteTree(this.installDir);
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     *
+     * @param dir the directory
+     */
+    private static void deleteTree(final File dir) {
+
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    deleteTree(file);
+                } else if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+        if (!dir.delete()) {
+            dir.deleteOnExit();
+        }
+    }
+}
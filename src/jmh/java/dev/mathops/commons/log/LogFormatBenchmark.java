@@ -0,0 +1,83 @@
+package dev.mathops.commons.log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of formatting in {@code LogBase.log}: a message built from several arguments, and a message with an
+ * exception whose stack trace is rendered in full. All outputs are disabled, so only formatting is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogFormatBenchmark {
+
+    /** A value included in messages. */
+    private Integer count = null;
+
+    /** A value included in messages. */
+    private Double ratio = null;
+
+    /** An exception included in messages. */
+    private Exception exception = null;
+
+    /**
+     * Constructs a new {@code LogFormatBenchmark}.
+     */
+    public LogFormatBenchmark() {
+
+        // No action
+    }
+
+    /**
+     * Enables all levels, disables all outputs, and disables abbreviation of repeated stack traces.
+     */
+    @Setup
+    public void setup() {
+
+        LoggingSubsystem.updateSettings(settings -> {
+            settings.setLogLevels(LogBase.ALL);
+            settings.setSourceLevels(LogBase.NONE);
+            settings.setLogToConsole(false);
+            settings.setLogToFiles(false);
+            settings.setExceptionDedupWindow(0);
+        });
+        Log.getWriter().stopList();
+
+        this.count = Integer.valueOf(1234);
+        this.ratio = Double.valueOf(0.75);
+        this.exception = new IOException("Benchmark exception", new IllegalStateException("Cause"));
+    }
+
+    /**
+     * Logs a message built from several arguments.
+     */
+    @Benchmark
+    public void formatMessage() {
+
+        Log.info("Processed ", this.count, " records with ratio ", this.ratio, " for user ", "bench");
+    }
+
+    /**
+     * Logs a message with an exception.
+     */
+    @Benchmark
+    public void formatException() {
+
+        Log.warning("Operation failed", this.exception);
+    }
+}
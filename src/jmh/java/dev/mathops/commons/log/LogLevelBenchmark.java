@@ -0,0 +1,83 @@
+package dev.mathops.commons.log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of level checks: testing an enabled and a disabled level, and a log call at a disabled level (which should
+ * cost no more than the check).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogLevelBenchmark {
+
+    /** A value logged by the disabled call. */
+    private Integer value = null;
+
+    /**
+     * Constructs a new {@code LogLevelBenchmark}.
+     */
+    public LogLevelBenchmark() {
+
+        // No action
+    }
+
+    /**
+     * Enables only SEVERE, WARNING, and INFO, and disables all outputs.
+     */
+    @Setup
+    public void setup() {
+
+        LoggingSubsystem.updateSettings(settings -> {
+            settings.setLogLevels(LogBase.SEVERE_BIT | LogBase.WARNING_BIT | LogBase.INFO_BIT);
+            settings.setLogToConsole(false);
+            settings.setLogToFiles(false);
+        });
+        this.value = Integer.valueOf(42);
+    }
+
+    /**
+     * Tests an enabled level.
+     *
+     * @return the result of the test
+     */
+    @Benchmark
+    public boolean levelEnabled() {
+
+        return Log.isLoggable(LogBase.INFO_BIT);
+    }
+
+    /**
+     * Tests a disabled level.
+     *
+     * @return the result of the test
+     */
+    @Benchmark
+    public boolean levelDisabled() {
+
+        return Log.isLoggable(LogBase.FINE_BIT);
+    }
+
+    /**
+     * Makes a log call at a disabled level.
+     */
+    @Benchmark
+    public void disabledCall() {
+
+        Log.fine("Value is ", this.value);
+    }
+}
@@ -0,0 +1,238 @@
+package dev.mathops.commons.collection;
+
+/**
+ * A map from primitive integer keys to primitive integer values, with convenience methods to increment, decrement, and
+ * adjust values associated with keys.  Neither keys nor values are boxed.
+ *
+ * <p>
+ * Entries are stored by open addressing (see {@code OpenHashBase}) over parallel {@code int[]} arrays of keys, values,
+ * and key hashes.  Every {@code int} value, including zero, is a valid key.
+ */
+public class IntIntMap extends OpenHashBase {
+
+    /** The keys in each slot. */
+    private int[] keys;
+
+    /** The values in each slot. */
+    private int[] values;
+
+    /**
+     * Constructs an empty {@code IntIntMap}.
+     */
+    public IntIntMap() {
+
+        this(0);
+    }
+
+    /**
+     * Constructs an empty {@code IntIntMap} with room for a specified number of entries before it must rehash.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public IntIntMap(final int expectedSize) {
+
+        super(expectedSize);
+
+        this.keys = new int[slotCount()];
+        this.values = new int[slotCount()];
+    }
+
+    /**
+     * Retrieves the keys in the map.
+     *
+     * @return an array of the keys, in no particular order
+     */
+    public final int[] getKeys() {
+
+        final int[] result = new int[size()];
+        int count = 0;
+
+        final int len = slotCount();
+        for (int i = 0; i < len; ++i) {
+            if (isUsed(i)) {
+                result[count] = this.keys[i];
+                ++count;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key          the key
+     * @param defaultValue a value to return if there is no value associated with the given key
+     * @return the result
+     */
+    public final int get(final int key, final int defaultValue) {
+
+        final int slot = find(this.keys, key, spread(key));
+
+        return slot == NOT_FOUND ? defaultValue : this.values[slot];
+    }
+
+    /**
+     * Sets the value associated with a key.
+     *
+     * @param key   the key
+     * @param value the new value to associate with the key
+     */
+    public final void put(final int key, final int value) {
+
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
+
+        if (slot == NOT_FOUND) {
+            insert(key, hash, value);
+        } else {
+            this.values[slot] = value;
+        }
+    }
+
+    /**
+     * Tests whether this map has a value for a specified key.
+     *
+     * @param key the key
+     * @return true if a value is defined for the specified key
+     */
+    public final boolean hasValue(final int key) {
+
+        return find(this.keys, key, spread(key)) != NOT_FOUND;
+    }
+
+    /**
+     * Removes the value associated with a specified key.
+     *
+     * @param key the key
+     * @return true if a value was found and removed
+     */
+    public final boolean remove(final int key) {
+
+        final int slot = find(this.keys, key, spread(key));
+        final boolean found = slot != NOT_FOUND;
+
+        if (found) {
+            deleteSlot(slot);
+        }
+
+        return found;
+    }
+
+    /**
+     * Increments the value associated with a key.  If there is no value associated with the key, the value is
+     * initialized to a provided default initial value, then incremented.  Equivalent to
+     * {@code adjust(key, 1, defaultInitialValue)}.
+     *
+     * @param key                 the key
+     * @param defaultInitialValue the default initial value to use when no value is defined for the key
+     * @return the new value associated with the key
+     */
+    public final int increment(final int key, final int defaultInitialValue) {
+
+        return adjust(key, 1, defaultInitialValue);
+    }
+
+    /**
+     * Decrements the value associated with a key.  If there is no value associated with the key, the value is
+     * initialized to a provided default initial value, then decremented.  Equivalent to
+     * {@code adjust(key, -1, defaultInitialValue)}.
+     *
+     * @param key                 the key
+     * @param defaultInitialValue the default initial value to use when no value is defined for the key
+     * @return the new value associated with the key
+     */
+    public final int decrement(final int key, final int defaultInitialValue) {
+
+        return adjust(key, -1, defaultInitialValue);
+    }
+
+    /**
+     * Adjusts the value associated with a key by a set amount (positive or negative).  If there is no value associated
+     * with the key, the value is initialized to a provided default initial value, then adjusted.
+     *
+     * @param key                 the key
+     * @param delta               the amount to add to the value associated with the key
+     * @param defaultInitialValue the default initial value to use when no value is defined for the key
+     * @return the new value associated with the key
+     */
+    public final int adjust(final int key, final int delta, final int defaultInitialValue) {
+
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
+        final int newValue;
+
+        if (slot == NOT_FOUND) {
+            newValue = defaultInitialValue + delta;
+            insert(key, hash, newValue);
+        } else {
+            newValue = this.values[slot] + delta;
+            this.values[slot] = newValue;
+        }
+
+        return newValue;
+    }
+
+    /**
+     * Inserts an entry whose key is known not to be in the map.
+     *
+     * @param key   the key
+     * @param hash  the key's stored hash
+     * @param value the value
+     */
+    private void insert(final int key, final int hash, final int value) {
+
+        final int slot = addSlot(hash);
+        this.keys[slot] = key;
+        this.values[slot] = value;
+    }
+
+    /**
+     * Copies the key and value in one slot to another slot.
+     *
+     * @param from the index of the slot to copy
+     * @param to   the index of the slot to which to copy
+     */
+    @Override
+    final void moveSlot(final int from, final int to) {
+
+        this.keys[to] = this.keys[from];
+        this.values[to] = this.values[from];
+    }
+
+    /**
+     * Does nothing, since slots hold no object references.
+     *
+     * @param slot the slot index
+     */
+    @Override
+    final void clearSlot(final int slot) {
+
+        // No action
+    }
+
+    /**
+     * Replaces the key and value arrays with arrays of a new length, moving each entry to a new slot.
+     *
+     * @param capacity the new number of slots
+     * @param targets  for each old slot, the new slot for its entry ({@code NOT_FOUND} if the old slot was empty)
+     */
+    @Override
+    final void relocate(final int capacity, final int[] targets) {
+
+        final int[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+
+        final int len = targets.length;
+        for (int i = 0; i < len; ++i) {
+            final int slot = targets[i];
+            if (slot != NOT_FOUND) {
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package dev.mathops.commons.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map from primitive integer keys to object values, so lookups by an integer ID need not box the ID.
+ *
+ * <p>
+ * Entries are stored by open addressing (see {@code OpenHashBase}), with keys in an {@code int[]} array parallel to
+ * the arrays of values and key hashes.  Every {@code int} value, including zero, is a valid key.  Values may not be
+ * {@code null}, so {@code get} can use {@code null} to indicate no value.
+ *
+ * @param <V> the value type
+ */
+public class IntObjectMap<V> extends OpenHashBase {
+
+    /** The keys in each slot. */
+    private int[] keys;
+
+    /** The values in each slot ({@code null} in empty slots). */
+    private Object[] values;
+
+    /**
+     * Constructs an empty {@code IntObjectMap}.
+     */
+    public IntObjectMap() {
+
+        this(0);
+    }
+
+    /**
+     * Constructs an empty {@code IntObjectMap} with room for a specified number of entries before it must rehash.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public IntObjectMap(final int expectedSize) {
+
+        super(expectedSize);
+
+        this.keys = new int[slotCount()];
+        this.values = new Object[slotCount()];
+    }
+
+    /**
+     * Retrieves the keys in the map.
+     *
+     * @return an array of the keys, in no particular order
+     */
+    public final int[] getKeys() {
+
+        final int[] result = new int[size()];
+        int count = 0;
+
+        final int len = slotCount();
+        for (int i = 0; i < len; ++i) {
+            if (isUsed(i)) {
+                result[count] = this.keys[i];
+                ++count;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Retrieves the list of values in the map.
+     *
+     * @return the list of values, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public final List<V> getValues() {
+
+        final List<V> list = new ArrayList<>(size());
+
+        final int len = slotCount();
+        for (int i = 0; i < len; ++i) {
+            if (isUsed(i)) {
+                list.add((V) this.values[i]);
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key the key
+     * @return the value; {@code null} if there is no value associated with the given key
+     */
+    public final V get(final int key) {
+
+        return get(key, null);
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key          the key
+     * @param defaultValue a value to return if there is no value associated with the given key
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    public final V get(final int key, final V defaultValue) {
+
+        final int slot = find(this.keys, key, spread(key));
+
+        return slot == NOT_FOUND ? defaultValue : (V) this.values[slot];
+    }
+
+    /**
+     * Sets the value associated with a key.
+     *
+     * @param key   the key
+     * @param value the new value to associate with the key
+     * @throws IllegalArgumentException if {@code value} is {@code null}
+     */
+    public final void put(final int key, final V value) {
+
+        if (value == null) {
+            throw new IllegalArgumentException("Value may not be null");
+        }
+
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
+
+        if (slot == NOT_FOUND) {
+            final int newSlot = addSlot(hash);
+            this.keys[newSlot] = key;
+            this.values[newSlot] = value;
+        } else {
+            this.values[slot] = value;
+        }
+    }
+
+    /**
+     * Tests whether this map has a value for a specified key.
+     *
+     * @param key the key
+     * @return true if a value is defined for the specified key
+     */
+    public final boolean hasValue(final int key) {
+
+        return find(this.keys, key, spread(key)) != NOT_FOUND;
+    }
+
+    /**
+     * Removes the value associated with a specified key.
+     *
+     * @param key the key
+     * @return true if a value was found and removed
+     */
+    public final boolean remove(final int key) {
+
+        final int slot = find(this.keys, key, spread(key));
+        final boolean found = slot != NOT_FOUND;
+
+        if (found) {
+            deleteSlot(slot);
+        }
+
+        return found;
+    }
+
+    /**
+     * Copies the key and value in one slot to another slot.
+     *
+     * @param from the index of the slot to copy
+     * @param to   the index of the slot to which to copy
+     */
+    @Override
+    final void moveSlot(final int from, final int to) {
+
+        this.keys[to] = this.keys[from];
+        this.values[to] = this.values[from];
+    }
+
+    /**
+     * Releases the value held in a slot that has been emptied.
+     *
+     * @param slot the slot index
+     */
+    @Override
+    final void clearSlot(final int slot) {
+
+        this.values[slot] = null;
+    }
+
+    /**
+     * Replaces the key and value arrays with arrays of a new length, moving each entry to a new slot.
+     *
+     * @param capacity the new number of slots
+     * @param targets  for each old slot, the new slot for its entry ({@code NOT_FOUND} if the old slot was empty)
+     */
+    @Override
+    final void relocate(final int capacity, final int[] targets) {
+
+        final int[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+
+        final int len = targets.length;
+        for (int i = 0; i < len; ++i) {
+            final int slot = targets[i];
+            if (slot != NOT_FOUND) {
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
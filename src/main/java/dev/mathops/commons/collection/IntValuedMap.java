@@ -8,73 +8,42 @@ import java.util.List;
  * associated with keys.
  *
  * <p>
- * This class stores an array of nodes, each a linked list.  Key hash modulo the number of buckets selects a bucket,
- * then the contents of the bucket are linearly searched for an equal key.  The number of buckets is dynamically chosen
- * to ensure the load factor (number of entries / number of buckets) remains between a minimum and maximum value.
+ * This class uses open addressing (see {@code OpenHashBase}) over parallel arrays of keys, values, and key hashes, so
+ * an entry costs three array elements rather than a node object, and a lookup reads adjacent array elements rather than
+ * following links.
+ *
+ * <p>
+ * Keys may not be {@code null}.
  *
  * @param <T> the key type
  */
-public class IntValuedMap<T> {
-
-    /** The default maximum load factor. */
-    private static final float DEFAULT_MAX_LOAD_FACTOR = 2.0f;
-
-    /** The default maximum load factor. */
-    private static final float DEFAULT_MIN_LOAD_FACTOR = 0.5f;
+public class IntValuedMap<T> extends OpenHashBase {
 
-    /** The minimum load factor. */
-    private final float minLoadFactor;
+    /** The keys in each slot ({@code null} in empty slots). */
+    private Object[] keys;
 
-    /** The maximum load factor. */
-    private final float maxLoadFactor;
+    /** The values in each slot. */
+    private int[] values;
 
     /**
-     * The buckets.  The number N of buckets is a power of 2, and the bucketMask is set to ensure that any hash ANDed
-     * with the bucket mask gives a valid index into this list.
-     */
-    private List<Node<T>> buckets;
-
-    /** The mask to apply to a hash to get a bucket index. */
-    private int bucketMask;
-
-    /** The number of entries currently in the map. */
-    private int numEntries;
-
-    /** The number of entries above which we should rehash. */
-    private int growThreshold;
-
-    /** The number of entries below which we should rehash. */
-    private int shrinkThreshold;
-
-    /**
-     * Constructs an empty {@code IntValuedMap} with a specified initial capacity.
+     * Constructs an empty {@code IntValuedMap}.
      */
     public IntValuedMap() {
 
-        this.maxLoadFactor = DEFAULT_MAX_LOAD_FACTOR;
-        this.minLoadFactor = DEFAULT_MIN_LOAD_FACTOR;
-
-        final float avgLoadFactor = (this.maxLoadFactor + this.minLoadFactor) * 0.5f;
-
-        // Start off with two buckets (with addresses 0 and 1)
-        this.bucketMask = 0x01;
-        this.buckets = new ArrayList<>(2);
-        this.buckets.add(null);
-        this.buckets.add(null);
-
-        this.numEntries = 0;
-        this.growThreshold = Math.round(this.maxLoadFactor + this.maxLoadFactor);
-        this.shrinkThreshold = Math.round(this.minLoadFactor + this.minLoadFactor);
+        this(0);
     }
 
     /**
-     * Gets the number of entries in the map.
+     * Constructs an empty {@code IntValuedMap} with room for a specified number of entries before it must rehash.
      *
-     * @return the number of entries
+     * @param expectedSize the expected number of entries
      */
-    public final int size() {
+    public IntValuedMap(final int expectedSize) {
+
+        super(expectedSize);
 
-        return this.numEntries;
+        this.keys = new Object[slotCount()];
+        this.values = new int[slotCount()];
     }
 
     /**
@@ -82,15 +51,15 @@ public class IntValuedMap<T> {
      *
      * @return the list of keys
      */
+    @SuppressWarnings("unchecked")
     public final List<T> getKeys() {
 
-        final List<T> list = new ArrayList<>(this.numEntries);
+        final List<T> list = new ArrayList<>(size());
 
-        for (final Node<T> listHead : this.buckets) {
-            Node<T> current = listHead;
-            while (current != null) {
-                list.add(current.key);
-                current = current.next;
+        final int len = slotCount();
+        for (int i = 0; i < len; ++i) {
+            if (isUsed(i)) {
+                list.add((T) this.keys[i]);
             }
         }
 
@@ -106,21 +75,9 @@ public class IntValuedMap<T> {
      */
     public final int get(final T key, final int defaultValue) {
 
-        final int keyHash = key.hashCode();
-        final int bucketIndex = keyHash & this.bucketMask;
+        final int slot = find(this.keys, key, spread(key));
 
-        int result = defaultValue;
-
-        Node<T> node = this.buckets.get(bucketIndex);
-        while (node != null) {
-            if (node.keyHash == keyHash && node.key.equals(key)) {
-                result = node.value;
-                break;
-            }
-            node = node.next;
-        }
-
-        return result;
+        return slot == NOT_FOUND ? defaultValue : this.values[slot];
     }
 
     /**
@@ -131,30 +88,13 @@ public class IntValuedMap<T> {
      */
     public final void put(final T key, final int value) {
 
-        if (this.numEntries + 1 > this.growThreshold) {
-            // The following will update bucketMask, buckets, growThreshold, shrinkThreshold
-            rehash();
-        }
-
-        final int keyHash = key.hashCode();
-        final int bucketIndex = keyHash & this.bucketMask;
-
-        boolean searching = true;
-        Node<T> node = this.buckets.get(bucketIndex);
-        while (node != null) {
-            if (node.keyHash == keyHash && node.key.equals(key)) {
-                node.value = value;
-                searching = false;
-                break;
-            }
-            node = node.next;
-        }
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
 
-        if (searching) {
-            final Node<T> newHead = new Node<>(key, keyHash, value);
-            newHead.next = this.buckets.get(bucketIndex);
-            this.buckets.set(bucketIndex, newHead);
-            ++this.numEntries;
+        if (slot == NOT_FOUND) {
+            insert(key, hash, value);
+        } else {
+            this.values[slot] = value;
         }
     }
 
@@ -166,21 +106,7 @@ public class IntValuedMap<T> {
      */
     public final boolean hasValue(final T key) {
 
-        final int keyHash = key.hashCode();
-        final int bucketIndex = keyHash & this.bucketMask;
-
-        boolean hasValue = false;
-
-        Node<T> node = this.buckets.get(bucketIndex);
-        while (node != null) {
-            if (node.keyHash == keyHash && node.key.equals(key)) {
-                hasValue = true;
-                break;
-            }
-            node = node.next;
-        }
-
-        return hasValue;
+        return find(this.keys, key, spread(key)) != NOT_FOUND;
     }
 
     /**
@@ -191,37 +117,11 @@ public class IntValuedMap<T> {
      */
     public final boolean remove(final T key) {
 
-        final int keyHash = key.hashCode();
-        final int bucketIndex = keyHash & this.bucketMask;
-
-        boolean found = false;
-
-        final Node<T> head = this.buckets.get(bucketIndex);
-        if (head != null) {
-            if (head.keyHash == keyHash && head.key.equals(key)) {
-                this.buckets.set(bucketIndex, head.next);
-                found = true;
-            } else {
-                Node<T> prior = head;
-                Node<T> node = head.next;
-                while (node != null) {
-                    if (node.keyHash == keyHash && node.key.equals(key)) {
-                        prior.next = node.next;
-                        found = true;
-                        break;
-                    }
-                    prior = node;
-                    node = node.next;
-                }
-            }
-        }
+        final int slot = find(this.keys, key, spread(key));
+        final boolean found = slot != NOT_FOUND;
 
         if (found) {
-            --this.numEntries;
-            if (this.numEntries < this.shrinkThreshold) {
-                // The following will update bucketMask, buckets, growThreshold, shrinkThreshold
-                rehash();
-            }
+            deleteSlot(slot);
         }
 
         return found;
@@ -266,109 +166,81 @@ public class IntValuedMap<T> {
      */
     public final int adjust(final T key, final int delta, final int defaultInitialValue) {
 
-        // Ensure there is space in case we need to create a new node
-        if (this.numEntries + 1 > this.growThreshold) {
-            // The following will update bucketMask, buckets, growThreshold, shrinkThreshold
-            rehash();
-        }
-
-        final int keyHash = key.hashCode();
-        final int bucketIndex = keyHash & this.bucketMask;
-
-        boolean searching = true;
-        int newValue = 0;
-        Node<T> node = this.buckets.get(bucketIndex);
-        while (node != null) {
-            if (node.keyHash == keyHash && node.key.equals(key)) {
-                node.value += delta;
-                newValue = node.value;
-                searching = false;
-                break;
-            }
-            node = node.next;
-        }
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
+        final int newValue;
 
-        if (searching) {
+        if (slot == NOT_FOUND) {
             newValue = defaultInitialValue + delta;
-            final Node<T> newHead = new Node<>(key, keyHash, newValue);
-            newHead.next = this.buckets.get(bucketIndex);
-            this.buckets.set(bucketIndex, newHead);
-            ++this.numEntries;
+            insert(key, hash, newValue);
+        } else {
+            newValue = this.values[slot] + delta;
+            this.values[slot] = newValue;
         }
 
         return newValue;
     }
 
     /**
-     * Rehashes the table.  After this call, the number of buckets will provide a load factor between the object's
-     * minimum and maximum.
+     * Inserts an entry whose key is known not to be in the map.
+     *
+     * @param key   the key
+     * @param hash  the key's stored hash
+     * @param value the value
      */
-    private void rehash() {
-
-        final int minBuckets = Math.round((float) this.numEntries / this.maxLoadFactor);
-        final int maxBuckets = Math.round((float) this.numEntries / this.minLoadFactor);
-        final int wantBuckets = (minBuckets + maxBuckets) >> 1;
-
-        // Determine the actual number of buckets to be a power of 2, at least as large as "wantBuckets"
-        int mask = 0x01;
-        int newNumBuckets = 2;
-        while (newNumBuckets < wantBuckets) {
-            mask = (mask << 1) + 1;
-            newNumBuckets <<= 1;
-        }
+    private void insert(final Object key, final int hash, final int value) {
 
-        if (newNumBuckets != this.buckets.size()) {
-//            Log.info("Rehashing for " + newNumBuckets + " buckets");
+        final int slot = addSlot(hash);
+        this.keys[slot] = key;
+        this.values[slot] = value;
+    }
 
-            this.bucketMask = mask;
-            final List<Node<T>> newBuckets = new ArrayList<>(newNumBuckets);
-            for (int i = 0; i < newNumBuckets; ++i) {
-                newBuckets.add(null);
-            }
+    /**
+     * Copies the key and value in one slot to another slot.
+     *
+     * @param from the index of the slot to copy
+     * @param to   the index of the slot to which to copy
+     */
+    @Override
+    final void moveSlot(final int from, final int to) {
 
-            // Assign all nodes to new buckets
-            for (final Node<T> head : this.buckets) {
-                Node<T> node = head;
-                while (node != null) {
-                    final Node<T> flink = node.next;
-                    final int newBucketIndex = node.keyHash & mask;
-                    node.next = newBuckets.get(newBucketIndex);
-                    newBuckets.set(newBucketIndex, node);
-                    node = flink;
-                }
-            }
+        this.keys[to] = this.keys[from];
+        this.values[to] = this.values[from];
+    }
 
-            this.buckets.clear();  // Eliminate orphaned references
-            this.buckets = newBuckets;
+    /**
+     * Releases the key held in a slot that has been emptied.
+     *
+     * @param slot the slot index
+     */
+    @Override
+    final void clearSlot(final int slot) {
 
-            this.growThreshold = Math.round(this.maxLoadFactor * (float) newNumBuckets);
-            this.shrinkThreshold = Math.round(this.minLoadFactor * (float) newNumBuckets);
-        }
+        this.keys[slot] = null;
     }
 
-    /** A node. */
-    static class Node<T> {
-        /** The next node in the singly-linked lists of nodes in a bucket. */
-        Node<T> next = null;
-        /** The node key. */
-        final T key;
-        /** The node key's hash. */
-        final int keyHash;
-        /** The value associated with the node. */
-        int value;
-
-        /**
-         * Constructs a new {@code Node}.
-         *
-         * @param theKey     the key
-         * @param theKeyHash the key hash
-         * @param theValue   the value associated with the key
-         */
-        Node(final T theKey, final int theKeyHash, final int theValue) {
-
-            this.key = theKey;
-            this.keyHash = theKeyHash;
-            this.value = theValue;
+    /**
+     * Replaces the key and value arrays with arrays of a new length, moving each entry to a new slot.
+     *
+     * @param capacity the new number of slots
+     * @param targets  for each old slot, the new slot for its entry ({@code NOT_FOUND} if the old slot was empty)
+     */
+    @Override
+    final void relocate(final int capacity, final int[] targets) {
+
+        final Object[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+
+        final int len = targets.length;
+        for (int i = 0; i < len; ++i) {
+            final int slot = targets[i];
+            if (slot != NOT_FOUND) {
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
         }
     }
 }
@@ -0,0 +1,245 @@
+package dev.mathops.commons.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map whose values are primitive long integers, with convenience methods to increment, decrement, and adjust values
+ * associated with keys.  This suits counters that may overflow an {@code int}.
+ *
+ * <p>
+ * Entries are stored as in {@code IntValuedMap}, by open addressing over parallel arrays, with values in a
+ * {@code long[]}.
+ *
+ * <p>
+ * Keys may not be {@code null}.
+ *
+ * @param <T> the key type
+ */
+public class LongValuedMap<T> extends OpenHashBase {
+
+    /** The keys in each slot ({@code null} in empty slots). */
+    private Object[] keys;
+
+    /** The values in each slot. */
+    private long[] values;
+
+    /**
+     * Constructs an empty {@code LongValuedMap}.
+     */
+    public LongValuedMap() {
+
+        this(0);
+    }
+
+    /**
+     * Constructs an empty {@code LongValuedMap} with room for a specified number of entries before it must rehash.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public LongValuedMap(final int expectedSize) {
+
+        super(expectedSize);
+
+        this.keys = new Object[slotCount()];
+        this.values = new long[slotCount()];
+    }
+
+    /**
+     * Retrieves the list of keys in the map.
+     *
+     * @return the list of keys
+     */
+    @SuppressWarnings("unchecked")
+    public final List<T> getKeys() {
+
+        final List<T> list = new ArrayList<>(size());
+
+        final int len = slotCount();
+        for (int i = 0; i < len; ++i) {
+            if (isUsed(i)) {
+                list.add((T) this.keys[i]);
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Gets the value associated with a key.
+     *
+     * @param key          the key
+     * @param defaultValue a value to return if there is no value associated with the given key
+     * @return the result
+     */
+    public final long get(final T key, final long defaultValue) {
+
+        final int slot = find(this.keys, key, spread(key));
+
+        return slot == NOT_FOUND ? defaultValue : this.values[slot];
+    }
+
+    /**
+     * Sets the value associated with a key.
+     *
+     * @param key   the key
+     * @param value the new value to associate with the key
+     */
+    public final void put(final T key, final long value) {
+
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
+
+        if (slot == NOT_FOUND) {
+            insert(key, hash, value);
+        } else {
+            this.values[slot] = value;
+        }
+    }
+
+    /**
+     * Tests whether this map has a value for a specified key.
+     *
+     * @param key the key
+     * @return true if a value is defined for the specified key
+     */
+    public final boolean hasValue(final T key) {
+
+        return find(this.keys, key, spread(key)) != NOT_FOUND;
+    }
+
+    /**
+     * Removes the value associated with a specified key.
+     *
+     * @param key the key
+     * @return true if a value was found and removed
+     */
+    public final boolean remove(final T key) {
+
+        final int slot = find(this.keys, key, spread(key));
+        final boolean found = slot != NOT_FOUND;
+
+        if (found) {
+            deleteSlot(slot);
+        }
+
+        return found;
+    }
+
+    /**
+     * Increments the value associated with a key.  If there is no value associated with the key, the value is
+     * initialized to a provided default initial value, then incremented.  Equivalent to
+     * {@code adjust(key, 1L, defaultInitialValue)}.
+     *
+     * @param key                 the key
+     * @param defaultInitialValue the default initial value to use when no value is defined for the key
+     * @return the new value associated with the key
+     */
+    public final long increment(final T key, final long defaultInitialValue) {
+
+        return adjust(key, 1L, defaultInitialValue);
+    }
+
+    /**
+     * Decrements the value associated with a key.  If there is no value associated with the key, the value is
+     * initialized to a provided default initial value, then decremented.  Equivalent to *
+     * {@code adjust(key, -1L, defaultInitialValue)}.
+     *
+     * @param key                 the key
+     * @param defaultInitialValue the default initial value to use when no value is defined for the key
+     * @return the new value associated with the key
+     */
+    public final long decrement(final T key, final long defaultInitialValue) {
+
+        return adjust(key, -1L, defaultInitialValue);
+    }
+
+    /**
+     * Adjusts the value associated with a key by a set amount (positive or negative).  If there is no value associated
+     * with the key, the value is initialized to a provided default initial value, then adjusted.
+     *
+     * @param key                 the key
+     * @param delta               the amount to add to the value associated with the key
+     * @param defaultInitialValue the default initial value to use when no value is defined for the key
+     * @return the new value associated with the key
+     */
+    public final long adjust(final T key, final long delta, final long defaultInitialValue) {
+
+        final int hash = spread(key);
+        final int slot = find(this.keys, key, hash);
+        final long newValue;
+
+        if (slot == NOT_FOUND) {
+            newValue = defaultInitialValue + delta;
+            insert(key, hash, newValue);
+        } else {
+            newValue = this.values[slot] + delta;
+            this.values[slot] = newValue;
+        }
+
+        return newValue;
+    }
+
+    /**
+     * Inserts an entry whose key is known not to be in the map.
+     *
+     * @param key   the key
+     * @param hash  the key's stored hash
+     * @param value the value
+     */
+    private void insert(final Object key, final int hash, final long value) {
+
+        final int slot = addSlot(hash);
+        this.keys[slot] = key;
+        this.values[slot] = value;
+    }
+
+    /**
+     * Copies the key and value in one slot to another slot.
+     *
+     * @param from the index of the slot to copy
+     * @param to   the index of the slot to which to copy
+     */
+    @Override
+    final void moveSlot(final int from, final int to) {
+
+        this.keys[to] = this.keys[from];
+        this.values[to] = this.values[from];
+    }
+
+    /**
+     * Releases the key held in a slot that has been emptied.
+     *
+     * @param slot the slot index
+     */
+    @Override
+    final void clearSlot(final int slot) {
+
+        this.keys[slot] = null;
+    }
+
+    /**
+     * Replaces the key and value arrays with arrays of a new length, moving each entry to a new slot.
+     *
+     * @param capacity the new number of slots
+     * @param targets  for each old slot, the new slot for its entry ({@code NOT_FOUND} if the old slot was empty)
+     */
+    @Override
+    final void relocate(final int capacity, final int[] targets) {
+
+        final Object[] oldKeys = this.keys;
+        final long[] oldValues = this.values;
+
+        this.keys = new Object[capacity];
+        this.values = new long[capacity];
+
+        final int len = targets.length;
+        for (int i = 0; i < len; ++i) {
+            final int slot = targets[i];
+            if (slot != NOT_FOUND) {
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package dev.mathops.commons.collection;
+
+/**
+ * The open-addressing core shared by the maps in this package.  Subclasses store keys and values in parallel arrays
+ * (of primitives where possible, so no boxing is needed) and this class manages the parallel array of key hashes that
+ * organizes them.
+ *
+ * <p>
+ * Key hash modulo the number of slots selects a home slot, then slots are searched in order (wrapping at the end of
+ * the arrays) until the key or an empty slot is found.  Removal shifts later entries of the probe sequence back into
+ * the vacated slot, so no "deleted" markers are left behind.  The number of slots is a power of 2, dynamically chosen
+ * to ensure the load factor (number of entries / number of slots) remains between a minimum and maximum value.
+ *
+ * <p>
+ * Stored hashes are spread so keys whose hash codes differ only in high bits still land in different slots, and have
+ * the {@code USED} bit set, so a stored hash of zero marks an empty slot.  Stored hashes are reused when rehashing, so
+ * key hash codes are computed once per entry.
+ *
+ * <p>
+ * A subclass computes a key's stored hash with one of the {@code spread} methods, finds it with the {@code find} method
+ * for its key array type, claims a slot for a new entry with {@code addSlot} (after which its arrays may have been
+ * replaced), and empties a slot with {@code deleteSlot}.  It implements {@code moveSlot}, {@code clearSlot}, and
+ * {@code relocate} to move its keys and values as entries are shifted and rehashed.
+ */
+abstract class OpenHashBase {
+
+    /** The maximum load factor. */
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+
+    /** The minimum load factor. */
+    private static final float MIN_LOAD_FACTOR = 0.125f;
+
+    /** The minimum number of slots. */
+    private static final int MIN_CAPACITY = 8;
+
+    /** The largest number of slots (a power of 2). */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /** The multiplier used to spread key hashes (the golden ratio, as a 32-bit fraction). */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /** A bit set in every stored hash, so a stored hash of zero marks an empty slot. */
+    private static final int USED = Integer.MIN_VALUE;
+
+    /** A slot index indicating a key was not found. */
+    static final int NOT_FOUND = -1;
+
+    /** The spread key hash in each slot, with the {@code USED} bit set (zero in empty slots). */
+    private int[] hashes;
+
+    /** The mask to apply to a hash to get a slot index (the number of slots minus 1). */
+    private int mask;
+
+    /** The number of entries currently in the map. */
+    private int numEntries;
+
+    /** The number of entries above which we should rehash. */
+    private int growThreshold;
+
+    /** The number of entries below which we should rehash. */
+    private int shrinkThreshold;
+
+    /**
+     * Constructs a new {@code OpenHashBase} with room for a specified number of entries before it must rehash.  The
+     * subclass constructor must then allocate its key and value arrays with {@code slotCount} elements.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    OpenHashBase(final int expectedSize) {
+
+        allocate(capacityFor(Math.max(0, expectedSize)));
+        this.numEntries = 0;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return the number of entries
+     */
+    public final int size() {
+
+        return this.numEntries;
+    }
+
+    /**
+     * Gets the number of slots (the length of each parallel array).
+     *
+     * @return the number of slots
+     */
+    final int slotCount() {
+
+        return this.hashes.length;
+    }
+
+    /**
+     * Tests whether a slot holds an entry.
+     *
+     * @param slot the slot index
+     * @return {@code true} if the slot holds an entry
+     */
+    final boolean isUsed(final int slot) {
+
+        return this.hashes[slot] != 0;
+    }
+
+    /**
+     * Computes the stored hash for an object key.
+     *
+     * @param key the key
+     * @return the stored hash
+     */
+    static int spread(final Object key) {
+
+        return spread(key.hashCode());
+    }
+
+    /**
+     * Computes the stored hash for a {@code long} key.
+     *
+     * @param key the key
+     * @return the stored hash
+     */
+    static int spread(final long key) {
+
+        return spread((int) (key ^ (key >>> 32)));
+    }
+
+    /**
+     * Computes the stored hash for an {@code int} key (or a key's hash code).
+     *
+     * @param key the key
+     * @return the stored hash
+     */
+    static int spread(final int key) {
+
+        final int mixed = key * SPREAD;
+
+        return (mixed ^ (mixed >>> 16)) | USED;
+    }
+
+    /**
+     * Finds the slot that holds an object key.
+     *
+     * @param keyArray the array of keys
+     * @param key      the key
+     * @param hash     the key's stored hash
+     * @return the slot index; {@code NOT_FOUND} if the key is not in the map
+     */
+    final int find(final Object[] keyArray, final Object key, final int hash) {
+
+        final int[] hashArray = this.hashes;
+        final int slotMask = this.mask;
+
+        int slot = hash & slotMask;
+        int result = NOT_FOUND;
+
+        int stored = hashArray[slot];
+        while (stored != 0) {
+            if (stored == hash && key.equals(keyArray[slot])) {
+                result = slot;
+                break;
+            }
+            slot = (slot + 1) & slotMask;
+            stored = hashArray[slot];
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the slot that holds an {@code int} key.
+     *
+     * @param keyArray the array of keys
+     * @param key      the key
+     * @param hash     the key's stored hash
+     * @return the slot index; {@code NOT_FOUND} if the key is not in the map
+     */
+    final int find(final int[] keyArray, final int key, final int hash) {
+
+        final int[] hashArray = this.hashes;
+        final int slotMask = this.mask;
+
+        int slot = hash & slotMask;
+        int result = NOT_FOUND;
+
+        int stored = hashArray[slot];
+        while (stored != 0) {
+            if (stored == hash && keyArray[slot] == key) {
+                result = slot;
+                break;
+            }
+            slot = (slot + 1) & slotMask;
+            stored = hashArray[slot];
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the slot that holds a {@code long} key.
+     *
+     * @param keyArray the array of keys
+     * @param key      the key
+     * @param hash     the key's stored hash
+     * @return the slot index; {@code NOT_FOUND} if the key is not in the map
+     */
+    final int find(final long[] keyArray, final long key, final int hash) {
+
+        final int[] hashArray = this.hashes;
+        final int slotMask = this.mask;
+
+        int slot = hash & slotMask;
+        int result = NOT_FOUND;
+
+        int stored = hashArray[slot];
+        while (stored != 0) {
+            if (stored == hash && keyArray[slot] == key) {
+                result = slot;
+                break;
+            }
+            slot = (slot + 1) & slotMask;
+            stored = hashArray[slot];
+        }
+
+        return result;
+    }
+
+    /**
+     * Claims an empty slot for a new entry whose key is known not to be in the map, rehashing first if needed.  The
+     * caller must then store the key and value in the returned slot, using the arrays as they are after this call.
+     *
+     * @param hash the key's stored hash
+     * @return the slot index
+     */
+    final int addSlot(final int hash) {
+
+        if (this.numEntries + 1 > this.growThreshold) {
+            // The following will update mask, hashes, growThreshold, shrinkThreshold, and the subclass arrays
+            rehash(capacityFor(this.numEntries + 1));
+        }
+
+        final int slot = emptySlot(hash);
+        this.hashes[slot] = hash;
+        ++this.numEntries;
+
+        return slot;
+    }
+
+    /**
+     * Empties a slot, then moves back any later entries in the same run of occupied slots that may no longer be
+     * reachable from their home slots, so every entry stays reachable without "deleted" markers.  The map is rehashed
+     * if it falls below its minimum load factor.
+     *
+     * @param slot the slot index
+     */
+    final void deleteSlot(final int slot) {
+
+        final int[] hashArray = this.hashes;
+        final int slotMask = this.mask;
+
+        int hole = slot;
+        int index = (slot + 1) & slotMask;
+        int stored = hashArray[index];
+
+        while (stored != 0) {
+            final int home = stored & slotMask;
+            // The entry may move to the hole if the hole lies between its home slot and its current slot
+            if (((index - home) & slotMask) >= ((index - hole) & slotMask)) {
+                moveSlot(index, hole);
+                hashArray[hole] = stored;
+                hole = index;
+            }
+            index = (index + 1) & slotMask;
+            stored = hashArray[index];
+        }
+
+        clearSlot(hole);
+        hashArray[hole] = 0;
+
+        --this.numEntries;
+        if (this.numEntries < this.shrinkThreshold) {
+            // The following will update mask, hashes, growThreshold, shrinkThreshold, and the subclass arrays
+            rehash(capacityFor(this.numEntries));
+        }
+    }
+
+    /**
+     * Copies the key and value in one slot to another slot.
+     *
+     * @param from the index of the slot to copy
+     * @param to   the index of the slot to which to copy
+     */
+    abstract void moveSlot(int from, int to);
+
+    /**
+     * Releases any object references held in a slot that has been emptied.
+     *
+     * @param slot the slot index
+     */
+    abstract void clearSlot(int slot);
+
+    /**
+     * Replaces the key and value arrays with arrays of a new length, moving each entry to a new slot.
+     *
+     * @param capacity the new number of slots
+     * @param targets  for each old slot, the new slot for its entry ({@code NOT_FOUND} if the old slot was empty)
+     */
+    abstract void relocate(int capacity, int[] targets);
+
+    /**
+     * Finds the first empty slot in the probe sequence for a hash.
+     *
+     * @param hash the stored hash
+     * @return the slot index
+     */
+    private int emptySlot(final int hash) {
+
+        final int[] hashArray = this.hashes;
+        final int slotMask = this.mask;
+
+        int slot = hash & slotMask;
+        while (hashArray[slot] != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Computes the number of slots for a number of entries: the smallest power of 2 (and at least the minimum) that
+     * holds the entries at no more than the maximum load factor.  A map that grows past its maximum load factor
+     * therefore doubles in size, and a map that shrinks below its minimum load factor is left between half the maximum
+     * load factor and the maximum load factor.
+     *
+     * @param count the number of entries
+     * @return the number of slots
+     */
+    private static int capacityFor(final int count) {
+
+        final long want = (long) Math.ceil((double) count / (double) MAX_LOAD_FACTOR);
+
+        int capacity = MIN_CAPACITY;
+        while ((long) capacity < want && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Allocates an empty array of hashes with a specified number of slots and updates the thresholds.
+     *
+     * @param capacity the number of slots (a power of 2)
+     */
+    private void allocate(final int capacity) {
+
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+
+        this.growThreshold = capacity == MAX_CAPACITY ? capacity - 1 : (int) ((float) capacity * MAX_LOAD_FACTOR);
+        this.shrinkThreshold = capacity == MIN_CAPACITY ? 0 : (int) ((float) capacity * MIN_LOAD_FACTOR);
+    }
+
+    /**
+     * Rehashes the table into a specified number of slots.
+     *
+     * @param capacity the new number of slots (a power of 2)
+     */
+    private void rehash(final int capacity) {
+
+        final int[] oldHashes = this.hashes;
+
+        if (capacity != oldHashes.length) {
+            allocate(capacity);
+
+            final int len = oldHashes.length;
+            final int[] targets = new int[len];
+            for (int i = 0; i < len; ++i) {
+                final int hash = oldHashes[i];
+                if (hash == 0) {
+                    targets[i] = NOT_FOUND;
+                } else {
+                    final int slot = emptySlot(hash);
+                    this.hashes[slot] = hash;
+                    targets[i] = slot;
+                }
+            }
+
+            relocate(capacity, targets);
+        }
+    }
+}
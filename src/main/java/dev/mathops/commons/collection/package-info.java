@@ -1,5 +1,5 @@
 /**
- * Collections with primitive values.
+ * Collections with primitive keys or values, sharing an open-addressing core.
  */
 package dev.mathops.commons.collection;
 
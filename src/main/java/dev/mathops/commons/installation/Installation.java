@@ -100,6 +100,53 @@ public final class Installation extends SimpleErrorWarningLog {
         return this.properties;
     }
 
+    /**
+     * Gets the configuration file.
+     *
+     * @return the configuration file (which may not exist)
+     */
+    public File getCfgFilePath() {
+
+        return new File(this.baseDir, this.cfgFile);
+    }
+
+    /**
+     * Reads the configuration file again, without altering the properties loaded when the installation was created.
+     * This lets a caller that watches the file pick up changes made to it.
+     *
+     * @return the properties read from the file
+     * @throws IOException if the file does not exist or could not be read
+     */
+    public Properties readProperties() throws IOException {
+
+        final Properties result = new Properties();
+        loadProperties(getCfgFilePath(), result);
+
+        return result;
+    }
+
+    /**
+     * Loads properties from a configuration file, replacing the base directory tag in their values.
+     *
+     * @param cfg    the configuration file
+     * @param target the properties into which to load
+     * @throws IOException if the file could not be read
+     */
+    private void loadProperties(final File cfg, final Properties target) throws IOException {
+
+        try (final FileInputStream reader = new FileInputStream(cfg)) {
+            final String base = this.baseDir.getAbsolutePath();
+            target.load(reader);
+            for (final String propName : target.stringPropertyNames()) {
+                final String value = target.getProperty(propName);
+                if (value.contains(BASE_DIR_TAG)) {
+                    final String replaced = value.replace(BASE_DIR_TAG, base);
+                    target.setProperty(propName, replaced);
+                }
+            }
+        }
+    }
+
     /**
      * Loads the bare configuration settings from the file.
      */
@@ -109,19 +156,11 @@ public final class Installation extends SimpleErrorWarningLog {
         this.properties.clear();
         this.loaded = false;
 
-        final File cfg = new File(this.baseDir, this.cfgFile);
+        final File cfg = getCfgFilePath();
 
         if (cfg.exists()) {
-            try (final FileInputStream reader = new FileInputStream(cfg)) {
-                final String base = this.baseDir.getAbsolutePath();
-                this.properties.load(reader);
-                for (final String propName : this.properties.stringPropertyNames()) {
-                    final String value = this.properties.getProperty(propName);
-                    if (value.contains(BASE_DIR_TAG)) {
-                        final String replaced = value.replace(BASE_DIR_TAG, base);
-                        this.properties.setProperty(propName, replaced);
-                    }
-                }
+            try {
+                loadProperties(cfg, this.properties);
                 this.loaded = true;
             } catch (final IOException ex) {
                 final String absolutePath = cfg.getAbsolutePath();
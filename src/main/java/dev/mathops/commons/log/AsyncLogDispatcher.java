@@ -0,0 +1,336 @@
+package dev.mathops.commons.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Owns a {@code LogRingBuffer} and the single background thread that drains it, formatting each event and writing it
+ * to a {@code LogWriter}.
+ *
+ * <p>
+ * Logging threads call {@code claim} to obtain a slot (applying the configured back-pressure policy if the buffer is
+ * full), fill in the returned {@code LogEvent}, then call {@code publish}. No locks are taken on that path. The
+ * consumer thread parks when the buffer is empty and is unparked by producers that find it idle.
+ */
+final class AsyncLogDispatcher implements Runnable {
+
+    /** The name of the consumer thread. */
+    private static final String THREAD_NAME = "mathops-log-dispatcher";
+
+    /** Nanoseconds the consumer parks when idle (an upper bound in case a wake-up is missed). */
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    /** Nanoseconds a blocked producer parks between attempts to claim a slot. */
+    private static final long BLOCKED_PARK_NANOS = 50_000L;
+
+    /** Nanoseconds a flushing thread parks between checks for completion. */
+    private static final long FLUSH_PARK_NANOS = 100_000L;
+
+    /** Number of times a blocked producer spins before it begins to park. */
+    private static final int SPIN_TRIES = 64;
+
+    /** Milliseconds to wait for the consumer to drain the buffer when stopping. */
+    private static final long STOP_TIMEOUT_MS = 5_000L;
+
+    /** The ring buffer. */
+    private final LogRingBuffer ring;
+
+    /** The writer to which formatted events are written. */
+    private final LogWriter writer;
+
+    /** The consumer thread. */
+    private final Thread consumer;
+
+    /** The number of positions that have been consumed (written or discarded). */
+    private final AtomicLong completed;
+
+    /** The number of events that have been dropped because the buffer was full. */
+    private final AtomicLong dropped;
+
+    /** The number of dropped events already reported (accessed only by the consumer thread). */
+    private long droppedReported;
+
+    /** Flag indicating the dispatcher is accepting events. */
+    private volatile boolean running;
+
+    /** Flag indicating the consumer thread is (about to be) parked waiting for events. */
+    private volatile boolean idle;
+
+    /**
+     * Constructs a new {@code AsyncLogDispatcher}. The consumer thread is not started until {@code start} is called.
+     *
+     * @param theCapacity the requested ring buffer capacity
+     * @param theWriter   the writer to which formatted events are written
+     */
+    AsyncLogDispatcher(final int theCapacity, final LogWriter theWriter) {
+
+        this.ring = new LogRingBuffer(theCapacity);
+        this.writer = theWriter;
+        this.completed = new AtomicLong(0L);
+        this.dropped = new AtomicLong(0L);
+        this.droppedReported = 0L;
+
+        this.consumer = new Thread(this, THREAD_NAME);
+        this.consumer.setDaemon(true);
+    }
+
+    /**
+     * Starts the consumer thread. The owner is responsible for calling {@code stop} to drain pending events at VM exit.
+     */
+    void start() {
+
+        this.running = true;
+        this.consumer.start();
+    }
+
+    /**
+     * Tests whether the calling thread may publish events. Events cannot be published once the dispatcher has been
+     * stopped, or from the consumer thread itself (which could otherwise block waiting on itself).
+     *
+     * @return {@code true} if the calling thread may publish
+     */
+    boolean canPublish() {
+
+        return this.running && Thread.currentThread() != this.consumer;
+    }
+
+    /**
+     * Gets the capacity of the ring buffer.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+
+        return this.ring.capacity();
+    }
+
+    /**
+     * Gets the number of events that have been dropped because the ring buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    long getDroppedCount() {
+
+        return this.dropped.get();
+    }
+
+    /**
+     * Claims a slot for a new event, applying a back-pressure policy if the ring buffer is full.
+     *
+     * @param policy the back-pressure policy
+     * @return the claimed position, or {@code LogRingBuffer.NONE} if the event was dropped
+     */
+    long claim(final EBackPressurePolicy policy) {
+
+        long pos = this.ring.tryClaim();
+
+        if (pos == LogRingBuffer.NONE) {
+            LockSupport.unpark(this.consumer);
+
+            if (policy == EBackPressurePolicy.DROP_AND_COUNT) {
+                this.dropped.incrementAndGet();
+                this.writer.getMetrics().recordDropped();
+            } else if (policy == EBackPressurePolicy.DROP_OLDEST) {
+                pos = claimDroppingOldest();
+            } else {
+                pos = claimBlocking();
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * Claims a slot by discarding the oldest published events until one becomes free.
+     *
+     * @return the claimed position
+     */
+    private long claimDroppingOldest() {
+
+        long pos = LogRingBuffer.NONE;
+
+        while (pos == LogRingBuffer.NONE) {
+            final long oldest = this.ring.tryConsume();
+            if (oldest == LogRingBuffer.NONE) {
+                // The oldest slot is claimed but not yet published by another producer
+                Thread.onSpinWait();
+            } else {
+                this.ring.release(oldest);
+                this.completed.incrementAndGet();
+                this.dropped.incrementAndGet();
+                this.writer.getMetrics().recordDropped();
+            }
+            pos = this.ring.tryClaim();
+        }
+
+        return pos;
+    }
+
+    /**
+     * Claims a slot by waiting until the consumer frees one. If the dispatcher is stopped while waiting, the event is
+     * dropped.
+     *
+     * @return the claimed position, or {@code LogRingBuffer.NONE} if the dispatcher stopped
+     */
+    private long claimBlocking() {
+
+        long pos = LogRingBuffer.NONE;
+        int tries = 0;
+
+        while (pos == LogRingBuffer.NONE && this.running) {
+            if (tries < SPIN_TRIES) {
+                ++tries;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.unpark(this.consumer);
+                LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+            }
+            pos = this.ring.tryClaim();
+        }
+
+        if (pos == LogRingBuffer.NONE) {
+            this.dropped.incrementAndGet();
+            this.writer.getMetrics().recordDropped();
+        }
+
+        return pos;
+    }
+
+    /**
+     * Gets the event slot for a claimed position.
+     *
+     * @param pos the position returned by {@code claim}
+     * @return the event slot to be filled in
+     */
+    LogEvent get(final long pos) {
+
+        return this.ring.get(pos);
+    }
+
+    /**
+     * Publishes a filled-in event slot and wakes the consumer if it is idle.
+     *
+     * @param pos the position returned by {@code claim}
+     */
+    void publish(final long pos) {
+
+        this.ring.publish(pos);
+
+        if (this.idle) {
+            LockSupport.unpark(this.consumer);
+        }
+    }
+
+    /**
+     * Waits until every event published before this call has been written, or until a timeout expires. This does
+     * nothing if called from the consumer thread.
+     *
+     * @param timeoutMillis the maximum number of milliseconds to wait
+     */
+    void flush(final long timeoutMillis) {
+
+        if (Thread.currentThread() != this.consumer) {
+            final long target = this.ring.getProducerPosition();
+            final long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+
+            while (this.completed.get() < target && this.consumer.isAlive() && System.nanoTime() < deadline) {
+                LockSupport.unpark(this.consumer);
+                LockSupport.parkNanos(this, FLUSH_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting events and waits (for a limited time) for the consumer to drain the events already published.
+     */
+    void stop() {
+
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+
+        if (Thread.currentThread() != this.consumer) {
+            try {
+                this.consumer.join(STOP_TIMEOUT_MS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The consumer loop. Drains and writes events until the dispatcher is stopped and no events remain.
+     */
+    @Override
+    public void run() {
+
+        while (true) {
+            long pos = this.ring.tryConsume();
+
+            if (pos == LogRingBuffer.NONE) {
+                reportDropped();
+
+                if (!this.running && this.ring.size() == 0) {
+                    break;
+                }
+
+                this.idle = true;
+                pos = this.ring.tryConsume();
+                if (pos == LogRingBuffer.NONE) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                this.idle = false;
+            }
+
+            if (pos != LogRingBuffer.NONE) {
+                final LogEvent event = this.ring.get(pos);
+                try {
+                    deliver(event);
+                } catch (final RuntimeException ex) {
+                    final String exMsg = ex.getClass().getSimpleName();
+                    final String msg = Res.fmt(Res.ASYNC_DELIVER_FAILED, exMsg);
+                    this.writer.writeConsole(msg, true);
+                } finally {
+                    this.ring.release(pos);
+                    this.completed.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Formats an event and writes it to the log writer.
+     *
+     * @param event the event
+     */
+    private void deliver(final LogEvent event) {
+
+        if (event.kind == LogEvent.RECORD) {
+            final StringBuilder builder = LogFormatBuffer.acquire();
+            try {
+                LogBase.formatEvent(builder, event, this.writer.getExceptionDeduplicator());
+                this.writer.writeRecord(event, builder);
+            } finally {
+                LogFormatBuffer.release(builder);
+            }
+        } else if (event.kind == LogEvent.LINE) {
+            this.writer.writeMessage(event.level, event.content, event.linefeed);
+        } else {
+            this.writer.writeConsole(event.level, event.content, event.linefeed);
+        }
+    }
+
+    /**
+     * Writes a message reporting the number of events dropped since the last report, if any have been dropped.
+     */
+    private void reportDropped() {
+
+        final long total = this.dropped.get();
+
+        if (total != this.droppedReported) {
+            final String countStr = Long.toString(total - this.droppedReported);
+            final String msg = Res.fmt(Res.ASYNC_DROPPED, countStr);
+            this.writer.writeMessage(msg, true);
+            this.droppedReported = total;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.CoreConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Converts binary log files (as written by {@code LogWriter} when the "log-file-format" setting is BINARY or BOTH)
+ * back to the text layout of ordinary log files.
+ */
+public final class BinaryLogConverter {
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private BinaryLogConverter() {
+
+        super();
+    }
+
+    /**
+     * Converts binary log data to text.
+     *
+     * @param in  the stream from which to read binary log data (not closed)
+     * @param out the {@code Appendable} to which to write text
+     * @return the number of records converted
+     * @throws IOException if the data could not be read or is invalid, or the text could not be written
+     */
+    public static int convert(final InputStream in, final Appendable out) throws IOException {
+
+        int count = 0;
+
+        // Not closed - that would close the caller's stream
+        final BinaryLogReader reader = new BinaryLogReader(in);
+
+        for (BinaryLogRecord rec = reader.next(); rec != null; rec = reader.next()) {
+            out.append(rec.toText());
+            if (rec.isLinefeed()) {
+                out.append(CoreConstants.CRLF);
+            }
+            ++count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Converts a binary log file to a UTF-8 text file.
+     *
+     * @param binaryFile the binary log file
+     * @param textFile   the text file to write (replaced if it exists)
+     * @return the number of records converted
+     * @throws IOException if the binary file could not be read or is invalid, or the text file could not be written
+     */
+    public static int convert(final File binaryFile, final File textFile) throws IOException {
+
+        try (final InputStream in = Files.newInputStream(binaryFile.toPath());
+             final Writer out = Files.newBufferedWriter(textFile.toPath(), StandardCharsets.UTF_8)) {
+            return convert(in, out);
+        }
+    }
+}
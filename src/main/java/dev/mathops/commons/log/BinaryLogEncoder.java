@@ -0,0 +1,289 @@
+package dev.mathops.commons.log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes log records in the compact binary log format into a reusable byte array. The format is a stream of tagged
+ * entries following a file header:
+ *
+ * <pre>
+ * header:  'M' 'L' 'O' 'G' [version byte]
+ * STRING:  0x01 [id varint] [length varint] [UTF-8 bytes]
+ * RECORD:  0x02 [millis delta zigzag varint] [severity byte] [level byte] [flags byte]
+ *               [remote address id varint] [session id varint] [user id varint] ([entries id varint])
+ *               [source id varint] [message length varint] [message UTF-8 bytes]
+ *               [trace length varint] [trace UTF-8 bytes]
+ * RESET:   0x03
+ * </pre>
+ *
+ * <p>
+ * Context values (remote address, session ID, user ID, diagnostic key/value pairs) and source locations repeat from
+ * record to record, so each distinct string is written once as a STRING entry and records refer to it by a small
+ * integer id (0 means "none"). The timestamp is stored as the difference from the previous record's timestamp, which
+ * typically needs one or two bytes. A RESET entry discards the string table and timestamp base, so a file that is
+ * appended to after a restart remains readable. A record with severity 0 is a bare line of text with no header. The
+ * id of the key/value pairs is present only if the record's FLAG_ENTRIES bit is set, so records without them are laid
+ * out as in files written before they existed.
+ *
+ * <p>
+ * This class is not thread-safe; the owning {@code LogWriter} serializes access.
+ */
+final class BinaryLogEncoder {
+
+    /** The bytes that begin a binary log file. */
+    static final byte[] MAGIC = {(byte) 'M', (byte) 'L', (byte) 'O', (byte) 'G'};
+
+    /** The format version. */
+    static final int VERSION = 1;
+
+    /** The tag of an entry that defines an interned string. */
+    static final int TAG_STRING = 0x01;
+
+    /** The tag of an entry that holds a log record. */
+    static final int TAG_RECORD = 0x02;
+
+    /** The tag of an entry that discards the string table and timestamp base. */
+    static final int TAG_RESET = 0x03;
+
+    /** The flag bit indicating a record is terminated with a line feed. */
+    static final int FLAG_LINEFEED = 0x01;
+
+    /** The flag bit indicating a record includes the id of the rendered diagnostic key/value pairs. */
+    static final int FLAG_ENTRIES = 0x02;
+
+    /** The number of interned strings after which the string table is discarded and rebuilt. */
+    private static final int MAX_STRINGS = 65_536;
+
+    /** The initial size of the byte array. */
+    private static final int INIT_SIZE = 512;
+
+    /** The low 7 bits of a varint byte. */
+    private static final int LOW_7 = 0x7F;
+
+    /** The continuation bit of a varint byte. */
+    private static final int MORE = 0x80;
+
+    /** The ids of interned strings. */
+    private final Map<String, Integer> strings;
+
+    /** The timestamp of the previous record. */
+    private long lastMillis = 0L;
+
+    /** The encoded bytes. */
+    private byte[] bytes;
+
+    /** The number of encoded bytes. */
+    private int length = 0;
+
+    /**
+     * Constructs a new {@code BinaryLogEncoder}.
+     */
+    BinaryLogEncoder() {
+
+        this.strings = new HashMap<>(256);
+        this.bytes = new byte[INIT_SIZE];
+    }
+
+    /**
+     * Gets the array holding the encoded bytes (valid up to {@code length()}).
+     *
+     * @return the array
+     */
+    byte[] getBytes() {
+
+        return this.bytes;
+    }
+
+    /**
+     * Gets the number of encoded bytes.
+     *
+     * @return the number of bytes
+     */
+    int length() {
+
+        return this.length;
+    }
+
+    /**
+     * Discards the string table and timestamp base, and encodes the entry that begins a run of records in a file: the
+     * file header if the file is empty, or a RESET entry if the records are being appended to an existing file.
+     *
+     * @param newFile {@code true} if the file is empty
+     */
+    void start(final boolean newFile) {
+
+        this.strings.clear();
+        this.lastMillis = 0L;
+        this.length = 0;
+
+        if (newFile) {
+            for (final byte b : MAGIC) {
+                writeByte((int) b);
+            }
+            writeByte(VERSION);
+        } else {
+            writeByte(TAG_RESET);
+        }
+    }
+
+    /**
+     * Encodes a record, preceded by definitions of any strings it uses that have not yet been interned.
+     *
+     * @param millis        the timestamp
+     * @param severity      the severity character (0 for a bare line of text)
+     * @param level         the level bit
+     * @param linefeed      {@code true} if the record is terminated with a line feed
+     * @param remoteAddress the remote address ({@code null} if none)
+     * @param sessionId     the session ID ({@code null} if none)
+     * @param userId        the user ID ({@code null} if none)
+     * @param source        the source location ({@code null} if none)
+     * @param message       the message content
+     * @param trace         the rendered exception information ({@code null} if none)
+     */
+    void encode(final long millis, final char severity, final int level, final boolean linefeed,
+                final String remoteAddress, final String sessionId, final String userId, final String source,
+                final String message, final String trace) {
+
+        encode(millis, severity, level, linefeed, remoteAddress, sessionId, userId, null, source, message, trace);
+    }
+
+    /**
+     * Encodes a record, preceded by definitions of any strings it uses that have not yet been interned.
+     *
+     * @param millis        the timestamp
+     * @param severity      the severity character (0 for a bare line of text)
+     * @param level         the level bit
+     * @param linefeed      {@code true} if the record is terminated with a line feed
+     * @param remoteAddress the remote address ({@code null} if none)
+     * @param sessionId     the session ID ({@code null} if none)
+     * @param userId        the user ID ({@code null} if none)
+     * @param entries       the rendered diagnostic key/value pairs ({@code null} if none)
+     * @param source        the source location ({@code null} if none)
+     * @param message       the message content
+     * @param trace         the rendered exception information ({@code null} if none)
+     */
+    void encode(final long millis, final char severity, final int level, final boolean linefeed,
+                final String remoteAddress, final String sessionId, final String userId, final String entries,
+                final String source, final String message, final String trace) {
+
+        this.length = 0;
+
+        if (this.strings.size() + 5 > MAX_STRINGS) {
+            this.strings.clear();
+            this.lastMillis = 0L;
+            writeByte(TAG_RESET);
+        }
+
+        final int remoteId = intern(remoteAddress);
+        final int sessionIdId = intern(sessionId);
+        final int userIdId = intern(userId);
+        final int entriesId = intern(entries);
+        final int sourceId = intern(source);
+
+        writeByte(TAG_RECORD);
+        final long delta = millis - this.lastMillis;
+        writeVarLong((delta << 1) ^ (delta >> 63));
+        this.lastMillis = millis;
+        writeByte((int) severity);
+        writeByte(level);
+        final int flags = (linefeed ? FLAG_LINEFEED : 0) | (entriesId == 0 ? 0 : FLAG_ENTRIES);
+        writeByte(flags);
+        writeVarLong((long) remoteId);
+        writeVarLong((long) sessionIdId);
+        writeVarLong((long) userIdId);
+        if (entriesId != 0) {
+            writeVarLong((long) entriesId);
+        }
+        writeVarLong((long) sourceId);
+        writeString(message);
+        writeString(trace);
+    }
+
+    /**
+     * Gets the id of an interned string, writing a STRING entry to define it if it has not yet been interned.
+     *
+     * @param str the string ({@code null} for none)
+     * @return the id (0 if {@code str} is {@code null})
+     */
+    private int intern(final String str) {
+
+        int id = 0;
+
+        if (str != null) {
+            final Integer existing = this.strings.get(str);
+            if (existing == null) {
+                id = this.strings.size() + 1;
+                this.strings.put(str, Integer.valueOf(id));
+                writeByte(TAG_STRING);
+                writeVarLong((long) id);
+                writeString(str);
+            } else {
+                id = existing.intValue();
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * Writes a string as a length followed by UTF-8 bytes. A {@code null} string is written as length 0.
+     *
+     * @param str the string
+     */
+    private void writeString(final String str) {
+
+        if (str == null || str.isEmpty()) {
+            writeByte(0);
+        } else {
+            final byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+            writeVarLong((long) utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, this.bytes, this.length, utf8.length);
+            this.length += utf8.length;
+        }
+    }
+
+    /**
+     * Writes an unsigned value as a variable-length integer, 7 bits per byte, least significant group first.
+     *
+     * @param value the value
+     */
+    private void writeVarLong(final long value) {
+
+        long remaining = value;
+        while ((remaining & ~(long) LOW_7) != 0L) {
+            writeByte((int) (remaining & (long) LOW_7) | MORE);
+            remaining >>>= 7;
+        }
+        writeByte((int) remaining);
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value the byte value (low 8 bits are used)
+     */
+    private void writeByte(final int value) {
+
+        ensureCapacity(1);
+        this.bytes[this.length] = (byte) value;
+        ++this.length;
+    }
+
+    /**
+     * Ensures the byte array can hold a number of additional bytes.
+     *
+     * @param count the number of additional bytes
+     */
+    private void ensureCapacity(final int count) {
+
+        final int needed = this.length + count;
+        if (needed > this.bytes.length) {
+            final int newSize = Math.max(needed, this.bytes.length << 1);
+            this.bytes = Arrays.copyOf(this.bytes, newSize);
+        }
+    }
+}
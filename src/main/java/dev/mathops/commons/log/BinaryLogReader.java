@@ -0,0 +1,243 @@
+package dev.mathops.commons.log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A streaming decoder for binary log files (see {@code BinaryLogEncoder} for the format). Records are decoded one at a
+ * time, so files of any size can be read in constant memory apart from the string table.
+ *
+ * <pre>
+ * try (BinaryLogReader reader = new BinaryLogReader(in)) {
+ *     for (BinaryLogRecord rec = reader.next(); rec != null; rec = reader.next()) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ */
+public final class BinaryLogReader implements AutoCloseable {
+
+    /** Size of the input buffer. */
+    private static final int BUF_SIZE = 8192;
+
+    /** The low 7 bits of a varint byte. */
+    private static final int LOW_7 = 0x7F;
+
+    /** The continuation bit of a varint byte. */
+    private static final int MORE = 0x80;
+
+    /** The maximum number of bits in a varint. */
+    private static final int MAX_SHIFT = 63;
+
+    /** The input. */
+    private final DataInputStream in;
+
+    /** The interned strings, indexed by id - 1. */
+    private final List<String> strings;
+
+    /** Flag indicating the file header has been read. */
+    private boolean headerRead = false;
+
+    /** The timestamp of the previous record. */
+    private long lastMillis = 0L;
+
+    /**
+     * Constructs a new {@code BinaryLogReader}.
+     *
+     * @param theIn the stream from which to read (closed when this reader is closed)
+     */
+    public BinaryLogReader(final InputStream theIn) {
+
+        this.in = new DataInputStream(new BufferedInputStream(theIn, BUF_SIZE));
+        this.strings = new ArrayList<>(256);
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record; {@code null} at the end of the stream
+     * @throws IOException if the stream could not be read, is not a binary log, or ends partway through an entry
+     */
+    public BinaryLogRecord next() throws IOException {
+
+        if (!this.headerRead) {
+            readHeader();
+            this.headerRead = true;
+        }
+
+        BinaryLogRecord result = null;
+
+        int tag = this.in.read();
+        while (tag != -1) {
+            if (tag == BinaryLogEncoder.TAG_RECORD) {
+                result = readRecord();
+                break;
+            }
+
+            if (tag == BinaryLogEncoder.TAG_STRING) {
+                final int id = (int) readVarLong();
+                final String str = readString();
+                if (id != this.strings.size() + 1) {
+                    final String msg = Res.fmt(Res.BINARY_BAD_ID, Integer.toString(id));
+                    throw new IOException(msg);
+                }
+                this.strings.add(str);
+            } else if (tag == BinaryLogEncoder.TAG_RESET) {
+                this.strings.clear();
+                this.lastMillis = 0L;
+            } else {
+                final String msg = Res.fmt(Res.BINARY_BAD_TAG, Integer.toString(tag));
+                throw new IOException(msg);
+            }
+
+            tag = this.in.read();
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads and validates the file header.
+     *
+     * @throws IOException if the stream could not be read or does not begin with a valid header
+     */
+    private void readHeader() throws IOException {
+
+        boolean valid = true;
+
+        for (final byte b : BinaryLogEncoder.MAGIC) {
+            if (this.in.read() != (int) b) {
+                valid = false;
+            }
+        }
+        if (this.in.read() != BinaryLogEncoder.VERSION) {
+            valid = false;
+        }
+
+        if (!valid) {
+            final String msg = Res.get(Res.BINARY_BAD_HEADER);
+            throw new IOException(msg);
+        }
+    }
+
+    /**
+     * Reads the body of a record entry (after its tag).
+     *
+     * @return the record
+     * @throws IOException if the stream could not be read or the record is invalid
+     */
+    private BinaryLogRecord readRecord() throws IOException {
+
+        final long zigzag = readVarLong();
+        final long delta = (zigzag >>> 1) ^ -(zigzag & 1L);
+        final long millis = this.lastMillis + delta;
+        this.lastMillis = millis;
+
+        final char severity = (char) this.in.readUnsignedByte();
+        final int level = this.in.readUnsignedByte();
+        final int flags = this.in.readUnsignedByte();
+        final String remoteAddress = lookup(readVarLong());
+        final String sessionId = lookup(readVarLong());
+        final String userId = lookup(readVarLong());
+        final String entries = (flags & BinaryLogEncoder.FLAG_ENTRIES) == 0 ? null : lookup(readVarLong());
+        final String source = lookup(readVarLong());
+        final String message = readString();
+        final String trace = readString();
+
+        final boolean linefeed = (flags & BinaryLogEncoder.FLAG_LINEFEED) != 0;
+
+        return new BinaryLogRecord(millis, severity, level, linefeed, remoteAddress, sessionId, userId, entries,
+                source, message, trace.isEmpty() ? null : trace);
+    }
+
+    /**
+     * Looks up an interned string by id.
+     *
+     * @param id the id (0 for none)
+     * @return the string; {@code null} if {@code id} is 0
+     * @throws IOException if the id has not been defined
+     */
+    private String lookup(final long id) throws IOException {
+
+        String result = null;
+
+        if (id != 0L) {
+            if (id > (long) this.strings.size()) {
+                final String msg = Res.fmt(Res.BINARY_BAD_ID, Long.toString(id));
+                throw new IOException(msg);
+            }
+            result = this.strings.get((int) id - 1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a string written as a length followed by UTF-8 bytes.
+     *
+     * @return the string (empty if the length is 0)
+     * @throws IOException if the stream could not be read
+     */
+    private String readString() throws IOException {
+
+        final int len = (int) readVarLong();
+        final String result;
+
+        if (len == 0) {
+            result = "";
+        } else {
+            final byte[] utf8 = new byte[len];
+            this.in.readFully(utf8);
+            result = new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @return the value
+     * @throws IOException if the stream could not be read or the value is too long
+     */
+    private long readVarLong() throws IOException {
+
+        long result = 0L;
+        int shift = 0;
+
+        while (true) {
+            final int b = this.in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            result |= (long) (b & LOW_7) << shift;
+            if ((b & MORE) == 0) {
+                break;
+            }
+            shift += 7;
+            if (shift > MAX_SHIFT) {
+                final String msg = Res.get(Res.BINARY_BAD_VARINT);
+                throw new IOException(msg);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException if the stream could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        this.in.close();
+    }
+}
@@ -0,0 +1,229 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.CoreConstants;
+
+/**
+ * An immutable log record read from a binary log file by {@code BinaryLogReader}. The record can be rendered in the
+ * same text layout that is written to text log files.
+ */
+public final class BinaryLogRecord {
+
+    /** The time the record was logged (epoch milliseconds). */
+    private final long millis;
+
+    /** The severity character (0 for a bare line of text). */
+    private final char severity;
+
+    /** The level bit. */
+    private final int level;
+
+    /** {@code true} if the record is terminated with a line feed. */
+    private final boolean linefeed;
+
+    /** The remote address ({@code null} if none). */
+    private final String remoteAddress;
+
+    /** The session ID ({@code null} if none). */
+    private final String sessionId;
+
+    /** The user ID ({@code null} if none). */
+    private final String userId;
+
+    /** The rendered diagnostic key/value pairs of the log context ({@code null} if none). */
+    private final String entries;
+
+    /** The source location ({@code null} if none). */
+    private final String source;
+
+    /** The message content. */
+    private final String message;
+
+    /** The rendered exception information ({@code null} if none). */
+    private final String trace;
+
+    /**
+     * Constructs a new {@code BinaryLogRecord}.
+     *
+     * @param theMillis        the time the record was logged
+     * @param theSeverity      the severity character (0 for a bare line of text)
+     * @param theLevel         the level bit
+     * @param isLinefeed       {@code true} if the record is terminated with a line feed
+     * @param theRemoteAddress the remote address ({@code null} if none)
+     * @param theSessionId     the session ID ({@code null} if none)
+     * @param theUserId        the user ID ({@code null} if none)
+     * @param theEntries       the rendered diagnostic key/value pairs ({@code null} if none)
+     * @param theSource        the source location ({@code null} if none)
+     * @param theMessage       the message content
+     * @param theTrace         the rendered exception information ({@code null} if none)
+     */
+    BinaryLogRecord(final long theMillis, final char theSeverity, final int theLevel, final boolean isLinefeed,
+                    final String theRemoteAddress, final String theSessionId, final String theUserId,
+                    final String theEntries, final String theSource, final String theMessage,
+                    final String theTrace) {
+
+        this.millis = theMillis;
+        this.severity = theSeverity;
+        this.level = theLevel;
+        this.linefeed = isLinefeed;
+        this.remoteAddress = theRemoteAddress;
+        this.sessionId = theSessionId;
+        this.userId = theUserId;
+        this.entries = theEntries;
+        this.source = theSource;
+        this.message = theMessage;
+        this.trace = theTrace;
+    }
+
+    /**
+     * Gets the time the record was logged.
+     *
+     * @return the time (epoch milliseconds)
+     */
+    public long getMillis() {
+
+        return this.millis;
+    }
+
+    /**
+     * Gets the severity character.
+     *
+     * @return the severity character (0 for a bare line of text)
+     */
+    public char getSeverity() {
+
+        return this.severity;
+    }
+
+    /**
+     * Gets the level bit.
+     *
+     * @return the level bit (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL})
+     */
+    public int getLevel() {
+
+        return this.level;
+    }
+
+    /**
+     * Tests whether the record is terminated with a line feed.
+     *
+     * @return {@code true} if the record is terminated with a line feed
+     */
+    public boolean isLinefeed() {
+
+        return this.linefeed;
+    }
+
+    /**
+     * Gets the remote address.
+     *
+     * @return the remote address ({@code null} if none)
+     */
+    public String getRemoteAddress() {
+
+        return this.remoteAddress;
+    }
+
+    /**
+     * Gets the session ID.
+     *
+     * @return the session ID ({@code null} if none)
+     */
+    public String getSessionId() {
+
+        return this.sessionId;
+    }
+
+    /**
+     * Gets the user ID.
+     *
+     * @return the user ID ({@code null} if none)
+     */
+    public String getUserId() {
+
+        return this.userId;
+    }
+
+    /**
+     * Gets the rendered diagnostic key/value pairs of the log context.
+     *
+     * @return the key/value pairs, as "key1=value1 key2=value2" ({@code null} if none)
+     */
+    public String getEntries() {
+
+        return this.entries;
+    }
+
+    /**
+     * Gets the source location.
+     *
+     * @return the source location ({@code null} if none)
+     */
+    public String getSource() {
+
+        return this.source;
+    }
+
+    /**
+     * Gets the message content.
+     *
+     * @return the message content
+     */
+    public String getMessage() {
+
+        return this.message;
+    }
+
+    /**
+     * Gets the rendered exception information.
+     *
+     * @return the exception information ({@code null} if none)
+     */
+    public String getTrace() {
+
+        return this.trace;
+    }
+
+    /**
+     * Renders the record in the layout written to text log files (without the line terminator).
+     *
+     * @return the rendered record
+     */
+    public String toText() {
+
+        final String result;
+
+        if ((int) this.severity == 0) {
+            result = this.message;
+        } else {
+            final StringBuilder builder = new StringBuilder(100);
+
+            final String ctx = this.remoteAddress == null && this.userId == null && this.entries == null ? null
+                    : LogContext.render(this.remoteAddress, this.userId, this.entries);
+            LogBase.appendHeader(builder, this.millis, ctx, this.severity);
+            builder.append(this.message);
+            if (this.source != null) {
+                builder.append(CoreConstants.SPC_CHAR);
+                builder.append(this.source);
+            }
+            if (this.trace != null) {
+                builder.append(this.trace);
+            }
+
+            result = builder.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Generates a string representation of the record.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+
+        return toText();
+    }
+}
@@ -0,0 +1,305 @@
+package dev.mathops.commons.log;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds an {@code ILogAppender} from its own bounded {@code LogRingBuffer} on its own daemon thread.
+ *
+ * <p>
+ * {@code offer} never blocks: if the buffer is full, the message is dropped and counted, and the count is reported
+ * once the appender catches up. If the appender throws, it is suspended for {@code SUSPEND_MS}, during which messages
+ * for it are discarded; the failure is reported through the owning {@code LogWriter} (which does not feed the report
+ * back to the suspended appender).
+ */
+final class BufferedAppender implements Runnable {
+
+    /** Milliseconds an appender is suspended after a failure. */
+    static final long SUSPEND_MS = 5_000L;
+
+    /** Nanoseconds the consumer parks when idle (an upper bound in case a wake-up is missed). */
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    /** Nanoseconds a flushing thread parks between checks for completion. */
+    private static final long FLUSH_PARK_NANOS = 100_000L;
+
+    /** Milliseconds to wait for the consumer to drain the buffer when stopping. */
+    private static final long STOP_TIMEOUT_MS = 5_000L;
+
+    /** The appender. */
+    private final ILogAppender appender;
+
+    /** The levels the appender accepts (cached so the check on the logging thread is a field read). */
+    private final int levels;
+
+    /** The name of the appender (the sink name under which its output is counted in the writer's metrics). */
+    private final String name;
+
+    /** The writer through which failures are reported, and whose metrics are updated. */
+    private final LogWriter writer;
+
+    /** The ring buffer. */
+    private final LogRingBuffer ring;
+
+    /** The consumer thread. */
+    private final Thread consumer;
+
+    /** The number of positions that have been consumed. */
+    private final AtomicLong completed;
+
+    /** The number of messages that have been dropped because the buffer was full. */
+    private final AtomicLong dropped;
+
+    /** The number of dropped messages already reported (accessed only by the consumer thread). */
+    private long droppedReported;
+
+    /** The time until which the appender is suspended after a failure (accessed only by the consumer thread). */
+    private long suspendedUntil;
+
+    /** Flag indicating messages have been appended since the appender was last flushed (consumer thread only). */
+    private boolean unflushed;
+
+    /** Flag indicating the sink is accepting messages. */
+    private volatile boolean running;
+
+    /** Flag indicating the consumer thread is (about to be) parked waiting for messages. */
+    private volatile boolean idle;
+
+    /**
+     * Constructs a new {@code BufferedAppender} and starts its consumer thread.
+     *
+     * @param theAppender the appender
+     * @param theCapacity the buffer capacity (rounded up to a power of 2)
+     * @param theWriter   the writer through which failures are reported, and whose metrics are updated
+     */
+    BufferedAppender(final ILogAppender theAppender, final int theCapacity, final LogWriter theWriter) {
+
+        this.appender = theAppender;
+        this.levels = theAppender.getLevels();
+        this.name = theAppender.getName();
+        this.writer = theWriter;
+        this.ring = new LogRingBuffer(theCapacity);
+        this.completed = new AtomicLong(0L);
+        this.dropped = new AtomicLong(0L);
+
+        this.consumer = new Thread(this, "mathops-log-appender-" + theAppender.getName());
+        this.consumer.setDaemon(true);
+        this.running = true;
+        this.consumer.start();
+    }
+
+    /**
+     * Gets the appender.
+     *
+     * @return the appender
+     */
+    ILogAppender getAppender() {
+
+        return this.appender;
+    }
+
+    /**
+     * Gets the number of messages dropped because the buffer was full.
+     *
+     * @return the number of dropped messages
+     */
+    long getDroppedCount() {
+
+        return this.dropped.get();
+    }
+
+    /**
+     * Tests whether the sink is being fed by the calling thread, which happens when a failure report is written.
+     *
+     * @return {@code true} if the calling thread is the consumer thread
+     */
+    boolean isConsumerThread() {
+
+        return Thread.currentThread() == this.consumer;
+    }
+
+    /**
+     * Offers a message to the appender, if the appender accepts its level. Never blocks.
+     *
+     * @param level    the level of the message
+     * @param msg      the message
+     * @param linefeed {@code true} to terminate the message with a line feed
+     */
+    void offer(final int level, final String msg, final boolean linefeed) {
+
+        if ((this.levels & level) != 0 && this.running) {
+            final long pos = this.ring.tryClaim();
+
+            if (pos == LogRingBuffer.NONE) {
+                this.dropped.incrementAndGet();
+                this.writer.getMetrics().recordDropped();
+            } else {
+                final LogEvent event = this.ring.get(pos);
+                event.kind = LogEvent.LINE;
+                event.level = level;
+                event.content = msg;
+                event.linefeed = linefeed;
+                this.ring.publish(pos);
+
+                if (this.idle) {
+                    LockSupport.unpark(this.consumer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests whether the sink would accept a message at a level (so the caller can avoid building the message if not).
+     *
+     * @param level the level
+     * @return {@code true} if the appender accepts the level and the sink is running
+     */
+    boolean accepts(final int level) {
+
+        return (this.levels & level) != 0 && this.running;
+    }
+
+    /**
+     * Waits until every message offered before this call has been passed to the appender and the appender has been
+     * flushed, or until a timeout expires.
+     *
+     * @param timeoutMillis the maximum number of milliseconds to wait
+     */
+    void flush(final long timeoutMillis) {
+
+        if (Thread.currentThread() != this.consumer) {
+            final long target = this.ring.getProducerPosition();
+            final long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+
+            while ((this.completed.get() < target || !this.idle) && this.consumer.isAlive()
+                   && System.nanoTime() < deadline) {
+                LockSupport.unpark(this.consumer);
+                LockSupport.parkNanos(this, FLUSH_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting messages, waits (for a limited time) for the consumer to drain the messages already offered, and
+     * closes the appender.
+     */
+    void stop() {
+
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+
+        if (Thread.currentThread() != this.consumer) {
+            try {
+                this.consumer.join(STOP_TIMEOUT_MS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The consumer loop. Drains messages into the appender until the sink is stopped and no messages remain, flushing
+     * the appender whenever the buffer runs empty, then closes the appender.
+     */
+    @Override
+    public void run() {
+
+        while (true) {
+            long pos = this.ring.tryConsume();
+
+            if (pos == LogRingBuffer.NONE) {
+                flushAppender();
+                reportDropped();
+
+                if (!this.running && this.ring.size() == 0) {
+                    break;
+                }
+
+                this.idle = true;
+                pos = this.ring.tryConsume();
+                if (pos == LogRingBuffer.NONE) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                this.idle = false;
+            }
+
+            if (pos != LogRingBuffer.NONE) {
+                final LogEvent event = this.ring.get(pos);
+                try {
+                    deliver(event);
+                } finally {
+                    this.ring.release(pos);
+                    this.completed.incrementAndGet();
+                }
+            }
+        }
+
+        this.appender.close();
+    }
+
+    /**
+     * Passes a message to the appender unless it is suspended, suspending it if it fails.
+     *
+     * @param event the event holding the message
+     */
+    private void deliver(final LogEvent event) {
+
+        if (System.currentTimeMillis() >= this.suspendedUntil) {
+            try {
+                this.appender.append(event.level, event.content, event.linefeed);
+                this.unflushed = true;
+                final int length = event.content.length();
+                this.writer.getMetrics().recordBytes(this.name, (long) (event.linefeed ? length + 1 : length));
+            } catch (final IOException | RuntimeException ex) {
+                suspend(ex);
+            }
+        }
+    }
+
+    /**
+     * Flushes the appender if anything has been appended since it was last flushed, suspending it if it fails.
+     */
+    private void flushAppender() {
+
+        if (this.unflushed) {
+            this.unflushed = false;
+            try {
+                this.appender.flush();
+            } catch (final IOException | RuntimeException ex) {
+                suspend(ex);
+            }
+        }
+    }
+
+    /**
+     * Suspends the appender after a failure and reports the failure.
+     *
+     * @param ex the exception thrown by the appender
+     */
+    private void suspend(final Exception ex) {
+
+        this.suspendedUntil = System.currentTimeMillis() + SUSPEND_MS;
+
+        final String name = this.appender.getName();
+        final String exName = ex.getClass().getSimpleName();
+        final String msg = Res.fmt(Res.APPENDER_FAILED, name, exName, Long.toString(SUSPEND_MS));
+        this.writer.writeMessage(LogBase.SEVERE_BIT, msg, true);
+    }
+
+    /**
+     * Reports the number of messages dropped since the last report, if any have been dropped.
+     */
+    private void reportDropped() {
+
+        final long total = this.dropped.get();
+
+        if (total != this.droppedReported) {
+            final String name = this.appender.getName();
+            final String countStr = Long.toString(total - this.droppedReported);
+            final String msg = Res.fmt(Res.APPENDER_DROPPED, name, countStr);
+            this.writer.writeMessage(LogBase.WARNING_BIT, msg, true);
+            this.droppedReported = total;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.mathops.commons.log;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An appender that writes to a print stream (by default, the system console). The stream is flushed only when the
+ * appender's buffer has been drained, so a burst of messages costs one flush.
+ */
+public final class ConsoleAppender implements ILogAppender {
+
+    /** The appender name. */
+    private final String name;
+
+    /** The levels the appender accepts. */
+    private final int levels;
+
+    /** The stream to which to write. */
+    private final PrintStream out;
+
+    /**
+     * Constructs a new {@code ConsoleAppender} that writes to the system console.
+     *
+     * @param theName   the appender name
+     * @param theLevels the levels the appender accepts (bitwise OR of constants from {@code LogBase})
+     */
+    public ConsoleAppender(final String theName, final int theLevels) {
+
+        this(theName, theLevels, new PrintStream(System.out, false, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Constructs a new {@code ConsoleAppender} that writes to a specified stream.
+     *
+     * @param theName   the appender name
+     * @param theLevels the levels the appender accepts (bitwise OR of constants from {@code LogBase})
+     * @param theOut    the stream to which to write
+     */
+    public ConsoleAppender(final String theName, final int theLevels, final PrintStream theOut) {
+
+        this.name = theName;
+        this.levels = theLevels;
+        this.out = theOut;
+    }
+
+    /**
+     * Gets the name of the appender.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+
+        return this.name;
+    }
+
+    /**
+     * Gets the levels of messages the appender accepts.
+     *
+     * @return the levels
+     */
+    @Override
+    public int getLevels() {
+
+        return this.levels;
+    }
+
+    /**
+     * Writes a message to the stream.
+     *
+     * @param level    the level of the message
+     * @param msg      the message
+     * @param linefeed {@code true} to terminate the message with a line feed
+     */
+    @Override
+    public void append(final int level, final String msg, final boolean linefeed) {
+
+        if (linefeed) {
+            this.out.println(msg);
+        } else {
+            this.out.print(msg);
+        }
+    }
+
+    /**
+     * Flushes the stream.
+     */
+    @Override
+    public void flush() {
+
+        this.out.flush();
+    }
+
+    /**
+     * Flushes the stream. The stream is not closed, since it is typically the system console.
+     */
+    @Override
+    public void close() {
+
+        this.out.flush();
+    }
+}
@@ -0,0 +1,308 @@
+package dev.mathops.commons.log;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Batches console output into a buffer that a daemon thread writes to the console, so logging threads never wait on a
+ * slow or blocked console (a redirected pipe or a container log driver, for example).
+ *
+ * <p>
+ * Logging threads append text to the active buffer under a short lock that is never held during I/O. The writer thread
+ * swaps the active buffer for a spare, writes the batch, and flushes the stream once per batch. It writes as soon as
+ * the buffer holds an eighth of its capacity, and otherwise waits at most the "log-console-flush-interval" for more
+ * output to batch.
+ *
+ * <p>
+ * While the stream is blocked (a write has been in progress for longer than the blocked threshold), messages below
+ * WARNING are dropped, keeping the remaining space for SEVERE and WARNING messages. A buffer that is filling only
+ * because a burst outpaces a working console accepts messages at every level. When the buffer is full, every message
+ * is dropped. Dropped messages are counted, and the count is written to the console once output resumes.
+ */
+final class ConsoleSink implements Runnable {
+
+    /** Milliseconds a write may be in progress before the console is considered blocked. */
+    static final long BLOCKED_MS = 1_000L;
+
+    /** The levels whose messages are kept while the console is blocked. */
+    private static final int KEEP_LEVELS = LogBase.SEVERE_BIT | LogBase.WARNING_BIT;
+
+    /** The line separator used by {@code PrintStream.println}. */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /** The stream to which to write. */
+    private final PrintStream out;
+
+    /**
+     * The source of the current log settings (read on each message, so changes to the buffer size and interval apply at
+     * once).
+     */
+    private final Supplier<LogSettings> settings;
+
+    /** The metrics in which output and dropped messages are counted. */
+    private final LogMetrics metrics;
+
+    /** Milliseconds a write may be in progress before the console is considered blocked. */
+    private final long blockedMs;
+
+    /** The lock that guards the active buffer and the counters below. */
+    private final ReentrantLock lock;
+
+    /** Signaled when the writer thread has output to write. */
+    private final Condition ready;
+
+    /** Signaled when the writer thread has written a batch. */
+    private final Condition written;
+
+    /** The buffer to which messages are appended. */
+    private StringBuilder active;
+
+    /** The buffer being written, or waiting to be swapped in (used only by the writer thread once swapped out). */
+    private StringBuilder spare;
+
+    /** The number of messages appended. */
+    private long appended = 0L;
+
+    /** The number of appended messages that have been written. */
+    private long completed = 0L;
+
+    /** The number of messages dropped. */
+    private long dropped = 0L;
+
+    /** The number of dropped messages already reported. */
+    private long droppedReported = 0L;
+
+    /** Flag indicating a write is in progress. */
+    private boolean writing = false;
+
+    /** The time the write in progress started. */
+    private long writeStart = 0L;
+
+    /** Flag indicating a caller is waiting for output to be written. */
+    private boolean flushRequested = false;
+
+    /**
+     * Constructs a new {@code ConsoleSink} and starts its writer thread.
+     *
+     * @param theOut       the stream to which to write
+     * @param theSettings  the source of the current log settings
+     * @param theMetrics   the metrics in which output and dropped messages are counted
+     * @param theBlockedMs milliseconds a write may be in progress before the console is considered blocked
+     */
+    ConsoleSink(final PrintStream theOut, final Supplier<LogSettings> theSettings, final LogMetrics theMetrics,
+                final long theBlockedMs) {
+
+        this.out = theOut;
+        this.settings = theSettings;
+        this.metrics = theMetrics;
+        this.blockedMs = theBlockedMs;
+        this.lock = new ReentrantLock();
+        this.ready = this.lock.newCondition();
+        this.written = this.lock.newCondition();
+        this.active = new StringBuilder(LogFormatBuffer.INITIAL_CAPACITY);
+        this.spare = new StringBuilder(LogFormatBuffer.INITIAL_CAPACITY);
+
+        final Thread thread = new Thread(this, "mathops-log-console");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Appends a message to the buffer, or drops it if the console is blocked or the buffer is too full to accept it.
+     *
+     * @param level    the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL}
+     *                 for messages that do not have a level, which are treated as SEVERE)
+     * @param msg      the message
+     * @param linefeed {@code true} to terminate the message with a line separator
+     * @return {@code true} if the message was accepted; {@code false} if it was dropped
+     */
+    boolean offer(final int level, final String msg, final boolean linefeed) {
+
+        final int capacity = this.settings.get().getConsoleBufferSize();
+        final int length = linefeed ? msg.length() + LINE_SEPARATOR.length() : msg.length();
+        final boolean accepted;
+
+        this.lock.lock();
+        try {
+            final int used = this.active.length();
+            final boolean keep = (level & KEEP_LEVELS) != 0;
+
+            if (used + length > capacity) {
+                accepted = false;
+            } else if (keep) {
+                accepted = true;
+            } else {
+                // Only a stalled writer justifies dropping; a burst that fills the buffer will drain
+                final boolean blocked = this.writing && System.currentTimeMillis() - this.writeStart > this.blockedMs;
+                accepted = !blocked;
+            }
+
+            if (accepted) {
+                this.active.append(msg);
+                if (linefeed) {
+                    this.active.append(LINE_SEPARATOR);
+                }
+                ++this.appended;
+
+                if (used == 0 || this.active.length() >= capacity >> 3) {
+                    this.ready.signal();
+                }
+            } else {
+                ++this.dropped;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (accepted) {
+            this.metrics.recordBytes(LogMetrics.CONSOLE, (long) length);
+        } else {
+            this.metrics.recordDropped();
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Waits until every message accepted before this call has been written, or until a timeout expires.
+     *
+     * @param timeoutMs the maximum number of milliseconds to wait
+     * @return {@code true} if all messages were written; {@code false} if the timeout expired first
+     */
+    boolean flush(final long timeoutMs) {
+
+        boolean done;
+
+        this.lock.lock();
+        try {
+            final long target = this.appended;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+            done = this.completed >= target;
+            if (!done) {
+                this.flushRequested = true;
+                this.ready.signal();
+            }
+            while (!done && remaining > 0L) {
+                remaining = this.written.awaitNanos(remaining);
+                done = this.completed >= target;
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            done = false;
+        } finally {
+            this.lock.unlock();
+        }
+
+        return done;
+    }
+
+    /**
+     * Gets the number of messages dropped.
+     *
+     * @return the number of dropped messages
+     */
+    long getDroppedCount() {
+
+        this.lock.lock();
+        try {
+            return this.dropped;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * The writer loop. Waits for output, waits up to one flush interval for more output to batch (unless the buffer
+     * holds enough to write at once or a flush was requested), then swaps buffers and writes the batch.
+     */
+    @Override
+    public void run() {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final StringBuilder batch;
+            final long batchEnd;
+
+            this.lock.lock();
+            try {
+                while (this.active.isEmpty()) {
+                    this.ready.await();
+                }
+
+                final int threshold = this.settings.get().getConsoleBufferSize() >> 3;
+                if (this.active.length() < threshold && !this.flushRequested) {
+                    final long interval = (long) this.settings.get().getConsoleFlushInterval();
+                    this.ready.await(interval, TimeUnit.MILLISECONDS);
+                }
+
+                batch = this.active;
+                this.active = this.spare;
+                this.spare = batch;
+                batchEnd = this.appended;
+                this.flushRequested = false;
+                this.writing = true;
+                this.writeStart = System.currentTimeMillis();
+            } catch (final InterruptedException ex) {
+                break;
+            } finally {
+                this.lock.unlock();
+            }
+
+            this.out.append(batch);
+            this.out.flush();
+            trim(batch);
+
+            this.lock.lock();
+            try {
+                this.writing = false;
+                this.completed = batchEnd;
+                reportDropped();
+                this.written.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Empties a written buffer, replacing it with a smaller one if it grew well beyond its initial size (so one burst
+     * does not pin a large buffer for good).
+     *
+     * @param batch the buffer
+     */
+    private void trim(final StringBuilder batch) {
+
+        final boolean large = batch.capacity() > LogFormatBuffer.INITIAL_CAPACITY << 4;
+        batch.setLength(0);
+
+        if (large) {
+            this.lock.lock();
+            try {
+                if (this.spare == batch) {
+                    this.spare = new StringBuilder(LogFormatBuffer.INITIAL_CAPACITY);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Appends a report of the number of messages dropped since the last report, if any, to the active buffer, to be
+     * written with the next batch. Called only by the writer thread while holding the lock.
+     */
+    private void reportDropped() {
+
+        if (this.dropped != this.droppedReported) {
+            final String countStr = Long.toString(this.dropped - this.droppedReported);
+            final String msg = Res.fmt(Res.CONSOLE_DROPPED, countStr);
+            this.active.append(msg).append(LINE_SEPARATOR);
+            ++this.appended;
+            this.droppedReported = this.dropped;
+            this.ready.signal();
+        }
+    }
+}
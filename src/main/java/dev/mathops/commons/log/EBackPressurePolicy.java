@@ -0,0 +1,39 @@
+package dev.mathops.commons.log;
+
+/**
+ * Policies that govern what a logging thread does when the asynchronous log ring buffer is full.
+ */
+public enum EBackPressurePolicy {
+
+    /** The logging thread waits until the background consumer frees a slot. No messages are lost. */
+    BLOCK,
+
+    /** The oldest unconsumed message is discarded (and counted) to make room for the new message. */
+    DROP_OLDEST,
+
+    /** The new message is discarded and counted. The logging thread never waits. */
+    DROP_AND_COUNT;
+
+    /**
+     * Finds the policy whose name matches a string, ignoring case.
+     *
+     * @param name the name
+     * @return the matching policy; {@code null} if none matches
+     */
+    public static EBackPressurePolicy forName(final String name) {
+
+        EBackPressurePolicy result = null;
+
+        if (name != null) {
+            final String trimmed = name.trim();
+            for (final EBackPressurePolicy value : values()) {
+                if (value.name().equalsIgnoreCase(trimmed)) {
+                    result = value;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+}
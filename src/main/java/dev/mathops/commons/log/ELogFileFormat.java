@@ -0,0 +1,59 @@
+package dev.mathops.commons.log;
+
+/**
+ * Formats in which log records are written to log files.
+ */
+public enum ELogFileFormat {
+
+    /** Records are written as text to [fileNameBase].log. */
+    TEXT,
+
+    /** Records are written in the compact binary format to [fileNameBase].logb. */
+    BINARY,
+
+    /** Records are written both as text and in the binary format. */
+    BOTH;
+
+    /**
+     * Tests whether the format includes the text log file.
+     *
+     * @return {@code true} if records are written as text
+     */
+    public boolean writesText() {
+
+        return this != BINARY;
+    }
+
+    /**
+     * Tests whether the format includes the binary log file.
+     *
+     * @return {@code true} if records are written in the binary format
+     */
+    public boolean writesBinary() {
+
+        return this != TEXT;
+    }
+
+    /**
+     * Finds the format whose name matches a string, ignoring case.
+     *
+     * @param name the name
+     * @return the matching format; {@code null} if none matches
+     */
+    public static ELogFileFormat forName(final String name) {
+
+        ELogFileFormat result = null;
+
+        if (name != null) {
+            final String trimmed = name.trim();
+            for (final ELogFileFormat value : values()) {
+                if (value.name().equalsIgnoreCase(trimmed)) {
+                    result = value;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -10,6 +10,9 @@ enum ELogSetting {
     /** The set of log levels enabled. */
     LOG_LEVELS("log-levels", "ALL"),
 
+    /** The set of log levels for which the source (class and line) of each message is captured and logged. */
+    SOURCE_LEVELS("log-source-levels", "ALL"),
+
     /** Boolean flag indicating log messages should be written to the console. */
     LOG_TO_CONSOLE("log-to-console", "true"),
 
@@ -29,7 +32,87 @@ enum ELogSetting {
     FILE_NAME_BASE("log-file-name-base", Installations.ZIRCON),
 
     /** Boolean flag indicating log messages should append to existing file at startup. */
-    FILE_APPEND("log-file-append", "true");
+    FILE_APPEND("log-file-append", "true"),
+
+    /**
+     * Schedule on which log files are rotated at wall-clock boundaries, regardless of size: NONE, HOURLY, or DAILY. At
+     * startup, a log file last written in an earlier period is rotated before it is appended to.
+     */
+    ROTATE_SCHEDULE("log-rotate-schedule", "NONE"),
+
+    /**
+     * Boolean flag indicating rotated log files should be archived under names carrying the time of rotation rather
+     * than renamed down a numbered chain. The remaining archive settings apply only to timestamped archives.
+     */
+    ARCHIVE_TIMESTAMPED("log-archive-timestamped", "false"),
+
+    /** Boolean flag indicating timestamped archives should be compressed with GZIP in the background. */
+    ARCHIVE_COMPRESS("log-archive-compress", "false"),
+
+    /** Maximum age (in days) of timestamped archives to retain (0 for no limit). */
+    ARCHIVE_MAX_AGE("log-archive-max-age", "0"),
+
+    /** Maximum total size (in megabytes) of timestamped archives to retain (0 for no limit). */
+    ARCHIVE_MAX_TOTAL_SIZE("log-archive-max-total-size", "0"),
+
+    /** Number of bytes of log file output to buffer before writing (0 to write every message immediately). */
+    FILE_FLUSH_SIZE("log-file-flush-size", "0"),
+
+    /**
+     * Maximum milliseconds buffered log file output may wait before being written (and, for unbuffered output, the
+     * interval at which writes check whether the log file was moved away).
+     */
+    FILE_FLUSH_INTERVAL("log-file-flush-interval", "1000"),
+
+    /**
+     * Format of log files: TEXT ([fileNameBase].log), BINARY (a compact binary [fileNameBase].logb), or BOTH. Binary
+     * files are always archived in numbered sequence, and can be converted to text with {@code BinaryLogConverter}.
+     */
+    FILE_FORMAT("log-file-format", "TEXT"),
+
+    /**
+     * Boolean flag indicating a sidecar index ([fileNameBase].log.idx) mapping the time, level, session, and user of
+     * each record to its offset should be written alongside each text log file, for {@code LogSearch}.
+     */
+    FILE_INDEX("log-file-index", "false"),
+
+    /**
+     * Levels of records also written to their own file, [fileNameBase]_errors.log (for example, "SEVERE,WARNING"; NONE
+     * to write no such file). These records are written to that file on the logging thread as they are logged, without
+     * buffering and ahead of the asynchronous dispatcher, and SEVERE records are forced to the storage device.
+     */
+    ERROR_FILE_LEVELS("log-error-file-levels", "NONE"),
+
+    /**
+     * Seconds during which repeats of an exception with the same stack trace are logged as a one-line reference rather
+     * than in full, with a summary of repeat counts each period (0, the default, to log every stack trace in full).
+     */
+    EXCEPTION_DEDUP_WINDOW("log-exception-dedup-window", "0"),
+
+    /** Boolean flag indicating log messages should be written by a background thread rather than the caller. */
+    ASYNC("log-async", "false"),
+
+    /** Capacity of the asynchronous log ring buffer (rounded up to a power of 2). */
+    ASYNC_CAPACITY("log-async-capacity", "8192"),
+
+    /** Policy when the asynchronous log ring buffer is full: BLOCK, DROP_OLDEST, or DROP_AND_COUNT. */
+    ASYNC_POLICY("log-async-policy", "BLOCK"),
+
+    /**
+     * Number of characters of console output to buffer for a background thread to write (0, the default, to write each
+     * message to the console before returning). While a buffered console is blocked, messages below WARNING are
+     * dropped.
+     */
+    CONSOLE_BUFFER_SIZE("log-console-buffer-size", "0"),
+
+    /** Maximum milliseconds buffered console output may wait before being written. */
+    CONSOLE_FLUSH_INTERVAL("log-console-flush-interval", "50"),
+
+    /**
+     * Boolean flag indicating the installation's configuration file should be watched, and the log settings reloaded
+     * whenever it changes.
+     */
+    WATCH_SETTINGS("log-watch-settings", "true");
 
     /** The key used to refer to the path. */
     public final String key;
@@ -0,0 +1,77 @@
+package dev.mathops.commons.log;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Schedules on which log files are rotated regardless of their size, at wall-clock boundaries in the default time zone.
+ */
+public enum ERotationSchedule {
+
+    /** Log files are rotated only when they exceed the size limit. */
+    NONE(null),
+
+    /** Log files are rotated at the start of each hour. */
+    HOURLY(ChronoUnit.HOURS),
+
+    /** Log files are rotated at midnight. */
+    DAILY(ChronoUnit.DAYS);
+
+    /** The unit to which boundaries are aligned ({@code null} if there are no boundaries). */
+    private final ChronoUnit unit;
+
+    /**
+     * Constructs a new {@code ERotationSchedule}.
+     *
+     * @param theUnit the unit to which boundaries are aligned ({@code null} if there are no boundaries)
+     */
+    ERotationSchedule(final ChronoUnit theUnit) {
+
+        this.unit = theUnit;
+    }
+
+    /**
+     * Gets the start of the period that contains a time: the most recent boundary at or before the time.
+     *
+     * @param time the time
+     * @return the start of the period; {@code null} if this schedule has no boundaries
+     */
+    public ZonedDateTime periodStart(final ZonedDateTime time) {
+
+        return this.unit == null ? null : time.truncatedTo(this.unit);
+    }
+
+    /**
+     * Gets the first boundary strictly after a time.
+     *
+     * @param time the time
+     * @return the next boundary; {@code null} if this schedule has no boundaries
+     */
+    public ZonedDateTime nextBoundary(final ZonedDateTime time) {
+
+        return this.unit == null ? null : time.truncatedTo(this.unit).plus(1L, this.unit);
+    }
+
+    /**
+     * Finds the schedule whose name matches a string, ignoring case.
+     *
+     * @param name the name
+     * @return the matching schedule; {@code null} if none matches
+     */
+    public static ERotationSchedule forName(final String name) {
+
+        ERotationSchedule result = null;
+
+        if (name != null) {
+            final String trimmed = name.trim();
+            for (final ERotationSchedule value : values()) {
+                if (value.name().equalsIgnoreCase(trimmed)) {
+                    result = value;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+}
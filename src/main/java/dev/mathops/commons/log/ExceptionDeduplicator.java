@@ -0,0 +1,308 @@
+package dev.mathops.commons.log;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks exceptions by a fingerprint of their stack frames so that repeated stack traces need not be rendered again.
+ * The first occurrence of a fingerprint within the "log-exception-dedup-window" is rendered in full (tagged with the
+ * fingerprint id); later occurrences within the window are rendered as a one-line reference to that id with a repeat
+ * count. A periodic task (on the shared {@code LogScheduler} thread) writes a summary of how many times each
+ * fingerprint repeated, and forgets fingerprints that have not been seen for a while.
+ *
+ * <p>
+ * The fingerprint covers the class names and frames (class, method, and line) of the exception and its causes, but not
+ * the messages, which often carry values that differ from one occurrence to the next.
+ */
+final class ExceptionDeduplicator {
+
+    /** The maximum number of fingerprints tracked; exceptions beyond this are always rendered in full. */
+    private static final int MAX_FINGERPRINTS = 1024;
+
+    /** The initial value of the fingerprint hash (the 64-bit FNV offset basis). */
+    private static final long HASH_SEED = 0xCBF29CE484222325L;
+
+    /** The multiplier of the fingerprint hash (the 64-bit FNV prime). */
+    private static final long HASH_PRIME = 0x100000001B3L;
+
+    /** The number of hexadecimal digits in a fingerprint id. */
+    private static final int ID_DIGITS = 8;
+
+    /** Milliseconds per second. */
+    private static final long MS_PER_SEC = 1000L;
+
+    /** The writer to which summaries are written. */
+    private final LogWriter writer;
+
+    /** The tracked fingerprints, keyed on the fingerprint hash. */
+    private final Map<Long, Fingerprint> fingerprints;
+
+    /** A lock that governs scheduling of the summary task. */
+    private final ReentrantLock scheduleLock;
+
+    /** The periodic summary task ({@code null} if not scheduled). */
+    private ScheduledFuture<?> summaryTask = null;
+
+    /** The period of the summary task, in milliseconds. */
+    private long summaryPeriod = 0L;
+
+    /**
+     * Constructs a new {@code ExceptionDeduplicator}.
+     *
+     * @param theWriter the writer to which summaries are written
+     */
+    ExceptionDeduplicator(final LogWriter theWriter) {
+
+        this.writer = theWriter;
+        this.fingerprints = new ConcurrentHashMap<>(64);
+        this.scheduleLock = new ReentrantLock();
+    }
+
+    /**
+     * Gets the deduplication window from the log settings.
+     *
+     * @return the window, in milliseconds (0 if deduplication is disabled)
+     */
+    private long getWindowMillis() {
+
+        return (long) this.writer.getSettings().getExceptionDedupWindow() * MS_PER_SEC;
+    }
+
+    /**
+     * Records an occurrence of an exception.
+     *
+     * @param thrown the exception
+     * @return the fingerprint of the exception, with its count updated; {@code null} if deduplication is disabled or
+     *         the fingerprint could not be tracked (in which case the exception should be rendered in full, untagged)
+     */
+    Occurrence record(final Throwable thrown) {
+
+        Occurrence result = null;
+
+        final long window = getWindowMillis();
+        if (window > 0L) {
+            final long key = computeHash(thrown);
+            final Long boxedKey = Long.valueOf(key);
+
+            Fingerprint fingerprint = this.fingerprints.get(boxedKey);
+            if (fingerprint == null && this.fingerprints.size() < MAX_FINGERPRINTS) {
+                final Fingerprint created = new Fingerprint(key, thrown);
+                final Fingerprint existing = this.fingerprints.putIfAbsent(boxedKey, created);
+                fingerprint = existing == null ? created : existing;
+                ensureSummaryTask(window);
+            }
+
+            if (fingerprint != null) {
+                final long count = fingerprint.occur(System.currentTimeMillis(), window);
+                result = new Occurrence(fingerprint.id, count);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Schedules the summary task if it is not scheduled, or reschedules it if the window has changed.
+     *
+     * @param window the window, in milliseconds
+     */
+    private void ensureSummaryTask(final long window) {
+
+        this.scheduleLock.lock();
+        try {
+            if (this.summaryTask == null || this.summaryPeriod != window) {
+                if (this.summaryTask != null) {
+                    this.summaryTask.cancel(false);
+                }
+                this.summaryTask = LogScheduler.scheduleAtFixedRate(this::summarize, window);
+                this.summaryPeriod = window;
+            }
+        } finally {
+            this.scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a summary line for each fingerprint that has repeated since the last summary, and forgets fingerprints not
+     * seen for two windows. Called periodically by the log scheduler.
+     */
+    void summarize() {
+
+        final long now = System.currentTimeMillis();
+        final long window = this.summaryPeriod;
+        final String secondsStr = Long.toString(window / MS_PER_SEC);
+
+        final Iterator<Fingerprint> iter = this.fingerprints.values().iterator();
+        while (iter.hasNext()) {
+            final Fingerprint fingerprint = iter.next();
+            final long repeats = fingerprint.repeats.sumThenReset();
+
+            if (repeats > 0L) {
+                final String countStr = Long.toString(repeats);
+                final String msg = Res.fmt(Res.EXCEPTION_SUMMARY, fingerprint.id, fingerprint.label, countStr,
+                        secondsStr);
+                final StringBuilder builder = new StringBuilder(100);
+                LogBase.appendHeader(builder, now, null, Log.WARNING);
+                builder.append(msg);
+                this.writer.writeMessage(LogBase.WARNING_BIT, builder.toString(), true);
+            } else if (now - fingerprint.lastSeen > window << 1) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Computes the fingerprint hash of an exception from the class names and stack frames of the exception and its
+     * causes.
+     *
+     * @param thrown the exception
+     * @return the hash
+     */
+    static long computeHash(final Throwable thrown) {
+
+        long hash = HASH_SEED;
+
+        Throwable current = thrown;
+        while (current != null) {
+            hash = mix(hash, current.getClass().getName().hashCode());
+            for (final StackTraceElement frame : current.getStackTrace()) {
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getLineNumber());
+            }
+            current = current.getCause();
+        }
+
+        return hash;
+    }
+
+    /**
+     * Mixes a value into a hash.
+     *
+     * @param hash  the hash
+     * @param value the value
+     * @return the updated hash
+     */
+    private static long mix(final long hash, final int value) {
+
+        return (hash ^ (long) value) * HASH_PRIME;
+    }
+
+    /**
+     * Builds the printable id of a fingerprint hash.
+     *
+     * @param hash the hash
+     * @return the id (8 hexadecimal digits)
+     */
+    private static String makeId(final long hash) {
+
+        final String hex = Integer.toHexString((int) (hash ^ (hash >>> 32)));
+        final StringBuilder builder = new StringBuilder(ID_DIGITS);
+        for (int i = hex.length(); i < ID_DIGITS; ++i) {
+            builder.append('0');
+        }
+        builder.append(hex);
+
+        return builder.toString();
+    }
+
+    /**
+     * The result of recording an exception occurrence.
+     */
+    static final class Occurrence {
+
+        /** The fingerprint id. */
+        final String id;
+
+        /**
+         * The number of occurrences in the current window, including this one (1 if the exception should be rendered
+         * in full).
+         */
+        final long count;
+
+        /**
+         * Constructs a new {@code Occurrence}.
+         *
+         * @param theId    the fingerprint id
+         * @param theCount the number of occurrences in the current window
+         */
+        Occurrence(final String theId, final long theCount) {
+
+            this.id = theId;
+            this.count = theCount;
+        }
+    }
+
+    /**
+     * A tracked fingerprint.
+     */
+    private static final class Fingerprint {
+
+        /** The printable id. */
+        final String id;
+
+        /** A label for summaries: the simple class name and message of the first occurrence. */
+        final String label;
+
+        /** The start of the current window. */
+        private final AtomicLong windowStart;
+
+        /** The number of occurrences in the current window. */
+        private final AtomicLong windowCount;
+
+        /** The number of repeats (occurrences rendered as references) since the last summary. */
+        final LongAdder repeats;
+
+        /** The time of the most recent occurrence. */
+        volatile long lastSeen;
+
+        /**
+         * Constructs a new {@code Fingerprint}.
+         *
+         * @param theHash the fingerprint hash
+         * @param thrown  the first exception with the fingerprint
+         */
+        Fingerprint(final long theHash, final Throwable thrown) {
+
+            this.id = makeId(theHash);
+
+            final String simpleName = thrown.getClass().getSimpleName();
+            final String msg = thrown.getLocalizedMessage();
+            this.label = msg == null ? simpleName : simpleName + ": " + msg;
+
+            this.windowStart = new AtomicLong(Long.MIN_VALUE);
+            this.windowCount = new AtomicLong(0L);
+            this.repeats = new LongAdder();
+        }
+
+        /**
+         * Records an occurrence, starting a new window if the current one has expired.
+         *
+         * @param now    the current time
+         * @param window the window, in milliseconds
+         * @return the number of occurrences in the current window, including this one
+         */
+        long occur(final long now, final long window) {
+
+            this.lastSeen = now;
+
+            final long start = this.windowStart.get();
+            final long count;
+
+            if ((start == Long.MIN_VALUE || now - start >= window) && this.windowStart.compareAndSet(start, now)) {
+                this.windowCount.set(1L);
+                count = 1L;
+            } else {
+                count = this.windowCount.incrementAndGet();
+                this.repeats.increment();
+            }
+
+            return count;
+        }
+    }
+}
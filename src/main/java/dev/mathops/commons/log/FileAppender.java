@@ -0,0 +1,181 @@
+package dev.mathops.commons.log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * An appender that writes to its own rotating log file, independent of the file output built into {@code LogWriter}.
+ * Messages are written to [filenameBase].log in a given directory; when that file exceeds a size limit it is rotated to
+ * numbered archives ([filenameBase]_001.log and so on) exactly as the main log file is. For example, an appender
+ * accepting only {@code LogBase.SEVERE_BIT} keeps severe messages in a small file of their own.
+ *
+ * <p>
+ * Output is buffered up to a flush size, and the buffer is written whenever the appender's queue has been drained, so
+ * messages reach the file promptly even when the flush size is large.
+ */
+public final class FileAppender implements ILogAppender {
+
+    /** File extension for log files. */
+    private static final String EXTENSION = ".log";
+
+    /** The appender name. */
+    private final String name;
+
+    /** The levels the appender accepts. */
+    private final int levels;
+
+    /** The directory in which to write log files. */
+    private final File dir;
+
+    /** The base of log filenames. */
+    private final String filenameBase;
+
+    /** The active log file. */
+    private final File file;
+
+    /** The size at which the active file is rotated. */
+    private final long sizeLimit;
+
+    /** The maximum number of archives to retain. */
+    private final int fileCount;
+
+    /** The number of bytes to buffer before writing (0 to write each message). */
+    private final int flushSize;
+
+    /** The open channel to the active file ({@code null} if not open). */
+    private LogFileChannel channel = null;
+
+    /**
+     * Constructs a new {@code FileAppender}.
+     *
+     * @param theName         the appender name
+     * @param theLevels       the levels the appender accepts (bitwise OR of constants from {@code LogBase})
+     * @param theDir          the directory in which to write log files (created if it does not exist)
+     * @param theFilenameBase the base of log filenames
+     * @param theSizeLimit    the size, in bytes, at which the active file is rotated
+     * @param theFileCount    the maximum number of archives to retain
+     * @param theFlushSize    the number of bytes to buffer before writing (0 to write each message)
+     */
+    public FileAppender(final String theName, final int theLevels, final File theDir, final String theFilenameBase,
+                        final long theSizeLimit, final int theFileCount, final int theFlushSize) {
+
+        this.name = theName;
+        this.levels = theLevels;
+        this.dir = theDir;
+        this.filenameBase = theFilenameBase;
+        this.file = new File(theDir, theFilenameBase + EXTENSION);
+        this.sizeLimit = theSizeLimit;
+        this.fileCount = theFileCount;
+        this.flushSize = theFlushSize;
+    }
+
+    /**
+     * Gets the name of the appender.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+
+        return this.name;
+    }
+
+    /**
+     * Gets the levels of messages the appender accepts.
+     *
+     * @return the levels
+     */
+    @Override
+    public int getLevels() {
+
+        return this.levels;
+    }
+
+    /**
+     * Gets the active log file.
+     *
+     * @return the file
+     */
+    public File getFile() {
+
+        return this.file;
+    }
+
+    /**
+     * Writes a message to the active file, rotating the file if it has exceeded its size limit.
+     *
+     * @param level    the level of the message
+     * @param msg      the message
+     * @param linefeed {@code true} to terminate the message with a line feed
+     * @throws IOException if the message could not be written
+     */
+    @Override
+    public void append(final int level, final String msg, final boolean linefeed) throws IOException {
+
+        if (this.channel == null) {
+            if (!this.dir.exists() && !this.dir.mkdirs()) {
+                final String path = this.dir.getAbsolutePath();
+                final String errMsg = Res.fmt(Res.CANT_MK_LOG_DIR, path);
+                throw new IOException(errMsg);
+            }
+            this.channel = new LogFileChannel(this.file);
+        }
+
+        try {
+            this.channel.write(msg, linefeed, this.flushSize, 0L);
+        } catch (final IOException ex) {
+            close();
+            throw ex;
+        }
+
+        if (this.channel.size() > this.sizeLimit) {
+            rotate();
+        }
+    }
+
+    /**
+     * Closes the active file and rotates it into the numbered archives.
+     *
+     * @throws IOException if the file could not be closed or rotated
+     */
+    private void rotate() throws IOException {
+
+        final LogFileChannel toClose = this.channel;
+        this.channel = null;
+        toClose.close();
+
+        final String error = LogRotator.rotateLogs(this.dir, this.filenameBase, (long) this.fileCount, this.file);
+        if (error != null) {
+            throw new IOException(error);
+        }
+    }
+
+    /**
+     * Writes any buffered output to the file.
+     *
+     * @throws IOException if the output could not be written
+     */
+    @Override
+    public void flush() throws IOException {
+
+        if (this.channel != null) {
+            this.channel.flush();
+        }
+    }
+
+    /**
+     * Writes any buffered output and closes the file.
+     */
+    @Override
+    public void close() {
+
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (final IOException ex) {
+                // No action - the appender is being discarded
+            }
+            this.channel = null;
+        }
+    }
+}
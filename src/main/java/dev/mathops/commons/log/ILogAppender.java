@@ -0,0 +1,55 @@
+package dev.mathops.commons.log;
+
+import java.io.IOException;
+
+/**
+ * A destination for log messages, in addition to the console and rotating file output built into {@code LogWriter}.
+ *
+ * <p>
+ * Appenders are registered with {@code LogWriter.addAppender}. Each registered appender receives only messages whose
+ * level is among its levels, and is fed from its own bounded buffer by its own thread, so a slow appender cannot delay
+ * logging threads or other appenders (if its buffer fills, messages for that appender are dropped and counted). An
+ * appender that throws is suspended for a while, then retried, without affecting any other output.
+ *
+ * <p>
+ * Methods of an appender are called only from its own thread, so implementations need not be thread-safe.
+ */
+public interface ILogAppender {
+
+    /**
+     * Gets the name of the appender, used to identify it when it is removed and in error messages.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Gets the levels of messages the appender accepts.
+     *
+     * @return the levels (bitwise OR of constants from {@code LogBase})
+     */
+    int getLevels();
+
+    /**
+     * Writes a message.
+     *
+     * @param level    the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL}
+     *                 for messages that do not have a level)
+     * @param msg      the message
+     * @param linefeed {@code true} to terminate the message with a line feed
+     * @throws IOException if the message could not be written
+     */
+    void append(int level, String msg, boolean linefeed) throws IOException;
+
+    /**
+     * Writes any buffered output. Called whenever the appender's buffer has been drained.
+     *
+     * @throws IOException if the output could not be written
+     */
+    void flush() throws IOException;
+
+    /**
+     * Writes any buffered output and releases resources. Called once, when the appender is removed or at VM exit.
+     */
+    void close();
+}
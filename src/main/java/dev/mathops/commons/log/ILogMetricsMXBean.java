@@ -0,0 +1,94 @@
+package dev.mathops.commons.log;
+
+import java.util.Map;
+
+/**
+ * The management interface through which {@code LogMetrics} are published over JMX. Durations are in nanoseconds;
+ * percentiles are accurate to within a factor of two (see {@code LogLatencyHistogram}).
+ */
+public interface ILogMetricsMXBean {
+
+    /**
+     * Gets the number of messages written at each level.
+     *
+     * @return a map from level name to message count
+     */
+    Map<String, Long> getMessageCounts();
+
+    /**
+     * Gets the amount of output written to each sink.
+     *
+     * @return a map from sink name to the number of bytes (characters for the console and appenders) written
+     */
+    Map<String, Long> getBytesWritten();
+
+    /**
+     * Gets the number of messages written.
+     *
+     * @return the number of messages
+     */
+    long getWriteCount();
+
+    /**
+     * Gets the mean time spent writing a message, including waiting for the writer lock.
+     *
+     * @return the mean time, in nanoseconds
+     */
+    long getWriteTimeMeanNanos();
+
+    /**
+     * Gets the 99th percentile of the time spent writing a message, including waiting for the writer lock.
+     *
+     * @return the 99th percentile time, in nanoseconds
+     */
+    long getWriteTimeP99Nanos();
+
+    /**
+     * Gets the longest time spent writing a message, including waiting for the writer lock.
+     *
+     * @return the maximum time, in nanoseconds
+     */
+    long getWriteTimeMaxNanos();
+
+    /**
+     * Gets the total time spent waiting for the writer lock.
+     *
+     * @return the total wait time, in nanoseconds
+     */
+    long getLockWaitTotalNanos();
+
+    /**
+     * Gets the 99th percentile of the time spent waiting for the writer lock.
+     *
+     * @return the 99th percentile wait time, in nanoseconds
+     */
+    long getLockWaitP99Nanos();
+
+    /**
+     * Gets the longest time spent waiting for the writer lock.
+     *
+     * @return the maximum wait time, in nanoseconds
+     */
+    long getLockWaitMaxNanos();
+
+    /**
+     * Gets the number of log file rotations performed.
+     *
+     * @return the number of rotations
+     */
+    long getRotations();
+
+    /**
+     * Gets the number of messages dropped because an asynchronous or appender buffer was full.
+     *
+     * @return the number of dropped messages
+     */
+    long getDropped();
+
+    /**
+     * Gets the number of messages suppressed by rate limits.
+     *
+     * @return the number of suppressed messages
+     */
+    long getSuppressed();
+}
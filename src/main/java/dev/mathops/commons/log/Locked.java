@@ -1,24 +1,70 @@
 package dev.mathops.commons.log;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
 /**
  * A logged object that manages a read lock and a write lock. Only one thread may hold the write lock at a given time,
- * and only when there are no read locks, but multiple threads may hold read locks.  This assumes there is no write
- * lock. That is, the object can be written (mutated) by only one thread, but multiple threads can access the object
- * knowing that it will not be mutated at the same time.
+ * and only when there are no read locks, but multiple threads may hold read locks. That is, the object can be written
+ * (mutated) by only one thread, but multiple threads can access the object knowing that it will not be mutated at the
+ * same time.
+ *
+ * <p>
+ * The locks are built on a {@code StampedLock}, so read locks are shared and taking one is a single atomic update when
+ * no writer is active. Both locks are reentrant: a thread may take the write lock or a read lock more than once, and a
+ * thread holding the write lock may also read. A read lock cannot be upgraded to a write lock (a thread holding only a
+ * read lock that asks for the write lock gets an {@code IllegalStateException} rather than a deadlock).
+ *
+ * <p>
+ * Writers are preferred: while a thread is waiting for the write lock, threads that do not already hold a read lock
+ * wait before taking one, so a steady stream of readers cannot starve a writer.
+ *
+ * <p>
+ * For very short reads, {@code tryOptimisticRead} and {@code validate} allow reading without taking a lock at all:
+ *
+ * <pre>
+ * long stamp = locked.tryOptimisticRead();
+ * int value = this.field;
+ * if (!locked.validate(stamp)) {
+ *     locked.readLock();
+ *     try {
+ *         value = this.field;
+ *     } finally {
+ *         locked.readUnlock();
+ *     }
+ * }
+ * </pre>
  */
 public class Locked {
 
-    /** Object on which to synchronize access to locking mechanism. */
-    private final Object lockSynch;
+    /** The lock that provides the read and write locks. */
+    private final StampedLock stamped;
+
+    /** The number of threads waiting for the write lock. */
+    private final AtomicInteger waitingWriters;
+
+    /** Lock that guards the wait for waiting writers to be served. */
+    private final ReentrantLock gate;
 
-    /** The number of currently held read locks. */
-    private final int numReaders;
+    /** Condition signaled when no threads are waiting for the write lock. */
+    private final Condition writersServed;
 
-    /** The number of currently held write locks (all by the same thread). */
+    /**
+     * The number of read locks held by each thread. Each thread's holder is made on its first use and kept (its count
+     * returns to zero when the thread holds no read lock), so taking and releasing locks allocates nothing.
+     */
+    private final ThreadLocal<int[]> readHolds;
+
+    /** The stamp of the write lock (valid while {@code curWriter} is not null). */
+    private long writeStamp = 0L;
+
+    /** The number of currently held write locks (all by the same thread; used only by that thread). */
     private int numWriters;
 
     /** The thread currently holding any open write locks. */
-    private Thread curWriter = null;
+    private volatile Thread curWriter = null;
 
     /**
      * Flag indicating the object is notifying listeners of a mutation.  This is done without write locks held, but if a
@@ -34,10 +80,13 @@ public class Locked {
 
         super();
 
-        this.numReaders = 0;
         this.numWriters = 0;
         this.notifying = false;
-        this.lockSynch = new Object();
+        this.stamped = new StampedLock();
+        this.waitingWriters = new AtomicInteger(0);
+        this.gate = new ReentrantLock();
+        this.writersServed = this.gate.newCondition();
+        this.readHolds = ThreadLocal.withInitial(() -> new int[1]);
     }
 
     /**
@@ -49,51 +98,69 @@ public class Locked {
      * <p>
      * Calls to {@code writeLock} must be balanced with calls to {@code writeUnlock}, else the protected data will be
      * left in a locked state so that no reading or writing can be done.
+     *
+     * @throws IllegalStateException if called from within listener notification, or by a thread that holds a read lock
+     *                               but not the write lock
      */
     public final void writeLock() {
 
         final Thread curThread = Thread.currentThread();
 
-        synchronized (this.lockSynch) {
+        if (curThread == this.curWriter) {
+            if (this.notifying) {
+                final String msg = Res.get(Res.MUT_IN_NOTIFY);
+                throw new IllegalStateException(msg);
+            }
+            ++this.numWriters;
+        } else {
+            if (this.readHolds.get()[0] > 0) {
+                final String msg = Res.get(Res.LOCK_UPGRADE);
+                throw new IllegalStateException(msg);
+            }
+            this.waitingWriters.incrementAndGet();
+            final long stamp;
             try {
-                while (this.numReaders > 0 || this.curWriter != null) {
-
-                    if (curThread == this.curWriter) {
-                        if (this.notifying) {
-                            final String msg = Res.get(Res.MUT_IN_NOTIFY);
-                            throw new IllegalStateException(msg);
-                        }
-
-                        ++this.numWriters;
-                        return;
-                    }
-
-                    this.lockSynch.wait();
+                stamp = this.stamped.writeLock();
+            } finally {
+                if (this.waitingWriters.decrementAndGet() == 0) {
+                    signalWritersServed();
                 }
-
-                this.curWriter = curThread;
-                this.numWriters = 1;
-            } catch (final InterruptedException ex) {
-
-                // Restore the interrupted status
-                curThread.interrupt();
             }
+
+            this.writeStamp = stamp;
+            this.numWriters = 1;
+            this.curWriter = curThread;
         }
     }
 
     /**
      * Releases a write lock previously obtained via {@code writeLock}. After decrementing the lock count if there are
-     * no outstanding locks this will allow a new writer, or readers.
+     * no outstanding locks this will allow a new writer, or readers. If the thread took read locks while writing and
+     * still holds them, the write lock is downgraded to those read locks.
+     *
+     * @throws IllegalMonitorStateException if the calling thread does not hold the write lock
      */
     public final void writeUnlock() {
 
-        synchronized (this.lockSynch) {
+        if (Thread.currentThread() != this.curWriter) {
+            final String msg = Res.get(Res.LOCK_NOT_HELD);
+            throw new IllegalMonitorStateException(msg);
+        }
+
+        --this.numWriters;
+        if (this.numWriters <= 0) {
+            this.numWriters = 0;
+            this.curWriter = null;
 
-            --this.numWriters;
-            if (this.numWriters <= 0) {
-                this.numWriters = 0;
-                this.curWriter = null;
-                this.lockSynch.notifyAll();
+            final int reads = this.readHolds.get()[0];
+            if (reads == 0) {
+                this.stamped.unlockWrite(this.writeStamp);
+            } else {
+                // Downgrade: no other thread can take the write lock between these steps
+                this.stamped.tryConvertToReadLock(this.writeStamp);
+                for (int i = 1; i < reads; ++i) {
+                    this.stamped.tryReadLock();
+                }
             }
         }
     }
@@ -105,10 +172,117 @@ public class Locked {
      */
     public final boolean isCurWriter() {
 
-        final Thread currentThread = Thread.currentThread();
+        return this.curWriter == Thread.currentThread();
+    }
+
+    /**
+     * Acquires a read lock, waiting while another thread holds the write lock or (unless the calling thread already
+     * holds a read lock) while any thread is waiting for it. A thread that holds the write lock may also read, and this
+     * returns at once (if it still holds the read lock when it releases the write lock, it goes on holding the read
+     * lock).
+     *
+     * <p>
+     * Calls to {@code readLock} must be balanced with calls to {@code readUnlock}.
+     */
+    public final void readLock() {
+
+        final int[] holds = this.readHolds.get();
+
+        if (Thread.currentThread() != this.curWriter) {
+            if (holds[0] == 0) {
+                if (this.waitingWriters.get() > 0) {
+                    awaitWritersServed();
+                }
+                this.stamped.readLock();
+            } else {
+                // Already holding a read lock, so no thread holds the write lock and this cannot fail - it must not
+                // queue behind a waiting writer, which is itself waiting for this thread's read lock
+                this.stamped.tryReadLock();
+            }
+        }
+
+        ++holds[0];
+    }
+
+    /**
+     * Releases a read lock previously obtained via {@code readLock}.
+     *
+     * @throws IllegalMonitorStateException if the calling thread does not hold a read lock
+     */
+    public final void readUnlock() {
+
+        final int[] holds = this.readHolds.get();
+
+        if (holds[0] <= 0) {
+            final String msg = Res.get(Res.LOCK_NOT_HELD);
+            throw new IllegalMonitorStateException(msg);
+        }
+
+        --holds[0];
+
+        if (Thread.currentThread() != this.curWriter) {
+            this.stamped.tryUnlockRead();
+        }
+    }
+
+    /**
+     * Gets a stamp for an optimistic read, which takes no lock. Data read after this call may be used only if
+     * {@code validate} later returns {@code true} for the stamp.
+     *
+     * @return the stamp (zero if another thread holds the write lock, in which case validation always fails)
+     */
+    public final long tryOptimisticRead() {
+
+        return this.stamped.tryOptimisticRead();
+    }
+
+    /**
+     * Tests whether the write lock has been taken since a stamp was obtained from {@code tryOptimisticRead}.
+     *
+     * @param stamp the stamp
+     * @return {@code true} if no write has begun since the stamp was obtained, so data read since is consistent
+     */
+    public final boolean validate(final long stamp) {
+
+        return this.stamped.validate(stamp);
+    }
+
+    /**
+     * Gets the number of read locks currently held, by all threads. Read locks taken by the thread holding the write
+     * lock are not counted. This is intended for monitoring, not for synchronization.
+     *
+     * @return the number of read locks
+     */
+    public final int getReadLockCount() {
+
+        return this.stamped.getReadLockCount();
+    }
+
+    /**
+     * Waits until no thread is waiting for the write lock.
+     */
+    private void awaitWritersServed() {
+
+        this.gate.lock();
+        try {
+            while (this.waitingWriters.get() > 0) {
+                this.writersServed.awaitUninterruptibly();
+            }
+        } finally {
+            this.gate.unlock();
+        }
+    }
+
+    /**
+     * Wakes readers waiting for waiting writers to be served.
+     */
+    private void signalWritersServed() {
 
-        synchronized (this.lockSynch) {
-            return this.curWriter == currentThread;
+        this.gate.lock();
+        try {
+            this.writersServed.signalAll();
+        } finally {
+            this.gate.unlock();
         }
     }
 }
@@ -1,9 +1,25 @@
 package dev.mathops.commons.log;
 
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
 /**
  * Singleton logger with static convenience methods that direct log messages with a specific log level to the singleton
  * instance. Calls to log at a particular level will do nothing if the level is not included in the active log level
  * set.
+ *
+ * <p>
+ * The level test reads a volatile snapshot of the level mask and is made before any lock is taken or any part of the
+ * message is rendered, so a call at a disabled level costs a single field read. Each method also has an overload that
+ * accepts a {@code Supplier}, whose {@code get} method is called only if the level is enabled; use these to avoid the
+ * cost of building an expensive message (or even of allocating the varargs array) when it would not be logged.
+ *
+ * <p>
+ * Noisy call sites can be limited without changing the level: a {@code LogRateLimiter} (a token bucket or 1-in-N
+ * sampling) registered with {@code setCallSiteRateLimit} under a class name, or a class name and line number, applies
+ * to every message logged from there; one registered with {@code setRateLimit} under any key is tested by calling
+ * {@code allow} with that key. Limiters never take a lock, and the number of messages each has suppressed is logged
+ * periodically.
  */
 public final class Log extends LogBase {
 
@@ -46,11 +62,21 @@ public final class Log extends LogBase {
      */
     public static void severe(final Object... args) {
 
-        synchronized (INSTANCE) {
-            final LogSettings settings = INSTANCE.getSettings();
-            if ((settings.getLogLevel() & SEVERE_BIT) != 0) {
-                INSTANCE.log(SEVERE, args);
-            }
+        if (INSTANCE.isEnabled(SEVERE_BIT)) {
+            logRecord(SEVERE_BIT, SEVERE, args);
+        }
+    }
+
+    /**
+     * Logs a message with severity 'S', where the message is obtained from a {@code Supplier} only if the level is
+     * enabled.
+     *
+     * @param supplier the supplier of the message (which may supply a {@code Throwable} or an array of arguments)
+     */
+    public static void severe(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(SEVERE_BIT)) {
+            logRecord(SEVERE_BIT, SEVERE, supplied(supplier));
         }
     }
 
@@ -61,11 +87,21 @@ public final class Log extends LogBase {
      */
     public static void warning(final Object... args) {
 
-        synchronized (INSTANCE) {
-            final LogSettings settings = INSTANCE.getSettings();
-            if ((settings.getLogLevel() & WARNING_BIT) != 0) {
-                INSTANCE.log(WARNING, args);
-            }
+        if (INSTANCE.isEnabled(WARNING_BIT)) {
+            logRecord(WARNING_BIT, WARNING, args);
+        }
+    }
+
+    /**
+     * Logs a message with severity 'W', where the message is obtained from a {@code Supplier} only if the level is
+     * enabled.
+     *
+     * @param supplier the supplier of the message (which may supply a {@code Throwable} or an array of arguments)
+     */
+    public static void warning(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(WARNING_BIT)) {
+            logRecord(WARNING_BIT, WARNING, supplied(supplier));
         }
     }
 
@@ -76,11 +112,21 @@ public final class Log extends LogBase {
      */
     public static void info(final Object... args) {
 
-        synchronized (INSTANCE) {
-            final LogSettings settings = INSTANCE.getSettings();
-            if ((settings.getLogLevel() & INFO_BIT) != 0) {
-                INSTANCE.log(INFO, args);
-            }
+        if (INSTANCE.isEnabled(INFO_BIT)) {
+            logRecord(INFO_BIT, INFO, args);
+        }
+    }
+
+    /**
+     * Logs a message with severity 'I', where the message is obtained from a {@code Supplier} only if the level is
+     * enabled.
+     *
+     * @param supplier the supplier of the message (which may supply a {@code Throwable} or an array of arguments)
+     */
+    public static void info(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(INFO_BIT)) {
+            logRecord(INFO_BIT, INFO, supplied(supplier));
         }
     }
 
@@ -91,11 +137,21 @@ public final class Log extends LogBase {
      */
     public static void config(final Object... args) {
 
-        synchronized (INSTANCE) {
-            final LogSettings settings = INSTANCE.getSettings();
-            if ((settings.getLogLevel() & CONFIG_BIT) != 0) {
-                INSTANCE.log(CONFIG, args);
-            }
+        if (INSTANCE.isEnabled(CONFIG_BIT)) {
+            logRecord(CONFIG_BIT, CONFIG, args);
+        }
+    }
+
+    /**
+     * Logs a message with severity 'C', where the message is obtained from a {@code Supplier} only if the level is
+     * enabled.
+     *
+     * @param supplier the supplier of the message (which may supply a {@code Throwable} or an array of arguments)
+     */
+    public static void config(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(CONFIG_BIT)) {
+            logRecord(CONFIG_BIT, CONFIG, supplied(supplier));
         }
     }
 
@@ -106,11 +162,21 @@ public final class Log extends LogBase {
      */
     public static void entering(final Object... args) {
 
-        synchronized (INSTANCE) {
-            final LogSettings settings = INSTANCE.getSettings();
-            if ((settings.getLogLevel() & ENTERING_BIT) != 0) {
-                INSTANCE.log(ENTER, args);
-            }
+        if (INSTANCE.isEnabled(ENTERING_BIT)) {
+            logRecord(ENTERING_BIT, ENTER, args);
+        }
+    }
+
+    /**
+     * Logs a message with severity '&gt;', where the message is obtained from a {@code Supplier} only if the level is
+     * enabled.
+     *
+     * @param supplier the supplier of the message (which may supply a {@code Throwable} or an array of arguments)
+     */
+    public static void entering(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(ENTERING_BIT)) {
+            logRecord(ENTERING_BIT, ENTER, supplied(supplier));
         }
     }
 
@@ -121,11 +187,21 @@ public final class Log extends LogBase {
      */
     public static void exiting(final Object... args) {
 
-        synchronized (INSTANCE) {
-            final LogSettings settings = INSTANCE.getSettings();
-            if ((settings.getLogLevel() & EXITING_BIT) != 0) {
-                INSTANCE.log(EXIT, args);
-            }
+        if (INSTANCE.isEnabled(EXITING_BIT)) {
+            logRecord(EXITING_BIT, EXIT, args);
+        }
+    }
+
+    /**
+     * Logs a message with severity '&lt;', where the message is obtained from a {@code Supplier} only if the level is
+     * enabled.
+     *
+     * @param supplier the supplier of the message (which may supply a {@code Throwable} or an array of arguments)
+     */
+    public static void exiting(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(EXITING_BIT)) {
+            logRecord(EXITING_BIT, EXIT, supplied(supplier));
         }
     }
 
@@ -136,11 +212,23 @@ public final class Log extends LogBase {
      */
     public static void fine(final Object... args) {
 
-        synchronized (INSTANCE) {
-            if ((INSTANCE.getSettings().getLogLevel() & FINE_BIT) != 0) {
-                final String listString = listToString(args);
-                INSTANCE.getLogWriter().writeMessage(listString, true);
-            }
+        if (INSTANCE.isEnabled(FINE_BIT)) {
+            final String listString = listToString(args);
+            logText(FINE_BIT, false, true, listString);
+        }
+    }
+
+    /**
+     * Logs a message with no date, severity labeling, or source information.
+     * The message is obtained from a {@code Supplier} only if the level is enabled.
+     *
+     * @param supplier the supplier of the message
+     */
+    public static void fine(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(FINE_BIT)) {
+            final String listString = listToString(supplied(supplier));
+            logText(FINE_BIT, false, true, listString);
         }
     }
 
@@ -152,11 +240,24 @@ public final class Log extends LogBase {
      */
     public static void fineInd(final Object... args) {
 
-        synchronized (INSTANCE) {
-            if ((INSTANCE.getSettings().getLogLevel() & FINE_BIT) != 0) {
-                final String listString = listToString(INDENT, args);
-                INSTANCE.getLogWriter().writeMessage(listString, true);
-            }
+        if (INSTANCE.isEnabled(FINE_BIT)) {
+            final String listString = listToString(INDENT, args);
+            logText(FINE_BIT, false, true, listString);
+        }
+    }
+
+    /**
+     * Logs a message with no date, severity labeling, or source information, but indented to align with messages that
+     * have date and severity.
+     * The message is obtained from a {@code Supplier} only if the level is enabled.
+     *
+     * @param supplier the supplier of the message
+     */
+    public static void fineInd(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(FINE_BIT)) {
+            final String listString = listToString(INDENT, supplied(supplier));
+            logText(FINE_BIT, false, true, listString);
         }
     }
 
@@ -168,11 +269,24 @@ public final class Log extends LogBase {
      */
     public static void finer(final Object... args) {
 
-        synchronized (INSTANCE) {
-            if ((INSTANCE.getSettings().getLogLevel() & FINE_BIT) != 0) {
-                final String listString = listToString(args);
-                INSTANCE.getLogWriter().writeMessage(listString, false);
-            }
+        if (INSTANCE.isEnabled(FINE_BIT)) {
+            final String listString = listToString(args);
+            logText(FINE_BIT, false, false, listString);
+        }
+    }
+
+    /**
+     * Logs a message with no date, severity labeling, or source information and with no line-feeds. This is intended to
+     * allow log messages to be built up over multiple calls - it uses the same "FINE" log level.
+     * The message is obtained from a {@code Supplier} only if the level is enabled.
+     *
+     * @param supplier the supplier of the message
+     */
+    public static void finer(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(FINE_BIT)) {
+            final String listString = listToString(supplied(supplier));
+            logText(FINE_BIT, false, false, listString);
         }
     }
 
@@ -185,14 +299,206 @@ public final class Log extends LogBase {
      */
     public static void finest(final Object... args) {
 
-        synchronized (INSTANCE) {
-            if ((INSTANCE.getSettings().getLogLevel() & FINEST_BIT) != 0) {
-                final String listString = listToString(args);
-                INSTANCE.getLogWriter().writeConsole(listString, false);
+        if (INSTANCE.isEnabled(FINEST_BIT)) {
+            final String listString = listToString(args);
+            logText(FINEST_BIT, true, false, listString);
+        }
+    }
+
+    /**
+     * Logs a message with no date, severity labeling, or source information, that is logged only to the console and
+     * with no line-feeds. This is intended to be used for advancing progress information like a line of dots to
+     * indicate progress.
+     * The message is obtained from a {@code Supplier} only if the level is enabled.
+     *
+     * @param supplier the supplier of the message
+     */
+    public static void finest(final Supplier<?> supplier) {
+
+        if (INSTANCE.isEnabled(FINEST_BIT)) {
+            final String listString = listToString(supplied(supplier));
+            logText(FINEST_BIT, true, false, listString);
+        }
+    }
+
+    /**
+     * Tests whether messages at a level would be logged. Callers can use this to skip work that is needed only to log a
+     * message.
+     *
+     * @param level the level bit (one of the bit constants from {@code LogBase})
+     * @return {@code true} if the level is enabled
+     */
+    public static boolean isLoggable(final int level) {
+
+        return INSTANCE.isEnabled(level);
+    }
+
+    /**
+     * Registers a rate limiter under an explicit key, replacing any limiter with the same key. Callers test the limit
+     * with {@code allow}.
+     *
+     * <pre>
+     * Log.setRateLimit(LogRateLimiter.tokenBucket("cache-miss", 5.0, 20));
+     * ...
+     * if (Log.allow("cache-miss")) {
+     *     Log.info("Cache miss for ", key);
+     * }
+     * </pre>
+     *
+     * @param limiter the limiter
+     */
+    public static void setRateLimit(final LogRateLimiter limiter) {
+
+        INSTANCE.getRateLimits().add(limiter, false);
+    }
+
+    /**
+     * Registers a rate limiter on a call site, replacing any limiter with the same key. The limiter's key is a fully
+     * qualified class name (to limit every message logged from the class), or a class name, a colon, and a line number
+     * (to limit one line). The limit is applied to every message logged from the call site.
+     *
+     * @param limiter the limiter
+     */
+    public static void setCallSiteRateLimit(final LogRateLimiter limiter) {
+
+        INSTANCE.getRateLimits().add(limiter, true);
+    }
+
+    /**
+     * Removes a rate limiter.
+     *
+     * @param key the limiter's key
+     * @return {@code true} if a limiter with the key was found and removed
+     */
+    public static boolean removeRateLimit(final String key) {
+
+        return INSTANCE.getRateLimits().remove(key);
+    }
+
+    /**
+     * Tests whether a message under an explicit rate-limit key may be logged now. This never blocks.
+     *
+     * @param key the key
+     * @return {@code true} if no limiter is registered under the key, or its limit allows a message now
+     */
+    public static boolean allow(final String key) {
+
+        return INSTANCE.getRateLimits().allow(key);
+    }
+
+    /**
+     * Gets the total number of messages suppressed by a rate limiter.
+     *
+     * @param key the limiter's key
+     * @return the number of suppressed messages (0 if no limiter is registered under the key)
+     */
+    public static long getSuppressedCount(final String key) {
+
+        final LogRateLimiter limiter = INSTANCE.getRateLimits().get(key);
+
+        return limiter == null ? 0L : limiter.getSuppressedCount();
+    }
+
+    /**
+     * Gets the arguments that make up a message obtained from a {@code Supplier}: the elements of the array, if the
+     * supplier supplies an array of arguments, or otherwise the one object supplied.
+     *
+     * @param supplier the supplier of the message
+     * @return the list of arguments
+     */
+    private static Object[] supplied(final Supplier<?> supplier) {
+
+        final Object value = supplier.get();
+
+        return value instanceof final Object[] array ? array : new Object[]{value};
+    }
+
+    /**
+     * Logs a record at a level already known to be enabled, either by publishing it to the asynchronous dispatcher or,
+     * if asynchronous logging is not enabled, by formatting and writing it on the calling thread. Nothing is logged if a
+     * call-site rate limiter suppresses the record.
+     *
+     * @param level    the level bit
+     * @param severity the severity character
+     * @param args     the list of arguments that make up the log message
+     */
+    private static void logRecord(final int level, final char severity, final Object... args) {
+
+        final StackWalker.StackFrame frame = INSTANCE.findLimitedCaller();
+
+        if (INSTANCE.allowCallSite(frame) && !INSTANCE.publish(level, severity, frame, args)) {
+            final LogEvent captured = INSTANCE.logErrorRecord(level, severity, frame, args);
+
+            final ReentrantLock lock = INSTANCE.getLock();
+            lock.lock();
+            try {
+                INSTANCE.log(level, severity, frame, captured, args);
+            } finally {
+                lock.unlock();
             }
         }
     }
 
+    /**
+     * Logs bare text at a level already known to be enabled, either by publishing it to the asynchronous dispatcher or,
+     * if asynchronous logging is not enabled, by writing it on the calling thread. Nothing is logged if a call-site rate
+     * limiter suppresses the text.
+     *
+     * @param level       the level bit
+     * @param consoleOnly {@code true} to write only to the console
+     * @param linefeed    {@code true} to terminate the text with a line feed
+     * @param text        the text
+     */
+    private static void logText(final int level, final boolean consoleOnly, final boolean linefeed, final String text) {
+
+        final StackWalker.StackFrame frame = INSTANCE.findLimitedCaller();
+
+        if (INSTANCE.allowCallSite(frame) && !INSTANCE.publishText(level, consoleOnly, linefeed, text)) {
+            final ReentrantLock lock = INSTANCE.getLock();
+            lock.lock();
+            try {
+                final LogWriter writer = INSTANCE.getLogWriter();
+                if (consoleOnly) {
+                    writer.writeConsole(level, text, linefeed);
+                } else {
+                    writer.writeMessage(level, text, linefeed);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until all messages logged asynchronously before this call have been written. When asynchronous logging is
+     * not in use, messages are written before the logging call returns, and this method does nothing.
+     */
+    public static void flush() {
+
+        INSTANCE.flushDispatcher();
+    }
+
+    /**
+     * Gets the number of messages that were dropped because the asynchronous log buffer was full.
+     *
+     * @return the number of dropped messages
+     */
+    public static long getDroppedCount() {
+
+        return INSTANCE.getAsyncDroppedCount();
+    }
+
+    /**
+     * Gets the metrics describing the cost of logging through this logger. Call {@code registerMBean} on the result to
+     * publish them over JMX.
+     *
+     * @return the metrics
+     */
+    public static LogMetrics getMetrics() {
+
+        return INSTANCE.getLogWriter().getMetrics();
+    }
+
     /**
      * Gets the {@code LogWriter} used by this logger.
      *
@@ -200,8 +506,12 @@ public final class Log extends LogBase {
      */
     public static LogWriter getWriter() {
 
-        synchronized (INSTANCE) {
+        final ReentrantLock lock = INSTANCE.getLock();
+        lock.lock();
+        try {
             return INSTANCE.getLogWriter();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -2,9 +2,9 @@ package dev.mathops.commons.log;
 
 import dev.mathops.commons.CoreConstants;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Handles the actual mechanics of writing log entries for a logger, including formatting log entries with dates.
@@ -47,8 +47,11 @@ public class LogBase extends Synchronized {
     /** Initial allocation size for string builder for log lines. */
     private static final int INIT_BUILDER_SIZE = 200;
 
-    /** Formatter that provides compact format that includes milliseconds. */
-    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("MM/dd HH:mm:ss.SSS", Locale.US);
+    /** Milliseconds {@code flush} waits for the asynchronous dispatcher to drain. */
+    private static final long FLUSH_TIMEOUT_MS = 10_000L;
+
+    /** The stack walker used to find the source of log messages. */
+    private static final StackWalker WALKER = StackWalker.getInstance();
 
     /** The thread-local log context. */
     private static final ThreadLocalLogContext LOG_CONTEXT = new ThreadLocalLogContext();
@@ -62,6 +65,15 @@ public class LogBase extends Synchronized {
     /** The name of this package, with trailing dot. */
     private final String pkg;
 
+    /** The rate limiters registered with this logger. */
+    private final LogRateLimits rateLimits;
+
+    /** The asynchronous dispatcher ({@code null} until asynchronous logging is first used). */
+    private volatile AsyncLogDispatcher dispatcher = null;
+
+    /** Flag indicating the shutdown hook that drains the dispatcher has been registered; guarded by the lock. */
+    private boolean hookRegistered = false;
+
     /**
      * Constructs a new {@code LogBase}.
      */
@@ -70,6 +82,7 @@ public class LogBase extends Synchronized {
         super();
 
         this.logWriter = new LogWriter();
+        this.rateLimits = new LogRateLimits(this.logWriter);
 
         final String clsName = LogBase.class.getName();
         final String simple = LogBase.class.getSimpleName();
@@ -98,6 +111,49 @@ public class LogBase extends Synchronized {
         return this.logWriter.getSettings();
     }
 
+    /**
+     * Gets the rate limiters registered with this logger.
+     *
+     * @return the rate limiters
+     */
+    final LogRateLimits getRateLimits() {
+
+        return this.rateLimits;
+    }
+
+    /**
+     * Finds the frame of the call site that is logging a message, if any call-site rate limiters are registered. When
+     * none are registered this reads one volatile field and does not walk the stack.
+     *
+     * @return the caller's frame; {@code null} if no call-site limiters are registered or the frame was not found
+     */
+    final StackWalker.StackFrame findLimitedCaller() {
+
+        return this.rateLimits.hasCallSiteLimits() ? WALKER.walk(this::findCaller) : null;
+    }
+
+    /**
+     * Tests whether the call site that is logging a message is allowed to log now by any call-site rate limiter.
+     *
+     * @param frame the caller's frame, from {@code findLimitedCaller} ({@code null} if none)
+     * @return {@code true} if the message may be logged
+     */
+    final boolean allowCallSite(final StackWalker.StackFrame frame) {
+
+        return frame == null || this.rateLimits.allowCallSite(frame.getClassName(), frame.getLineNumber());
+    }
+
+    /**
+     * Tests whether a level is enabled. This reads the volatile level mask in the log settings, and takes no lock.
+     *
+     * @param level the level bit
+     * @return {@code true} if the level is enabled
+     */
+    final boolean isEnabled(final int level) {
+
+        return (getSettings().getLogLevel() & level) != 0;
+    }
+
     /**
      * Logs a record with the format (where '*' is filled by severity character).
      *
@@ -106,17 +162,148 @@ public class LogBase extends Synchronized {
      *                      [any Throwables objects with stack trace]
      * </pre>
      *
+     * <p>
+     * The source information is included only if the level is among the "log-source-levels" in the log settings. When a
+     * binary log file is being written, the fields of the record are passed to the writer along with the formatted text.
+     * This method does not write the error log file: the caller calls {@code logErrorRecord} first, before taking the
+     * lock under which it calls this method, and passes in the record that method captured (if any) so the content and
+     * source location are not generated twice.
+     *
+     * @param level    the level bit
      * @param severity the severity character to include in the log message
+     * @param frame    the caller's frame, if already found ({@code null} to find it if it is needed)
+     * @param captured the record captured by {@code logErrorRecord}; {@code null} if none was captured
+     * @param args     the list of arguments that make up the log message
+     */
+    final void log(final int level, final char severity, final StackWalker.StackFrame frame, final LogEvent captured,
+                   final Object... args) {
+
+        final LogSettings settings = getSettings();
+        final boolean binary = settings.isLogToFiles() && settings.getFileFormat().writesBinary();
+
+        if (captured != null || binary) {
+            // The binary log file needs the fields of the record, not just the formatted text
+            final LogEvent event = captured == null ? captureRecord(level, severity, settings, frame, args)
+                                                     : captured;
+
+            final StringBuilder builder = LogFormatBuffer.acquire();
+            try {
+                formatEvent(builder, event, this.logWriter.getExceptionDeduplicator());
+                if (binary) {
+                    this.logWriter.writeRecord(event, builder);
+                } else {
+                    this.logWriter.writeFormatted(level, builder);
+                }
+            } finally {
+                LogFormatBuffer.release(builder);
+            }
+        } else {
+            final LogContext ctx = LOG_CONTEXT.current();
+            final long now = System.currentTimeMillis();
+
+            final StringBuilder builder = LogFormatBuffer.acquire();
+            try {
+                final String ctxStr = ctx == null ? null : ctx.toString();
+                appendHeader(builder, now, ctxStr, severity);
+                appendContent(builder, args);
+                if ((settings.getSourceLevels() & level) != 0) {
+                    builder.append(CoreConstants.SPC_CHAR);
+                    appendSource(builder, frame);
+                }
+                addExceptionInfo(builder, this.logWriter.getExceptionDeduplicator(), args);
+
+                this.logWriter.writeFormatted(level, builder);
+            } finally {
+                LogFormatBuffer.release(builder);
+            }
+        }
+    }
+
+    /**
+     * Captures the timestamp, log context, message content, and source location of a record on the calling thread.
+     *
+     * @param level    the level bit
+     * @param severity the severity character
+     * @param settings the log settings
+     * @param frame    the caller's frame, if already found ({@code null} to find it if it is needed)
      * @param args     the list of arguments that make up the log message
+     * @return the captured record
      */
-    final void log(final char severity, final Object... args) {
+    private LogEvent captureRecord(final int level, final char severity, final LogSettings settings,
+                                   final StackWalker.StackFrame frame, final Object... args) {
 
-        final LogContext ctx = LOG_CONTEXT.get();
-        final StringBuilder builder = new StringBuilder(100);
+        final long now = System.currentTimeMillis();
+        final LogContext ctx = LOG_CONTEXT.current();
+        final String content = listToString(args);
+        final String source = (settings.getSourceLevels() & level) == 0 ? null : sourceToString(frame);
+        final Object[] throwables = hasThrowable(args) ? args : null;
+
+        return newRecord(level, severity, now, ctx, content, source, throwables);
+    }
 
-        final LocalDateTime now = LocalDateTime.now();
-        final String formattedNow = now.format(DATE_FMT);
-        builder.append(formattedNow);
+    /**
+     * Creates a {@code RECORD} event from the captured fields of a record.
+     *
+     * @param level      the level bit
+     * @param severity   the severity character
+     * @param millis     the timestamp
+     * @param ctx        the log context ({@code null} if none)
+     * @param content    the message content
+     * @param source     the source location ({@code null} if not included)
+     * @param throwables the arguments, if they include a {@code Throwable}; {@code null} if not
+     * @return the event
+     */
+    private static LogEvent newRecord(final int level, final char severity, final long millis, final LogContext ctx,
+                                      final String content, final String source, final Object[] throwables) {
+
+        final LogEvent event = new LogEvent();
+        event.kind = LogEvent.RECORD;
+        event.level = level;
+        event.severity = severity;
+        event.millis = millis;
+        captureContext(event, ctx);
+        event.content = content;
+        event.source = source;
+        event.args = throwables;
+        event.linefeed = true;
+
+        return event;
+    }
+
+    /**
+     * Copies the log context of the logging thread into an event.
+     *
+     * @param event the event
+     * @param ctx   the log context ({@code null} if none)
+     */
+    private static void captureContext(final LogEvent event, final LogContext ctx) {
+
+        if (ctx == null) {
+            event.context = null;
+            event.remoteAddress = null;
+            event.sessionId = null;
+            event.userId = null;
+            event.entries = null;
+        } else {
+            event.context = ctx.toString();
+            event.remoteAddress = ctx.getRemoteAddress();
+            event.sessionId = ctx.getSessionId();
+            event.userId = ctx.getUserId();
+            event.entries = ctx.getEntries();
+        }
+    }
+
+    /**
+     * Appends the timestamp, context, and severity that begin every log record.
+     *
+     * @param builder  the {@code StringBuilder} to which to append
+     * @param millis   the timestamp
+     * @param ctx      the rendered log context ({@code null} if none)
+     * @param severity the severity character
+     */
+    static void appendHeader(final StringBuilder builder, final long millis, final String ctx, final char severity) {
+
+        LogTimestamp.append(builder, millis);
         builder.append(CoreConstants.SPC_CHAR);
         if (ctx == null) {
             builder.append(INDENT);
@@ -125,13 +312,322 @@ public class LogBase extends Synchronized {
         }
         builder.append(severity);
         builder.append(CoreConstants.SPC_CHAR);
-        appendContent(builder, args);
-        builder.append(CoreConstants.SPC_CHAR);
-        appendSource(builder);
-        addExceptionInfo(builder, args);
+    }
+
+    /**
+     * Writes a log record to the error log file if its level is among the "log-error-file-levels". This is called on
+     * the logging thread before it takes the lock under which {@code log} is called, so a write to the unbuffered
+     * error log file does not hold up other threads waiting to log.
+     *
+     * @param level    the level bit
+     * @param severity the severity character
+     * @param frame    the caller's frame, if already found ({@code null} to find it if it is needed)
+     * @param args     the list of arguments that make up the log message
+     * @return the captured record, to be passed to {@code log}; {@code null} if the record was not written to the error
+     *         log file
+     */
+    final LogEvent logErrorRecord(final int level, final char severity, final StackWalker.StackFrame frame,
+                                  final Object... args) {
+
+        LogEvent captured = null;
+
+        if (this.logWriter.writesErrorFile(level)) {
+            captured = captureRecord(level, severity, getSettings(), frame, args);
+            writeErrorRecord(captured);
+        }
 
-        final String msg = builder.toString();
-        this.logWriter.writeMessage(msg, true);
+        return captured;
+    }
+
+    /**
+     * Publishes a log record to the asynchronous dispatcher, if asynchronous logging is enabled. The timestamp, log
+     * context, message content, and source location are captured on the calling thread; formatting and output happen
+     * on the dispatcher thread. A record at one of the "log-error-file-levels" is also formatted and written to the
+     * error log file on the calling thread before it is published, so it is durable even if the queue is full or the
+     * process stops before the queue drains. The caller is responsible for testing that the level is enabled.
+     *
+     * @param level    the level bit
+     * @param severity the severity character
+     * @param frame    the caller's frame, if already found ({@code null} to find it if it is needed)
+     * @param args     the list of arguments that make up the log message
+     * @return {@code true} if the record was handled (published or dropped); {@code false} if the caller should log
+     *         synchronously
+     */
+    final boolean publish(final int level, final char severity, final StackWalker.StackFrame frame,
+                          final Object... args) {
+
+        final LogSettings settings = getSettings();
+        final AsyncLogDispatcher disp = activeDispatcher(settings);
+        final boolean handled = disp != null;
+
+        if (handled) {
+            final long now = System.currentTimeMillis();
+            final LogContext ctx = LOG_CONTEXT.current();
+            final String content = listToString(args);
+            final String source = (settings.getSourceLevels() & level) == 0 ? null : sourceToString(frame);
+            final Object[] throwables = hasThrowable(args) ? args : null;
+
+            if (this.logWriter.writesErrorFile(level)) {
+                writeErrorRecord(newRecord(level, severity, now, ctx, content, source, throwables));
+            }
+
+            final long pos = disp.claim(settings.getAsyncPolicy());
+            if (pos != LogRingBuffer.NONE) {
+                final LogEvent event = disp.get(pos);
+                event.kind = LogEvent.RECORD;
+                event.level = level;
+                event.severity = severity;
+                event.millis = now;
+                captureContext(event, ctx);
+                event.content = content;
+                event.source = source;
+                event.args = throwables;
+                event.linefeed = true;
+                disp.publish(pos);
+            }
+        }
+
+        return handled;
+    }
+
+    /**
+     * Formats a record and writes it to the error log file. Stack traces are rendered in full, without consulting the
+     * exception deduplicator, so the record in the main log file is deduplicated as usual.
+     *
+     * @param event the captured record
+     */
+    private void writeErrorRecord(final LogEvent event) {
+
+        final StringBuilder builder = LogFormatBuffer.acquire();
+        try {
+            formatEvent(builder, event, null);
+            this.logWriter.writeErrorRecord(event.level, builder);
+        } finally {
+            LogFormatBuffer.release(builder);
+        }
+    }
+
+    /**
+     * Publishes a bare line of text (with no timestamp, severity, or source) to the asynchronous dispatcher, if
+     * asynchronous logging is enabled. The caller is responsible for testing that the level is enabled.
+     *
+     * @param level       the level bit
+     * @param consoleOnly {@code true} to write only to the console; {@code false} to write to all outputs
+     * @param linefeed    {@code true} to terminate the text with a line feed
+     * @param text        the text
+     * @return {@code true} if the text was handled (published or dropped); {@code false} if the caller should log
+     *         synchronously
+     */
+    final boolean publishText(final int level, final boolean consoleOnly, final boolean linefeed, final String text) {
+
+        final LogSettings settings = getSettings();
+        final AsyncLogDispatcher disp = activeDispatcher(settings);
+        final boolean handled = disp != null;
+
+        if (handled) {
+            final long pos = disp.claim(settings.getAsyncPolicy());
+            if (pos != LogRingBuffer.NONE) {
+                final LogEvent event = disp.get(pos);
+                event.kind = consoleOnly ? LogEvent.CONSOLE : LogEvent.LINE;
+                event.level = level;
+                event.millis = System.currentTimeMillis();
+                event.content = text;
+                event.linefeed = linefeed;
+                disp.publish(pos);
+            }
+        }
+
+        return handled;
+    }
+
+    /**
+     * Gets the dispatcher to which events should be published, creating and starting it on first use. If asynchronous
+     * logging has been turned off since the dispatcher was created, the dispatcher is drained and stopped so that
+     * subsequent synchronous output cannot be interleaved with earlier asynchronous output.
+     *
+     * @param settings the log settings
+     * @return the dispatcher; {@code null} if the caller should log synchronously
+     */
+    private AsyncLogDispatcher activeDispatcher(final LogSettings settings) {
+
+        AsyncLogDispatcher disp = this.dispatcher;
+
+        if (settings.isAsync()) {
+            if (disp == null) {
+                final ReentrantLock lock = getLock();
+                lock.lock();
+                try {
+                    disp = this.dispatcher;
+                    if (disp == null) {
+                        disp = new AsyncLogDispatcher(settings.getAsyncCapacity(), this.logWriter);
+                        disp.start();
+                        this.dispatcher = disp;
+                        registerShutdownHook();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (!disp.canPublish()) {
+                disp = null;
+            }
+        } else {
+            if (disp != null) {
+                stopDispatcher();
+            }
+            disp = null;
+        }
+
+        return disp;
+    }
+
+    /**
+     * Registers a shutdown hook that drains whichever dispatcher is running at VM exit, if one has not already been
+     * registered. Dispatchers started after one is stopped share the same hook. Called only while holding the lock.
+     */
+    private void registerShutdownHook() {
+
+        if (!this.hookRegistered) {
+            final Thread hook = new Thread(this::drainDispatcher, "mathops-log-dispatcher-shutdown");
+            Runtime.getRuntime().addShutdownHook(hook);
+            this.hookRegistered = true;
+        }
+    }
+
+    /**
+     * Drains and stops the asynchronous dispatcher, if one is running, at VM exit. The dispatcher is left in place, so
+     * records logged after this point are written synchronously rather than starting a new dispatcher.
+     */
+    private void drainDispatcher() {
+
+        final AsyncLogDispatcher disp = this.dispatcher;
+
+        if (disp != null) {
+            disp.stop();
+        }
+    }
+
+    /**
+     * Drains and stops the asynchronous dispatcher, if one is running.
+     */
+    final void stopDispatcher() {
+
+        final AsyncLogDispatcher disp;
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            disp = this.dispatcher;
+            this.dispatcher = null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (disp != null) {
+            disp.stop();
+        }
+    }
+
+    /**
+     * Waits until all records published to the asynchronous dispatcher have been written. Does nothing when
+     * asynchronous logging has not been used.
+     */
+    final void flushDispatcher() {
+
+        final AsyncLogDispatcher disp = this.dispatcher;
+        if (disp != null) {
+            disp.flush(FLUSH_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Gets the number of records dropped by the asynchronous dispatcher because its buffer was full.
+     *
+     * @return the number of dropped records
+     */
+    final long getAsyncDroppedCount() {
+
+        final AsyncLogDispatcher disp = this.dispatcher;
+
+        return disp == null ? 0L : disp.getDroppedCount();
+    }
+
+    /**
+     * Formats a {@code RECORD} event captured by {@code publish} into a complete log record. The rendered exception
+     * information (if any) is also stored in the event, for the binary log file.
+     *
+     * @param event the event
+     * @param dedup the exception deduplicator ({@code null} to render every exception in full)
+     * @return the formatted record
+     */
+    static String formatEvent(final LogEvent event, final ExceptionDeduplicator dedup) {
+
+        final StringBuilder builder = new StringBuilder(INIT_BUILDER_SIZE);
+        formatEvent(builder, event, dedup);
+
+        return builder.toString();
+    }
+
+    /**
+     * Formats a {@code RECORD} event captured by {@code publish} into a complete log record in a builder. The rendered
+     * exception information (if any) is also stored in the event, for the binary log file.
+     *
+     * @param builder the {@code StringBuilder} to which to append
+     * @param event   the event
+     * @param dedup   the exception deduplicator ({@code null} to render every exception in full)
+     */
+    static void formatEvent(final StringBuilder builder, final LogEvent event, final ExceptionDeduplicator dedup) {
+
+        appendHeader(builder, event.millis, event.context, event.severity);
+        builder.append(event.content);
+        if (event.source != null) {
+            builder.append(CoreConstants.SPC_CHAR);
+            builder.append(event.source);
+        }
+        event.trace = exceptionText(dedup, event.args);
+        if (event.trace != null) {
+            builder.append(event.trace);
+        }
+    }
+
+    /**
+     * Renders the exception information for the {@code Throwable} arguments in a list, as it appears at the end of a
+     * log record.
+     *
+     * @param dedup the exception deduplicator ({@code null} to render every exception in full)
+     * @param args  the arguments ({@code null} if none)
+     * @return the exception information; {@code null} if there are no {@code Throwable} arguments
+     */
+    static String exceptionText(final ExceptionDeduplicator dedup, final Object... args) {
+
+        String result = null;
+
+        if (args != null && hasThrowable(args)) {
+            final StringBuilder builder = new StringBuilder(INIT_BUILDER_SIZE);
+            addExceptionInfo(builder, dedup, args);
+            result = builder.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether any argument in a list is a {@code Throwable}.
+     *
+     * @param args the arguments
+     * @return {@code true} if at least one argument is a {@code Throwable}
+     */
+    private static boolean hasThrowable(final Object... args) {
+
+        boolean found = false;
+
+        for (final Object arg : args) {
+            if (arg instanceof Throwable) {
+                found = true;
+                break;
+            }
+        }
+
+        return found;
     }
 
     /**
@@ -161,48 +657,83 @@ public class LogBase extends Synchronized {
      * Builds the exception portion of the log message by concatenating the information and stack trace of all
      * {@code Throwable} arguments, in the order in which they appear in the arguments list.
      *
+     * <p>
+     * If a deduplicator is given, each exception is fingerprinted: the first occurrence of a fingerprint within the
+     * deduplication window is rendered in full and tagged with the fingerprint id, while repeats are rendered as a
+     * single line that refers to that id, without the stack trace.
+     *
      * @param builder the {@code StringBuilder} to which to append
+     * @param dedup   the exception deduplicator ({@code null} to render every exception in full)
      * @param args    the arguments to concatenate
      */
-    private static void addExceptionInfo(final StringBuilder builder, final Object... args) {
+    private static void addExceptionInfo(final StringBuilder builder, final ExceptionDeduplicator dedup,
+                                         final Object... args) {
 
         for (final Object arg : args) {
             if (arg instanceof Throwable thrown) {
-                while (true) {
-                    builder.append(CoreConstants.CRLF);
-                    final Class<? extends Throwable> cls = thrown.getClass();
-                    final String clsName = cls.getSimpleName();
-                    builder.append(INDENT);
-                    builder.append(clsName);
-
-                    if (thrown.getLocalizedMessage() != null) {
-                        final String locMsg = thrown.getLocalizedMessage();
-                        builder.append(": ");
-                        builder.append(locMsg);
+                final ExceptionDeduplicator.Occurrence occurrence = dedup == null ? null : dedup.record(thrown);
+
+                if (occurrence != null && occurrence.count > 1L) {
+                    appendThrowableLine(builder, thrown);
+                    builder.append(" [repeat ");
+                    builder.append(occurrence.count);
+                    builder.append(" of exception ");
+                    builder.append(occurrence.id);
+                    builder.append("; stack trace omitted]");
+                } else {
+                    appendThrowableLine(builder, thrown);
+                    if (occurrence != null) {
+                        builder.append(" [exception ");
+                        builder.append(occurrence.id);
+                        builder.append(']');
                     }
 
-                    final StackTraceElement[] stack = thrown.getStackTrace();
+                    while (true) {
+                        final StackTraceElement[] stack = thrown.getStackTrace();
+
+                        for (final StackTraceElement stackTraceElement : stack) {
+                            builder.append(CoreConstants.CRLF);
+                            final String stackItemStr = stackTraceElement.toString();
+                            builder.append(INDENT);
+                            builder.append(stackItemStr);
+                        }
+
+                        thrown = thrown.getCause();
+                        if (thrown == null) {
+                            break;
+                        }
 
-                    for (final StackTraceElement stackTraceElement : stack) {
                         builder.append(CoreConstants.CRLF);
-                        final String stackItemStr = stackTraceElement.toString();
                         builder.append(INDENT);
-                        builder.append(stackItemStr);
+                        builder.append("CAUSED BY:");
+                        appendThrowableLine(builder, thrown);
                     }
-
-                    thrown = thrown.getCause();
-                    if (thrown == null) {
-                        break;
-                    }
-
-                    builder.append(CoreConstants.CRLF);
-                    builder.append(INDENT);
-                    builder.append("CAUSED BY:");
                 }
             }
         }
     }
 
+    /**
+     * Appends a new line with the class name and message of a {@code Throwable}.
+     *
+     * @param builder the {@code StringBuilder} to which to append
+     * @param thrown  the {@code Throwable}
+     */
+    private static void appendThrowableLine(final StringBuilder builder, final Throwable thrown) {
+
+        builder.append(CoreConstants.CRLF);
+        final Class<? extends Throwable> cls = thrown.getClass();
+        final String clsName = cls.getSimpleName();
+        builder.append(INDENT);
+        builder.append(clsName);
+
+        if (thrown.getLocalizedMessage() != null) {
+            final String locMsg = thrown.getLocalizedMessage();
+            builder.append(": ");
+            builder.append(locMsg);
+        }
+    }
+
     /**
      * Appends the source information to the log message, in the format.
      *
@@ -217,53 +748,78 @@ public class LogBase extends Synchronized {
      * </pre>
      *
      * @param builder the {@code StringBuilder} to which to append
+     * @param frame   the caller's frame, if already found ({@code null} to find it)
      */
-    private void appendSource(final StringBuilder builder) {
+    private void appendSource(final StringBuilder builder, final StackWalker.StackFrame frame) {
 
-        final IllegalArgumentException except = new IllegalArgumentException("ex");
-        final StackTraceElement[] stack = except.getStackTrace();
-        boolean scanning = true;
+        final StackWalker.StackFrame caller = frame == null ? WALKER.walk(this::findCaller) : frame;
 
-        for (final StackTraceElement stackTraceElement : stack) {
+        if (caller == null) {
+            final Class<? extends LogBase> cls = getClass();
+            final String clsName = cls.getName();
+            final String msg = Res.fmt(Res.NO_SRC, clsName);
+            builder.append(msg);
+        } else {
+            final String className = caller.getClassName();
+            final int lineNumber = caller.getLineNumber();
+            builder.append(" (");
+            builder.append(className);
+            builder.append(".java:");
+            builder.append(lineNumber);
+            builder.append(')');
+        }
+    }
 
-            String className = stackTraceElement.getClassName();
+    /**
+     * Generates the source information for the log message (as appended by {@code appendSource}) as a string.
+     *
+     * @param frame the caller's frame, if already found ({@code null} to find it)
+     * @return the source information
+     */
+    private String sourceToString(final StackWalker.StackFrame frame) {
+
+        final StringBuilder builder = LogFormatBuffer.acquire();
+        try {
+            appendSource(builder, frame);
+            return builder.toString();
+        } finally {
+            LogFormatBuffer.release(builder);
+        }
+    }
 
-            if (className.startsWith("jdk.internal.reflect.")
-                || className.startsWith("java.lang.reflect.")
-                || className.startsWith("org.junit.")) {
-                continue;
-            }
+    /**
+     * Finds the first frame in a stack that is not part of the logging package or the reflection or test machinery.
+     * Frames are examined lazily, so frames beyond the caller are never materialized.
+     *
+     * @param frames the stream of frames, from the top of the stack
+     * @return the caller's frame; {@code null} if none was found
+     */
+    private StackWalker.StackFrame findCaller(final Stream<StackWalker.StackFrame> frames) {
 
-            if (className.endsWith(".java")) {
-                final int classNameLen = className.length();
-                className = className.substring(0, classNameLen - 5);
-            }
+        final Optional<StackWalker.StackFrame> first = frames.filter(this::isCallerFrame).findFirst();
 
-            final int lastDot = className.lastIndexOf((int) '.');
-            final String packageName = lastDot == -1 ? className : className.substring(0, lastDot + 1);
-            final String name = className.substring(lastDot + 1);
+        return first.orElse(null);
+    }
 
-            if (packageName.equals(this.pkg) && name.startsWith("Log")) {
-                continue;
-            }
+    /**
+     * Tests whether a stack frame could be the frame that logged a message.
+     *
+     * @param frame the frame
+     * @return {@code true} if the frame is not part of the logging package or the reflection or test machinery
+     */
+    private boolean isCallerFrame(final StackWalker.StackFrame frame) {
 
-            final int lineNumber = stackTraceElement.getLineNumber();
-            final String lineNumberStr = Integer.toString(lineNumber);
-            builder.append(" (");
-            builder.append(className);
-            builder.append(".java:");
-            builder.append(lineNumberStr);
-            builder.append(")");
-            scanning = false;
-            break;
-        }
+        final String className = frame.getClassName();
+        boolean caller = !(className.startsWith("jdk.internal.reflect.")
+                           || className.startsWith("java.lang.reflect.")
+                           || className.startsWith("org.junit."));
 
-        if (scanning) {
-            final Class<? extends LogBase> cls = getClass();
-            final String clsName = cls.getName();
-            final String msg = Res.fmt(Res.NO_SRC, clsName);
-            builder.append(msg);
+        if (caller && className.startsWith(this.pkg)) {
+            final int pkgLen = this.pkg.length();
+            caller = className.indexOf((int) DOT, pkgLen) != -1 || !className.startsWith("Log", pkgLen);
         }
+
+        return caller;
     }
 
     /**
@@ -274,11 +830,13 @@ public class LogBase extends Synchronized {
      */
     static String listToString(final Object... args) {
 
-        final StringBuilder builder = new StringBuilder(100);
-
-        appendContent(builder, args);
-
-        return builder.toString();
+        final StringBuilder builder = LogFormatBuffer.acquire();
+        try {
+            appendContent(builder, args);
+            return builder.toString();
+        } finally {
+            LogFormatBuffer.release(builder);
+        }
     }
 
     /**
@@ -291,10 +849,12 @@ public class LogBase extends Synchronized {
     public static void setHostPath(final String theHost, final String thePath, final String theRemoteAddress) {
 
         if (theHost == null || thePath == null || theRemoteAddress == null) {
-            LOG_CONTEXT.remove();
+            final LogContext ctx = LOG_CONTEXT.get();
+            if (ctx != null) {
+                ctx.reset(null);
+            }
         } else {
-            final LogContext ctx = new LogContext(theRemoteAddress);
-            LOG_CONTEXT.set(ctx);
+            LOG_CONTEXT.obtain().reset(theRemoteAddress);
         }
     }
 
@@ -306,9 +866,55 @@ public class LogBase extends Synchronized {
      */
     public static void setSessionInfo(final String sessionId, final String userId) {
 
-        final LogContext ctx = LOG_CONTEXT.get();
+        final LogContext ctx = LOG_CONTEXT.current();
         if (ctx != null) {
             ctx.setSession(sessionId, userId);
         }
     }
+
+    /**
+     * Gets the log context of the calling thread.
+     *
+     * @return the context; {@code null} if the thread has no active context
+     */
+    static LogContext currentContext() {
+
+        return LOG_CONTEXT.current();
+    }
+
+    /**
+     * Sets a diagnostic key/value pair in the log context of the calling thread. Pairs are included (as "key=value",
+     * in the order the keys were first set) after the remote address and user ID in every log record the thread writes,
+     * until they are removed or the context is cleared by {@code setHostPath} with {@code null} arguments. Setting a
+     * pair starts a context if the thread does not have one.
+     *
+     * @param key   the key
+     * @param value the value ({@code null} to remove the key)
+     */
+    public static void setContextValue(final String key, final String value) {
+
+        if (key != null) {
+            if (value == null) {
+                final LogContext ctx = LOG_CONTEXT.get();
+                if (ctx != null) {
+                    ctx.put(key, null);
+                }
+            } else {
+                LOG_CONTEXT.obtain().put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Gets the value of a diagnostic key/value pair in the log context of the calling thread.
+     *
+     * @param key the key
+     * @return the value; {@code null} if the key is not set
+     */
+    public static String getContextValue(final String key) {
+
+        final LogContext ctx = LOG_CONTEXT.get();
+
+        return ctx == null || key == null ? null : ctx.get(key);
+    }
 }
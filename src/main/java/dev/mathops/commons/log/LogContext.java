@@ -1,22 +1,44 @@
 package dev.mathops.commons.log;
 
-import dev.mathops.commons.CoreConstants;
+import java.util.Arrays;
 
 /**
- * A logging context that includes the host, path, remote IP address, and session associated with a log. This is stored
- * in a thread-local at the time a thread begins processing a transaction, and is cleared at the end of that transaction
- * so the thread may be cached and re-used.
+ * A logging context that includes the remote IP address, session, and user associated with a log, and any number of
+ * diagnostic key/value pairs (a "mapped diagnostic context"). This is stored in a thread-local at the time a thread
+ * begins processing a transaction, and is cleared at the end of that transaction so the thread may be cached and
+ * re-used.
+ *
+ * <p>
+ * Each thread keeps one context object, which is reset rather than replaced for each transaction, so beginning a
+ * transaction does not allocate. The rendered form of the context (the padded prefix that appears in every log record)
+ * is computed the first time it is needed after the context changes and cached, so logging a message under an
+ * unchanged context does not allocate or pad anything.
+ *
+ * <p>
+ * A context is used only by its own thread, so it is not synchronized.
  */
 class LogContext {
 
     /** The column at which to make messages align vertically. */
     private static final int MESSAGE_INDENT = 27;
 
+    /** The initial number of key/value pairs for which space is allocated. */
+    private static final int INIT_ENTRIES = 4;
+
     /** A character used in log messages. */
     private static final char COLON = ':';
 
-    /** The remote address. */
-    private final String remoteAddress;
+    /** A character used in log messages. */
+    private static final char EQUALS = '=';
+
+    /** A character used in log messages. */
+    private static final char SPACE = ' ';
+
+    /** Spaces used to pad the rendered context. */
+    private static final String PADDING = " ".repeat(MESSAGE_INDENT);
+
+    /** The remote address ({@code null} if none). */
+    private String remoteAddress;
 
     /** The log session ID. */
     private String sessionId = null;
@@ -24,14 +46,66 @@ class LogContext {
     /** The log user ID. */
     private String userId = null;
 
+    /** The keys of the diagnostic key/value pairs, in the order they were first set. */
+    private String[] keys;
+
+    /** The values of the diagnostic key/value pairs. */
+    private String[] values;
+
+    /** The number of diagnostic key/value pairs. */
+    private int numEntries = 0;
+
+    /** The cached rendered context ({@code null} if it must be recomputed). */
+    private String rendered = null;
+
+    /** The cached rendered key/value pairs ({@code null} if it must be recomputed, or if there are no pairs). */
+    private String renderedEntries = null;
+
     /**
      * Constructs a new {@code LogContext}.
      *
-     * @param theRemoteAddress the remote address
+     * @param theRemoteAddress the remote address ({@code null} if none)
      */
     LogContext(final String theRemoteAddress) {
 
         this.remoteAddress = theRemoteAddress;
+        this.keys = new String[INIT_ENTRIES];
+        this.values = new String[INIT_ENTRIES];
+    }
+
+    /**
+     * Resets the context for a new transaction, clearing the session, user, and key/value pairs.
+     *
+     * @param theRemoteAddress the remote address ({@code null} if none)
+     */
+    final void reset(final String theRemoteAddress) {
+
+        this.remoteAddress = theRemoteAddress;
+        this.sessionId = null;
+        this.userId = null;
+        Arrays.fill(this.keys, 0, this.numEntries, null);
+        Arrays.fill(this.values, 0, this.numEntries, null);
+        this.numEntries = 0;
+        changed();
+    }
+
+    /**
+     * Tests whether the context holds anything to render.
+     *
+     * @return {@code true} if there is a remote address or at least one key/value pair
+     */
+    final boolean isActive() {
+
+        return this.remoteAddress != null || this.numEntries > 0;
+    }
+
+    /**
+     * Discards the cached rendered forms after a change.
+     */
+    private void changed() {
+
+        this.rendered = null;
+        this.renderedEntries = null;
     }
 
     /**
@@ -43,7 +117,7 @@ class LogContext {
     final void setSession(final String theSessionId, final String theUserId) {
 
         this.sessionId = theSessionId;
-        this.userId = theUserId;
+        setUserId(theUserId);
     }
 
     /**
@@ -73,7 +147,10 @@ class LogContext {
      */
     public final void setUserId(final String theUserId) {
 
-        this.userId = theUserId;
+        if (theUserId == null ? this.userId != null : !theUserId.equals(this.userId)) {
+            this.userId = theUserId;
+            changed();
+        }
     }
 
     /**
@@ -87,26 +164,169 @@ class LogContext {
     }
 
     /**
-     * Generates a string representation of the log context.
+     * Gets the remote address in the context.
      *
-     * @return the string representation (25 characters minimum)
+     * @return the remote address
+     */
+    public final String getRemoteAddress() {
+
+        return this.remoteAddress;
+    }
+
+    /**
+     * Sets a diagnostic key/value pair. A pair with a key that is already present replaces the existing value in
+     * place; a new key is added after existing keys.
+     *
+     * @param key   the key
+     * @param value the value ({@code null} to remove the key)
+     */
+    final void put(final String key, final String value) {
+
+        final int index = indexOf(key);
+
+        if (value == null) {
+            if (index >= 0) {
+                final int tail = this.numEntries - index - 1;
+                System.arraycopy(this.keys, index + 1, this.keys, index, tail);
+                System.arraycopy(this.values, index + 1, this.values, index, tail);
+                --this.numEntries;
+                this.keys[this.numEntries] = null;
+                this.values[this.numEntries] = null;
+                changed();
+            }
+        } else if (index >= 0) {
+            if (!value.equals(this.values[index])) {
+                this.values[index] = value;
+                changed();
+            }
+        } else {
+            if (this.numEntries == this.keys.length) {
+                final int newLen = this.numEntries << 1;
+                this.keys = Arrays.copyOf(this.keys, newLen);
+                this.values = Arrays.copyOf(this.values, newLen);
+            }
+            this.keys[this.numEntries] = key;
+            this.values[this.numEntries] = value;
+            ++this.numEntries;
+            changed();
+        }
+    }
+
+    /**
+     * Gets the value of a diagnostic key/value pair.
+     *
+     * @param key the key
+     * @return the value; {@code null} if the key is not present
+     */
+    final String get(final String key) {
+
+        final int index = indexOf(key);
+
+        return index < 0 ? null : this.values[index];
+    }
+
+    /**
+     * Finds the index of a key.
+     *
+     * @param key the key
+     * @return the index; -1 if the key is not present
+     */
+    private int indexOf(final String key) {
+
+        int result = -1;
+
+        for (int i = 0; i < this.numEntries; ++i) {
+            if (this.keys[i].equals(key)) {
+                result = i;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the rendered diagnostic key/value pairs, as "key1=value1 key2=value2".
+     *
+     * @return the rendered pairs; {@code null} if there are none
+     */
+    final String getEntries() {
+
+        if (this.renderedEntries == null && this.numEntries > 0) {
+            final StringBuilder builder = new StringBuilder(this.numEntries * 16);
+            for (int i = 0; i < this.numEntries; ++i) {
+                if (i > 0) {
+                    builder.append(SPACE);
+                }
+                builder.append(this.keys[i]).append(EQUALS).append(this.values[i]);
+            }
+            this.renderedEntries = builder.toString();
+        }
+
+        return this.renderedEntries;
+    }
+
+    /**
+     * Generates a string representation of the log context. The result is cached until the context changes.
+     *
+     * @return the string representation (27 characters minimum)
      */
     @Override
     public final String toString() {
 
-        final StringBuilder builder = new StringBuilder(20);
+        if (this.rendered == null) {
+            this.rendered = render(this.remoteAddress, this.userId, getEntries());
+        }
+
+        return this.rendered;
+    }
+
+    /**
+     * Renders a log context from its remote address and user ID, as it appears in a log record.
+     *
+     * @param remoteAddress the remote address
+     * @param userId        the user ID ({@code null} if none)
+     * @return the rendered context (27 characters minimum)
+     */
+    static String render(final String remoteAddress, final String userId) {
+
+        return render(remoteAddress, userId, null);
+    }
+
+    /**
+     * Renders a log context from its remote address, user ID, and diagnostic key/value pairs, as it appears in a log
+     * record.
+     *
+     * @param remoteAddress the remote address ({@code null} if none)
+     * @param userId        the user ID ({@code null} if none)
+     * @param entries       the rendered key/value pairs ({@code null} if none)
+     * @return the rendered context (27 characters minimum)
+     */
+    static String render(final String remoteAddress, final String userId, final String entries) {
+
+        final StringBuilder builder = new StringBuilder(MESSAGE_INDENT);
 
         // user ID should not exceed 9, and IP address should not exceed 15, so this string should
         // never exceed 25 including the ':'. We pad all to 27 to make log messages line up.
 
-        builder.append(this.remoteAddress);
+        if (remoteAddress != null) {
+            builder.append(remoteAddress);
+        }
+
+        if (userId != null) {
+            builder.append(COLON).append(userId);
+        }
 
-        if (this.userId != null) {
-            builder.append(COLON).append(this.userId);
+        if (entries != null) {
+            if (!builder.isEmpty()) {
+                builder.append(SPACE);
+            }
+            builder.append(entries);
         }
 
-        while (builder.length() < MESSAGE_INDENT) {
-            builder.append(CoreConstants.SPC);
+        final int len = builder.length();
+        if (len < MESSAGE_INDENT) {
+            builder.append(PADDING, 0, MESSAGE_INDENT - len);
         }
 
         return builder.toString();
@@ -11,6 +11,9 @@ public final class LogEntry {
     /** The timestamp when the message was logged. */
     private final long millis;
 
+    /** The level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL} if none). */
+    private final int level;
+
     /**
      * Constructs a new {@code LogEntry}.
      *
@@ -18,8 +21,22 @@ public final class LogEntry {
      */
     LogEntry(final String logMsg) {
 
+        this(logMsg, System.currentTimeMillis(), LogBase.ALL);
+    }
+
+    /**
+     * Constructs a new {@code LogEntry} with a given timestamp.
+     *
+     * @param logMsg    the log message
+     * @param theMillis the timestamp when the message was logged
+     * @param theLevel  the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL}
+     *                  if none)
+     */
+    LogEntry(final String logMsg, final long theMillis, final int theLevel) {
+
         this.message = logMsg;
-        this.millis = System.currentTimeMillis();
+        this.millis = theMillis;
+        this.level = theLevel;
     }
 
     /**
@@ -41,4 +58,15 @@ public final class LogEntry {
 
         return this.millis;
     }
+
+    /**
+     * Gets the level of the message.
+     *
+     * @return the level (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL} if the message has no
+     *         level)
+     */
+    public int getLevel() {
+
+        return this.level;
+    }
 }
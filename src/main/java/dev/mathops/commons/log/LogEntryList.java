@@ -3,18 +3,47 @@ package dev.mathops.commons.log;
 import dev.mathops.commons.CoreConstants;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Manages a list of log entries.
+ *
+ * <p>
+ * Entries are stored in a circular buffer, where entry number {@code seq} (counting every entry ever added) occupies
+ * slot {@code seq % capacity}. Adding an entry once the list is at its maximum size overwrites the oldest slot in place,
+ * so append and eviction are both O(1). The buffer starts small and doubles as needed until it reaches the maximum
+ * number of entries, after which its capacity is fixed.
+ *
+ * <p>
+ * Writers are serialized by the lock. Readers take no lock: they read the volatile sequence numbers,
+ * copy entries out of the buffer, then re-read the oldest sequence number to discard any entry a concurrent writer may
+ * have evicted in the meantime (retrying if the buffer was replaced). A writer always advances the oldest sequence
+ * number before overwriting a slot, so any entry a reader copies from a slot at or after that number is the one it
+ * expected.
+ *
+ * <p>
+ * Rather than polling, a reader can attach a {@code LogTail} (with {@code tail} or {@code subscribe}) to have new
+ * entries at selected levels pushed to it as they are added, whether or not the list itself is retaining entries. Each
+ * tail delivers on its own thread from bounded buffers, so a slow subscriber never blocks the thread adding entries.
  */
 class LogEntryList extends Synchronized {
 
     /** Initial size of the cached log entry list. */
     private static final int INIT_LIST_SIZE = 50;
 
-    /** The accumulated log data. */
-    private final List<LogEntry> logData;
+    /** The circular buffer of entries. */
+    private volatile AtomicReferenceArray<LogEntry> ring;
+
+    /** The sequence number the next entry added will receive (the number of entries ever added). */
+    private volatile long head;
+
+    /** The sequence number of the oldest entry retained. */
+    private volatile long first;
 
     /** Flag indicating log messages should be written to the internal list. */
     private boolean logToList;
@@ -22,12 +51,17 @@ class LogEntryList extends Synchronized {
     /** The maximum number of list entries to retain. */
     private int maxListEntries;
 
+    /** The attached tails (replaced, never modified, so it can be read without the lock). */
+    private volatile LogTail[] tails = new LogTail[0];
+
     /** Constructs a new {@code LogEntryList}. */
     LogEntryList() {
 
         super();
 
-        this.logData = new ArrayList<>(INIT_LIST_SIZE);
+        this.ring = new AtomicReferenceArray<>(INIT_LIST_SIZE);
+        this.head = 0L;
+        this.first = 0L;
         this.logToList = false;
         this.maxListEntries = Integer.MAX_VALUE;
     }
@@ -39,17 +73,191 @@ class LogEntryList extends Synchronized {
      */
     public final void addToList(final String msg) {
 
-        synchronized (getSynch()) {
+        addToList(LogBase.ALL, msg);
+    }
+
+    /**
+     * Adds a message to the list (if the list is retaining entries), and publishes it to each attached tail that
+     * accepts its level.
+     *
+     * @param level the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL} for
+     *              messages that do not have a level)
+     * @param msg   the message to add
+     */
+    final void addToList(final int level, final String msg) {
+
+        final LogEntry entry = storeInList(level, msg);
+        publishToTails(level, msg, entry);
+    }
+
+    /**
+     * Adds a message to the list, if the list is retaining entries. A caller that holds the lock while it calls this
+     * method calls {@code publishToTails} after it releases the lock.
+     *
+     * @param level the level of the message
+     * @param msg   the message to add
+     * @return the entry added to the list; {@code null} if the list is not retaining entries
+     */
+    final LogEntry storeInList(final int level, final String msg) {
+
+        LogEntry entry = null;
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
             if (this.logToList) {
-                this.logData.add(new LogEntry(msg));
+                entry = new LogEntry(msg, System.currentTimeMillis(), level);
+                final long seq = this.head;
+
+                // Evict the oldest entry if the list is at its maximum size
+                long oldest = this.first;
+                if (seq - oldest >= (long) this.maxListEntries) {
+                    oldest = seq - (long) this.maxListEntries + 1L;
+                    this.first = oldest;
+                }
+
+                AtomicReferenceArray<LogEntry> buffer = this.ring;
+                if (seq - oldest >= (long) buffer.length()) {
+                    buffer = grow(buffer, oldest, seq);
+                }
+
+                buffer.set((int) (seq % (long) buffer.length()), entry);
+                this.head = seq + 1L;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return entry;
+    }
+
+    /**
+     * Publishes a message to each attached tail that accepts its level. This is called without holding the lock, so a
+     * slow tail never holds up writers.
+     *
+     * @param level the level of the message
+     * @param msg   the message
+     * @param entry the entry made for the list ({@code null} if none was made)
+     */
+    final void publishToTails(final int level, final String msg, final LogEntry entry) {
+
+        LogEntry tailEntry = entry;
+
+        for (final LogTail tail : this.tails) {
+            if (tail.accepts(level)) {
+                if (tailEntry == null) {
+                    tailEntry = new LogEntry(msg, System.currentTimeMillis(), level);
+                }
+                tail.publish(tailEntry);
+            }
+        }
+    }
+
+    /**
+     * Tests whether any tail is attached.
+     *
+     * @return {@code true} if at least one tail is attached
+     */
+    final boolean hasTails() {
+
+        return this.tails.length > 0;
+    }
+
+    /**
+     * Attaches a new tail, to which entries at selected levels are published as they are added. Subscribers to the
+     * tail receive only entries added after they subscribe; {@code snapshot} gives the entries before.
+     *
+     * @param levels   the levels of entries to publish (bitwise OR of bit constants from {@code LogBase}); messages
+     *                 without a level are published only at {@code LogBase.ALL}
+     * @param capacity the number of entries that can be buffered for each subscriber before entries are dropped
+     * @return the tail (close it to detach it)
+     */
+    public final LogTail tail(final int levels, final int capacity) {
+
+        final LogTail tail = new LogTail(this, levels, capacity);
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            final LogTail[] current = this.tails;
+            final LogTail[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = tail;
+            this.tails = updated;
+        } finally {
+            lock.unlock();
+        }
+
+        return tail;
+    }
 
-                if (this.logData.size() > this.maxListEntries) {
-                    this.logData.removeFirst();
+    /**
+     * Attaches a new tail with a single subscriber that passes each published entry to a listener, on the tail's
+     * thread.
+     *
+     * @param levels   the levels of entries to publish (bitwise OR of bit constants from {@code LogBase})
+     * @param capacity the number of entries that can be buffered for the listener before entries are dropped
+     * @param listener the listener (if it throws an exception, it receives no further entries)
+     * @return the tail (close it to detach the listener)
+     */
+    public final LogTail subscribe(final int levels, final int capacity, final Consumer<? super LogEntry> listener) {
+
+        final LogTail tail = tail(levels, capacity);
+        tail.consume(listener);
+
+        return tail;
+    }
+
+    /**
+     * Detaches a tail.
+     *
+     * @param tail the tail
+     */
+    final void removeTail(final LogTail tail) {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            final LogTail[] current = this.tails;
+            for (int i = 0; i < current.length; ++i) {
+                if (current[i] == tail) {
+                    final LogTail[] updated = new LogTail[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    this.tails = updated;
+                    break;
                 }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Replaces the buffer with one of twice the capacity (but no more than the maximum number of entries), copying the
+     * retained entries to their positions in the new buffer. The old buffer is left intact for concurrent readers.
+     * Called only while holding the lock.
+     *
+     * @param buffer the current buffer
+     * @param oldest the sequence number of the oldest retained entry
+     * @param seq    the sequence number of the entry about to be added
+     * @return the new buffer
+     */
+    private AtomicReferenceArray<LogEntry> grow(final AtomicReferenceArray<LogEntry> buffer, final long oldest,
+                                                final long seq) {
+
+        final int oldLen = buffer.length();
+        final int newLen = (int) Math.min((long) this.maxListEntries, (long) oldLen << 1);
+        final AtomicReferenceArray<LogEntry> newBuffer = new AtomicReferenceArray<>(newLen);
+
+        for (long i = oldest; i < seq; ++i) {
+            newBuffer.set((int) (i % (long) newLen), buffer.get((int) (i % (long) oldLen)));
+        }
+
+        this.ring = newBuffer;
+
+        return newBuffer;
+    }
+
     /**
      * Sets the flag so future log messages will be written to the internal list.
      *
@@ -57,9 +265,34 @@ class LogEntryList extends Synchronized {
      */
     public final void startList(final int maxEntries) {
 
-        synchronized (getSynch()) {
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
             this.logToList = true;
-            this.maxListEntries = maxEntries;
+            this.maxListEntries = maxEntries > 0 ? maxEntries : Integer.MAX_VALUE;
+
+            final long seq = this.head;
+            if (seq - this.first > (long) this.maxListEntries) {
+                this.first = seq - (long) this.maxListEntries;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tests whether log messages are being written to the internal list.
+     *
+     * @return {@code true} if messages are being written to the list
+     */
+    final boolean isLogToList() {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            return this.logToList;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -68,18 +301,28 @@ class LogEntryList extends Synchronized {
      */
     public final void stopList() {
 
-        synchronized (getSynch()) {
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
             this.logToList = false;
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Clears the internal list of log messages.
+     * Clears the internal list of log messages. A fresh buffer is allocated so that readers holding the old buffer can
+     * still validate what they read from it.
      */
     public final void clearList() {
 
-        synchronized (getSynch()) {
-            this.logData.clear();
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            this.ring = new AtomicReferenceArray<>(INIT_LIST_SIZE);
+            this.first = this.head;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -90,21 +333,71 @@ class LogEntryList extends Synchronized {
      */
     public final int getNumInList() {
 
-        synchronized (getSynch()) {
-            return this.logData.size();
-        }
+        final long seq = this.head;
+        final long oldest = this.first;
+
+        return (int) (seq - oldest);
     }
 
     /**
      * Gets one of the log messages from the internal list.
      *
-     * @param index the index of the message to retrieve
+     * @param index the index of the message to retrieve (0 for the oldest)
      * @return the log message
+     * @throws IndexOutOfBoundsException if the index is not valid
      */
     public final LogEntry getListMessage(final int index) {
 
-        synchronized (getSynch()) {
-            return this.logData.get(index);
+        while (true) {
+            final long seq = this.head;
+            final AtomicReferenceArray<LogEntry> buffer = this.ring;
+            final long oldest = this.first;
+            final long count = seq - oldest;
+
+            if (index < 0 || (long) index >= count) {
+                final String msg = Res.fmt(Res.BAD_LIST_INDEX, Integer.toString(index), Long.toString(count));
+                throw new IndexOutOfBoundsException(msg);
+            }
+
+            final long entrySeq = oldest + (long) index;
+            final LogEntry entry = buffer.get((int) (entrySeq % (long) buffer.length()));
+
+            if (buffer == this.ring && entrySeq >= this.first) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the log messages in the internal list, without blocking writers.
+     *
+     * @return the list of messages, oldest first (unmodifiable)
+     */
+    public final List<LogEntry> snapshot() {
+
+        while (true) {
+            final long seq = this.head;
+            final AtomicReferenceArray<LogEntry> buffer = this.ring;
+            final long oldest = this.first;
+            final int len = buffer.length();
+
+            final int count = (int) (seq - oldest);
+            final LogEntry[] copy = new LogEntry[count];
+            for (int i = 0; i < count; ++i) {
+                copy[i] = buffer.get((int) ((oldest + (long) i) % (long) len));
+            }
+
+            if (buffer == this.ring) {
+                // Discard any entries evicted while we were copying
+                final long validFrom = this.first;
+                final int skip = (int) Math.max(0L, Math.min((long) count, validFrom - oldest));
+
+                final List<LogEntry> result = new ArrayList<>(count - skip);
+                for (int i = skip; i < count; ++i) {
+                    result.add(copy[i]);
+                }
+                return Collections.unmodifiableList(result);
+            }
         }
     }
 
@@ -116,10 +409,11 @@ class LogEntryList extends Synchronized {
      */
     public final String errorMessagesAsString() {
 
-        final int size = this.logData.size();
+        final List<LogEntry> entries = snapshot();
+        final int size = entries.size();
         final StringBuilder builder = new StringBuilder(size * 100);
 
-        for (final LogEntry logDatum : this.logData) {
+        for (final LogEntry logDatum : entries) {
             final String message = logDatum.getMessage();
             builder.append(message);
             builder.append(CoreConstants.CRLF);
@@ -0,0 +1,88 @@
+package dev.mathops.commons.log;
+
+/**
+ * A mutable log event. Instances are pre-allocated as the slots of a {@code LogRingBuffer} and re-used: a logging
+ * thread captures everything that must be captured on that thread (timestamp, context, rendered content, and caller
+ * location) into a slot, and the background consumer formats the slot into a log line.
+ *
+ * <p>
+ * Because slots are re-used, no reference to a {@code LogEvent} may be retained after it has been released back to the
+ * ring buffer.
+ */
+final class LogEvent {
+
+    /** An event kind: a complete log record with timestamp, severity, and source. */
+    static final int RECORD = 1;
+
+    /** An event kind: a bare line (as logged by {@code Log.fine}), to console, list, and file. */
+    static final int LINE = 2;
+
+    /** An event kind: bare text with no line terminator, to console only (as logged by {@code Log.finest}). */
+    static final int CONSOLE = 3;
+
+    /** The event kind. */
+    int kind;
+
+    /** The level bit (from {@code LogBase}) under which the event was logged. */
+    int level;
+
+    /** The severity character (used only for {@code RECORD} events). */
+    char severity;
+
+    /** The time the event was logged (epoch milliseconds). */
+    long millis;
+
+    /** The rendered log context; {@code null} if the logging thread had no context. */
+    String context;
+
+    /** The remote address from the log context; {@code null} if none. */
+    String remoteAddress;
+
+    /** The session ID from the log context; {@code null} if none. */
+    String sessionId;
+
+    /** The user ID from the log context; {@code null} if none. */
+    String userId;
+
+    /** The rendered diagnostic key/value pairs from the log context; {@code null} if none. */
+    String entries;
+
+    /** The rendered message content. */
+    String content;
+
+    /** The rendered source location; {@code null} if none was captured. */
+    String source;
+
+    /** The original arguments, retained only if they include {@code Throwable} objects; {@code null} otherwise. */
+    Object[] args;
+
+    /** The rendered exception information, set when the event is formatted; {@code null} if none. */
+    String trace;
+
+    /** {@code true} to terminate the output with a line feed. */
+    boolean linefeed;
+
+    /**
+     * Constructs a new {@code LogEvent}.
+     */
+    LogEvent() {
+
+        // No action
+    }
+
+    /**
+     * Clears references held by the event so the referenced objects can be collected while the slot is idle.
+     */
+    void clear() {
+
+        this.context = null;
+        this.remoteAddress = null;
+        this.sessionId = null;
+        this.userId = null;
+        this.entries = null;
+        this.content = null;
+        this.source = null;
+        this.args = null;
+        this.trace = null;
+    }
+}
@@ -0,0 +1,308 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.CoreConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An open log file. A single {@code FileChannel} is kept open across messages, and messages are encoded as UTF-8 (or, for
+ * binary log files, copied as already-encoded bytes) into a reusable direct {@code ByteBuffer} that is written to the
+ * channel according to a flush policy. The file size is tracked in memory (it is read from the file system only when the
+ * file is opened), so checking it against the rotation limit costs nothing.
+ *
+ * <p>
+ * Text is copied in chunks into a reusable {@code CharBuffer} and encoded from there, so writing a message (including
+ * one held in a reusable {@code StringBuilder}) allocates nothing.
+ *
+ * <p>
+ * This class is not thread-safe; the owning {@code LogWriter} serializes access.
+ */
+final class LogFileChannel {
+
+    /** The size of the direct byte buffer. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The size of the reusable character buffer. */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** The line terminator, encoded (it is ASCII, so it is the same in every charset the encoder could use). */
+    private static final byte[] CRLF = CoreConstants.CRLF.getBytes(StandardCharsets.US_ASCII);
+
+    /** The file. */
+    private final File file;
+
+    /** The open channel. */
+    private final FileChannel channel;
+
+    /** The direct buffer into which messages are encoded. */
+    private final ByteBuffer buffer;
+
+    /** The UTF-8 encoder. */
+    private final CharsetEncoder encoder;
+
+    /** The reusable buffer from which characters are encoded. */
+    private final CharBuffer chars;
+
+    /** The number of bytes in the file, including bytes buffered but not yet written. */
+    private long size;
+
+    /** The time of the last write to the channel. */
+    private long lastFlush;
+
+    /**
+     * Opens a log file for appending.
+     *
+     * @param theFile the file
+     * @throws IOException if the file could not be opened
+     */
+    LogFileChannel(final File theFile) throws IOException {
+
+        this.file = theFile;
+
+        final Path path = theFile.toPath();
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.encoder = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(CHUNK_SIZE);
+
+        this.size = this.channel.size();
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return the file
+     */
+    File getFile() {
+
+        return this.file;
+    }
+
+    /**
+     * Gets the size of the file, including any bytes buffered but not yet written.
+     *
+     * @return the size, in bytes
+     */
+    long size() {
+
+        return this.size;
+    }
+
+    /**
+     * Tests whether there are buffered bytes not yet written to the file.
+     *
+     * @return {@code true} if there are buffered bytes
+     */
+    boolean hasBufferedData() {
+
+        return this.buffer.position() > 0;
+    }
+
+    /**
+     * Gets the time of the last write to the file.
+     *
+     * @return the time, in epoch milliseconds
+     */
+    long getLastFlush() {
+
+        return this.lastFlush;
+    }
+
+    /**
+     * Encodes a message into the buffer, then writes the buffer to the file if the flush policy calls for it.
+     *
+     * @param msg         the message
+     * @param linefeed    {@code true} to terminate the message with a line feed
+     * @param flushSize   the number of buffered bytes at which the buffer is written (0 to write every message)
+     * @param flushMillis the number of milliseconds after which buffered bytes are written (0 for no limit)
+     * @throws IOException if the file could not be written
+     */
+    void write(final CharSequence msg, final boolean linefeed, final int flushSize, final long flushMillis)
+            throws IOException {
+
+        encode(msg);
+        if (linefeed) {
+            put(CRLF, CRLF.length);
+        }
+
+        applyFlushPolicy(flushSize, flushMillis);
+    }
+
+    /**
+     * Copies bytes into the buffer, then writes the buffer to the file if the flush policy calls for it.
+     *
+     * @param bytes       the array holding the bytes
+     * @param length      the number of bytes (starting at index 0) to write
+     * @param flushSize   the number of buffered bytes at which the buffer is written (0 to write every call)
+     * @param flushMillis the number of milliseconds after which buffered bytes are written (0 for no limit)
+     * @throws IOException if the file could not be written
+     */
+    void write(final byte[] bytes, final int length, final int flushSize, final long flushMillis) throws IOException {
+
+        put(bytes, length);
+
+        applyFlushPolicy(flushSize, flushMillis);
+    }
+
+    /**
+     * Copies bytes into the buffer, writing the buffer to the file whenever it fills.
+     *
+     * @param bytes  the array holding the bytes
+     * @param length the number of bytes (starting at index 0) to copy
+     * @throws IOException if the file could not be written
+     */
+    private void put(final byte[] bytes, final int length) throws IOException {
+
+        int offset = 0;
+        while (offset < length) {
+            if (!this.buffer.hasRemaining()) {
+                flush();
+            }
+            final int count = Math.min(this.buffer.remaining(), length - offset);
+            this.buffer.put(bytes, offset, count);
+            offset += count;
+        }
+        this.size += (long) length;
+    }
+
+    /**
+     * Writes the buffer to the file if it holds at least the flush size, or if the flush interval has elapsed since the
+     * last write.
+     *
+     * @param flushSize   the number of buffered bytes at which the buffer is written
+     * @param flushMillis the number of milliseconds after which buffered bytes are written (0 for no limit)
+     * @throws IOException if the file could not be written
+     */
+    private void applyFlushPolicy(final int flushSize, final long flushMillis) throws IOException {
+
+        if (this.buffer.position() >= flushSize) {
+            flush();
+        } else if (flushMillis > 0L && System.currentTimeMillis() - this.lastFlush >= flushMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Encodes characters into the buffer as UTF-8, writing the buffer to the file whenever it fills. The characters
+     * are copied a chunk at a time into the reusable character buffer; a surrogate pair split across chunks is carried
+     * over to the next chunk by the encoder.
+     *
+     * @param msg the characters
+     * @throws IOException if the file could not be written
+     */
+    private void encode(final CharSequence msg) throws IOException {
+
+        this.encoder.reset();
+        this.chars.clear();
+
+        final int length = msg.length();
+        int offset = 0;
+        boolean last = false;
+
+        while (!last) {
+            final char[] array = this.chars.array();
+            final int start = this.chars.position();
+            final int count = Math.min(this.chars.remaining(), length - offset);
+            copyChars(msg, offset, offset + count, array, start);
+            this.chars.position(start + count);
+            offset += count;
+            last = offset == length;
+
+            this.chars.flip();
+            boolean done = false;
+            while (!done) {
+                final int before = this.buffer.position();
+                final CoderResult result = this.encoder.encode(this.chars, this.buffer, last);
+                this.size += (long) (this.buffer.position() - before);
+
+                if (result.isOverflow()) {
+                    flush();
+                } else {
+                    done = true;
+                }
+            }
+            this.chars.compact();
+        }
+    }
+
+    /**
+     * Copies characters from a sequence into an array, without allocating for the common sequence types.
+     *
+     * @param msg      the sequence
+     * @param srcBegin the index of the first character to copy
+     * @param srcEnd   the index after the last character to copy
+     * @param dst      the destination array
+     * @param dstBegin the index in the destination at which to start
+     */
+    private static void copyChars(final CharSequence msg, final int srcBegin, final int srcEnd, final char[] dst,
+                                  final int dstBegin) {
+
+        if (msg instanceof String str) {
+            str.getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if (msg instanceof StringBuilder builder) {
+            builder.getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else {
+            for (int i = srcBegin; i < srcEnd; ++i) {
+                dst[dstBegin + i - srcBegin] = msg.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered bytes to the file.
+     *
+     * @throws IOException if the file could not be written
+     */
+    void flush() throws IOException {
+
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+        } finally {
+            this.buffer.clear();
+        }
+
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes all buffered bytes to the file, then forces the file's content to the storage device, so it survives a
+     * crash of the system.
+     *
+     * @throws IOException if the file could not be written or forced
+     */
+    void force() throws IOException {
+
+        flush();
+        this.channel.force(false);
+    }
+
+    /**
+     * Writes all buffered bytes to the file and closes the channel.
+     *
+     * @throws IOException if the file could not be written or closed
+     */
+    void close() throws IOException {
+
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dev.mathops.commons.log;
+
+/**
+ * A per-thread {@code StringBuilder} in which log records are formatted, so that a steady-state log call does not
+ * allocate a builder (or grow one) for every message. The formatted record is passed to the writer as a
+ * {@code CharSequence} and encoded straight from the builder into the log file's byte buffer; a {@code String} is made
+ * only for outputs that keep or print one (the console, the internal list, and appenders).
+ *
+ * <p>
+ * The builder grows as needed. Every {@code SHRINK_INTERVAL} uses, if its capacity is well above the longest record
+ * formatted in that interval (after an outlier such as a long stack trace), it is replaced by a smaller one, so one
+ * large record does not pin a large buffer to the thread for good.
+ *
+ * <p>
+ * A nested use on the same thread (a log call made while formatting an argument of another), and any use on a virtual
+ * thread (which would otherwise leave a retained buffer behind for each short-lived thread), gets a new builder instead.
+ */
+final class LogFormatBuffer {
+
+    /** The initial capacity of a builder. */
+    static final int INITIAL_CAPACITY = 256;
+
+    /** The number of uses after which the builder is considered for shrinking. */
+    private static final int SHRINK_INTERVAL = 64;
+
+    /** The factor by which capacity must exceed the longest recent record for the builder to be shrunk. */
+    private static final int SHRINK_FACTOR = 4;
+
+    /** The buffers of platform threads. */
+    private static final ThreadLocal<LogFormatBuffer> BUFFERS = ThreadLocal.withInitial(LogFormatBuffer::new);
+
+    /** The builder. */
+    private StringBuilder builder;
+
+    /** Flag indicating the builder has been acquired and not yet released. */
+    private boolean inUse;
+
+    /** The number of uses since the builder was last considered for shrinking. */
+    private int uses;
+
+    /** The length of the longest record since the builder was last considered for shrinking. */
+    private int peak;
+
+    /**
+     * Constructs a new {@code LogFormatBuffer}.
+     */
+    private LogFormatBuffer() {
+
+        this.builder = new StringBuilder(INITIAL_CAPACITY);
+        this.inUse = false;
+        this.uses = 0;
+        this.peak = 0;
+    }
+
+    /**
+     * Acquires an empty builder for the calling thread. Every call must be balanced with a call to {@code release},
+     * typically in a {@code finally} block, and the builder must not be used after it is released.
+     *
+     * @return the builder
+     */
+    static StringBuilder acquire() {
+
+        final StringBuilder result;
+
+        if (Thread.currentThread().isVirtual()) {
+            result = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            final LogFormatBuffer buffer = BUFFERS.get();
+
+            if (buffer.inUse) {
+                result = new StringBuilder(INITIAL_CAPACITY);
+            } else {
+                buffer.inUse = true;
+                result = buffer.builder;
+                result.setLength(0);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Releases a builder obtained from {@code acquire}.
+     *
+     * @param used the builder
+     */
+    static void release(final StringBuilder used) {
+
+        if (!Thread.currentThread().isVirtual()) {
+            final LogFormatBuffer buffer = BUFFERS.get();
+
+            if (buffer.builder == used) {
+                buffer.inUse = false;
+                buffer.track(used.length());
+            }
+        }
+    }
+
+    /**
+     * Records the length of a formatted record, shrinking the builder at the end of each interval if it is much larger
+     * than the records formatted during the interval.
+     *
+     * @param length the length of the record
+     */
+    private void track(final int length) {
+
+        this.peak = Math.max(this.peak, length);
+        ++this.uses;
+
+        if (this.uses >= SHRINK_INTERVAL) {
+            final int target = Math.max(INITIAL_CAPACITY, this.peak << 1);
+            if (this.builder.capacity() > target * SHRINK_FACTOR) {
+                this.builder = new StringBuilder(target);
+            }
+            this.uses = 0;
+            this.peak = 0;
+        }
+    }
+
+    /**
+     * Gets the capacity of the calling thread's builder.
+     *
+     * @return the capacity
+     */
+    static int capacity() {
+
+        return BUFFERS.get().builder.capacity();
+    }
+}
@@ -0,0 +1,365 @@
+package dev.mathops.commons.log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Builds the sidecar index of a text log file as records are written to it. The index of [name].log is written to
+ * [name].log.idx, and is rotated and archived with its log file. {@code LogSearch} uses the index to find records by
+ * time, level, session, and user without scanning the log file.
+ *
+ * <p>
+ * Records are grouped into blocks of up to {@code BLOCK_RECORDS} records. A block is held in memory (in preallocated
+ * arrays, so indexing a record does not allocate) until it is full, then appended to the index file. Each block begins
+ * with a summary that lets a search skip it without decoding its records:
+ *
+ * <pre>
+ * int    length of the rest of the block
+ * long   byte offset in the log file of the first record
+ * long   byte offset in the log file just past the last record
+ * long   earliest record time (epoch milliseconds)
+ * long   latest record time
+ * int    bitwise OR of the record levels
+ * byte   number of distinct session and user IDs in the block, then for each:
+ *          byte kind (1 = session, 2 = user), UTF the ID
+ * int    number of records, then for each:
+ *          varint   offset minus the offset of the previous record (0 for the first record)
+ *          varint   time minus the time of the previous record (zig-zag encoded; the first is relative to the earliest)
+ *          byte     level bit ({@code LogBase.ALL} for lines without a level)
+ *          varint   1 + index of the session ID in the block's IDs (0 if none)
+ *          varint   1 + index of the user ID in the block's IDs (0 if none)
+ * </pre>
+ *
+ * <p>
+ * The file begins with the 4-byte {@code MAGIC} number. An index adds a few bytes per record to the size of its log
+ * file. Records written while indexing was disabled, or held in a block that was never written (if the VM halted), are
+ * not indexed and are not found by searches.
+ *
+ * <p>
+ * An index writer is used only while holding the lock of its {@code LogWriter}, so it is not synchronized.
+ */
+final class LogIndexWriter {
+
+    /** The extension appended to the name of a log file to form the name of its index. */
+    static final String EXTENSION = ".idx";
+
+    /** The magic number at the start of an index file ("MLX1"). */
+    static final int MAGIC = 0x4D4C5831;
+
+    /** The maximum number of records in a block. */
+    static final int BLOCK_RECORDS = 256;
+
+    /** The maximum number of distinct session and user IDs in a block. */
+    static final int MAX_BLOCK_IDS = 64;
+
+    /** The kind of a session ID. */
+    static final int SESSION = 1;
+
+    /** The kind of a user ID. */
+    static final int USER = 2;
+
+    /** The low 7 bits of a varint byte. */
+    private static final int LOW_7 = 0x7F;
+
+    /** The continuation bit of a varint byte. */
+    private static final int MORE = 0x80;
+
+    /** The index file. */
+    private final File file;
+
+    /** The channel to the index file ({@code null} until the first block is written). */
+    private FileChannel channel = null;
+
+    /** The offsets of the records in the current block. */
+    private final long[] offsets;
+
+    /** The times of the records in the current block. */
+    private final long[] times;
+
+    /** The levels of the records in the current block. */
+    private final int[] levels;
+
+    /** 1 + the index of the session ID of each record in the current block (0 if none). */
+    private final int[] sessions;
+
+    /** 1 + the index of the user ID of each record in the current block (0 if none). */
+    private final int[] users;
+
+    /** The distinct session and user IDs in the current block. */
+    private final String[] ids;
+
+    /** The kinds of the IDs in the current block. */
+    private final int[] idKinds;
+
+    /** The number of IDs in the current block. */
+    private int numIds = 0;
+
+    /** The number of records in the current block. */
+    private int numRecords = 0;
+
+    /** The earliest record time in the current block. */
+    private long minMillis = Long.MAX_VALUE;
+
+    /** The latest record time in the current block. */
+    private long maxMillis = Long.MIN_VALUE;
+
+    /** The bitwise OR of the record levels in the current block. */
+    private int levelMask = 0;
+
+    /** The buffer in which blocks are serialized. */
+    private final ByteArrayOutputStream bytes;
+
+    /** The stream that serializes blocks into {@code bytes}. */
+    private final DataOutputStream out;
+
+    /**
+     * Constructs a new {@code LogIndexWriter}.
+     *
+     * @param logFile the log file to be indexed
+     */
+    LogIndexWriter(final File logFile) {
+
+        this.file = indexFor(logFile);
+        this.offsets = new long[BLOCK_RECORDS];
+        this.times = new long[BLOCK_RECORDS];
+        this.levels = new int[BLOCK_RECORDS];
+        this.sessions = new int[BLOCK_RECORDS];
+        this.users = new int[BLOCK_RECORDS];
+        this.ids = new String[MAX_BLOCK_IDS];
+        this.idKinds = new int[MAX_BLOCK_IDS];
+        this.bytes = new ByteArrayOutputStream(4096);
+        this.out = new DataOutputStream(this.bytes);
+    }
+
+    /**
+     * Gets the index file for a log file.
+     *
+     * @param logFile the log file
+     * @return the index file
+     */
+    static File indexFor(final File logFile) {
+
+        return new File(logFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Gets the index file.
+     *
+     * @return the index file
+     */
+    File getFile() {
+
+        return this.file;
+    }
+
+    /**
+     * Adds a record to the index. If the current block is full, or cannot hold the record's IDs, it is written first.
+     *
+     * @param offset    the offset of the record in the log file
+     * @param millis    the time of the record
+     * @param level     the level of the record (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL})
+     * @param sessionId the session ID ({@code null} if none)
+     * @param userId    the user ID ({@code null} if none)
+     * @throws IOException if a block could not be written
+     */
+    void add(final long offset, final long millis, final int level, final String sessionId, final String userId)
+            throws IOException {
+
+        int session = sessionId == null ? -1 : find(SESSION, sessionId);
+        int user = userId == null ? -1 : find(USER, userId);
+        final int needed = (session == -2 ? 1 : 0) + (user == -2 ? 1 : 0);
+
+        if (this.numRecords == BLOCK_RECORDS || this.numIds + needed > MAX_BLOCK_IDS) {
+            writeBlock(offset);
+            session = sessionId == null ? -1 : -2;
+            user = userId == null ? -1 : -2;
+        }
+
+        if (session == -2) {
+            session = addId(SESSION, sessionId);
+        }
+        if (user == -2) {
+            user = addId(USER, userId);
+        }
+
+        final int i = this.numRecords;
+        this.offsets[i] = offset;
+        this.times[i] = millis;
+        this.levels[i] = level & LogBase.ALL;
+        this.sessions[i] = session + 1;
+        this.users[i] = user + 1;
+        ++this.numRecords;
+
+        this.minMillis = Math.min(this.minMillis, millis);
+        this.maxMillis = Math.max(this.maxMillis, millis);
+        this.levelMask |= level & LogBase.ALL;
+    }
+
+    /**
+     * Finds an ID among the IDs of the current block.
+     *
+     * @param kind the kind of ID
+     * @param id   the ID
+     * @return the index of the ID; -2 if it is not present
+     */
+    private int find(final int kind, final String id) {
+
+        int result = -2;
+
+        for (int i = 0; i < this.numIds; ++i) {
+            if (this.idKinds[i] == kind && id.equals(this.ids[i])) {
+                result = i;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds an ID to the IDs of the current block.
+     *
+     * @param kind the kind of ID
+     * @param id   the ID
+     * @return the index of the ID
+     */
+    private int addId(final int kind, final String id) {
+
+        final int index = this.numIds;
+
+        this.ids[index] = id;
+        this.idKinds[index] = kind;
+        ++this.numIds;
+
+        return index;
+    }
+
+    /**
+     * Writes the current block, if it holds any records, so everything indexed so far is in the index file.
+     *
+     * @param endOffset the offset in the log file just past the last record
+     * @throws IOException if the block could not be written
+     */
+    void flush(final long endOffset) throws IOException {
+
+        writeBlock(endOffset);
+    }
+
+    /**
+     * Writes the current block, if it holds any records, and closes the index file.
+     *
+     * @param endOffset the offset in the log file just past the last record
+     * @throws IOException if the block could not be written or the file could not be closed
+     */
+    void close(final long endOffset) throws IOException {
+
+        try {
+            writeBlock(endOffset);
+        } finally {
+            if (this.channel != null) {
+                this.channel.close();
+                this.channel = null;
+            }
+        }
+    }
+
+    /**
+     * Serializes the current block and appends it to the index file, then starts a new block. Nothing is written if
+     * the current block holds no records.
+     *
+     * @param endOffset the offset in the log file just past the last record
+     * @throws IOException if the block could not be written
+     */
+    private void writeBlock(final long endOffset) throws IOException {
+
+        if (this.numRecords > 0) {
+            this.bytes.reset();
+
+            this.out.writeInt(0);
+            this.out.writeLong(this.offsets[0]);
+            this.out.writeLong(endOffset);
+            this.out.writeLong(this.minMillis);
+            this.out.writeLong(this.maxMillis);
+            this.out.writeInt(this.levelMask);
+            this.out.writeByte(this.numIds);
+            for (int i = 0; i < this.numIds; ++i) {
+                this.out.writeByte(this.idKinds[i]);
+                this.out.writeUTF(this.ids[i]);
+            }
+
+            this.out.writeInt(this.numRecords);
+            long prevOffset = this.offsets[0];
+            long prevMillis = this.minMillis;
+            for (int i = 0; i < this.numRecords; ++i) {
+                writeVarint(this.offsets[i] - prevOffset);
+                final long delta = this.times[i] - prevMillis;
+                writeVarint((delta << 1) ^ (delta >> 63));
+                this.out.writeByte(this.levels[i]);
+                writeVarint((long) this.sessions[i]);
+                writeVarint((long) this.users[i]);
+                prevOffset = this.offsets[i];
+                prevMillis = this.times[i];
+            }
+            this.out.flush();
+
+            final ByteBuffer buffer = ByteBuffer.wrap(this.bytes.toByteArray());
+            buffer.putInt(0, buffer.capacity() - Integer.BYTES);
+            write(buffer);
+
+            for (int i = 0; i < this.numIds; ++i) {
+                this.ids[i] = null;
+            }
+            this.numIds = 0;
+            this.numRecords = 0;
+            this.minMillis = Long.MAX_VALUE;
+            this.maxMillis = Long.MIN_VALUE;
+            this.levelMask = 0;
+        }
+    }
+
+    /**
+     * Appends bytes to the index file, opening it (and writing the magic number, if the file is new) if it is not open.
+     *
+     * @param buffer the bytes
+     * @throws IOException if the bytes could not be written
+     */
+    private void write(final ByteBuffer buffer) throws IOException {
+
+        if (this.channel == null) {
+            this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            if (this.channel.size() == 0L) {
+                final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGIC);
+                while (magic.hasRemaining()) {
+                    this.channel.write(magic);
+                }
+            }
+        }
+
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes an unsigned value as a varint.
+     *
+     * @param value the value
+     * @throws IOException never (the stream writes to memory)
+     */
+    private void writeVarint(final long value) throws IOException {
+
+        long remaining = value;
+
+        while ((remaining & ~(long) LOW_7) != 0L) {
+            this.out.writeByte((int) (remaining & (long) LOW_7) | MORE);
+            remaining >>>= 7;
+        }
+        this.out.writeByte((int) remaining);
+    }
+}
@@ -0,0 +1,136 @@
+package dev.mathops.commons.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations, in nanoseconds, with one bucket per power of two. Recording a duration is a few atomic
+ * increments and never takes a lock, so it can be done on every logged message. Percentiles are reported as the upper
+ * bound of the bucket that holds them, so they are accurate to within a factor of two.
+ */
+public final class LogLatencyHistogram {
+
+    /** The number of buckets (bucket i holds durations from 2^(i-1) to 2^i - 1 nanoseconds). */
+    private static final int NUM_BUCKETS = 64;
+
+    /** The count of durations in each bucket. */
+    private final AtomicLongArray buckets;
+
+    /** The number of durations recorded. */
+    private final LongAdder count;
+
+    /** The sum of all durations recorded. */
+    private final LongAdder total;
+
+    /** The largest duration recorded. */
+    private final AtomicLong max;
+
+    /**
+     * Constructs a new {@code LogLatencyHistogram}.
+     */
+    LogLatencyHistogram() {
+
+        this.buckets = new AtomicLongArray(NUM_BUCKETS);
+        this.count = new LongAdder();
+        this.total = new LongAdder();
+        this.max = new AtomicLong(0L);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds (negative values are recorded as 0)
+     */
+    void record(final long nanos) {
+
+        final long value = Math.max(0L, nanos);
+        final int bucket = Math.min(NUM_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(value));
+
+        this.buckets.incrementAndGet(bucket);
+        this.count.increment();
+        this.total.add(value);
+
+        if (value > this.max.get()) {
+            this.max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+
+        return this.count.sum();
+    }
+
+    /**
+     * Gets the sum of all durations recorded.
+     *
+     * @return the total, in nanoseconds
+     */
+    public long getTotalNanos() {
+
+        return this.total.sum();
+    }
+
+    /**
+     * Gets the largest duration recorded.
+     *
+     * @return the maximum, in nanoseconds (0 if nothing has been recorded)
+     */
+    public long getMaxNanos() {
+
+        return this.max.get();
+    }
+
+    /**
+     * Gets the mean duration recorded.
+     *
+     * @return the mean, in nanoseconds (0 if nothing has been recorded)
+     */
+    public long getMeanNanos() {
+
+        final long n = this.count.sum();
+
+        return n == 0L ? 0L : this.total.sum() / n;
+    }
+
+    /**
+     * Gets an estimate of a percentile of the durations recorded.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the upper bound of the bucket holding the percentile, in nanoseconds, but no more than the maximum (0 if
+     *         nothing has been recorded)
+     */
+    public long getPercentileNanos(final double percentile) {
+
+        final long[] counts = new long[NUM_BUCKETS];
+        long n = 0L;
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            counts[i] = this.buckets.get(i);
+            n += counts[i];
+        }
+
+        long result = 0L;
+
+        if (n > 0L) {
+            final double clamped = Math.min(100.0, Math.max(0.0, percentile));
+            final long rank = Math.max(1L, (long) Math.ceil(clamped * (double) n / 100.0));
+
+            long seen = 0L;
+            for (int i = 0; i < NUM_BUCKETS; ++i) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    result = i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1L;
+                    break;
+                }
+            }
+            result = Math.min(result, this.max.get());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,413 @@
+package dev.mathops.commons.log;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counters and histograms describing the cost of logging through a {@code LogWriter}: messages written per level,
+ * output written per sink, time spent writing each message and waiting for the writer lock, rotations performed, and
+ * messages dropped (because an asynchronous or appender buffer was full) or suppressed (by rate limits).
+ *
+ * <p>
+ * Every counter is a {@code LongAdder} and each histogram is a {@code LogLatencyHistogram}, so updating metrics never
+ * takes a lock and contending logging threads do not share a hot cache line. The metrics can be read through this
+ * class, or published over JMX with {@code registerMBean}.
+ *
+ * <p>
+ * Sink names are "console", "file" (the text log file), "binary" (the binary log file), and the names of registered
+ * appenders. File sinks count bytes; the console and appenders count characters.
+ */
+public final class LogMetrics implements ILogMetricsMXBean {
+
+    /** The sink name for the console. */
+    public static final String CONSOLE = "console";
+
+    /** The sink name for the text log file. */
+    public static final String FILE = "file";
+
+    /** The sink name for the binary log file. */
+    public static final String BINARY = "binary";
+
+    /** The JMX domain under which metrics are registered. */
+    private static final String DOMAIN = "dev.mathops.commons.log";
+
+    /** The level names, indexed by the position of the level bit (the last is for messages without a level). */
+    private static final String[] LEVEL_NAMES = {"SEVERE", "WARNING", "INFO", "CONFIG", "ENTERING", "EXITING", "FINE",
+            "FINEST", "OTHER"};
+
+    /** The percentile reported by the management interface. */
+    private static final double P99 = 99.0;
+
+    /** The message counts, indexed as {@code LEVEL_NAMES}. */
+    private final LongAdder[] messages;
+
+    /** The output written to each sink. */
+    private final Map<String, LongAdder> bytes;
+
+    /** The time spent writing each message, including waiting for the lock. */
+    private final LogLatencyHistogram writeTime;
+
+    /** The time spent waiting for the writer lock. */
+    private final LogLatencyHistogram lockWait;
+
+    /** The number of rotations performed. */
+    private final LongAdder rotations;
+
+    /** The number of messages dropped. */
+    private final LongAdder dropped;
+
+    /** The number of messages suppressed. */
+    private final LongAdder suppressed;
+
+    /** A lock that governs JMX registration. */
+    private final ReentrantLock registerLock;
+
+    /** The name under which the metrics are registered with JMX ({@code null} if not registered). */
+    private ObjectName registeredName = null;
+
+    /**
+     * Constructs a new {@code LogMetrics}.
+     */
+    LogMetrics() {
+
+        this.messages = new LongAdder[LEVEL_NAMES.length];
+        for (int i = 0; i < LEVEL_NAMES.length; ++i) {
+            this.messages[i] = new LongAdder();
+        }
+        this.bytes = new ConcurrentHashMap<>(8);
+        this.writeTime = new LogLatencyHistogram();
+        this.lockWait = new LogLatencyHistogram();
+        this.rotations = new LongAdder();
+        this.dropped = new LongAdder();
+        this.suppressed = new LongAdder();
+        this.registerLock = new ReentrantLock();
+    }
+
+    /**
+     * Records a message written.
+     *
+     * @param level      the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL}
+     *                   for messages that do not have a level)
+     * @param waitNanos  the time spent waiting for the writer lock
+     * @param totalNanos the time spent writing the message, including waiting for the lock
+     */
+    void recordWrite(final int level, final long waitNanos, final long totalNanos) {
+
+        this.messages[levelIndex(level)].increment();
+
+        this.lockWait.record(waitNanos);
+        this.writeTime.record(totalNanos);
+    }
+
+    /**
+     * Gets the index into the message counts for a level.
+     *
+     * @param level the level
+     * @return the index
+     */
+    private static int levelIndex(final int level) {
+
+        final int last = LEVEL_NAMES.length - 1;
+
+        return Integer.bitCount(level) == 1 ? Math.min(last, Integer.numberOfTrailingZeros(level)) : last;
+    }
+
+    /**
+     * Records output written to a sink.
+     *
+     * @param sink  the sink name
+     * @param count the number of bytes (or characters) written
+     */
+    void recordBytes(final String sink, final long count) {
+
+        if (count > 0L) {
+            this.bytes.computeIfAbsent(sink, key -> new LongAdder()).add(count);
+        }
+    }
+
+    /**
+     * Records a rotation of the log files.
+     */
+    void recordRotation() {
+
+        this.rotations.increment();
+    }
+
+    /**
+     * Records a message dropped because a buffer was full.
+     */
+    void recordDropped() {
+
+        this.dropped.increment();
+    }
+
+    /**
+     * Records a message suppressed by a rate limit.
+     */
+    void recordSuppressed() {
+
+        this.suppressed.increment();
+    }
+
+    /**
+     * Gets the number of messages written at a level.
+     *
+     * @param level the level (one of the bit constants from {@code LogBase})
+     * @return the number of messages
+     */
+    public long getMessageCount(final int level) {
+
+        return this.messages[levelIndex(level)].sum();
+    }
+
+    /**
+     * Gets the amount of output written to a sink.
+     *
+     * @param sink the sink name
+     * @return the number of bytes (or characters) written (0 if nothing has been written to the sink)
+     */
+    public long getBytesWritten(final String sink) {
+
+        final LongAdder adder = this.bytes.get(sink);
+
+        return adder == null ? 0L : adder.sum();
+    }
+
+    /**
+     * Gets the histogram of time spent writing each message, including waiting for the writer lock.
+     *
+     * @return the histogram
+     */
+    public LogLatencyHistogram getWriteTime() {
+
+        return this.writeTime;
+    }
+
+    /**
+     * Gets the histogram of time spent waiting for the writer lock.
+     *
+     * @return the histogram
+     */
+    public LogLatencyHistogram getLockWait() {
+
+        return this.lockWait;
+    }
+
+    /**
+     * Gets the number of messages written at each level.
+     *
+     * @return a map from level name to message count
+     */
+    @Override
+    public Map<String, Long> getMessageCounts() {
+
+        final Map<String, Long> result = new LinkedHashMap<>(LEVEL_NAMES.length);
+        for (int i = 0; i < LEVEL_NAMES.length; ++i) {
+            result.put(LEVEL_NAMES[i], Long.valueOf(this.messages[i].sum()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the amount of output written to each sink.
+     *
+     * @return a map from sink name to the number of bytes (characters for the console and appenders) written
+     */
+    @Override
+    public Map<String, Long> getBytesWritten() {
+
+        final Map<String, Long> result = new TreeMap<>();
+        for (final Map.Entry<String, LongAdder> entry : this.bytes.entrySet()) {
+            result.put(entry.getKey(), Long.valueOf(entry.getValue().sum()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of messages written.
+     *
+     * @return the number of messages
+     */
+    @Override
+    public long getWriteCount() {
+
+        return this.writeTime.getCount();
+    }
+
+    /**
+     * Gets the mean time spent writing a message, including waiting for the writer lock.
+     *
+     * @return the mean time, in nanoseconds
+     */
+    @Override
+    public long getWriteTimeMeanNanos() {
+
+        return this.writeTime.getMeanNanos();
+    }
+
+    /**
+     * Gets the 99th percentile of the time spent writing a message, including waiting for the writer lock.
+     *
+     * @return the 99th percentile time, in nanoseconds
+     */
+    @Override
+    public long getWriteTimeP99Nanos() {
+
+        return this.writeTime.getPercentileNanos(P99);
+    }
+
+    /**
+     * Gets the longest time spent writing a message, including waiting for the writer lock.
+     *
+     * @return the maximum time, in nanoseconds
+     */
+    @Override
+    public long getWriteTimeMaxNanos() {
+
+        return this.writeTime.getMaxNanos();
+    }
+
+    /**
+     * Gets the total time spent waiting for the writer lock.
+     *
+     * @return the total wait time, in nanoseconds
+     */
+    @Override
+    public long getLockWaitTotalNanos() {
+
+        return this.lockWait.getTotalNanos();
+    }
+
+    /**
+     * Gets the 99th percentile of the time spent waiting for the writer lock.
+     *
+     * @return the 99th percentile wait time, in nanoseconds
+     */
+    @Override
+    public long getLockWaitP99Nanos() {
+
+        return this.lockWait.getPercentileNanos(P99);
+    }
+
+    /**
+     * Gets the longest time spent waiting for the writer lock.
+     *
+     * @return the maximum wait time, in nanoseconds
+     */
+    @Override
+    public long getLockWaitMaxNanos() {
+
+        return this.lockWait.getMaxNanos();
+    }
+
+    /**
+     * Gets the number of log file rotations performed.
+     *
+     * @return the number of rotations
+     */
+    @Override
+    public long getRotations() {
+
+        return this.rotations.sum();
+    }
+
+    /**
+     * Gets the number of messages dropped because an asynchronous or appender buffer was full.
+     *
+     * @return the number of dropped messages
+     */
+    @Override
+    public long getDropped() {
+
+        return this.dropped.sum();
+    }
+
+    /**
+     * Gets the number of messages suppressed by rate limits.
+     *
+     * @return the number of suppressed messages
+     */
+    @Override
+    public long getSuppressed() {
+
+        return this.suppressed.sum();
+    }
+
+    /**
+     * Publishes the metrics over JMX, with the platform MBean server, as
+     * "dev.mathops.commons.log:type=LogMetrics,name=[name]". Any earlier registration of these metrics is removed.
+     *
+     * @param name the name that distinguishes these metrics from those of other writers
+     * @return {@code true} if the metrics were registered; {@code false} if registration failed (for example, because
+     *         the name is already in use)
+     */
+    public boolean registerMBean(final String name) {
+
+        boolean ok;
+
+        this.registerLock.lock();
+        try {
+            unregisterMBean();
+
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                final ObjectName objName = new ObjectName(DOMAIN + ":type=LogMetrics,name=" + ObjectName.quote(name));
+                server.registerMBean(this, objName);
+                this.registeredName = objName;
+                ok = true;
+            } catch (final JMException ex) {
+                ok = false;
+            }
+        } finally {
+            this.registerLock.unlock();
+        }
+
+        return ok;
+    }
+
+    /**
+     * Removes the JMX registration of the metrics, if they are registered.
+     */
+    public void unregisterMBean() {
+
+        this.registerLock.lock();
+        try {
+            if (this.registeredName != null) {
+                final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                try {
+                    server.unregisterMBean(this.registeredName);
+                } catch (final JMException ex) {
+                    // Already unregistered
+                }
+                this.registeredName = null;
+            }
+        } finally {
+            this.registerLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the name under which the metrics are registered with JMX.
+     *
+     * @return the object name; {@code null} if not registered
+     */
+    public ObjectName getRegisteredName() {
+
+        this.registerLock.lock();
+        try {
+            return this.registeredName;
+        } finally {
+            this.registerLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dev.mathops.commons.log;
+
+/**
+ * The criteria for a search of indexed log files with {@code LogSearch}: a time range, a set of levels, and optionally a
+ * session ID and a user ID. A record matches if it satisfies every criterion.
+ */
+public final class LogQuery {
+
+    /** The earliest time to match (epoch milliseconds, inclusive). */
+    private final long fromMillis;
+
+    /** The time at which to stop matching (epoch milliseconds, exclusive). */
+    private final long toMillis;
+
+    /** The levels to match (bitwise OR of bit constants from {@code LogBase}). */
+    private final int levels;
+
+    /** The session ID to match ({@code null} to match any). */
+    private final String sessionId;
+
+    /** The user ID to match ({@code null} to match any). */
+    private final String userId;
+
+    /**
+     * Constructs a new {@code LogQuery}.
+     *
+     * @param theFromMillis the earliest time to match (epoch milliseconds, inclusive; {@code Long.MIN_VALUE} for no
+     *                      limit)
+     * @param theToMillis   the time at which to stop matching (epoch milliseconds, exclusive; {@code Long.MAX_VALUE}
+     *                      for no limit)
+     * @param theLevels     the levels to match (bitwise OR of bit constants from {@code LogBase}); lines logged without
+     *                      a level match only {@code LogBase.ALL}
+     * @param theSessionId  the session ID to match ({@code null} to match any)
+     * @param theUserId     the user ID to match ({@code null} to match any)
+     */
+    public LogQuery(final long theFromMillis, final long theToMillis, final int theLevels, final String theSessionId,
+                    final String theUserId) {
+
+        this.fromMillis = theFromMillis;
+        this.toMillis = theToMillis;
+        this.levels = theLevels & LogBase.ALL;
+        this.sessionId = theSessionId;
+        this.userId = theUserId;
+    }
+
+    /**
+     * Gets the earliest time to match.
+     *
+     * @return the time (epoch milliseconds, inclusive)
+     */
+    public long getFromMillis() {
+
+        return this.fromMillis;
+    }
+
+    /**
+     * Gets the time at which to stop matching.
+     *
+     * @return the time (epoch milliseconds, exclusive)
+     */
+    public long getToMillis() {
+
+        return this.toMillis;
+    }
+
+    /**
+     * Gets the levels to match.
+     *
+     * @return the levels (bitwise OR of bit constants from {@code LogBase})
+     */
+    public int getLevels() {
+
+        return this.levels;
+    }
+
+    /**
+     * Gets the session ID to match.
+     *
+     * @return the session ID ({@code null} to match any)
+     */
+    public String getSessionId() {
+
+        return this.sessionId;
+    }
+
+    /**
+     * Gets the user ID to match.
+     *
+     * @return the user ID ({@code null} to match any)
+     */
+    public String getUserId() {
+
+        return this.userId;
+    }
+
+    /**
+     * Tests whether a time falls in the time range.
+     *
+     * @param millis the time
+     * @return {@code true} if the time is in the range
+     */
+    boolean matchesTime(final long millis) {
+
+        return millis >= this.fromMillis && millis < this.toMillis;
+    }
+
+    /**
+     * Tests whether a time range overlaps the time range.
+     *
+     * @param min the earliest time in the range
+     * @param max the latest time in the range
+     * @return {@code true} if some time in the range is in this query's range
+     */
+    boolean overlapsTime(final long min, final long max) {
+
+        return max >= this.fromMillis && min < this.toMillis;
+    }
+
+    /**
+     * Tests whether a level matches.
+     *
+     * @param level the level ({@code LogBase.ALL} for lines without a level)
+     * @return {@code true} if the level is among the levels to match
+     */
+    boolean matchesLevel(final int level) {
+
+        return (level & this.levels) == level;
+    }
+}
@@ -0,0 +1,170 @@
+package dev.mathops.commons.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A limit on how often messages under a key may be logged: either a token bucket (a sustained rate with an allowed
+ * burst), or sampling (one message in every N). Limiters are registered with {@code Log.setRateLimit} (for explicit
+ * keys tested with {@code Log.allow}) or {@code Log.setCallSiteRateLimit} (for keys naming a call site, applied
+ * automatically).
+ *
+ * <p>
+ * The state of a limiter is a single {@code AtomicLong}, updated with compare-and-set, so testing a limiter never takes
+ * a lock. The token bucket is implemented as a "generic cell rate" algorithm: the state is the theoretical time at
+ * which the bucket will next be full, and a message is allowed if that time is no more than the burst tolerance ahead
+ * of the current time.
+ */
+public final class LogRateLimiter {
+
+    /** Nanoseconds per second. */
+    private static final double NANOS_PER_SEC = 1.0e9;
+
+    /** The key. */
+    private final String key;
+
+    /** The nanoseconds between messages at the sustained rate (0 for a sampling limiter). */
+    private final long intervalNanos;
+
+    /** The nanoseconds by which the theoretical arrival time may run ahead of the current time. */
+    private final long toleranceNanos;
+
+    /** The sampling interval N (0 for a token bucket limiter). */
+    private final int sampleEvery;
+
+    /** The theoretical arrival time (token bucket) or message count (sampling). */
+    private final AtomicLong state;
+
+    /** The total number of messages suppressed. */
+    private final LongAdder suppressed;
+
+    /** The total number of suppressed messages already reported (accessed only by the reporting task). */
+    private long reported = 0L;
+
+    /**
+     * Constructs a new {@code LogRateLimiter}.
+     *
+     * @param theKey            the key
+     * @param theIntervalNanos  the nanoseconds between messages at the sustained rate (0 for sampling)
+     * @param theToleranceNanos the burst tolerance, in nanoseconds
+     * @param theSampleEvery    the sampling interval (0 for a token bucket)
+     */
+    private LogRateLimiter(final String theKey, final long theIntervalNanos, final long theToleranceNanos,
+                           final int theSampleEvery) {
+
+        this.key = theKey;
+        this.intervalNanos = theIntervalNanos;
+        this.toleranceNanos = theToleranceNanos;
+        this.sampleEvery = theSampleEvery;
+        this.state = new AtomicLong(theSampleEvery == 0 ? System.nanoTime() : 0L);
+        this.suppressed = new LongAdder();
+    }
+
+    /**
+     * Creates a token bucket limiter.
+     *
+     * @param key       the key
+     * @param perSecond the sustained number of messages allowed per second (greater than 0)
+     * @param burst     the number of messages that may be logged in a burst before the rate applies (at least 1)
+     * @return the limiter
+     */
+    public static LogRateLimiter tokenBucket(final String key, final double perSecond, final int burst) {
+
+        if (key == null || !(perSecond > 0.0) || burst < 1) {
+            final String msg = Res.fmt(Res.RATE_BAD_LIMIT, key);
+            throw new IllegalArgumentException(msg);
+        }
+
+        final long interval = Math.max(1L, (long) (NANOS_PER_SEC / perSecond));
+
+        return new LogRateLimiter(key, interval, interval * (long) (burst - 1), 0);
+    }
+
+    /**
+     * Creates a sampling limiter that allows the first message and every Nth message after it.
+     *
+     * @param key      the key
+     * @param oneInN   the sampling interval N (at least 1)
+     * @return the limiter
+     */
+    public static LogRateLimiter sampling(final String key, final int oneInN) {
+
+        if (key == null || oneInN < 1) {
+            final String msg = Res.fmt(Res.RATE_BAD_LIMIT, key);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return new LogRateLimiter(key, 0L, 0L, oneInN);
+    }
+
+    /**
+     * Gets the key.
+     *
+     * @return the key
+     */
+    public String getKey() {
+
+        return this.key;
+    }
+
+    /**
+     * Tests whether a message may be logged now, consuming a token (or advancing the sample count) if so. A message
+     * that may not be logged is counted as suppressed.
+     *
+     * @return {@code true} if the message may be logged
+     */
+    public boolean tryAcquire() {
+
+        final boolean allowed;
+
+        if (this.sampleEvery == 0) {
+            boolean ok = false;
+            boolean done = false;
+            while (!done) {
+                final long now = System.nanoTime();
+                final long tat = this.state.get();
+                final long newTat = Math.max(tat, now) + this.intervalNanos;
+                if (newTat - now > this.toleranceNanos + this.intervalNanos) {
+                    done = true;
+                } else if (this.state.compareAndSet(tat, newTat)) {
+                    ok = true;
+                    done = true;
+                }
+            }
+            allowed = ok;
+        } else {
+            final long count = this.state.getAndIncrement();
+            allowed = count % (long) this.sampleEvery == 0L;
+        }
+
+        if (!allowed) {
+            this.suppressed.increment();
+        }
+
+        return allowed;
+    }
+
+    /**
+     * Gets the total number of messages suppressed by this limiter.
+     *
+     * @return the number of suppressed messages
+     */
+    public long getSuppressedCount() {
+
+        return this.suppressed.sum();
+    }
+
+    /**
+     * Gets the number of messages suppressed since the last call. Called only by the reporting task.
+     *
+     * @return the number of suppressed messages not yet reported
+     */
+    long drainSuppressed() {
+
+        final long total = this.suppressed.sum();
+        final long delta = total - this.reported;
+        this.reported = total;
+
+        return delta;
+    }
+}
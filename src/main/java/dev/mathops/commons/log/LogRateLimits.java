@@ -0,0 +1,213 @@
+package dev.mathops.commons.log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The rate limiters registered with a logger. Limiters under explicit keys are tested by callers (through
+ * {@code Log.allow}); limiters under call-site keys ("[className]" or "[className]:[lineNumber]") are tested
+ * automatically for every message logged from that class or line.
+ *
+ * <p>
+ * Lookups read concurrent maps and a volatile flag and take no lock, so a logger with no call-site limiters pays only
+ * one field read per message. Registering the first limiter schedules a task on the shared {@code LogScheduler} thread
+ * that periodically writes the number of messages each limiter has suppressed.
+ */
+final class LogRateLimits {
+
+    /** The interval at which suppressed-message counts are reported, in milliseconds. */
+    static final long REPORT_INTERVAL_MS = 60_000L;
+
+    /** A character that separates a class name from a line number in a call-site key. */
+    private static final char COLON = ':';
+
+    /** The writer to which reports are written, and whose metrics count suppressed messages. */
+    private final LogWriter writer;
+
+    /** The limiters under explicit keys. */
+    private final Map<String, LogRateLimiter> keyed;
+
+    /** The limiters under call-site keys. */
+    private final Map<String, LogRateLimiter> sites;
+
+    /** Flag indicating there is at least one call-site limiter. */
+    private volatile boolean hasSites = false;
+
+    /** A lock that governs registration and reporting. */
+    private final ReentrantLock lock;
+
+    /** The periodic report task ({@code null} if not scheduled). */
+    private ScheduledFuture<?> reportTask = null;
+
+    /**
+     * Constructs a new {@code LogRateLimits}.
+     *
+     * @param theWriter the writer to which reports are written
+     */
+    LogRateLimits(final LogWriter theWriter) {
+
+        this.writer = theWriter;
+        this.keyed = new ConcurrentHashMap<>(16);
+        this.sites = new ConcurrentHashMap<>(16);
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Registers a limiter, replacing any limiter with the same key.
+     *
+     * @param limiter  the limiter
+     * @param callSite {@code true} if the key names a call site; {@code false} if it is an explicit key
+     */
+    void add(final LogRateLimiter limiter, final boolean callSite) {
+
+        this.lock.lock();
+        try {
+            final String key = limiter.getKey();
+            if (callSite) {
+                this.keyed.remove(key);
+                this.sites.put(key, limiter);
+            } else {
+                this.sites.remove(key);
+                this.keyed.put(key, limiter);
+            }
+            this.hasSites = !this.sites.isEmpty();
+
+            if (this.reportTask == null) {
+                this.reportTask = LogScheduler.scheduleAtFixedRate(this::report, REPORT_INTERVAL_MS);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a limiter.
+     *
+     * @param key the key
+     * @return {@code true} if a limiter with the key was found and removed
+     */
+    boolean remove(final String key) {
+
+        this.lock.lock();
+        try {
+            final boolean removedKeyed = this.keyed.remove(key) != null;
+            final boolean removedSite = this.sites.remove(key) != null;
+            this.hasSites = !this.sites.isEmpty();
+
+            return removedKeyed || removedSite;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a limiter.
+     *
+     * @param key the key
+     * @return the limiter; {@code null} if none is registered under the key
+     */
+    LogRateLimiter get(final String key) {
+
+        final LogRateLimiter limiter = this.keyed.get(key);
+
+        return limiter == null ? this.sites.get(key) : limiter;
+    }
+
+    /**
+     * Tests whether any call-site limiters are registered.
+     *
+     * @return {@code true} if at least one call-site limiter is registered
+     */
+    boolean hasCallSiteLimits() {
+
+        return this.hasSites;
+    }
+
+    /**
+     * Tests whether a message under an explicit key may be logged now.
+     *
+     * @param key the key
+     * @return {@code true} if there is no limiter under the key, or its limit allows the message
+     */
+    boolean allow(final String key) {
+
+        final LogRateLimiter limiter = this.keyed.get(key);
+
+        return limiter == null || check(limiter);
+    }
+
+    /**
+     * Tests whether a message logged from a call site may be logged now. A limiter on the line is used if there is one;
+     * otherwise, a limiter on the class.
+     *
+     * @param className  the name of the class that logged the message
+     * @param lineNumber the line number that logged the message
+     * @return {@code true} if there is no limiter on the call site, or its limit allows the message
+     */
+    boolean allowCallSite(final String className, final int lineNumber) {
+
+        LogRateLimiter limiter = this.sites.get(className + COLON + lineNumber);
+        if (limiter == null) {
+            limiter = this.sites.get(className);
+        }
+
+        return limiter == null || check(limiter);
+    }
+
+    /**
+     * Tests a limiter, counting the message in the writer's metrics if it is suppressed.
+     *
+     * @param limiter the limiter
+     * @return {@code true} if the limit allows the message
+     */
+    private boolean check(final LogRateLimiter limiter) {
+
+        final boolean allowed = limiter.tryAcquire();
+        if (!allowed) {
+            this.writer.getMetrics().recordSuppressed();
+        }
+
+        return allowed;
+    }
+
+    /**
+     * Writes the number of messages each limiter has suppressed since the last report, for limiters that have
+     * suppressed any. Called periodically by the log scheduler.
+     */
+    void report() {
+
+        this.lock.lock();
+        try {
+            final String secondsStr = Long.toString(REPORT_INTERVAL_MS / 1000L);
+            report(this.keyed, secondsStr);
+            report(this.sites, secondsStr);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the number of messages each limiter in a map has suppressed since the last report. Called only while
+     * holding the lock.
+     *
+     * @param limiters   the limiters
+     * @param secondsStr the report interval, in seconds, as a string
+     */
+    private void report(final Map<String, LogRateLimiter> limiters, final String secondsStr) {
+
+        for (final LogRateLimiter limiter : limiters.values()) {
+            final long count = limiter.drainSuppressed();
+
+            if (count > 0L) {
+                final String countStr = Long.toString(count);
+                final String msg = Res.fmt(Res.RATE_SUPPRESSED, limiter.getKey(), countStr, secondsStr);
+                final StringBuilder builder = new StringBuilder(100);
+                LogBase.appendHeader(builder, System.currentTimeMillis(), null, Log.INFO);
+                builder.append(msg);
+                this.writer.writeMessage(LogBase.INFO_BIT, builder.toString(), true);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package dev.mathops.commons.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free ring buffer of pre-allocated {@code LogEvent} slots that supports multiple producers and multiple
+ * consumers.
+ *
+ * <p>
+ * Each slot carries a sequence number. A slot whose sequence equals a producer's claimed position is free to be
+ * written; once written, the producer publishes it by setting its sequence to position + 1, which makes it available
+ * to a consumer at that position. When the consumer has finished with the slot, it releases it by setting its sequence
+ * to position + capacity, making it free for the producer that will claim that position on the next lap.
+ *
+ * <p>
+ * Normally there is a single consumer (the background dispatch thread), but producers may also consume (and discard)
+ * the oldest event when applying the {@code DROP_OLDEST} back-pressure policy, so consumption uses the same
+ * compare-and-set protocol as production.
+ */
+final class LogRingBuffer {
+
+    /** The largest capacity allowed. */
+    static final int MAX_CAPACITY = 1 << 24;
+
+    /** Value returned when a position could not be claimed or consumed. */
+    static final long NONE = -1L;
+
+    /** The slots. */
+    private final LogEvent[] slots;
+
+    /** The sequence number of each slot. */
+    private final AtomicLongArray sequences;
+
+    /** The mask to apply to a position to get a slot index. */
+    private final int mask;
+
+    /** The next position to be claimed by a producer. */
+    private final AtomicLong producerPos;
+
+    /** The next position to be consumed. */
+    private final AtomicLong consumerPos;
+
+    /**
+     * Constructs a new {@code LogRingBuffer}.
+     *
+     * @param requestedCapacity the requested capacity, which is rounded up to a power of 2 between 2 and
+     *                          {@code MAX_CAPACITY}
+     */
+    LogRingBuffer(final int requestedCapacity) {
+
+        int capacity = 2;
+        while (capacity < requestedCapacity && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+
+        this.slots = new LogEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            this.slots[i] = new LogEvent();
+            this.sequences.set(i, (long) i);
+        }
+
+        this.mask = capacity - 1;
+        this.producerPos = new AtomicLong(0L);
+        this.consumerPos = new AtomicLong(0L);
+    }
+
+    /**
+     * Gets the capacity of the buffer.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+
+        return this.slots.length;
+    }
+
+    /**
+     * Gets the approximate number of events that have been published or claimed but not yet consumed.
+     *
+     * @return the number of events
+     */
+    int size() {
+
+        final long consumed = this.consumerPos.get();
+        final long produced = this.producerPos.get();
+
+        return (int) Math.max(0L, produced - consumed);
+    }
+
+    /**
+     * Gets the next position that will be claimed by a producer.
+     *
+     * @return the position
+     */
+    long getProducerPosition() {
+
+        return this.producerPos.get();
+    }
+
+    /**
+     * Attempts to claim the next slot for writing.
+     *
+     * @return the claimed position, or {@code NONE} if the buffer is full
+     */
+    long tryClaim() {
+
+        long pos = this.producerPos.get();
+
+        while (true) {
+            final int index = (int) pos & this.mask;
+            final long seq = this.sequences.get(index);
+            final long diff = seq - pos;
+
+            if (diff == 0L) {
+                if (this.producerPos.compareAndSet(pos, pos + 1L)) {
+                    return pos;
+                }
+                pos = this.producerPos.get();
+            } else if (diff < 0L) {
+                // The slot still holds an event from the previous lap, so the buffer is full
+                return NONE;
+            } else {
+                pos = this.producerPos.get();
+            }
+        }
+    }
+
+    /**
+     * Gets the event slot for a position obtained from {@code tryClaim} or {@code tryConsume}.
+     *
+     * @param pos the position
+     * @return the event slot
+     */
+    LogEvent get(final long pos) {
+
+        return this.slots[(int) pos & this.mask];
+    }
+
+    /**
+     * Publishes a claimed slot once the producer has finished writing it, making it available to a consumer.
+     *
+     * @param pos the position returned by {@code tryClaim}
+     */
+    void publish(final long pos) {
+
+        this.sequences.set((int) pos & this.mask, pos + 1L);
+    }
+
+    /**
+     * Attempts to take the oldest published slot for reading.
+     *
+     * @return the position of the slot, or {@code NONE} if no published slot is available
+     */
+    long tryConsume() {
+
+        long pos = this.consumerPos.get();
+
+        while (true) {
+            final int index = (int) pos & this.mask;
+            final long seq = this.sequences.get(index);
+            final long diff = seq - (pos + 1L);
+
+            if (diff == 0L) {
+                if (this.consumerPos.compareAndSet(pos, pos + 1L)) {
+                    return pos;
+                }
+                pos = this.consumerPos.get();
+            } else if (diff < 0L) {
+                // Nothing published at this position yet
+                return NONE;
+            } else {
+                pos = this.consumerPos.get();
+            }
+        }
+    }
+
+    /**
+     * Releases a consumed slot back to producers.
+     *
+     * @param pos the position returned by {@code tryConsume}
+     */
+    void release(final long pos) {
+
+        final int index = (int) pos & this.mask;
+        this.slots[index].clear();
+        this.sequences.set(index, pos + (long) this.slots.length);
+    }
+}
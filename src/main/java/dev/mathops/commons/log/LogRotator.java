@@ -3,25 +3,66 @@ package dev.mathops.commons.log;
 import dev.mathops.commons.CoreConstants;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Rotates log files. Renames each indexed archive log file to the next larger index, discarding the file with maximum
- * index file if one exists, then renames the active log file to the first index archive. This is a utility class, not
- * intended to be instantiated, with only static methods.
+ * Rotates log files. This is a utility class, not intended to be instantiated, with only static methods.
+ *
+ * <p>
+ * Two archive naming schemes are supported. By default, archives are numbered: each indexed archive log file is renamed
+ * to the next larger index, discarding the file with maximum index if one exists, then the active log file is renamed
+ * to the first index archive. When timestamped archives are enabled, the active log file is instead moved to a single
+ * archive whose name carries the time of rotation, so rotation costs one rename regardless of how many archives exist.
+ * Compression of the new archive and enforcement of the retention limits (file count, age, and total size) then run on
+ * a background thread so they never delay a logging thread.
+ *
+ * <p>
+ * Files are renamed with {@code Files.move}, atomically where the file system supports it.
  */
 final class LogRotator {
 
     /** File extension for log files. */
     private static final String EXTENSION = ".log";
 
+    /** File extension for compressed log files. */
+    private static final String GZ_EXTENSION = ".log.gz";
+
+    /** The length of the timestamp in a timestamped archive name ("yyyyMMdd-HHmmss-SSS"). */
+    private static final int TIMESTAMP_LENGTH = 19;
+
     /** Base for decimal numbers. */
     private static final int DEC_BASE = 10;
 
-    /** Buffer size for file copies. */
-    private static final int BUF_SIZE = 2048;
+    /** Buffer size for compression. */
+    private static final int BUF_SIZE = 8192;
+
+    /** Milliseconds per day. */
+    private static final long MS_PER_DAY = 86_400_000L;
+
+    /** Bytes per megabyte. */
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    /** The name of the archiver thread. */
+    private static final String THREAD_NAME = "mathops-log-archiver";
 
     /**
      * Private constructor to prevent direct instantiation.
@@ -32,7 +73,7 @@ final class LogRotator {
     }
 
     /**
-     * Rotates the log files when the active log file reaches its file size limit.
+     * Rotates the log files when the active log file reaches its file size limit, using numbered archives.
      *
      * @param logDir       the log directory
      * @param filenameBase the base of log filenames
@@ -42,14 +83,33 @@ final class LogRotator {
      */
     static String rotateLogs(final File logDir, final String filenameBase, final long maxNumFiles, final File curFile) {
 
+        return rotateLogs(logDir, filenameBase, EXTENSION, maxNumFiles, curFile);
+    }
+
+    /**
+     * Rotates the log files with a given extension when the active file reaches its file size limit, using numbered
+     * archives.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param extension    the file extension, including the leading '.'
+     * @param maxNumFiles  the maximum number of files
+     * @param curFile      the currently active log file
+     * @return error text on failure
+     */
+    static String rotateLogs(final File logDir, final String filenameBase, final String extension,
+                             final long maxNumFiles, final File curFile) {
+
         final StringBuilder err = new StringBuilder(100);
 
-        // see how many numbered log files there are
+        // see how many numbered log files there are, from a single listing of the directory
+        final String[] names = logDir.list();
+        final Set<String> existing = names == null ? Collections.emptySet() : new HashSet<>(Arrays.asList(names));
+
         int onFile = 1;
         while ((long) onFile < maxNumFiles) {
-            final String filename = makeFilename(filenameBase, onFile);
-            final File file = new File(logDir, filename);
-            if (!file.exists()) {
+            final String filename = makeFilename(filenameBase, onFile, extension);
+            if (!existing.contains(filename)) {
                 break;
             }
             ++onFile;
@@ -58,40 +118,253 @@ final class LogRotator {
         // "onFile" will be one larger than the highest numbered log file found
 
         // starting at index of last file and working downward, rename files
-        final String filename0 = makeFilename(filenameBase, onFile);
+        final String filename0 = makeFilename(filenameBase, onFile, extension);
         File dstFile = new File(logDir, filename0);
         while (onFile > 1) {
-            final String filename1 = makeFilename(filenameBase, onFile - 1);
+            final String filename1 = makeFilename(filenameBase, onFile - 1, extension);
             final File srcFile = new File(logDir, filename1);
-            renameFile(srcFile, dstFile, err);
+            moveFile(srcFile, dstFile, err);
             dstFile = srcFile;
             --onFile;
         }
 
         // Move the active log file
         if (curFile.exists()) {
-            if (!curFile.renameTo(dstFile)) {
-                final String dstPath = dstFile.getAbsolutePath();
-                final String curPath = curFile.getAbsolutePath();
-                final String msg1 = Res.fmt(Res.RENAME_FAIL, curPath, dstPath);
-                err.append(msg1);
-                err.append(CoreConstants.CRLF);
-
-                if (copyFile(curFile, dstFile, err)) {
-                    if (!curFile.delete()) {
-                        final String msg2 = Res.fmt(Res.DELETE_FAIL, curPath);
-                        err.append(msg2);
-                        err.append(CoreConstants.CRLF);
-                    }
+            moveFile(curFile, dstFile, err);
+        }
+
+        return err.isEmpty() ? null : err.toString();
+    }
+
+    /**
+     * Rotates the log files when the active log file reaches its file size limit, using timestamped archives. The active
+     * file is moved to a new archive named for the current time; the caller should then pass the returned archive to
+     * {@code submitHousekeeping}.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param curFile      the currently active log file
+     * @param err          a {@code StringBuilder} to which to log errors
+     * @return the archive file, or {@code null} if the active file did not exist or could not be moved
+     */
+    static File rotateToTimestamp(final File logDir, final String filenameBase, final File curFile,
+                                  final StringBuilder err) {
+
+        File result = null;
+
+        if (curFile.exists()) {
+            long when = System.currentTimeMillis();
+            File dstFile = new File(logDir, makeTimestampedFilename(filenameBase, when, EXTENSION));
+            while (dstFile.exists() || new File(logDir, makeTimestampedFilename(filenameBase, when,
+                    GZ_EXTENSION)).exists()) {
+                ++when;
+                dstFile = new File(logDir, makeTimestampedFilename(filenameBase, when, EXTENSION));
+            }
+
+            if (moveFile(curFile, dstFile, err)) {
+                result = dstFile;
+
+                final File index = LogIndexWriter.indexFor(curFile);
+                if (index.exists()) {
+                    moveFile(index, LogIndexWriter.indexFor(dstFile), err);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Queues compression of a new archive (if enabled) and enforcement of archive retention limits on the archiver
+     * thread.
+     *
+     * @param archive   the new archive ({@code null} to only enforce retention limits)
+     * @param settings  the log settings
+     * @param logDir    the log directory
+     * @param errorSink receives error text if any step fails
+     */
+    static void submitHousekeeping(final File archive, final LogSettings settings, final File logDir,
+                                   final Consumer<String> errorSink) {
+
+        final String filenameBase = settings.getFilenameBase();
+        final boolean compress = settings.isArchiveCompress();
+        final int maxFiles = settings.getLogFileCount();
+        final long maxAgeMs = (long) settings.getArchiveMaxAge() * MS_PER_DAY;
+        final long maxTotal = (long) settings.getArchiveMaxTotalSize() * BYTES_PER_MB;
+
+        Holder.EXECUTOR.execute(() -> {
+            final StringBuilder err = new StringBuilder(100);
+
+            if (compress && archive != null) {
+                compress(archive, err);
+            }
+            applyRetention(logDir, filenameBase, maxFiles, maxAgeMs, maxTotal, System.currentTimeMillis(), err);
+
+            if (!err.isEmpty()) {
+                errorSink.accept(err.toString());
+            }
+        });
+    }
+
+    /**
+     * Compresses an archive file with GZIP, replacing it with a file of the same name with ".gz" appended. If
+     * compression fails, the partially written compressed file is deleted and the original is kept.
+     *
+     * @param archive the archive file
+     * @param err     a {@code StringBuilder} to which to log errors
+     * @return the compressed file, or {@code null} on failure
+     */
+    static File compress(final File archive, final StringBuilder err) {
+
+        final Path source = archive.toPath();
+        final Path target = source.resolveSibling(archive.getName() + ".gz");
+
+        File result = null;
+
+        try {
+            try (final InputStream in = Files.newInputStream(source);
+                 final OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), BUF_SIZE)) {
+                in.transferTo(out);
+            }
+            Files.delete(source);
+            result = target.toFile();
+            // The index holds offsets into the uncompressed file, so it cannot be used with the compressed file
+            deleteQuietly(LogIndexWriter.indexFor(archive).toPath());
+        } catch (final IOException ex) {
+            final String exMessage = ex.getMessage();
+            final String msg = Res.fmt(Res.COMPRESS_FAIL, source.toString(), exMessage);
+            err.append(msg);
+            err.append(CoreConstants.CRLF);
+            deleteQuietly(target);
+        }
+
+        return result;
+    }
+
+    /**
+     * Deletes timestamped archives that exceed the retention limits. Archives are considered newest first; an archive is
+     * deleted if there are already the maximum number of newer archives, if it is older than the maximum age, or if it
+     * would bring the total size of retained archives over the maximum total size.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param maxFiles     the maximum number of archives to retain
+     * @param maxAgeMs     the maximum age of archives, in milliseconds (0 for no limit)
+     * @param maxTotal     the maximum total size of archives, in bytes (0 for no limit)
+     * @param now          the current time
+     * @param err          a {@code StringBuilder} to which to log errors
+     */
+    static void applyRetention(final File logDir, final String filenameBase, final int maxFiles, final long maxAgeMs,
+                               final long maxTotal, final long now, final StringBuilder err) {
+
+        final List<File> archives = listTimestampedArchives(logDir, filenameBase);
+        // Timestamped names sort chronologically; consider the newest first
+        archives.sort((o1, o2) -> o2.getName().compareTo(o1.getName()));
+
+        int kept = 0;
+        long totalSize = 0L;
+
+        for (final File archive : archives) {
+            final long length = archive.length();
+            final boolean tooMany = kept >= maxFiles;
+            final boolean tooOld = maxAgeMs > 0L && now - archive.lastModified() > maxAgeMs;
+            final boolean tooBig = maxTotal > 0L && totalSize + length > maxTotal;
+
+            if (tooMany || tooOld || tooBig) {
+                if (archive.delete()) {
+                    deleteQuietly(LogIndexWriter.indexFor(archive).toPath());
                 } else {
-                    final String msg3 = Res.fmt(Res.COPY_FAIL, curPath, dstPath);
-                    err.append(msg3);
+                    final String path = archive.getPath();
+                    final String msg = Res.fmt(Res.DELETE_FAIL, path);
+                    err.append(msg);
                     err.append(CoreConstants.CRLF);
                 }
+            } else {
+                ++kept;
+                totalSize += length;
             }
         }
+    }
 
-        return err.isEmpty() ? null : err.toString();
+    /**
+     * Lists the numbered archives with a given extension in the log directory, from [filenameBase]_001 up to the first
+     * number that does not exist.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param extension    the file extension, including the leading '.'
+     * @return the list of archives, in order by number
+     */
+    static List<File> listNumberedArchives(final File logDir, final String filenameBase, final String extension) {
+
+        final List<File> result = new ArrayList<>(10);
+
+        for (int index = 1; ; ++index) {
+            final File file = new File(logDir, makeFilename(filenameBase, index, extension));
+            if (!file.exists()) {
+                break;
+            }
+            result.add(file);
+        }
+
+        return result;
+    }
+
+    /**
+     * Lists the timestamped archives (compressed or not) in the log directory.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @return the list of archives
+     */
+    static List<File> listTimestampedArchives(final File logDir, final String filenameBase) {
+
+        final String[] names = logDir.list();
+        final List<File> result = new ArrayList<>(names == null ? 0 : names.length);
+
+        if (names != null) {
+            final String prefix = filenameBase + "_";
+            for (final String name : names) {
+                if (isTimestampedName(name, prefix)) {
+                    result.add(new File(logDir, name));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether a filename has the form of a timestamped archive: the prefix, followed by "yyyyMMdd-HHmmss-SSS",
+     * followed by ".log" or ".log.gz".
+     *
+     * @param name   the filename
+     * @param prefix the filename base followed by "_"
+     * @return {@code true} if the name is that of a timestamped archive
+     */
+    private static boolean isTimestampedName(final String name, final String prefix) {
+
+        boolean result = false;
+
+        if (name.startsWith(prefix)) {
+            final int start = prefix.length();
+            final int end = start + TIMESTAMP_LENGTH;
+            final String suffix = name.substring(Math.min(end, name.length()));
+
+            if (EXTENSION.equals(suffix) || GZ_EXTENSION.equals(suffix)) {
+                result = true;
+                for (int i = start; i < end; ++i) {
+                    final char chr = name.charAt(i);
+                    final boolean dash = i == start + 8 || i == start + 15;
+                    if (dash ? chr != '-' : !Character.isDigit(chr)) {
+                        result = false;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -99,70 +372,133 @@ final class LogRotator {
      *
      * @param filenameBase the base of log filenames
      * @param index        the index
+     * @param extension    the file extension, including the leading '.'
      * @return the log file name
      */
-    private static String makeFilename(final String filenameBase, final int index) {
+    private static String makeFilename(final String filenameBase, final int index, final String extension) {
 
         final int hundreds = index / DEC_BASE / DEC_BASE;
         final int tens = (index / DEC_BASE) % DEC_BASE;
         final int ones = index % DEC_BASE;
 
-        return filenameBase + "_" + hundreds + tens + ones + EXTENSION;
+        return filenameBase + "_" + hundreds + tens + ones + extension;
     }
 
     /**
-     * Attempts to rename a source file to a destination file.
+     * Builds the filename of a timestamped archive log file, in the form "[base]_yyyyMMdd-HHmmss-SSS[extension]".
      *
-     * @param srcFile the source file
-     * @param dstFile the destination file
-     * @param err     a {@code HtmlBuilder} to which to log errors
+     * @param filenameBase the base of log filenames
+     * @param millis       the time of rotation
+     * @param extension    the extension
+     * @return the log file name
      */
-    private static void renameFile(final File srcFile, final File dstFile, final StringBuilder err) {
+    static String makeTimestampedFilename(final String filenameBase, final long millis, final String extension) {
 
-        if (dstFile.exists() && !dstFile.delete()) {
-            final String sourcePath = srcFile.getPath();
-            final String dstPath = dstFile.getPath();
-            final String msg = Res.fmt(Res.COPY_FAIL, sourcePath, dstPath);
-            err.append(msg);
-            err.append(CoreConstants.CRLF);
-        } else if (!srcFile.renameTo(dstFile)) {
-            final String sourcePath = srcFile.getPath();
-            final String dstPath = dstFile.getPath();
-            final String msg = Res.fmt(Res.RENAME_FAIL, sourcePath, dstPath);
-            err.append(msg);
-            err.append(CoreConstants.CRLF);
+        final Instant instant = Instant.ofEpochMilli(millis);
+        final LocalDateTime when = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+
+        final StringBuilder builder = new StringBuilder(filenameBase.length() + 30);
+        builder.append(filenameBase);
+        builder.append('_');
+        appendDigits(builder, when.getYear(), 4);
+        appendDigits(builder, when.getMonthValue(), 2);
+        appendDigits(builder, when.getDayOfMonth(), 2);
+        builder.append('-');
+        appendDigits(builder, when.getHour(), 2);
+        appendDigits(builder, when.getMinute(), 2);
+        appendDigits(builder, when.getSecond(), 2);
+        builder.append('-');
+        appendDigits(builder, (int) Math.floorMod(millis, 1000L), 3);
+        builder.append(extension);
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends a number with a fixed number of digits, padded with leading zeros.
+     *
+     * @param builder the {@code StringBuilder} to which to append
+     * @param value   the value
+     * @param digits  the number of digits
+     */
+    private static void appendDigits(final StringBuilder builder, final int value, final int digits) {
+
+        final String str = Integer.toString(value);
+        for (int i = str.length(); i < digits; ++i) {
+            builder.append('0');
         }
+        builder.append(str);
     }
 
     /**
-     * Attempts to copy a file.
+     * Attempts to move a source file to a destination file, replacing the destination if it exists. The move is atomic
+     * if the file system supports it.
      *
-     * @param source      the source file
-     * @param destination the destination file
-     * @param err         a {@code HtmlBuilder} to which to log errors
-     * @return {@code true} if copy succeeded
+     * @param srcFile the source file
+     * @param dstFile the destination file
+     * @param err     a {@code StringBuilder} to which to log errors
+     * @return {@code true} if the move succeeded
      */
-    private static boolean copyFile(final File source, final File destination, final StringBuilder err) {
+    private static boolean moveFile(final File srcFile, final File dstFile, final StringBuilder err) {
 
-        boolean ok = false;
+        final Path src = srcFile.toPath();
+        final Path dst = dstFile.toPath();
 
-        final byte[] buffer = new byte[BUF_SIZE];
-        try (final FileInputStream fis = new FileInputStream(source);
-             final FileOutputStream fos = new FileOutputStream(destination)) {
+        boolean ok = false;
 
-            int len = fis.read(buffer);
-            while (len > 0) {
-                fos.write(buffer, 0, len);
-                len = fis.read(buffer);
+        try {
+            try {
+                Files.move(src, dst, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(src, dst, StandardCopyOption.REPLACE_EXISTING);
             }
             ok = true;
         } catch (final IOException ex) {
-            final String exMessage = ex.getMessage();
-            final String msg = Res.fmt(Res.COPY_ERROR, exMessage);
+            final String sourcePath = srcFile.getPath();
+            final String dstPath = dstFile.getPath();
+            final String msg = Res.fmt(Res.RENAME_FAIL, sourcePath, dstPath);
             err.append(msg);
             err.append(CoreConstants.CRLF);
         }
 
         return ok;
     }
+
+    /**
+     * Deletes a file if it exists, ignoring failure.
+     *
+     * @param path the file path
+     */
+    private static void deleteQuietly(final Path path) {
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException ex) {
+            // No action
+        }
+    }
+
+    /**
+     * Creates the daemon archiver thread.
+     *
+     * @param runnable the runnable the thread will execute
+     * @return the thread
+     */
+    private static Thread newThread(final Runnable runnable) {
+
+        final Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    /**
+     * Holds the archiver executor so the thread is created only when first needed. Compression can take a while for a
+     * large file, so archiving gets its own thread rather than sharing the log scheduler.
+     */
+    private static final class Holder {
+
+        /** The executor. */
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(LogRotator::newThread);
+    }
 }
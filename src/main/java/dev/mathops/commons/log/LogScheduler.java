@@ -0,0 +1,97 @@
+package dev.mathops.commons.log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread shared by the logging package for periodic and deferred housekeeping (timed flushes and the
+ * like), so no logging thread ever has to do that work. This is a utility class, not intended to be instantiated, with
+ * only static methods.
+ *
+ * <p>
+ * Tasks run on the scheduler thread must not block for long, and must not throw: an exception thrown by a periodic task
+ * is caught and written to the console, and the task continues to be scheduled.
+ */
+final class LogScheduler {
+
+    /** The name of the scheduler thread. */
+    private static final String THREAD_NAME = "mathops-log-scheduler";
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private LogScheduler() {
+
+        super();
+    }
+
+    /**
+     * Schedules a task to run periodically.
+     *
+     * @param task         the task
+     * @param periodMillis the period, in milliseconds
+     * @return the future that can be used to cancel the task
+     */
+    static ScheduledFuture<?> scheduleAtFixedRate(final Runnable task, final long periodMillis) {
+
+        final Runnable guarded = () -> runGuarded(task);
+
+        return Holder.EXECUTOR.scheduleAtFixedRate(guarded, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a task to run once after a delay.
+     *
+     * @param task        the task
+     * @param delayMillis the delay, in milliseconds
+     * @return the future that can be used to cancel the task
+     */
+    static ScheduledFuture<?> schedule(final Runnable task, final long delayMillis) {
+
+        final Runnable guarded = () -> runGuarded(task);
+
+        return Holder.EXECUTOR.schedule(guarded, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a task, catching and reporting any runtime exception it throws.
+     *
+     * @param task the task
+     */
+    private static void runGuarded(final Runnable task) {
+
+        try {
+            task.run();
+        } catch (final RuntimeException ex) {
+            final String exName = ex.getClass().getSimpleName();
+            final String msg = Res.fmt(Res.SCHEDULED_TASK_FAILED, exName);
+            System.err.println(msg);
+        }
+    }
+
+    /**
+     * Creates the daemon scheduler thread.
+     *
+     * @param runnable the runnable the thread will execute
+     * @return the thread
+     */
+    private static Thread newThread(final Runnable runnable) {
+
+        final Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    /**
+     * Holds the executor so the thread is created only when first needed.
+     */
+    private static final class Holder {
+
+        /** The executor. */
+        static final ScheduledExecutorService EXECUTOR =
+                Executors.newSingleThreadScheduledExecutor(LogScheduler::newThread);
+    }
+}
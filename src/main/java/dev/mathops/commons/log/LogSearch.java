@@ -0,0 +1,312 @@
+package dev.mathops.commons.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches text log files through their sidecar indexes (see {@code LogIndexWriter}), returning the records that match
+ * a {@code LogQuery}. This is a utility class, not intended to be instantiated, with only static methods.
+ *
+ * <p>
+ * The index and the log file are memory-mapped. Blocks of the index whose time range, levels, or session and user IDs
+ * cannot match are skipped by reading only their summaries; the records of the remaining blocks are decoded and
+ * tested, and each matching record is read directly from its offset in the log file. A log file with no index is not
+ * searched.
+ *
+ * <pre>
+ * final LogQuery query = new LogQuery(from, to, LogBase.SEVERE_BIT, null, "user1");
+ * for (final LogEntry entry : LogSearch.search(logDir, "zircon", query)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class LogSearch {
+
+    /** The extension of text log files. */
+    private static final String EXTENSION = ".log";
+
+    /** A character that terminates lines. */
+    private static final byte CR = (byte) '\r';
+
+    /** A character that terminates lines. */
+    private static final byte LF = (byte) '\n';
+
+    /** The low 7 bits of a varint byte. */
+    private static final int LOW_7 = 0x7F;
+
+    /** The continuation bit of a varint byte. */
+    private static final int MORE = 0x80;
+
+    /** The maximum number of bits in a varint. */
+    private static final int MAX_SHIFT = 63;
+
+    /** The mask for an unsigned byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private LogSearch() {
+
+        super();
+    }
+
+    /**
+     * Searches the active log file and all uncompressed archives with a filename base in a log directory, oldest first
+     * (numbered archives from the highest number down, then timestamped archives, then the active file).
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param query        the query
+     * @return the matching records, in the order they were written
+     * @throws IOException if a file could not be read
+     */
+    public static List<LogEntry> search(final File logDir, final String filenameBase, final LogQuery query)
+            throws IOException {
+
+        final List<File> files = LogRotator.listNumberedArchives(logDir, filenameBase, EXTENSION);
+        final List<File> ordered = new ArrayList<>(files.size() + 10);
+        for (int i = files.size() - 1; i >= 0; --i) {
+            ordered.add(files.get(i));
+        }
+
+        final List<File> timestamped = LogRotator.listTimestampedArchives(logDir, filenameBase);
+        timestamped.sort((o1, o2) -> o1.getName().compareTo(o2.getName()));
+        for (final File archive : timestamped) {
+            if (archive.getName().endsWith(EXTENSION)) {
+                ordered.add(archive);
+            }
+        }
+        ordered.add(new File(logDir, filenameBase + EXTENSION));
+
+        final List<LogEntry> result = new ArrayList<>(100);
+        for (final File file : ordered) {
+            search(file, query, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Searches one log file.
+     *
+     * @param logFile the log file
+     * @param query   the query
+     * @return the matching records, in the order they were written (empty if the file or its index does not exist)
+     * @throws IOException if the file or its index could not be read
+     */
+    public static List<LogEntry> search(final File logFile, final LogQuery query) throws IOException {
+
+        final List<LogEntry> result = new ArrayList<>(100);
+        search(logFile, query, result);
+
+        return result;
+    }
+
+    /**
+     * Searches one log file, adding matching records to a list.
+     *
+     * @param logFile the log file
+     * @param query   the query
+     * @param result  the list to which to add matching records
+     * @throws IOException if the file or its index could not be read
+     */
+    private static void search(final File logFile, final LogQuery query, final List<LogEntry> result)
+            throws IOException {
+
+        final File indexFile = LogIndexWriter.indexFor(logFile);
+
+        if (logFile.exists() && indexFile.exists()) {
+            final List<long[]> hits = new ArrayList<>(100);
+
+            try (final FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+                final long size = Math.min(channel.size(), (long) Integer.MAX_VALUE);
+                final MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+                findHits(index, query, hits);
+            }
+
+            if (!hits.isEmpty()) {
+                try (final FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+                    final long size = Math.min(channel.size(), (long) Integer.MAX_VALUE);
+                    final MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+                    readHits(log, hits, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the records in an index that match a query.
+     *
+     * @param index the index
+     * @param query the query
+     * @param hits  the list to which to add the start offset, end offset, time, and level of each matching record
+     */
+    private static void findHits(final ByteBuffer index, final LogQuery query, final List<? super long[]> hits) {
+
+        if (index.remaining() >= Integer.BYTES && index.getInt() == LogIndexWriter.MAGIC) {
+            while (index.remaining() >= Integer.BYTES) {
+                final int length = index.getInt();
+                if (length <= 0 || length > index.remaining()) {
+                    // A block being written, or a damaged index
+                    break;
+                }
+
+                final ByteBuffer block = index.slice(index.position(), length);
+                index.position(index.position() + length);
+
+                try {
+                    searchBlock(block, query, hits);
+                } catch (final BufferUnderflowException | IllegalArgumentException ex) {
+                    // Damaged block - skip it
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the records in one block of an index that match a query, skipping the block if its summary shows no record
+     * can match.
+     *
+     * @param block the block (following its length)
+     * @param query the query
+     * @param hits  the list to which to add the start offset, end offset, time, and level of each matching record
+     */
+    private static void searchBlock(final ByteBuffer block, final LogQuery query, final List<? super long[]> hits) {
+
+        final long start = block.getLong();
+        final long end = block.getLong();
+        final long minMillis = block.getLong();
+        final long maxMillis = block.getLong();
+        final int levelMask = block.getInt();
+
+        final int queryLevels = query.getLevels();
+        final boolean levelsPossible = queryLevels == LogBase.ALL || (levelMask & queryLevels) != 0;
+
+        if (query.overlapsTime(minMillis, maxMillis) && levelsPossible) {
+            final int numIds = (int) block.get() & BYTE_MASK;
+            int session = query.getSessionId() == null ? 0 : -1;
+            int user = query.getUserId() == null ? 0 : -1;
+
+            for (int i = 0; i < numIds; ++i) {
+                final int kind = (int) block.get();
+                final String id = readUTF(block);
+                if (kind == LogIndexWriter.SESSION && session == -1 && id.equals(query.getSessionId())) {
+                    session = i + 1;
+                } else if (kind == LogIndexWriter.USER && user == -1 && id.equals(query.getUserId())) {
+                    user = i + 1;
+                }
+            }
+
+            final int numRecords = block.getInt();
+            if (session != -1 && user != -1 && numRecords > 0 && numRecords <= LogIndexWriter.BLOCK_RECORDS) {
+                final long[] offsets = new long[numRecords + 1];
+                final long[] times = new long[numRecords];
+                final int[] levels = new int[numRecords];
+                final boolean[] matches = new boolean[numRecords];
+
+                long offset = start;
+                long millis = minMillis;
+                for (int i = 0; i < numRecords; ++i) {
+                    offset += readVarint(block);
+                    final long zigzag = readVarint(block);
+                    millis += (zigzag >>> 1) ^ -(zigzag & 1L);
+                    final int level = (int) block.get() & BYTE_MASK;
+                    final int recSession = (int) readVarint(block);
+                    final int recUser = (int) readVarint(block);
+
+                    offsets[i] = offset;
+                    times[i] = millis;
+                    levels[i] = level;
+                    matches[i] = query.matchesTime(millis) && query.matchesLevel(level)
+                                 && (session == 0 || recSession == session) && (user == 0 || recUser == user);
+                }
+                offsets[numRecords] = end;
+
+                for (int i = 0; i < numRecords; ++i) {
+                    if (matches[i]) {
+                        hits.add(new long[]{offsets[i], offsets[i + 1], times[i], (long) levels[i]});
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the records found by a search from a log file.
+     *
+     * @param log    the log file
+     * @param hits   the start offset, end offset, time, and level of each record
+     * @param result the list to which to add the records
+     */
+    private static void readHits(final ByteBuffer log, final Iterable<long[]> hits, final List<? super LogEntry> result) {
+
+        final long limit = (long) log.limit();
+
+        for (final long[] hit : hits) {
+            final long start = hit[0];
+            final long end = hit[1];
+
+            // Records still held in the writer's buffer are not in the file yet
+            if (start >= 0L && start < end && end <= limit) {
+                int length = (int) (end - start);
+                final int from = (int) start;
+                while (length > 0 && (log.get(from + length - 1) == LF || log.get(from + length - 1) == CR)) {
+                    --length;
+                }
+
+                final byte[] bytes = new byte[length];
+                log.get(from, bytes);
+                final String message = new String(bytes, StandardCharsets.UTF_8);
+                result.add(new LogEntry(message, hit[2], (int) hit[3]));
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by {@code DataOutput.writeUTF}.
+     *
+     * @param buffer the buffer
+     * @return the string
+     */
+    private static String readUTF(final ByteBuffer buffer) {
+
+        final int length = (int) buffer.getShort() & 0xFFFF;
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        // Modified UTF-8 differs from UTF-8 only for NUL and supplementary characters, which IDs do not contain
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer the buffer
+     * @return the value
+     */
+    private static long readVarint(final ByteBuffer buffer) {
+
+        long result = 0L;
+        int shift = 0;
+
+        while (shift <= MAX_SHIFT) {
+            final int b = (int) buffer.get() & BYTE_MASK;
+            result |= (long) (b & LOW_7) << shift;
+            if ((b & MORE) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+
+        return result;
+    }
+}
@@ -6,7 +6,20 @@ import java.util.Properties;
 import java.util.logging.Logger;
 
 /**
- * Provides read/write access to the log configuration data.
+ * Provides read access to the log configuration data. A {@code LogSettings} object cannot be changed; settings are
+ * changed by building a new object with a {@code LogSettings.Builder}.
+ *
+ * <p>
+ * The settings in effect are published by {@code LoggingSubsystem} as a single {@code LogSettings} object, which it
+ * replaces as a whole when the installation is set, its configuration file is reloaded, or
+ * {@code LoggingSubsystem.updateSettings} is called. A thread that reads the published object therefore sees a
+ * consistent set of values without taking a lock, and a change made by one thread can never be seen half-applied (or
+ * undone) by another:
+ *
+ * <pre>
+ * LoggingSubsystem.updateSettings(builder -&gt; builder.setLogLevels(LogBase.SEVERE_BIT | LogBase.WARNING_BIT));
+ * </pre>
+ *
  * <p>
  * NOTE: Cannot use a BLS Log object here since this object is created during its construction!
  */
@@ -55,79 +68,128 @@ public final class LogSettings {
     static final char COMMA = ',';
 
     /** The log level name. */
-    private String logLevelName = null;
+    private final String logLevelName;
 
     /** The log level integer value. */
-    private int logLevel = 0;
+    private final int logLevel;
+
+    /** The levels (bitwise OR of constants from {@code LogBase}) for which message source locations are captured. */
+    private final int sourceLevels;
 
     /** Flag indicating log records should be written to console. */
-    private boolean logToConsole = false;
+    private final boolean logToConsole;
 
     /** Flag indicating log records should be written to log files. */
-    private boolean logToFiles = false;
+    private final boolean logToFiles;
 
     /** The log file path. */
-    private String logFilePath = null;
+    private final String logFilePath;
 
     /** The maximum number of log files to retain (minimum of 1). */
-    private int logFileCount = 0;
+    private final int logFileCount;
 
     /** An approximate upper limit on log file length. */
-    private int logFileSizeLimit = 0;
+    private final int logFileSizeLimit;
 
     /** The prefix for log file names. */
-    private String filenameBase = null;
+    private final String filenameBase;
 
     /** Flag indicating log records should be appended to existing logs on startup. */
-    private boolean append = false;
+    private final boolean append;
 
-    /** A flag indicating at least one setting has changed since last load or save. */
-    private boolean dirty = false;
+    /** The schedule on which log files are rotated at wall-clock boundaries. */
+    private final ERotationSchedule rotateSchedule;
 
-    /**
-     * Constructs a new {@code LogSettings}, which loads existing configuration data.
-     */
-    public LogSettings() {
+    /** Flag indicating rotated log files should be archived under timestamped names. */
+    private final boolean archiveTimestamped;
 
-        // Install all default values
-        final Properties defaults = new Properties();
-        final ELogSetting[] values = ELogSetting.values();
-        for (final ELogSetting value : values) {
-            defaults.setProperty(value.key, value.defaultValue);
-        }
+    /** Flag indicating timestamped archives should be compressed. */
+    private final boolean archiveCompress;
 
-        configure(defaults);
-    }
+    /** The maximum age (in days) of timestamped archives to retain (0 for no limit). */
+    private final int archiveMaxAge;
+
+    /** The maximum total size (in megabytes) of timestamped archives to retain (0 for no limit). */
+    private final int archiveMaxTotalSize;
+
+    /** The number of bytes of log file output to buffer before writing (0 to write each message immediately). */
+    private final int fileFlushSize;
+
+    /** The maximum number of milliseconds buffered log file output may wait before being written. */
+    private final int fileFlushInterval;
+
+    /** The format in which log records are written to log files. */
+    private final ELogFileFormat fileFormat;
+
+    /** Flag indicating a sidecar index should be written alongside each text log file. */
+    private final boolean fileIndex;
+
+    /** The levels (bitwise OR of constants from {@code LogBase}) of records also written to the error log file. */
+    private final int errorFileLevels;
+
+    /** The number of seconds during which repeated stack traces are abbreviated (0 to disable). */
+    private final int exceptionDedupWindow;
+
+    /** Flag indicating log records should be written by a background thread. */
+    private final boolean async;
+
+    /** The capacity of the asynchronous log ring buffer. */
+    private final int asyncCapacity;
+
+    /** The policy applied when the asynchronous log ring buffer is full. */
+    private final EBackPressurePolicy asyncPolicy;
+
+    /** The number of characters of console output to buffer (0 to write each message immediately). */
+    private final int consoleBufferSize;
+
+    /** The maximum number of milliseconds buffered console output may wait before being written. */
+    private final int consoleFlushInterval;
+
+    /** Flag indicating the installation's configuration file should be watched for changes. */
+    private final boolean watchSettings;
 
     /**
-     * Constructs a new {@code LogSettings}, copying settings from an existing object (this can be used to store the
-     * settings for later restoration).
-     *
-     * @param source the settings whose values to copy
+     * Constructs a new {@code LogSettings} with the default value of every setting.
      */
-    public LogSettings(final LogSettings source) {
+    public LogSettings() {
 
-        setFrom(source);
+        this(new Builder());
     }
 
     /**
-     * Sets the values of this object to those of another {@code LogSettings}.
+     * Constructs a new {@code LogSettings} with the values in a builder.
      *
-     * @param source the settings whose values to copy
+     * @param builder the builder
      */
-    public void setFrom(final LogSettings source) {
-
-        if (source != this) {
-            this.logLevelName = source.getLogLevelName();
-            this.logLevel = source.getLogLevel();
-            this.logToConsole = source.isLogToConsole();
-            this.logToFiles = source.isLogToFiles();
-            this.logFilePath = source.getLogFilePath();
-            this.logFileCount = source.getLogFileCount();
-            this.logFileSizeLimit = source.getLogFileSizeLimit();
-            this.filenameBase = source.getFilenameBase();
-            this.append = source.isAppend();
-        }
+    private LogSettings(final Builder builder) {
+
+        this.logLevelName = builder.logLevelName;
+        this.logLevel = builder.logLevel;
+        this.sourceLevels = builder.sourceLevels;
+        this.logToConsole = builder.logToConsole;
+        this.logToFiles = builder.logToFiles;
+        this.logFilePath = builder.logFilePath;
+        this.logFileCount = builder.logFileCount;
+        this.logFileSizeLimit = builder.logFileSizeLimit;
+        this.filenameBase = builder.filenameBase;
+        this.append = builder.append;
+        this.rotateSchedule = builder.rotateSchedule;
+        this.archiveTimestamped = builder.archiveTimestamped;
+        this.archiveCompress = builder.archiveCompress;
+        this.archiveMaxAge = builder.archiveMaxAge;
+        this.archiveMaxTotalSize = builder.archiveMaxTotalSize;
+        this.fileFlushSize = builder.fileFlushSize;
+        this.fileFlushInterval = builder.fileFlushInterval;
+        this.fileFormat = builder.fileFormat;
+        this.fileIndex = builder.fileIndex;
+        this.errorFileLevels = builder.errorFileLevels;
+        this.exceptionDedupWindow = builder.exceptionDedupWindow;
+        this.async = builder.async;
+        this.asyncCapacity = builder.asyncCapacity;
+        this.asyncPolicy = builder.asyncPolicy;
+        this.consoleBufferSize = builder.consoleBufferSize;
+        this.consoleFlushInterval = builder.consoleFlushInterval;
+        this.watchSettings = builder.watchSettings;
     }
 
     /**
@@ -151,251 +213,270 @@ public final class LogSettings {
     }
 
     /**
-     * Sets the log level as an integer value (bitwise OR of constants from {@code LogBase}).
+     * Gets the levels for which the source location (class and line number) of each message is captured and logged.
+     * Capturing the source requires walking the stack, so disabling it for high-volume levels reduces the cost of
+     * logging at those levels.
      *
-     * @param theLogLevel the new log level
+     * @return the source levels (bitwise OR of constants from {@code LogBase})
      */
-    public void setLogLevel(final int theLogLevel) {
+    public int getSourceLevels() {
 
-        this.logLevel = theLogLevel;
+        return this.sourceLevels;
     }
 
     /**
-     * Sets the log levels.
+     * Tests whether log records should be written to the console.
      *
-     * @param levels the log levels (bitwise OR of constants from {@code LeveledLogger}).
+     * @return {@code true} to write messages to console
      */
-    public void setLogLevels(final int levels) {
+    public boolean isLogToConsole() {
 
-        final int masked = levels & LogBase.ALL;
+        return this.logToConsole;
+    }
 
-        if (this.logLevel != masked) {
-            this.logLevel = masked;
-            if (masked == LogBase.ALL) {
-                this.logLevelName = ALL;
-            } else if (masked == LogBase.NONE) {
-                this.logLevelName = NONE;
-            } else {
-                final StringBuilder builder = new StringBuilder(30);
-                boolean comma = addToList(masked, LogBase.SEVERE_BIT, SEVERE_LVL, false, builder);
-                comma = addToList(masked, LogBase.WARNING_BIT, WARNING_LVL, comma, builder);
-                comma = addToList(masked, LogBase.INFO_BIT, INFO_LVL, comma, builder);
-                comma = addToList(masked, LogBase.CONFIG_BIT, CONFIG_LVL, comma, builder);
-                comma = addToList(masked, LogBase.ENTERING_BIT, ENTERING_LVL, comma, builder);
-                comma = addToList(masked, LogBase.EXITING_BIT, EXITING_LVL, comma, builder);
-                comma = addToList(masked, LogBase.FINE_BIT, FINE_LVL, comma, builder);
-                addToList(masked, LogBase.FINEST_BIT, FINEST_LVL, comma, builder);
+    /**
+     * Tests whether log records should be written to the log files.
+     *
+     * @return {@code true} to write messages to log files
+     */
+    public boolean isLogToFiles() {
 
-                this.logLevelName = builder.toString();
-            }
-            this.dirty = true;
-        }
+        return this.logToFiles;
     }
 
     /**
-     * Tests whether log records should be written to the console.
+     * Gets the path where log files are written. If the path starts with '/', '\\', or '[A-Z]:', it is assumed to be an
+     * absolute path. Otherwise, it is assumed to be relative to the installation base directory.
      *
-     * @return {@code true} to write messages to console
+     * @return the log file path
      */
-    public boolean isLogToConsole() {
+    public String getLogFilePath() {
 
-        return this.logToConsole;
+        return this.logFilePath;
     }
 
     /**
-     * Sets the flag that controls whether log records should be written to the console.
+     * Gets the maximum number of log file to retain.
      *
-     * @param isLogToConsole {@code true} to write messages to console
+     * @return the maximum file count
      */
-    public void setLogToConsole(final boolean isLogToConsole) {
+    public int getLogFileCount() {
 
-        if (this.logToConsole != isLogToConsole) {
-            this.logToConsole = isLogToConsole;
-            this.dirty = true;
-        }
+        return this.logFileCount;
     }
 
     /**
-     * Tests whether log records should be written to the log files.
+     * Gets the approximate file size limit for log files.
      *
-     * @return {@code true} to write messages to log files
+     * @return the file size limit
      */
-    public boolean isLogToFiles() {
+    public int getLogFileSizeLimit() {
 
-        return this.logToFiles;
+        return this.logFileSizeLimit;
     }
 
     /**
-     * Sets the flag that controls whether log records should be written to the log files.
+     * Gets the prefix for log filenames. For example, if the prefix is "abc", the current log file will be "abc.log",
+     * and archival log files will be "abc_001.log" (the most recent), "abc_002.log", and so forth.
      *
-     * @param isLogToFiles {@code true} to write messages to log files
+     * @return the filename base
      */
-    public void setLogToFiles(final boolean isLogToFiles) {
+    public String getFilenameBase() {
 
-        if (this.logToFiles != isLogToFiles) {
-            this.logToFiles = isLogToFiles;
-            this.dirty = true;
-        }
+        return this.filenameBase;
     }
 
     /**
-     * Gets the path where log files are written. If the path starts with '/', '\\', or '[A-Z]:', it is assumed to be an
-     * absolute path. Otherwise, it is assumed to be relative to the installation base directory.
+     * Tests whether new log records should append to existing log file on restart, or rotate logs and start a new log
+     * file on restart.
      *
-     * @return the log file path
+     * @return {@code true} to append rather than rotating log files
      */
-    public String getLogFilePath() {
+    public boolean isAppend() {
 
-        return this.logFilePath;
+        return this.append;
     }
 
     /**
-     * Gets the maximum number of log file to retain.
+     * Gets the schedule on which log files are rotated at wall-clock boundaries, regardless of size.
      *
-     * @return the maximum file count
+     * @return the schedule
      */
-    public int getLogFileCount() {
+    public ERotationSchedule getRotateSchedule() {
 
-        return this.logFileCount;
+        return this.rotateSchedule;
     }
 
     /**
-     * Sets the maximum number of log file to retain.
+     * Tests whether rotated log files are archived under names carrying the time of rotation.
      *
-     * @param theCount the maximum file count
+     * @return {@code true} if timestamped archive names are used
      */
-    public void setLogFileCount(final int theCount) {
+    public boolean isArchiveTimestamped() {
 
-        if (theCount < 1) {
-            final String msg = Res.get(Res.SETTINGS_BAD_FILE_COUNT);
-            throw new IllegalArgumentException(msg);
-        }
+        return this.archiveTimestamped;
+    }
 
-        if (this.logFileCount != theCount) {
-            this.logFileCount = theCount;
-            this.dirty = true;
-        }
+    /**
+     * Tests whether timestamped archives are compressed after rotation.
+     *
+     * @return {@code true} if archives are compressed
+     */
+    public boolean isArchiveCompress() {
+
+        return this.archiveCompress;
     }
 
     /**
-     * Gets the approximate file size limit for log files.
+     * Gets the maximum age of timestamped archives to retain.
      *
-     * @return the file size limit
+     * @return the maximum age, in days (0 for no limit)
      */
-    public int getLogFileSizeLimit() {
+    public int getArchiveMaxAge() {
 
-        return this.logFileSizeLimit;
+        return this.archiveMaxAge;
     }
 
     /**
-     * Sets the approximate file size limit for log files.
+     * Gets the maximum total size of timestamped archives to retain.
      *
-     * @param theSizeLimit the file size limit
+     * @return the maximum total size, in megabytes (0 for no limit)
      */
-    public void setLogFileSizeLimit(final int theSizeLimit) {
+    public int getArchiveMaxTotalSize() {
 
-        if (theSizeLimit < 1) {
-            final String msg = Res.fmt(Res.SETTINGS_BAD_FILE_SIZE);
-            throw new IllegalArgumentException(msg);
-        }
+        return this.archiveMaxTotalSize;
+    }
 
-        if (this.logFileSizeLimit != theSizeLimit) {
-            this.logFileSizeLimit = theSizeLimit;
-            this.dirty = true;
-        }
+    /**
+     * Gets the number of bytes of log file output to buffer before writing to the file.
+     *
+     * @return the number of bytes (0 to write each message immediately)
+     */
+    public int getFileFlushSize() {
+
+        return this.fileFlushSize;
     }
 
     /**
-     * Sets the flag that controls whether new log records should append to existing log file on restart, or rotate logs
-     * and start a new log file on restart.
+     * Gets the maximum number of milliseconds buffered log file output may wait before being written to the file.
      *
-     * @param theFilenameBase the new filename base
-     * @throws IllegalArgumentException if the filename base is not legal
+     * @return the number of milliseconds
      */
-    public void setFilenameBase(final String theFilenameBase) throws IllegalArgumentException {
+    public int getFileFlushInterval() {
 
-        final int length = theFilenameBase.length();
-        if (length == 0) {
-            final String msg = Res.get(Res.EMPTY_FILENAME);
-            throw new IllegalArgumentException(msg);
-        }
+        return this.fileFlushInterval;
+    }
 
-        final int char0 = (int) theFilenameBase.charAt(0);
-        if (VALID_1.indexOf(char0) == -1) {
-            final String msg = Res.get(Res.FILENAME_CHAR1);
-            throw new IllegalArgumentException(msg);
-        }
+    /**
+     * Gets the format in which log records are written to log files.
+     *
+     * @return the format
+     */
+    public ELogFileFormat getFileFormat() {
 
-        for (int i = 1; i < length; ++i) {
-            final char chr = theFilenameBase.charAt(i);
+        return this.fileFormat;
+    }
 
-            if (VALID_2.indexOf((int) chr) == -1) {
-                final String charStr = Character.toString(chr);
-                final String msg = Res.fmt(Res.FILENAME_CHAR1, charStr);
-                throw new IllegalArgumentException(msg);
-            }
-        }
+    /**
+     * Tests whether the installation's configuration file is watched for changes.
+     *
+     * @return {@code true} to watch the configuration file
+     */
+    public boolean isWatchSettings() {
 
-        if (!this.filenameBase.equals(theFilenameBase)) {
-            this.filenameBase = theFilenameBase;
-            this.dirty = true;
-        }
+        return this.watchSettings;
     }
 
     /**
-     * Gets the prefix for log filenames. For example, if the prefix is "abc", the current log file will be "abc.log",
-     * and archival log files will be "abc_001.log" (the most recent), "abc_002.log", and so forth.
+     * Gets the levels of records that are also written to the error log file.
      *
-     * @return the filename base
+     * @return the levels (bitwise OR of constants from {@code LogBase}; {@code LogBase.NONE} if there is no error log
+     *         file)
      */
-    public String getFilenameBase() {
+    public int getErrorFileLevels() {
 
-        return this.filenameBase;
+        return this.errorFileLevels;
     }
 
     /**
-     * Sets the flag that controls whether new log records should append to existing log file on restart, or rotate logs
-     * and start a new log file on restart.
+     * Tests whether a sidecar index is written alongside each text log file.
      *
-     * @param isAppend {@code true} to append rather than rotating log files
+     * @return {@code true} to write an index
      */
-    public void setAppend(final boolean isAppend) {
+    public boolean isFileIndex() {
 
-        if (this.append != isAppend) {
-            this.append = isAppend;
-            this.dirty = true;
-        }
+        return this.fileIndex;
     }
 
     /**
-     * Tests whether new log records should append to existing log file on restart, or rotate logs and start a new log
-     * file on restart.
+     * Gets the number of seconds during which repeats of an exception with the same stack trace are logged as a
+     * one-line reference to the first occurrence rather than in full.
      *
-     * @return {@code true} to append rather than rotating log files
+     * @return the number of seconds (0 if every stack trace is logged in full)
      */
-    public boolean isAppend() {
+    public int getExceptionDedupWindow() {
 
-        return this.append;
+        return this.exceptionDedupWindow;
+    }
+
+    /**
+     * Tests whether log records are written by a background thread.
+     *
+     * @return {@code true} if log records are written asynchronously
+     */
+    public boolean isAsync() {
+
+        return this.async;
+    }
+
+    /**
+     * Gets the capacity of the asynchronous log ring buffer.
+     *
+     * @return the capacity
+     */
+    public int getAsyncCapacity() {
+
+        return this.asyncCapacity;
     }
 
     /**
-     * Sets the flag that indicates whether there are unsaved changes in the object's data.
+     * Gets the policy applied when the asynchronous log ring buffer is full.
      *
-     * @param isDirty {@code true} to indicate this object has unsaved changes
+     * @return the policy
      */
-    void setDirty(final boolean isDirty) {
+    public EBackPressurePolicy getAsyncPolicy() {
 
-        this.dirty = isDirty;
+        return this.asyncPolicy;
     }
 
     /**
-     * Tests whether there are unsaved changes in the object's data.
+     * Gets the number of characters of console output to buffer for a background thread to write.
      *
-     * @return {@code true} if there are unsaved changes
+     * @return the number of characters (0 to write each message to the console before returning)
      */
-    public boolean isDirty() {
+    public int getConsoleBufferSize() {
 
-        return this.dirty;
+        return this.consoleBufferSize;
+    }
+
+    /**
+     * Gets the maximum number of milliseconds buffered console output may wait before being written.
+     *
+     * @return the number of milliseconds
+     */
+    public int getConsoleFlushInterval() {
+
+        return this.consoleFlushInterval;
+    }
+
+    /**
+     * Creates a builder that starts with the values of these settings, from which modified settings can be built.
+     *
+     * @return the builder
+     */
+    public Builder toBuilder() {
+
+        return new Builder(this);
     }
 
     /**
@@ -425,65 +506,36 @@ public final class LogSettings {
     }
 
     /**
-     * Configures the object based on an {@code Properties} that may or may not have values for the keys defined in
-     * {@code ELogSetting}.
+     * Gets the integer value of a log setting from a {@code Properties} object. If the property is missing, cannot be
+     * parsed, or is less than a minimum value, a warning is logged and the setting's default value is used.
      *
-     * @param properties the properties from which to configure settings
+     * @param properties the {@code Properties} object
+     * @param setting    the setting to retrieve
+     * @param minValue   the minimum valid value
+     * @return the integer value
      */
-    void configure(final Properties properties) {
-
-        this.logLevelName = getSetting(properties, ELogSetting.LOG_LEVELS);
-        this.logLevel = parseLevels(this.logLevelName);
-
-        final String logToConsoleSetting = getSetting(properties, ELogSetting.LOG_TO_CONSOLE);
-        this.logToConsole = TRUE.equalsIgnoreCase(logToConsoleSetting);
-
-        final String logToFilesSetting = getSetting(properties, ELogSetting.LOG_TO_FILES);
-        this.logToFiles = logToFilesSetting == null || TRUE.equalsIgnoreCase(logToFilesSetting);
+    private static int getIntSetting(final Properties properties, final ELogSetting setting, final int minValue) {
 
-        final String countSetting = getSetting(properties, ELogSetting.FILE_COUNT);
-        try {
-            final int value = Integer.parseInt(countSetting);
-            if (value < 1) {
-                // Use Java logger since the "Log" object is not ready to use yet
-                final String valueStr = Integer.toString(value);
-                final String msg = Res.fmt(Res.SETTINGS_BAD_COUNT, valueStr);
-                Logger.getAnonymousLogger().warning(msg);
-                this.logFileCount = Integer.MAX_VALUE;
-            } else {
-                this.logFileCount = value;
-            }
-        } catch (final NumberFormatException ex) {
-            // Use Java logger since the "Log" object is not ready to use yet
-            final String msg = Res.fmt(Res.SETTINGS_PARSE_COUNT, countSetting);
-            Logger.getAnonymousLogger().warning(msg);
-            this.logFileCount = Integer.MAX_VALUE;
-        }
+        final String str = getSetting(properties, setting);
+        int result = Integer.parseInt(setting.defaultValue);
 
-        final String maxSize = getSetting(properties, ELogSetting.FILE_SIZE_LIMIT);
         try {
-            final int value = Integer.parseInt(maxSize);
-            if (value < 1) {
+            final int value = Integer.parseInt(str.trim());
+            if (value < minValue) {
                 // Use Java logger since the "Log" object is not ready to use yet
-                final String valueStr = Integer.toString(value);
-                final String msg = Res.fmt(Res.SETTINGS_BAD_SIZE, valueStr);
+                final String minStr = Integer.toString(minValue);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, setting.key, str, minStr);
                 Logger.getAnonymousLogger().warning(msg);
-                this.logFileSizeLimit = Integer.MAX_VALUE;
             } else {
-                this.logFileSizeLimit = value;
+                result = value;
             }
         } catch (final NumberFormatException ex) {
             // Use Java logger since the "Log" object is not ready to use yet
-            final String msg = Res.fmt(Res.SETTINGS_PARSE_SIZE, maxSize);
+            final String msg = Res.fmt(Res.SETTINGS_PARSE_VALUE, setting.key, str);
             Logger.getAnonymousLogger().warning(msg);
-            this.logFileSizeLimit = Integer.MAX_VALUE;
         }
 
-        this.filenameBase = getSetting(properties, ELogSetting.FILE_NAME_BASE);
-        this.logFilePath = getSetting(properties, ELogSetting.LOG_FILE_PATH);
-
-        final String fileAppendSetting = getSetting(properties, ELogSetting.FILE_APPEND);
-        this.append = TRUE.equalsIgnoreCase(fileAppendSetting);
+        return result;
     }
 
     /**
@@ -564,4 +616,784 @@ public final class LogSettings {
 
         return lvls;
     }
+
+    /**
+     * A mutable set of log settings, from which immutable {@code LogSettings} are built.
+     */
+    public static final class Builder {
+
+        /** The log level name. */
+        private String logLevelName = null;
+
+        /** The log level integer value. */
+        private int logLevel = 0;
+
+        /**
+         * The levels (bitwise OR of constants from {@code LogBase}) for which message source locations are captured.
+         */
+        private int sourceLevels = 0;
+
+        /** Flag indicating log records should be written to console. */
+        private boolean logToConsole = false;
+
+        /** Flag indicating log records should be written to log files. */
+        private boolean logToFiles = false;
+
+        /** The log file path. */
+        private String logFilePath = null;
+
+        /** The maximum number of log files to retain (minimum of 1). */
+        private int logFileCount = 0;
+
+        /** An approximate upper limit on log file length. */
+        private int logFileSizeLimit = 0;
+
+        /** The prefix for log file names. */
+        private String filenameBase = null;
+
+        /** Flag indicating log records should be appended to existing logs on startup. */
+        private boolean append = false;
+
+        /** The schedule on which log files are rotated at wall-clock boundaries. */
+        private ERotationSchedule rotateSchedule = ERotationSchedule.NONE;
+
+        /** Flag indicating rotated log files should be archived under timestamped names. */
+        private boolean archiveTimestamped = false;
+
+        /** Flag indicating timestamped archives should be compressed. */
+        private boolean archiveCompress = false;
+
+        /** The maximum age (in days) of timestamped archives to retain (0 for no limit). */
+        private int archiveMaxAge = 0;
+
+        /** The maximum total size (in megabytes) of timestamped archives to retain (0 for no limit). */
+        private int archiveMaxTotalSize = 0;
+
+        /** The number of bytes of log file output to buffer before writing (0 to write each message immediately). */
+        private int fileFlushSize = 0;
+
+        /** The maximum number of milliseconds buffered log file output may wait before being written. */
+        private int fileFlushInterval = 0;
+
+        /** The format in which log records are written to log files. */
+        private ELogFileFormat fileFormat = ELogFileFormat.TEXT;
+
+        /** Flag indicating a sidecar index should be written alongside each text log file. */
+        private boolean fileIndex = false;
+
+        /** The levels (bitwise OR of constants from {@code LogBase}) of records also written to the error log file. */
+        private int errorFileLevels = 0;
+
+        /** The number of seconds during which repeated stack traces are abbreviated (0 to disable). */
+        private int exceptionDedupWindow = 0;
+
+        /** Flag indicating log records should be written by a background thread. */
+        private boolean async = false;
+
+        /** The capacity of the asynchronous log ring buffer. */
+        private int asyncCapacity = 0;
+
+        /** The policy applied when the asynchronous log ring buffer is full. */
+        private EBackPressurePolicy asyncPolicy = EBackPressurePolicy.BLOCK;
+
+        /** The number of characters of console output to buffer (0 to write each message immediately). */
+        private int consoleBufferSize = 0;
+
+        /** The maximum number of milliseconds buffered console output may wait before being written. */
+        private int consoleFlushInterval = 0;
+
+        /** Flag indicating the installation's configuration file should be watched for changes. */
+        private boolean watchSettings = false;
+
+        /** A flag indicating at least one setting has changed since last load or save. */
+        private boolean dirty = false;
+
+        /**
+         * Constructs a new {@code Builder} with the default value of every setting.
+         */
+        public Builder() {
+
+            // Install all default values
+            final Properties defaults = new Properties();
+            final ELogSetting[] values = ELogSetting.values();
+            for (final ELogSetting value : values) {
+                defaults.setProperty(value.key, value.defaultValue);
+            }
+
+            configure(defaults);
+        }
+
+        /**
+         * Constructs a new {@code Builder} that starts with the values of existing settings.
+         *
+         * @param source the settings whose values to copy
+         */
+        public Builder(final LogSettings source) {
+
+            setFrom(source);
+        }
+
+        /**
+         * Sets the values in this builder to those of existing settings.
+         *
+         * @param source the settings whose values to copy
+         */
+        public void setFrom(final LogSettings source) {
+
+            this.logLevelName = source.getLogLevelName();
+            this.logLevel = source.getLogLevel();
+            this.sourceLevels = source.getSourceLevels();
+            this.logToConsole = source.isLogToConsole();
+            this.logToFiles = source.isLogToFiles();
+            this.logFilePath = source.getLogFilePath();
+            this.logFileCount = source.getLogFileCount();
+            this.logFileSizeLimit = source.getLogFileSizeLimit();
+            this.filenameBase = source.getFilenameBase();
+            this.append = source.isAppend();
+            this.rotateSchedule = source.getRotateSchedule();
+            this.archiveTimestamped = source.isArchiveTimestamped();
+            this.archiveCompress = source.isArchiveCompress();
+            this.archiveMaxAge = source.getArchiveMaxAge();
+            this.archiveMaxTotalSize = source.getArchiveMaxTotalSize();
+            this.fileFlushSize = source.getFileFlushSize();
+            this.fileFlushInterval = source.getFileFlushInterval();
+            this.fileFormat = source.getFileFormat();
+            this.fileIndex = source.isFileIndex();
+            this.errorFileLevels = source.getErrorFileLevels();
+            this.exceptionDedupWindow = source.getExceptionDedupWindow();
+            this.async = source.isAsync();
+            this.asyncCapacity = source.getAsyncCapacity();
+            this.asyncPolicy = source.getAsyncPolicy();
+            this.consoleBufferSize = source.getConsoleBufferSize();
+            this.consoleFlushInterval = source.getConsoleFlushInterval();
+            this.watchSettings = source.isWatchSettings();
+        }
+
+        /**
+         * Sets the log level as an integer value (bitwise OR of constants from {@code LogBase}).
+         *
+         * @param theLogLevel the new log level
+         */
+        public void setLogLevel(final int theLogLevel) {
+
+            this.logLevel = theLogLevel;
+        }
+
+        /**
+         * Sets the log levels.
+         *
+         * @param levels the log levels (bitwise OR of constants from {@code LeveledLogger}).
+         */
+        public void setLogLevels(final int levels) {
+
+            final int masked = levels & LogBase.ALL;
+
+            if (this.logLevel != masked) {
+                this.logLevel = masked;
+                if (masked == LogBase.ALL) {
+                    this.logLevelName = ALL;
+                } else if (masked == LogBase.NONE) {
+                    this.logLevelName = NONE;
+                } else {
+                    final StringBuilder builder = new StringBuilder(30);
+                    boolean comma = addToList(masked, LogBase.SEVERE_BIT, SEVERE_LVL, false, builder);
+                    comma = addToList(masked, LogBase.WARNING_BIT, WARNING_LVL, comma, builder);
+                    comma = addToList(masked, LogBase.INFO_BIT, INFO_LVL, comma, builder);
+                    comma = addToList(masked, LogBase.CONFIG_BIT, CONFIG_LVL, comma, builder);
+                    comma = addToList(masked, LogBase.ENTERING_BIT, ENTERING_LVL, comma, builder);
+                    comma = addToList(masked, LogBase.EXITING_BIT, EXITING_LVL, comma, builder);
+                    comma = addToList(masked, LogBase.FINE_BIT, FINE_LVL, comma, builder);
+                    addToList(masked, LogBase.FINEST_BIT, FINEST_LVL, comma, builder);
+
+                    this.logLevelName = builder.toString();
+                }
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the levels for which the source location (class and line number) of each message is captured and logged.
+         *
+         * @param levels the source levels (bitwise OR of constants from {@code LogBase})
+         */
+        public void setSourceLevels(final int levels) {
+
+            final int masked = levels & LogBase.ALL;
+
+            if (this.sourceLevels != masked) {
+                this.sourceLevels = masked;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether log records should be written to the console.
+         *
+         * @param isLogToConsole {@code true} to write messages to console
+         */
+        public void setLogToConsole(final boolean isLogToConsole) {
+
+            if (this.logToConsole != isLogToConsole) {
+                this.logToConsole = isLogToConsole;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether log records should be written to the log files.
+         *
+         * @param isLogToFiles {@code true} to write messages to log files
+         */
+        public void setLogToFiles(final boolean isLogToFiles) {
+
+            if (this.logToFiles != isLogToFiles) {
+                this.logToFiles = isLogToFiles;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the maximum number of log file to retain.
+         *
+         * @param theCount the maximum file count
+         */
+        public void setLogFileCount(final int theCount) {
+
+            if (theCount < 1) {
+                final String msg = Res.get(Res.SETTINGS_BAD_FILE_COUNT);
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.logFileCount != theCount) {
+                this.logFileCount = theCount;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the approximate file size limit for log files.
+         *
+         * @param theSizeLimit the file size limit
+         */
+        public void setLogFileSizeLimit(final int theSizeLimit) {
+
+            if (theSizeLimit < 1) {
+                final String msg = Res.fmt(Res.SETTINGS_BAD_FILE_SIZE);
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.logFileSizeLimit != theSizeLimit) {
+                this.logFileSizeLimit = theSizeLimit;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether new log records should append to existing log file on restart, or rotate
+         * logs and start a new log file on restart.
+         *
+         * @param theFilenameBase the new filename base
+         * @throws IllegalArgumentException if the filename base is not legal
+         */
+        public void setFilenameBase(final String theFilenameBase) throws IllegalArgumentException {
+
+            final int length = theFilenameBase.length();
+            if (length == 0) {
+                final String msg = Res.get(Res.EMPTY_FILENAME);
+                throw new IllegalArgumentException(msg);
+            }
+
+            final int char0 = (int) theFilenameBase.charAt(0);
+            if (VALID_1.indexOf(char0) == -1) {
+                final String msg = Res.get(Res.FILENAME_CHAR1);
+                throw new IllegalArgumentException(msg);
+            }
+
+            for (int i = 1; i < length; ++i) {
+                final char chr = theFilenameBase.charAt(i);
+
+                if (VALID_2.indexOf((int) chr) == -1) {
+                    final String charStr = Character.toString(chr);
+                    final String msg = Res.fmt(Res.FILENAME_CHAR1, charStr);
+                    throw new IllegalArgumentException(msg);
+                }
+            }
+
+            if (!this.filenameBase.equals(theFilenameBase)) {
+                this.filenameBase = theFilenameBase;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether new log records should append to existing log file on restart, or rotate
+         * logs and start a new log file on restart.
+         *
+         * @param isAppend {@code true} to append rather than rotating log files
+         */
+        public void setAppend(final boolean isAppend) {
+
+            if (this.append != isAppend) {
+                this.append = isAppend;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the schedule on which log files are rotated at wall-clock boundaries, regardless of size.
+         *
+         * @param theSchedule the schedule
+         */
+        public void setRotateSchedule(final ERotationSchedule theSchedule) {
+
+            if (theSchedule == null) {
+                final String msg = Res.fmt(Res.SETTINGS_BAD_SCHEDULE, "null");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.rotateSchedule != theSchedule) {
+                this.rotateSchedule = theSchedule;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether rotated log files are archived under names carrying the time of rotation
+         * (like "abc_20240131-235959-999.log") rather than renamed down a numbered chain.
+         *
+         * @param isArchiveTimestamped {@code true} to use timestamped archive names
+         */
+        public void setArchiveTimestamped(final boolean isArchiveTimestamped) {
+
+            if (this.archiveTimestamped != isArchiveTimestamped) {
+                this.archiveTimestamped = isArchiveTimestamped;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether timestamped archives are compressed with GZIP (in the background) after
+         * rotation.
+         *
+         * @param isArchiveCompress {@code true} to compress archives
+         */
+        public void setArchiveCompress(final boolean isArchiveCompress) {
+
+            if (this.archiveCompress != isArchiveCompress) {
+                this.archiveCompress = isArchiveCompress;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the maximum age of timestamped archives to retain; older archives are deleted after each rotation.
+         *
+         * @param theMaxAge the maximum age, in days (0 for no limit)
+         */
+        public void setArchiveMaxAge(final int theMaxAge) {
+
+            if (theMaxAge < 0) {
+                final String ageStr = Integer.toString(theMaxAge);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.ARCHIVE_MAX_AGE.key, ageStr, "0");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.archiveMaxAge != theMaxAge) {
+                this.archiveMaxAge = theMaxAge;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the maximum total size of timestamped archives to retain; the oldest archives are deleted after each
+         * rotation until the total is within the limit.
+         *
+         * @param theMaxTotalSize the maximum total size, in megabytes (0 for no limit)
+         */
+        public void setArchiveMaxTotalSize(final int theMaxTotalSize) {
+
+            if (theMaxTotalSize < 0) {
+                final String sizeStr = Integer.toString(theMaxTotalSize);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.ARCHIVE_MAX_TOTAL_SIZE.key, sizeStr,
+                        "0");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.archiveMaxTotalSize != theMaxTotalSize) {
+                this.archiveMaxTotalSize = theMaxTotalSize;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the number of bytes of log file output to buffer before writing to the file.
+         *
+         * @param theFlushSize the number of bytes (0 to write each message immediately)
+         */
+        public void setFileFlushSize(final int theFlushSize) {
+
+            if (theFlushSize < 0) {
+                final String sizeStr = Integer.toString(theFlushSize);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.FILE_FLUSH_SIZE.key, sizeStr, "0");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.fileFlushSize != theFlushSize) {
+                this.fileFlushSize = theFlushSize;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the maximum number of milliseconds buffered log file output may wait before being written to the file.
+         *
+         * @param theFlushInterval the number of milliseconds (at least 1)
+         */
+        public void setFileFlushInterval(final int theFlushInterval) {
+
+            if (theFlushInterval < 1) {
+                final String intervalStr = Integer.toString(theFlushInterval);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.FILE_FLUSH_INTERVAL.key, intervalStr,
+                        "1");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.fileFlushInterval != theFlushInterval) {
+                this.fileFlushInterval = theFlushInterval;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the format in which log records are written to log files.
+         *
+         * @param theFormat the format
+         */
+        public void setFileFormat(final ELogFileFormat theFormat) {
+
+            if (theFormat == null) {
+                final String msg = Res.fmt(Res.SETTINGS_BAD_FORMAT, "null");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.fileFormat != theFormat) {
+                this.fileFormat = theFormat;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether the installation's configuration file is watched, and the log settings
+         * reloaded whenever it changes. The setting takes effect when settings are next published by
+         * {@code LoggingSubsystem}.
+         *
+         * @param isWatchSettings {@code true} to watch the configuration file
+         */
+        public void setWatchSettings(final boolean isWatchSettings) {
+
+            if (this.watchSettings != isWatchSettings) {
+                this.watchSettings = isWatchSettings;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the levels of records that are also written to the error log file, [fileNameBase]_errors.log, as they
+         * are logged and without buffering.
+         *
+         * @param levels the levels (bitwise OR of constants from {@code LogBase}; {@code LogBase.NONE} for no error log
+         *               file)
+         */
+        public void setErrorFileLevels(final int levels) {
+
+            final int masked = levels & LogBase.ALL;
+
+            if (this.errorFileLevels != masked) {
+                this.errorFileLevels = masked;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether a sidecar index is written alongside each text log file. The setting
+         * takes effect when the log file is next opened.
+         *
+         * @param isFileIndex {@code true} to write an index
+         */
+        public void setFileIndex(final boolean isFileIndex) {
+
+            if (this.fileIndex != isFileIndex) {
+                this.fileIndex = isFileIndex;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the number of seconds during which repeats of an exception with the same stack trace are logged as a
+         * one-line reference to the first occurrence rather than in full.
+         *
+         * @param theWindow the number of seconds (0 to log every stack trace in full)
+         */
+        public void setExceptionDedupWindow(final int theWindow) {
+
+            if (theWindow < 0) {
+                final String windowStr = Integer.toString(theWindow);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.EXCEPTION_DEDUP_WINDOW.key, windowStr,
+                        "0");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.exceptionDedupWindow != theWindow) {
+                this.exceptionDedupWindow = theWindow;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that controls whether log records are written by a background thread. When set, logging threads
+         * publish records to a bounded ring buffer and return without waiting for output.
+         *
+         * @param isAsync {@code true} to write log records asynchronously
+         */
+        public void setAsync(final boolean isAsync) {
+
+            if (this.async != isAsync) {
+                this.async = isAsync;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the capacity of the asynchronous log ring buffer. This takes effect the next time the asynchronous
+         * dispatcher is started.
+         *
+         * @param theCapacity the capacity (rounded up to a power of 2)
+         */
+        public void setAsyncCapacity(final int theCapacity) {
+
+            if (theCapacity < 1) {
+                final String capacityStr = Integer.toString(theCapacity);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.ASYNC_CAPACITY.key, capacityStr, "1");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.asyncCapacity != theCapacity) {
+                this.asyncCapacity = theCapacity;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the policy applied when the asynchronous log ring buffer is full.
+         *
+         * @param thePolicy the policy
+         */
+        public void setAsyncPolicy(final EBackPressurePolicy thePolicy) {
+
+            if (thePolicy == null) {
+                final String msg = Res.fmt(Res.SETTINGS_BAD_POLICY, "null");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.asyncPolicy != thePolicy) {
+                this.asyncPolicy = thePolicy;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the number of characters of console output to buffer for a background thread to write.
+         *
+         * @param theBufferSize the number of characters (0 to write each message to the console before returning)
+         */
+        public void setConsoleBufferSize(final int theBufferSize) {
+
+            if (theBufferSize < 0) {
+                final String sizeStr = Integer.toString(theBufferSize);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.CONSOLE_BUFFER_SIZE.key, sizeStr, "0");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.consoleBufferSize != theBufferSize) {
+                this.consoleBufferSize = theBufferSize;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the maximum number of milliseconds buffered console output may wait before being written.
+         *
+         * @param theFlushInterval the number of milliseconds (at least 1)
+         */
+        public void setConsoleFlushInterval(final int theFlushInterval) {
+
+            if (theFlushInterval < 1) {
+                final String intervalStr = Integer.toString(theFlushInterval);
+                final String msg = Res.fmt(Res.SETTINGS_BAD_VALUE, ELogSetting.CONSOLE_FLUSH_INTERVAL.key, intervalStr,
+                        "1");
+                throw new IllegalArgumentException(msg);
+            }
+
+            if (this.consoleFlushInterval != theFlushInterval) {
+                this.consoleFlushInterval = theFlushInterval;
+                this.dirty = true;
+            }
+        }
+
+        /**
+         * Sets the flag that indicates whether there are unsaved changes in the object's data.
+         *
+         * @param isDirty {@code true} to indicate this object has unsaved changes
+         */
+        void setDirty(final boolean isDirty) {
+
+            this.dirty = isDirty;
+        }
+
+        /**
+         * Tests whether there are unsaved changes in the object's data.
+         *
+         * @return {@code true} if there are unsaved changes
+         */
+        public boolean isDirty() {
+
+            return this.dirty;
+        }
+
+        /**
+         * Configures the object based on an {@code Properties} that may or may not have values for the keys defined in
+         * {@code ELogSetting}.
+         *
+         * @param properties the properties from which to configure settings
+         */
+        void configure(final Properties properties) {
+
+            this.logLevelName = getSetting(properties, ELogSetting.LOG_LEVELS);
+            this.logLevel = parseLevels(this.logLevelName);
+
+            final String sourceLevelsSetting = getSetting(properties, ELogSetting.SOURCE_LEVELS);
+            this.sourceLevels = parseLevels(sourceLevelsSetting);
+
+            final String logToConsoleSetting = getSetting(properties, ELogSetting.LOG_TO_CONSOLE);
+            this.logToConsole = TRUE.equalsIgnoreCase(logToConsoleSetting);
+
+            final String logToFilesSetting = getSetting(properties, ELogSetting.LOG_TO_FILES);
+            this.logToFiles = logToFilesSetting == null || TRUE.equalsIgnoreCase(logToFilesSetting);
+
+            final String countSetting = getSetting(properties, ELogSetting.FILE_COUNT);
+            try {
+                final int value = Integer.parseInt(countSetting);
+                if (value < 1) {
+                    // Use Java logger since the "Log" object is not ready to use yet
+                    final String valueStr = Integer.toString(value);
+                    final String msg = Res.fmt(Res.SETTINGS_BAD_COUNT, valueStr);
+                    Logger.getAnonymousLogger().warning(msg);
+                    this.logFileCount = Integer.MAX_VALUE;
+                } else {
+                    this.logFileCount = value;
+                }
+            } catch (final NumberFormatException ex) {
+                // Use Java logger since the "Log" object is not ready to use yet
+                final String msg = Res.fmt(Res.SETTINGS_PARSE_COUNT, countSetting);
+                Logger.getAnonymousLogger().warning(msg);
+                this.logFileCount = Integer.MAX_VALUE;
+            }
+
+            final String maxSize = getSetting(properties, ELogSetting.FILE_SIZE_LIMIT);
+            try {
+                final int value = Integer.parseInt(maxSize);
+                if (value < 1) {
+                    // Use Java logger since the "Log" object is not ready to use yet
+                    final String valueStr = Integer.toString(value);
+                    final String msg = Res.fmt(Res.SETTINGS_BAD_SIZE, valueStr);
+                    Logger.getAnonymousLogger().warning(msg);
+                    this.logFileSizeLimit = Integer.MAX_VALUE;
+                } else {
+                    this.logFileSizeLimit = value;
+                }
+            } catch (final NumberFormatException ex) {
+                // Use Java logger since the "Log" object is not ready to use yet
+                final String msg = Res.fmt(Res.SETTINGS_PARSE_SIZE, maxSize);
+                Logger.getAnonymousLogger().warning(msg);
+                this.logFileSizeLimit = Integer.MAX_VALUE;
+            }
+
+            this.filenameBase = getSetting(properties, ELogSetting.FILE_NAME_BASE);
+            this.logFilePath = getSetting(properties, ELogSetting.LOG_FILE_PATH);
+
+            final String fileAppendSetting = getSetting(properties, ELogSetting.FILE_APPEND);
+            this.append = TRUE.equalsIgnoreCase(fileAppendSetting);
+
+            final String scheduleSetting = getSetting(properties, ELogSetting.ROTATE_SCHEDULE);
+            final ERotationSchedule schedule = ERotationSchedule.forName(scheduleSetting);
+            if (schedule == null) {
+                // Use Java logger since the "Log" object is not ready to use yet
+                final String msg = Res.fmt(Res.SETTINGS_BAD_SCHEDULE, scheduleSetting);
+                Logger.getAnonymousLogger().warning(msg);
+                this.rotateSchedule = ERotationSchedule.NONE;
+            } else {
+                this.rotateSchedule = schedule;
+            }
+
+            final String timestampedSetting = getSetting(properties, ELogSetting.ARCHIVE_TIMESTAMPED);
+            this.archiveTimestamped = TRUE.equalsIgnoreCase(timestampedSetting);
+            final String compressSetting = getSetting(properties, ELogSetting.ARCHIVE_COMPRESS);
+            this.archiveCompress = TRUE.equalsIgnoreCase(compressSetting);
+            this.archiveMaxAge = getIntSetting(properties, ELogSetting.ARCHIVE_MAX_AGE, 0);
+            this.archiveMaxTotalSize = getIntSetting(properties, ELogSetting.ARCHIVE_MAX_TOTAL_SIZE, 0);
+
+            this.fileFlushSize = getIntSetting(properties, ELogSetting.FILE_FLUSH_SIZE, 0);
+            this.fileFlushInterval = getIntSetting(properties, ELogSetting.FILE_FLUSH_INTERVAL, 1);
+
+            this.exceptionDedupWindow = getIntSetting(properties, ELogSetting.EXCEPTION_DEDUP_WINDOW, 0);
+
+            final String formatSetting = getSetting(properties, ELogSetting.FILE_FORMAT);
+            final ELogFileFormat format = ELogFileFormat.forName(formatSetting);
+            if (format == null) {
+                // Use Java logger since the "Log" object is not ready to use yet
+                final String msg = Res.fmt(Res.SETTINGS_BAD_FORMAT, formatSetting);
+                Logger.getAnonymousLogger().warning(msg);
+                this.fileFormat = ELogFileFormat.TEXT;
+            } else {
+                this.fileFormat = format;
+            }
+
+            final String indexSetting = getSetting(properties, ELogSetting.FILE_INDEX);
+            this.fileIndex = TRUE.equalsIgnoreCase(indexSetting);
+
+            final String errorLevelsSetting = getSetting(properties, ELogSetting.ERROR_FILE_LEVELS);
+            this.errorFileLevels = parseLevels(errorLevelsSetting);
+
+            final String asyncSetting = getSetting(properties, ELogSetting.ASYNC);
+            this.async = TRUE.equalsIgnoreCase(asyncSetting);
+            this.asyncCapacity = getIntSetting(properties, ELogSetting.ASYNC_CAPACITY, 1);
+
+            final String policySetting = getSetting(properties, ELogSetting.ASYNC_POLICY);
+            final EBackPressurePolicy policy = EBackPressurePolicy.forName(policySetting);
+            if (policy == null) {
+                // Use Java logger since the "Log" object is not ready to use yet
+                final String msg = Res.fmt(Res.SETTINGS_BAD_POLICY, policySetting);
+                Logger.getAnonymousLogger().warning(msg);
+                this.asyncPolicy = EBackPressurePolicy.BLOCK;
+            } else {
+                this.asyncPolicy = policy;
+            }
+
+            this.consoleBufferSize = getIntSetting(properties, ELogSetting.CONSOLE_BUFFER_SIZE, 0);
+            this.consoleFlushInterval = getIntSetting(properties, ELogSetting.CONSOLE_FLUSH_INTERVAL, 1);
+
+            final String watchSetting = getSetting(properties, ELogSetting.WATCH_SETTINGS);
+            this.watchSettings = TRUE.equalsIgnoreCase(watchSetting);
+        }
+
+        /**
+         * Builds settings with the values in this builder.
+         *
+         * @return the settings
+         */
+        public LogSettings build() {
+
+            return new LogSettings(this);
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.installation.Installation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Watches the configuration file of an installation, and has {@code LoggingSubsystem} reload the log settings from it
+ * when it changes. The watcher runs on its own daemon thread, which only waits for file system events; the reload is
+ * run on the log scheduler thread a short time after the last change, so an editor that writes a file in several
+ * steps causes one reload rather than several.
+ */
+final class LogSettingsWatcher implements Runnable {
+
+    /** The name of the watcher thread. */
+    private static final String THREAD_NAME = "mathops-log-settings-watcher";
+
+    /** Milliseconds to wait after a change before reloading, so a file being written is complete. */
+    private static final long SETTLE_MS = 250L;
+
+    /** The installation whose configuration file is watched. */
+    private final Installation installation;
+
+    /** The name of the configuration file in its directory. */
+    private final Path cfgName;
+
+    /** The watch service. */
+    private final WatchService service;
+
+    /** The watcher thread. */
+    private final Thread thread;
+
+    /** Flag indicating a reload is scheduled and has not yet started. */
+    private final AtomicBoolean pending;
+
+    /**
+     * Constructs a new {@code LogSettingsWatcher}. The watcher does not run until {@code start} is called.
+     *
+     * @param theInstallation the installation whose configuration file to watch
+     * @throws IOException if the directory of the configuration file could not be watched
+     */
+    LogSettingsWatcher(final Installation theInstallation) throws IOException {
+
+        this.installation = theInstallation;
+
+        final File cfgFile = theInstallation.getCfgFilePath().getAbsoluteFile();
+        this.cfgName = cfgFile.toPath().getFileName();
+        this.pending = new AtomicBoolean(false);
+
+        this.service = FileSystems.getDefault().newWatchService();
+        try {
+            cfgFile.getParentFile().toPath().register(this.service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (final IOException | RuntimeException ex) {
+            this.service.close();
+            throw ex;
+        }
+
+        this.thread = new Thread(this, THREAD_NAME);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Gets the installation whose configuration file is watched.
+     *
+     * @return the installation
+     */
+    Installation getInstallation() {
+
+        return this.installation;
+    }
+
+    /**
+     * Starts the watcher thread.
+     */
+    void start() {
+
+        this.thread.start();
+    }
+
+    /**
+     * Waits for changes to the configuration file until the watcher is closed or the directory can no longer be
+     * watched.
+     */
+    @Override
+    public void run() {
+
+        boolean valid = true;
+
+        while (valid) {
+            final WatchKey key;
+            try {
+                key = this.service.take();
+            } catch (final InterruptedException | ClosedWatchServiceException ex) {
+                break;
+            }
+
+            for (final WatchEvent<?> event : key.pollEvents()) {
+                final WatchEvent.Kind<?> kind = event.kind();
+                if (kind == StandardWatchEventKinds.OVERFLOW || this.cfgName.equals(event.context())) {
+                    scheduleReload();
+                }
+            }
+
+            valid = key.reset();
+        }
+    }
+
+    /**
+     * Schedules a reload of the settings, unless one is already scheduled.
+     */
+    private void scheduleReload() {
+
+        if (this.pending.compareAndSet(false, true)) {
+            LogScheduler.schedule(this::reload, SETTLE_MS);
+        }
+    }
+
+    /**
+     * Reloads the settings. Called on the scheduler thread.
+     */
+    private void reload() {
+
+        this.pending.set(false);
+        LoggingSubsystem.reloadSettings(this.installation);
+    }
+
+    /**
+     * Stops watching. A reload already scheduled may still run, but does nothing if the installation is no longer the
+     * current installation.
+     */
+    void close() {
+
+        try {
+            this.service.close();
+        } catch (final IOException ex) {
+            // No action - the watcher thread ends either way
+        }
+        this.thread.interrupt();
+    }
+}
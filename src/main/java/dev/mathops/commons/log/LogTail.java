@@ -0,0 +1,159 @@
+package dev.mathops.commons.log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A live subscription to the entries written to a {@code LogEntryList} (such as the {@code LogWriter} or a
+ * {@code MemoryAppender}), obtained from its {@code tail} or {@code subscribe} method. Entries at the tail's levels
+ * that are written after the tail is created are published to its subscribers as {@code LogEntry} objects.
+ *
+ * <p>
+ * Each subscriber has its own bounded buffer, and entries are delivered on the tail's own daemon thread. Publishing
+ * never blocks the logging thread: if a subscriber's buffer is full, the entry is dropped for that subscriber and
+ * counted. Closing the tail detaches it from its list, completes its subscribers once their buffers are delivered, and
+ * stops its thread.
+ */
+public final class LogTail implements Flow.Publisher<LogEntry>, AutoCloseable {
+
+    /** The list to which the tail is attached. */
+    private final LogEntryList list;
+
+    /** The levels of entries published (bitwise OR of bit constants from {@code LogBase}). */
+    private final int levels;
+
+    /** The executor on whose thread entries are delivered. */
+    private final ExecutorService executor;
+
+    /** The publisher that buffers and delivers entries to each subscriber. */
+    private final SubmissionPublisher<LogEntry> publisher;
+
+    /** The number of entries dropped because a subscriber's buffer was full. */
+    private final LongAdder dropped;
+
+    /**
+     * Constructs a new {@code LogTail}.
+     *
+     * @param theList     the list to which the tail is attached
+     * @param theLevels   the levels of entries published (bitwise OR of bit constants from {@code LogBase})
+     * @param theCapacity the capacity of each subscriber's buffer (rounded up to a power of 2)
+     */
+    LogTail(final LogEntryList theList, final int theLevels, final int theCapacity) {
+
+        this.list = theList;
+        this.levels = theLevels;
+        this.executor = Executors.newSingleThreadExecutor(LogTail::newThread);
+        this.publisher = new SubmissionPublisher<>(this.executor, Math.max(1, theCapacity));
+        this.dropped = new LongAdder();
+    }
+
+    /**
+     * Creates the daemon delivery thread.
+     *
+     * @param runnable the runnable the thread will execute
+     * @return the thread
+     */
+    private static Thread newThread(final Runnable runnable) {
+
+        final Thread thread = new Thread(runnable, "mathops-log-tail");
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    /**
+     * Gets the levels of entries published.
+     *
+     * @return the levels (bitwise OR of bit constants from {@code LogBase})
+     */
+    public int getLevels() {
+
+        return this.levels;
+    }
+
+    /**
+     * Tests whether an entry at a level is published. Entries without a level ({@code LogBase.ALL}) are published only
+     * by a tail at all levels.
+     *
+     * @param level the level
+     * @return {@code true} if entries at the level are published
+     */
+    boolean accepts(final int level) {
+
+        return (level & this.levels) == level;
+    }
+
+    /**
+     * Adds a subscriber. The subscriber receives entries written after it subscribes, as it requests them.
+     *
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super LogEntry> subscriber) {
+
+        this.publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Adds a subscriber that passes each entry to a listener. If the listener throws an exception, the subscription is
+     * cancelled.
+     *
+     * @param listener the listener
+     */
+    void consume(final Consumer<? super LogEntry> listener) {
+
+        this.publisher.consume(listener);
+    }
+
+    /**
+     * Publishes an entry to every subscriber whose buffer has room, without blocking. Called by the list after the
+     * entry is written, outside its lock.
+     *
+     * @param entry the entry
+     */
+    void publish(final LogEntry entry) {
+
+        if (!this.publisher.isClosed()) {
+            this.publisher.offer(entry, (subscriber, item) -> {
+                this.dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Gets the number of entries dropped because a subscriber's buffer was full.
+     *
+     * @return the number of dropped entries (summed over all subscribers)
+     */
+    public long getDroppedCount() {
+
+        return this.dropped.sum();
+    }
+
+    /**
+     * Gets the number of current subscribers.
+     *
+     * @return the number of subscribers
+     */
+    public int getNumberOfSubscribers() {
+
+        return this.publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Detaches the tail from its list, completes its subscribers once their buffered entries are delivered, and stops
+     * the delivery thread.
+     */
+    @Override
+    public void close() {
+
+        this.list.removeTail(this);
+        this.publisher.close();
+        this.executor.shutdown();
+    }
+}
@@ -0,0 +1,135 @@
+package dev.mathops.commons.log;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Renders log timestamps in the format "MM/dd HH:mm:ss.SSS" without allocating. The "MM/dd HH:mm:ss." prefix for the
+ * current second is rendered once into a char buffer and cached; each timestamp within that second costs a copy of the
+ * cached prefix and three digits for the milliseconds. This is a utility class, not intended to be instantiated, with
+ * only static methods.
+ */
+final class LogTimestamp {
+
+    /** The length of a rendered timestamp. */
+    static final int LENGTH = 18;
+
+    /** The length of the cached per-second prefix (everything but the millisecond digits). */
+    private static final int PREFIX_LENGTH = 15;
+
+    /** Milliseconds per second. */
+    private static final long MS_PER_SEC = 1000L;
+
+    /** Base for decimal numbers. */
+    private static final int DEC_BASE = 10;
+
+    /** The cached prefix for the most recently rendered second. */
+    private static volatile Second cached = new Second(Long.MIN_VALUE, new char[PREFIX_LENGTH]);
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private LogTimestamp() {
+
+        super();
+    }
+
+    /**
+     * Appends a rendered timestamp to a {@code StringBuilder}.
+     *
+     * @param builder the {@code StringBuilder} to which to append
+     * @param millis  the timestamp (epoch milliseconds)
+     */
+    static void append(final StringBuilder builder, final long millis) {
+
+        final Second second = forSecond(Math.floorDiv(millis, MS_PER_SEC));
+        final int ms = (int) Math.floorMod(millis, MS_PER_SEC);
+
+        builder.append(second.prefix, 0, PREFIX_LENGTH);
+        builder.append((char) ('0' + ms / (DEC_BASE * DEC_BASE)));
+        builder.append((char) ('0' + (ms / DEC_BASE) % DEC_BASE));
+        builder.append((char) ('0' + ms % DEC_BASE));
+    }
+
+    /**
+     * Gets the cached prefix for a second, rendering and caching it if the cached prefix is for some other second.
+     * Concurrent threads that cross a second boundary at the same time may each render the prefix; the last one cached
+     * wins, which is harmless since all render the same characters.
+     *
+     * @param epochSecond the second
+     * @return the cached prefix
+     */
+    private static Second forSecond(final long epochSecond) {
+
+        Second second = cached;
+
+        if (second.epochSecond != epochSecond) {
+            second = new Second(epochSecond, renderPrefix(epochSecond));
+            cached = second;
+        }
+
+        return second;
+    }
+
+    /**
+     * Renders the "MM/dd HH:mm:ss." prefix for a second in the system default time zone.
+     *
+     * @param epochSecond the second
+     * @return the rendered prefix
+     */
+    private static char[] renderPrefix(final long epochSecond) {
+
+        final Instant instant = Instant.ofEpochSecond(epochSecond);
+        final LocalDateTime when = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+
+        final char[] prefix = new char[PREFIX_LENGTH];
+        putTwoDigits(prefix, 0, when.getMonthValue());
+        prefix[2] = '/';
+        putTwoDigits(prefix, 3, when.getDayOfMonth());
+        prefix[5] = ' ';
+        putTwoDigits(prefix, 6, when.getHour());
+        prefix[8] = ':';
+        putTwoDigits(prefix, 9, when.getMinute());
+        prefix[11] = ':';
+        putTwoDigits(prefix, 12, when.getSecond());
+        prefix[14] = '.';
+
+        return prefix;
+    }
+
+    /**
+     * Stores a two-digit number in a char array.
+     *
+     * @param dest   the array
+     * @param offset the offset of the first digit
+     * @param value  the value (0 to 99)
+     */
+    private static void putTwoDigits(final char[] dest, final int offset, final int value) {
+
+        dest[offset] = (char) ('0' + value / DEC_BASE);
+        dest[offset + 1] = (char) ('0' + value % DEC_BASE);
+    }
+
+    /** The rendered prefix for one second. Instances are immutable once published. */
+    private static final class Second {
+
+        /** The second. */
+        final long epochSecond;
+
+        /** The rendered "MM/dd HH:mm:ss." prefix. */
+        final char[] prefix;
+
+        /**
+         * Constructs a new {@code Second}.
+         *
+         * @param theEpochSecond the second
+         * @param thePrefix      the rendered prefix
+         */
+        Second(final long theEpochSecond, final char[] thePrefix) {
+
+            this.epochSecond = theEpochSecond;
+            this.prefix = thePrefix;
+        }
+    }
+}
@@ -4,10 +4,16 @@ import dev.mathops.commons.CoreConstants;
 import dev.mathops.commons.installation.Installation;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The class responsible for writing the records generated by an {@code Log} to some configured output.
@@ -17,13 +23,62 @@ import java.nio.charset.StandardCharsets;
  * writing to an archived file, there is a maximum file size and a maximum number of files. Log messages are always
  * written to the [fileNameBase].log file. When a logged message results in that file exceeding the maximum file size,
  * the logs are rotated, with [fileNameBase].log moving to [fileNameBase]_001.log, and so forth, up to the maximum
- * number of log files.
+ * number of log files. Alternatively, the "log-archive-timestamped" setting archives the active file under a name that
+ * carries the time of rotation, with optional compression and age or total size limits applied in the background (see
+ * {@code LogRotator}).
+ *
+ * <p>
+ * The active log file is held open (as a {@code LogFileChannel}) across messages, and is closed before rotation and
+ * reopened on the next message. Output may be buffered according to the "log-file-flush-size" and
+ * "log-file-flush-interval" settings; when it is, a periodic task writes out buffered data that has been idle longer
+ * than the flush interval. Either way, a file that has been moved away by some other process is reopened at its
+ * original path: by the periodic task when output is buffered, and otherwise by the next write made at least one flush
+ * interval after the last check.
+ *
+ * <p>
+ * The "log-rotate-schedule" setting adds rotation at hourly or daily wall-clock boundaries. The rotation is run by a
+ * task on the log scheduler thread, scheduled for the next boundary, so logging threads never check the clock or pay
+ * for the rotation. When the schedule is first applied, a log file last written in an earlier period is rotated before
+ * it is appended to, so each file holds only one period even across restarts.
+ *
+ * <p>
+ * The "log-file-format" setting can select a compact binary format instead of (or in addition to) text. Binary records
+ * are written to [fileNameBase].logb, hold the fields of each record rather than its formatted text, and are rotated
+ * with the text file into numbered archives ([fileNameBase]_001.logb and so forth). They can be read with
+ * {@code BinaryLogReader} and converted to text with {@code BinaryLogConverter}.
+ *
+ * <p>
+ * The "log-file-index" setting writes a sidecar index ([fileNameBase].log.idx) alongside the text log file, which maps
+ * the time, level, session, and user of each record to its offset in the file. Indexes are rotated and archived with
+ * their log files (see {@code LogIndexWriter}), and are used by {@code LogSearch} to find records without scanning.
+ *
+ * <p>
+ * The "log-error-file-levels" setting selects levels (typically SEVERE and WARNING) whose records are also written to
+ * [fileNameBase]_errors.log. That file has its own lock, and records are written to it by the logging thread as they
+ * are logged, unbuffered and ahead of the asynchronous dispatcher, with SEVERE records forced to the storage device, so
+ * errors are durable at once even while bulk output is buffered or queued. The error file is rotated into numbered
+ * archives along with the log file.
+ *
+ * <p>
+ * Additional destinations can be registered as {@code ILogAppender} objects. Each has its own level mask, buffer, and
+ * thread, so routing (for example, only SEVERE messages to a separate file) and slow or failing destinations never
+ * affect the console and file output above, or each other.
+ *
+ * <p>
+ * Each writer keeps {@code LogMetrics} (messages per level, output per sink, write and lock wait times, rotations, and
+ * dropped and suppressed messages), which can be read directly or published over JMX.
  */
 public final class LogWriter extends LogEntryList {
 
     /** File extension for log files. */
     private static final String EXTENSION = ".log";
 
+    /** The suffix added to the filename base to form the name of the error log file. */
+    private static final String ERROR_SUFFIX = "_errors";
+
+    /** File extension for binary log files. */
+    private static final String BINARY_EXTENSION = ".logb";
+
     /** A character that can appear in filenames. */
     private static final char SLASH = '/';
 
@@ -39,15 +94,85 @@ public final class LogWriter extends LogEntryList {
     /** A character that can appear in filenames. */
     private static final char COLON = ':';
 
+    /** The default number of messages that may be queued for an appender. */
+    private static final int DEFAULT_APPENDER_CAPACITY = 1024;
+
+    /** Milliseconds to wait for each appender to drain its queue when flushing. */
+    private static final long APPENDER_FLUSH_MS = 5_000L;
+
+    /** Milliseconds to wait for buffered console output to be written when flushing. */
+    private static final long CONSOLE_FLUSH_MS = 5_000L;
+
     /** System output print stream that can support Unicode. */
     private final PrintStream sysOut;
 
-    /** The log settings. */
-    private final LogSettings settings;
-
     /** The current log file. */
     private File curFile = null;
 
+    /** The open channel to the current log file ({@code null} if not open). */
+    private LogFileChannel fileOut = null;
+
+    /** The current binary log file. */
+    private File binFile = null;
+
+    /** The index of the current log file ({@code null} if not open or not indexing). */
+    private LogIndexWriter index = null;
+
+    /** The open channel to the current binary log file ({@code null} if not open). */
+    private LogFileChannel binOut = null;
+
+    /** The encoder for binary log records ({@code null} until the binary log file is first opened). */
+    private BinaryLogEncoder encoder = null;
+
+    /**
+     * Flag indicating messages are not to be written to the log files, set while reporting a failure to manage them so
+     * the report does not fail in turn; guarded by the lock. The shared settings are never changed for this, since
+     * other threads read them without the lock.
+     */
+    private boolean suppressFiles = false;
+
+    /**
+     * The lock that guards the error log file. It is separate from the writer's lock so error records never wait behind
+     * bulk output; a thread may take it while holding the writer's lock, but never the reverse.
+     */
+    private final ReentrantLock errorLock = new ReentrantLock();
+
+    /** The error log file ({@code null} until first written). */
+    private File errorFile = null;
+
+    /** The open channel to the error log file ({@code null} if not open). */
+    private volatile LogFileChannel errorOut = null;
+
+    /** The periodic task that flushes idle buffered output ({@code null} if not scheduled). */
+    private ScheduledFuture<?> flushTask = null;
+
+    /** The task that rotates the log files at the next scheduled boundary ({@code null} if not scheduled). */
+    private ScheduledFuture<?> rotateTask = null;
+
+    /** The schedule for which {@code rotateTask} was scheduled. */
+    private ERotationSchedule scheduledRotation = ERotationSchedule.NONE;
+
+    /** The boundary at which {@code rotateTask} will run ({@code null} if not scheduled). */
+    private ZonedDateTime nextRotation = null;
+
+    /** Flag indicating a shutdown hook to flush buffered output has been registered. */
+    private boolean hookRegistered = false;
+
+    /** The time at or after which an unbuffered write next checks whether the log files were moved away. */
+    private long nextMissingCheck = 0L;
+
+    /** The exception deduplicator used when formatting records written by this writer. */
+    private final ExceptionDeduplicator dedup;
+
+    /** The metrics describing the cost of logging through this writer. */
+    private final LogMetrics metrics;
+
+    /** The buffered console sink ({@code null} until console output is first buffered). */
+    private volatile ConsoleSink consoleSink = null;
+
+    /** The registered appenders (replaced, never modified, so it can be read without the lock). */
+    private volatile BufferedAppender[] appenders = new BufferedAppender[0];
+
     /**
      * Constructs a new {@code LogWriter}.
      */
@@ -57,119 +182,1071 @@ public final class LogWriter extends LogEntryList {
 
         this.sysOut = new PrintStream(System.out, true, StandardCharsets.UTF_8);
 
-        this.settings = LoggingSubsystem.getSettings();
+        this.dedup = new ExceptionDeduplicator(this);
+        this.metrics = new LogMetrics();
 
-        if (LoggingSubsystem.getInstallation() != null && this.settings.isLogToFiles()) {
+        final LogSettings settings = getSettings();
+        if (LoggingSubsystem.getInstallation() != null && settings.isLogToFiles()) {
             final File logDir = determineLogDir();
-            final String filenameBase = this.settings.getFilenameBase();
+            final String filenameBase = settings.getFilenameBase();
             this.curFile = new File(logDir, filenameBase + EXTENSION);
+            this.binFile = new File(logDir, filenameBase + BINARY_EXTENSION);
+            this.errorFile = new File(logDir, filenameBase + ERROR_SUFFIX + EXTENSION);
 
-            if (this.curFile.exists() && !this.settings.isAppend()) {
+            if ((this.curFile.exists() || this.binFile.exists() || this.errorFile.exists()) && !settings.isAppend()) {
                 rotateLogs();
             }
         }
     }
 
     /**
-     * Gets the log settings.
+     * Gets the log settings. The settings are not cached: each call returns the snapshot currently published by
+     * {@code LoggingSubsystem}, so a reload of the settings applies to the next message written.
      *
      * @return the log settings
      */
     public LogSettings getSettings() {
 
-        return this.settings;
+        return LoggingSubsystem.getSettings();
     }
 
     /**
-     * Writes the message to the console (with or without adding a linefeed), if console logging is enabled.
+     * Gets the exception deduplicator used when formatting records written by this writer.
+     *
+     * @return the exception deduplicator
+     */
+    ExceptionDeduplicator getExceptionDeduplicator() {
+
+        return this.dedup;
+    }
+
+    /**
+     * Gets the metrics describing the cost of logging through this writer.
+     *
+     * @return the metrics
+     */
+    public LogMetrics getMetrics() {
+
+        return this.metrics;
+    }
+
+    /**
+     * Writes the message to the console (with or without adding a linefeed), if console logging is enabled. The message
+     * has no level, so it is never dropped if the console is blocked.
      *
      * @param msg      the message to write
      * @param linefeed {@code true} to include a linefeed
      */
     public void writeConsole(final String msg, final boolean linefeed) {
 
-        synchronized (getSynch()) {
-            if (this.settings.isLogToConsole()) {
-                if (linefeed) {
-                    this.sysOut.println(msg);
-                } else {
-                    this.sysOut.print(msg);
+        writeConsole(LogBase.ALL, msg, linefeed);
+    }
+
+    /**
+     * Writes the message to the console (with or without adding a linefeed), if console logging is enabled.
+     *
+     * <p>
+     * If "log-console-buffer-size" is nonzero, the message is appended to the buffer of a console sink that writes it
+     * on its own thread, so the caller never waits on console output; if the console is blocked, messages below
+     * WARNING are dropped rather than stalling the caller. Otherwise, the message is written and flushed before this
+     * method returns.
+     *
+     * @param level    the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL}
+     *                 for messages that do not have a level)
+     * @param msg      the message to write
+     * @param linefeed {@code true} to include a linefeed
+     */
+    void writeConsole(final int level, final String msg, final boolean linefeed) {
+
+        if (getSettings().isLogToConsole()) {
+            if (getSettings().getConsoleBufferSize() > 0) {
+                getConsoleSink().offer(level, msg, linefeed);
+            } else {
+                // Output buffered before the buffer was disabled must appear first
+                final ConsoleSink sink = this.consoleSink;
+                if (sink != null) {
+                    sink.flush(CONSOLE_FLUSH_MS);
+                }
+
+                final ReentrantLock lock = getLock();
+                lock.lock();
+                try {
+                    if (linefeed) {
+                        this.sysOut.println(msg);
+                    } else {
+                        this.sysOut.print(msg);
+                    }
+                    this.sysOut.flush();
+                    this.metrics.recordBytes(LogMetrics.CONSOLE, (long) (linefeed ? msg.length() + 1 : msg.length()));
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the buffered console sink, creating it (and starting its thread) on first use.
+     *
+     * @return the console sink
+     */
+    private ConsoleSink getConsoleSink() {
+
+        ConsoleSink sink = this.consoleSink;
+
+        if (sink == null) {
+            final ReentrantLock lock = getLock();
+            lock.lock();
+            try {
+                sink = this.consoleSink;
+                if (sink == null) {
+                    final PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+                    sink = new ConsoleSink(out, this::getSettings, this.metrics, ConsoleSink.BLOCKED_MS);
+                    this.consoleSink = sink;
+                    registerShutdownHook();
                 }
-                this.sysOut.flush();
+            } finally {
+                lock.unlock();
             }
         }
+
+        return sink;
     }
 
     /**
-     * Writes the message to the log output.
+     * Writes the message to the log output. The message is sent to every registered appender.
      *
      * @param msg      the message to write
      * @param linefeed {@code true} to include a linefeed; {@code false} to omit
      */
     public void writeMessage(final String msg, final boolean linefeed) {
 
-        synchronized (getSynch()) {
-            writeConsole(msg, linefeed);
-            addToList(msg);
+        writeMessage(LogBase.ALL, msg, linefeed);
+    }
+
+    /**
+     * Writes the message to the log output. The message is sent to each registered appender that accepts its level.
+     *
+     * @param level    the level of the message (one of the bit constants from {@code LogBase}, or {@code LogBase.ALL}
+     *                 for messages that do not have a level)
+     * @param msg      the message to write
+     * @param linefeed {@code true} to include a linefeed; {@code false} to omit
+     */
+    public void writeMessage(final int level, final String msg, final boolean linefeed) {
+
+        write(level, msg, linefeed, null);
+    }
+
+    /**
+     * Writes a formatted log record, with a linefeed, exactly as by {@code writeMessage}. The record may be held in a
+     * reusable buffer: it is encoded directly into the log file buffer, and converted to a {@code String} only for the
+     * outputs that need one. It is not retained after this method returns.
+     *
+     * @param level the level of the message
+     * @param msg   the formatted record
+     */
+    void writeFormatted(final int level, final CharSequence msg) {
+
+        write(level, msg, true, null);
+    }
+
+    /**
+     * Writes a log record to the log output. The formatted record is written exactly as by {@code writeFormatted}; the
+     * fields of the record are used for the binary log file, if one is being written. Neither the event nor the
+     * formatted record is retained.
+     *
+     * @param event the event holding the fields of the record
+     * @param msg   the formatted record
+     */
+    void writeRecord(final LogEvent event, final CharSequence msg) {
+
+        write(event.level, msg, true, event);
+    }
+
+    /**
+     * Tests whether records at a level are written to the error log file.
+     *
+     * @param level the level
+     * @return {@code true} if records at the level are written to the error log file
+     */
+    boolean writesErrorFile(final int level) {
+
+        final LogSettings settings = getSettings();
+
+        return (settings.getErrorFileLevels() & level) != 0 && settings.isLogToFiles()
+               && LoggingSubsystem.getInstallation() != null;
+    }
+
+    /**
+     * Writes a formatted record to the error log file, if records at its level are written there, without buffering.
+     * A SEVERE record is also forced to the storage device. This takes only the error file's lock, so it does not wait
+     * for other output. The record is not retained after this method returns.
+     *
+     * @param level the level of the record
+     * @param msg   the formatted record
+     */
+    void writeErrorRecord(final int level, final CharSequence msg) {
+
+        if (writesErrorFile(level)) {
+            // Never determine the log directory while holding the error lock, since that may take the writer's lock
+            final File logDir = this.errorOut == null && this.errorFile == null ? determineLogDir() : null;
+            IOException failure = null;
+            File failedFile = null;
+
+            this.errorLock.lock();
+            try {
+                if (this.errorFile == null && logDir != null) {
+                    this.errorFile = new File(logDir, getSettings().getFilenameBase() + ERROR_SUFFIX + EXTENSION);
+                }
+
+                if (this.errorFile != null) {
+                    try {
+                        if (this.errorOut == null) {
+                            this.errorOut = new LogFileChannel(this.errorFile);
+                        }
+                        final LogFileChannel out = this.errorOut;
+                        final long before = out.size();
+                        out.write(msg, true, 0, 0L);
+                        if (level == LogBase.SEVERE_BIT) {
+                            out.force();
+                        }
+                        this.metrics.recordBytes(LogMetrics.FILE, out.size() - before);
+                    } catch (final IOException ex) {
+                        failure = ex;
+                        failedFile = this.errorFile;
+                        closeErrorFile();
+                    }
+                }
+            } finally {
+                this.errorLock.unlock();
+            }
+
+            if (failure != null) {
+                final String simpleName = failure.getClass().getSimpleName();
+                writeConsole(Res.fmt(Res.LOG_FAILED, failedFile.getPath(), simpleName), true);
+            }
+        }
+    }
+
+    /**
+     * Closes the error log file, if open, reporting a failure to the console. Called only while holding the error
+     * lock.
+     */
+    private void closeErrorFile() {
+
+        final LogFileChannel out = this.errorOut;
+        this.errorOut = null;
+
+        if (out != null) {
+            try {
+                out.close();
+            } catch (final IOException ex) {
+                // Nothing is buffered, so nothing is lost
+            }
+        }
+    }
+
+    /**
+     * Tests whether the error log file exists.
+     *
+     * @return {@code true} if the error log file's path is known and the file exists
+     */
+    private boolean hasErrorFile() {
+
+        this.errorLock.lock();
+        try {
+            return this.errorFile != null && this.errorFile.exists();
+        } finally {
+            this.errorLock.unlock();
+        }
+    }
+
+    /**
+     * Rotates the error log file into numbered archives, if it exists. Called only while holding the writer's lock.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param logFileCount the maximum number of log files
+     */
+    private void rotateErrorFile(final File logDir, final String filenameBase, final int logFileCount) {
+
+        String error = null;
+
+        this.errorLock.lock();
+        try {
+            closeErrorFile();
+            if (this.errorFile != null && this.errorFile.exists()) {
+                error = LogRotator.rotateLogs(logDir, filenameBase + ERROR_SUFFIX, (long) logFileCount,
+                        this.errorFile);
+            }
+        } finally {
+            this.errorLock.unlock();
+        }
+
+        if (error != null) {
+            reportError(error);
+        }
+    }
+
+    /**
+     * Writes a message to the console, the internal list, each registered appender that accepts its level, and the log
+     * files. A {@code String} is made from the message only if one of the first three needs it.
+     *
+     * @param level    the level of the message
+     * @param msg      the message to write
+     * @param linefeed {@code true} to include a linefeed; {@code false} to omit
+     * @param event    the event holding the fields of the record ({@code null} for a bare line of text)
+     */
+    private void write(final int level, final CharSequence msg, final boolean linefeed, final LogEvent event) {
+
+        final long start = System.nanoTime();
+        long acquired = start;
+
+        String listed = null;
+        LogEntry entry = null;
+
+        final ReentrantLock lock = getLock();
+        if (!lock.tryLock()) {
+            lock.lock();
+            acquired = System.nanoTime();
+        }
+        try {
+            final LogSettings settings = getSettings();
+            String str = msg instanceof String msgStr ? msgStr : null;
+
+            if (settings.isLogToConsole()) {
+                str = str == null ? msg.toString() : str;
+                writeConsole(level, str, linefeed);
+            }
+            if (isLogToList() || hasTails()) {
+                str = str == null ? msg.toString() : str;
+                listed = str;
+                entry = storeInList(level, str);
+            }
+
+            for (final BufferedAppender appender : this.appenders) {
+                // An appender reporting its own failure must not be fed the report
+                if (!appender.isConsumerThread() && appender.accepts(level)) {
+                    str = str == null ? msg.toString() : str;
+                    appender.offer(level, str, linefeed);
+                }
+            }
 
-            if (LoggingSubsystem.getInstallation() != null && this.settings.isLogToFiles()) {
+            if (!this.suppressFiles && LoggingSubsystem.getInstallation() != null && settings.isLogToFiles()) {
 
                 if (this.curFile == null) {
                     final File logDir = determineLogDir();
-                    final String filenameBase = this.settings.getFilenameBase();
+                    final String filenameBase = settings.getFilenameBase();
                     this.curFile = new File(logDir, filenameBase + EXTENSION);
+                    this.binFile = new File(logDir, filenameBase + BINARY_EXTENSION);
+                }
+
+                if (this.rotateTask == null && settings.getRotateSchedule() != ERotationSchedule.NONE) {
+                    startScheduledRotation();
+                }
+                if (settings.getFileFlushSize() <= 0) {
+                    closeIfMissing();
+                }
+
+                final ELogFileFormat format = settings.getFileFormat();
+                if (format.writesText()) {
+                    writeText(level, msg, linefeed, event);
+                }
+                if (format.writesBinary()) {
+                    writeBinary(level, msg, linefeed, event);
+                }
+
+                final long limit = (long) settings.getLogFileSizeLimit();
+                if (limit > 0L && (isOverLimit(this.fileOut, limit) || isOverLimit(this.binOut, limit))) {
+                    rotateLogs();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Tails are published to outside the lock, so a slow subscriber never holds up other writers
+        if (listed != null) {
+            publishToTails(level, listed, entry);
+        }
+
+        this.metrics.recordWrite(level, acquired - start, System.nanoTime() - start);
+    }
+
+    /**
+     * Writes a message to the text log file, and adds it to the index if indexing. Called only while holding the lock.
+     *
+     * @param level    the level of the message
+     * @param msg      the message to write
+     * @param linefeed {@code true} to include a linefeed; {@code false} to omit
+     * @param event    the event holding the fields of the record ({@code null} for a bare line of text)
+     */
+    private void writeText(final int level, final CharSequence msg, final boolean linefeed, final LogEvent event) {
+
+        try {
+            if (this.fileOut == null) {
+                openFile();
+            }
+            final int flushSize = getSettings().getFileFlushSize();
+            final long flushInterval = (long) getSettings().getFileFlushInterval();
+            final long before = this.fileOut.size();
+            if (this.index != null) {
+                indexRecord(before, level, event);
+            }
+            this.fileOut.write(msg, linefeed, flushSize, flushInterval);
+            this.metrics.recordBytes(LogMetrics.FILE, this.fileOut.size() - before);
+        } catch (final IOException ex) {
+            fileFailed(this.curFile, ex);
+        }
+    }
+
+    /**
+     * Adds a record to the index of the text log file. A record with no event is indexed under the current time and
+     * the log context of the calling thread. Called only while holding the lock.
+     *
+     * @param offset the offset of the record in the log file
+     * @param level  the level of the record
+     * @param event  the event holding the fields of the record ({@code null} for a bare line of text)
+     */
+    private void indexRecord(final long offset, final int level, final LogEvent event) {
+
+        try {
+            if (event == null) {
+                final long now = System.currentTimeMillis();
+                final LogContext ctx = LogBase.currentContext();
+                if (ctx == null) {
+                    this.index.add(offset, now, level, null, null);
+                } else {
+                    this.index.add(offset, now, level, ctx.getSessionId(), ctx.getUserId());
                 }
+            } else {
+                this.index.add(offset, event.millis, level, event.sessionId, event.userId);
+            }
+        } catch (final IOException ex) {
+            indexFailed(ex);
+        }
+    }
+
+    /**
+     * Handles a failure to write the index of the text log file by abandoning the index (until the log file is next
+     * opened) and reporting the failure to the console. Called only while holding the lock.
+     *
+     * @param ex the exception
+     */
+    private void indexFailed(final IOException ex) {
+
+        final LogIndexWriter failed = this.index;
+        this.index = null;
+
+        try {
+            failed.close(this.fileOut == null ? 0L : this.fileOut.size());
+        } catch (final IOException ex2) {
+            // Already reporting a failure
+        }
+
+        final String path = failed.getFile().getPath();
+        final String simpleName = ex.getClass().getSimpleName();
+        final String msg = Res.fmt(Res.INDEX_FAILED, path, simpleName);
+        writeConsole(msg, true);
+    }
+
+    /**
+     * Writes a record to the binary log file. Called only while holding the lock.
+     *
+     * @param level    the level of the message
+     * @param msg      the message to write (used only if there is no event)
+     * @param linefeed {@code true} to include a linefeed; {@code false} to omit
+     * @param event    the event holding the fields of the record ({@code null} for a bare line of text)
+     */
+    private void writeBinary(final int level, final CharSequence msg, final boolean linefeed, final LogEvent event) {
+
+        try {
+            if (this.binOut == null) {
+                openBinaryFile();
+            }
+
+            if (event == null) {
+                final long now = System.currentTimeMillis();
+                final String msgStr = msg.toString();
+                this.encoder.encode(now, (char) 0, level, linefeed, null, null, null, null, msgStr, null);
+            } else {
+                this.encoder.encode(event.millis, event.severity, event.level, event.linefeed, event.remoteAddress,
+                        event.sessionId, event.userId, event.entries, event.source, event.content, event.trace);
+            }
+
+            final int flushSize = getSettings().getFileFlushSize();
+            final long flushInterval = (long) getSettings().getFileFlushInterval();
+            this.binOut.write(this.encoder.getBytes(), this.encoder.length(), flushSize, flushInterval);
+            this.metrics.recordBytes(LogMetrics.BINARY, (long) this.encoder.length());
+        } catch (final IOException ex) {
+            fileFailed(this.binFile, ex);
+        }
+    }
+
+    /**
+     * Tests whether an open log file has exceeded the size limit.
+     *
+     * @param channel the channel to the log file ({@code null} if not open)
+     * @param limit   the size limit
+     * @return {@code true} if the file is open and has exceeded the limit
+     */
+    private static boolean isOverLimit(final LogFileChannel channel, final long limit) {
+
+        return channel != null && channel.size() > limit;
+    }
+
+    /**
+     * Handles a failure to write a log file by closing the log files (so they will be reopened on the next message) and
+     * writing an error message to the other outputs. Called only while holding the lock.
+     *
+     * @param file the file that could not be written
+     * @param ex   the exception
+     */
+    private void fileFailed(final File file, final IOException ex) {
+
+        closeFile();
+        final String filePath = file.getPath();
+        final Class<? extends IOException> exClass = ex.getClass();
+        final String simpleName = exClass.getSimpleName();
+        final String logMsg = Res.fmt(Res.LOG_FAILED, filePath, simpleName);
+        writeWithoutFiles(logMsg);
+    }
+
+    /**
+     * Opens the current log file for appending. If output is to be buffered, this also schedules the periodic task
+     * that flushes idle buffered output. Called only while holding the lock.
+     *
+     * @throws IOException if the file could not be opened
+     */
+    private void openFile() throws IOException {
+
+        this.fileOut = new LogFileChannel(this.curFile);
+        if (getSettings().isFileIndex()) {
+            this.index = new LogIndexWriter(this.curFile);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Opens the current binary log file for appending, and writes the file header (if the file is new) or an entry that
+     * resets the string table (if the file is being appended to). If output is to be buffered, this also schedules the
+     * periodic task that flushes idle buffered output. Called only while holding the lock.
+     *
+     * @throws IOException if the file could not be opened
+     */
+    private void openBinaryFile() throws IOException {
+
+        this.binOut = new LogFileChannel(this.binFile);
+        if (this.encoder == null) {
+            this.encoder = new BinaryLogEncoder();
+        }
+
+        this.encoder.start(this.binOut.size() == 0L);
+        final int flushSize = getSettings().getFileFlushSize();
+        final long flushInterval = (long) getSettings().getFileFlushInterval();
+        this.binOut.write(this.encoder.getBytes(), this.encoder.length(), flushSize, flushInterval);
+
+        scheduleFlush();
+    }
+
+    /**
+     * If output is to be buffered, schedules the periodic task that flushes idle buffered output (if not already
+     * scheduled) and registers the shutdown hook. Called only while holding the lock.
+     */
+    private void scheduleFlush() {
+
+        if (getSettings().getFileFlushSize() > 0) {
+            final long interval = (long) getSettings().getFileFlushInterval();
+            if (this.flushTask == null && interval > 0L) {
+                this.flushTask = LogScheduler.scheduleAtFixedRate(this::timedFlush, interval);
+            }
+            registerShutdownHook();
+        }
+    }
+
+    /**
+     * Flushes and closes the current log files, if open, and cancels the periodic flush task. The files will be
+     * reopened on the next message. Called only while holding the lock.
+     */
+    private void closeFile() {
+
+        if (this.flushTask != null) {
+            this.flushTask.cancel(false);
+            this.flushTask = null;
+        }
+
+        if (this.index != null) {
+            try {
+                this.index.close(this.fileOut == null ? 0L : this.fileOut.size());
+                this.index = null;
+            } catch (final IOException ex) {
+                indexFailed(ex);
+            }
+        }
+
+        closeChannel(this.fileOut);
+        this.fileOut = null;
+        closeChannel(this.binOut);
+        this.binOut = null;
+    }
+
+    /**
+     * Flushes and closes a log file channel, reporting any failure to the console. Called only while holding the lock.
+     *
+     * @param channel the channel ({@code null} if not open)
+     */
+    private void closeChannel(final LogFileChannel channel) {
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException ex) {
+                final String curFilePath = channel.getFile().getPath();
+                final String simpleName = ex.getClass().getSimpleName();
+                final String logMsg = Res.fmt(Res.LOG_FAILED, curFilePath, simpleName);
+                writeConsole(logMsg, true);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered output of a log file channel if it has been idle for at least a minimum time. Called only
+     * while holding the lock.
+     *
+     * @param channel the channel ({@code null} if not open)
+     * @param minIdle the minimum number of milliseconds since the last write
+     * @return {@code false} if the output could not be written; {@code true} otherwise
+     */
+    private static boolean flushChannel(final LogFileChannel channel, final long minIdle) {
+
+        boolean ok = true;
+
+        if (channel != null && channel.hasBufferedData()
+            && System.currentTimeMillis() - channel.getLastFlush() >= minIdle) {
+            try {
+                channel.flush();
+            } catch (final IOException ex) {
+                ok = false;
+            }
+        }
 
+        return ok;
+    }
+
+    /**
+     * Writes any buffered output to the current log files, and waits (for a limited time) for buffered console output
+     * to be written and for each registered appender to write the messages queued for it.
+     */
+    public void flush() {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            if (this.index != null && this.fileOut != null) {
                 try {
-                    try (final FileOutputStream out = new FileOutputStream(this.curFile, true)) {
-                        final byte[] msgBytes = msg.getBytes(StandardCharsets.UTF_8);
-                        out.write(msgBytes);
-                        if (linefeed) {
-                            final byte[] lineEndBytes = CoreConstants.CRLF.getBytes(StandardCharsets.UTF_8);
-                            out.write(lineEndBytes);
-                        }
-                    }
+                    this.index.flush(this.fileOut.size());
                 } catch (final IOException ex) {
-                    // Turn off file logging to prevent infinite loop when logging error
-                    this.settings.setLogToFiles(false);
-                    final String curFilePath = this.curFile.getPath();
-                    final Class<? extends IOException> exClass = ex.getClass();
-                    final String simpleName = exClass.getSimpleName();
-                    final String logMsg = Res.fmt(Res.LOG_FAILED, curFilePath, simpleName);
-                    writeMessage(logMsg, true);
-                    this.settings.setLogToFiles(true);
-                }
-
-                if (this.settings.getLogFileSizeLimit() > 0
-                    && this.curFile.length() > (long) this.settings.getLogFileSizeLimit()) {
-                    rotateLogs();
+                    indexFailed(ex);
+                }
+            }
+
+            if (!flushChannel(this.fileOut, 0L) || !flushChannel(this.binOut, 0L)) {
+                closeFile();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        final ConsoleSink sink = this.consoleSink;
+        if (sink != null) {
+            sink.flush(CONSOLE_FLUSH_MS);
+        }
+
+        for (final BufferedAppender appender : this.appenders) {
+            appender.flush(APPENDER_FLUSH_MS);
+        }
+    }
+
+    /**
+     * Registers an appender, with a buffer of the default capacity.
+     *
+     * @param appender the appender
+     */
+    public void addAppender(final ILogAppender appender) {
+
+        addAppender(appender, DEFAULT_APPENDER_CAPACITY);
+    }
+
+    /**
+     * Registers an appender. The appender is fed from its own buffer by its own thread.
+     *
+     * @param appender the appender
+     * @param capacity the number of messages that may be queued for the appender before further messages are dropped
+     */
+    public void addAppender(final ILogAppender appender, final int capacity) {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            final BufferedAppender sink = new BufferedAppender(appender, capacity, this);
+
+            final BufferedAppender[] current = this.appenders;
+            final BufferedAppender[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = sink;
+            this.appenders = updated;
+
+            registerShutdownHook();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a registered appender. Messages already queued for the appender are written, and the appender is closed.
+     *
+     * @param name the name of the appender
+     * @return {@code true} if an appender with the name was found and removed
+     */
+    public boolean removeAppender(final String name) {
+
+        BufferedAppender removed = null;
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            final BufferedAppender[] current = this.appenders;
+            final List<BufferedAppender> kept = new ArrayList<>(current.length);
+            for (final BufferedAppender sink : current) {
+                if (removed == null && sink.getAppender().getName().equals(name)) {
+                    removed = sink;
+                } else {
+                    kept.add(sink);
                 }
             }
+            this.appenders = kept.toArray(new BufferedAppender[0]);
+        } finally {
+            lock.unlock();
+        }
+
+        if (removed != null) {
+            removed.stop();
+        }
+
+        return removed != null;
+    }
+
+    /**
+     * Gets the number of messages a registered appender has dropped because its buffer was full.
+     *
+     * @param name the name of the appender
+     * @return the number of dropped messages (0 if there is no appender with the name)
+     */
+    public long getAppenderDroppedCount(final String name) {
+
+        long count = 0L;
+
+        for (final BufferedAppender sink : this.appenders) {
+            if (sink.getAppender().getName().equals(name)) {
+                count = sink.getDroppedCount();
+                break;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Registers a shutdown hook that flushes buffered output at VM exit, if one has not already been registered. Called
+     * only while holding the lock.
+     */
+    private void registerShutdownHook() {
+
+        if (!this.hookRegistered) {
+            final Thread hook = new Thread(this::flush, "mathops-log-flush");
+            Runtime.getRuntime().addShutdownHook(hook);
+            this.hookRegistered = true;
+        }
+    }
+
+    /**
+     * Called periodically by the log scheduler. Writes buffered output that has been idle for at least the flush
+     * interval, and closes the file (so it will be reopened) if it no longer exists because it was moved or deleted by
+     * another process.
+     */
+    private void timedFlush() {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            final long interval = (long) getSettings().getFileFlushInterval();
+
+            if (!flushChannel(this.fileOut, interval) || !flushChannel(this.binOut, interval)) {
+                closeFile();
+            }
+
+            if (isMissing(this.fileOut) || isMissing(this.binOut)) {
+                closeFile();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the log files (so they will be reopened) if they no longer exist because they were moved or deleted by
+     * another process. Unbuffered output has no periodic flush task to make this check, so writes make it instead, at
+     * most once per flush interval so most writes pay only for reading the clock. Called only while holding the lock.
+     */
+    private void closeIfMissing() {
+
+        final long now = System.currentTimeMillis();
+
+        if (now >= this.nextMissingCheck) {
+            this.nextMissingCheck = now + (long) getSettings().getFileFlushInterval();
+
+            if (isMissing(this.fileOut) || isMissing(this.binOut)) {
+                closeFile();
+            }
         }
     }
 
     /**
-     * Rotates the log files.
+     * Tests whether the file behind an open log file channel no longer exists.
+     *
+     * @param channel the channel ({@code null} if not open)
+     * @return {@code true} if the channel is open and its file does not exist
+     */
+    private static boolean isMissing(final LogFileChannel channel) {
+
+        return channel != null && !channel.getFile().exists();
+    }
+
+    /**
+     * Rotates the log files. With numbered archives, the whole chain of archives is renamed on the calling thread. With
+     * timestamped archives, the calling thread only moves the active file to its archive name; compression and
+     * retention are done in the background. A binary log file and the error log file are always rotated into numbered
+     * archives.
      */
     void rotateLogs() {
 
-        synchronized (getSynch()) {
-            if (this.curFile != null && this.curFile.exists()) {
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            closeFile();
+
+            final boolean hasText = this.curFile != null && this.curFile.exists();
+            final boolean hasBinary = this.binFile != null && this.binFile.exists();
+            final boolean hasErrors = hasErrorFile();
+
+            if (hasText || hasBinary || hasErrors) {
+                this.metrics.recordRotation();
+
                 final File logDir = determineLogDir();
-                final String filenameBase = this.settings.getFilenameBase();
-                final int logFileCount = this.settings.getLogFileCount();
-                final String error = LogRotator.rotateLogs(logDir, filenameBase, (long) logFileCount, this.curFile);
+                final String filenameBase = getSettings().getFilenameBase();
+                final int logFileCount = getSettings().getLogFileCount();
+
+                if (hasText) {
+                    final String error;
+
+                    if (getSettings().isArchiveTimestamped()) {
+                        final StringBuilder err = new StringBuilder(100);
+                        final File archive = LogRotator.rotateToTimestamp(logDir, filenameBase, this.curFile, err);
+                        LogRotator.submitHousekeeping(archive, getSettings(), logDir, this::reportError);
+                        error = err.isEmpty() ? null : err.toString();
+                    } else {
+                        error = LogRotator.rotateLogs(logDir, filenameBase, (long) logFileCount, this.curFile);
+                        rotateIndexes(logDir, filenameBase, logFileCount);
+                    }
+
+                    if (error != null) {
+                        reportError(error);
+                    }
+                }
+
+                if (hasBinary) {
+                    final String error = LogRotator.rotateLogs(logDir, filenameBase, BINARY_EXTENSION,
+                            (long) logFileCount, this.binFile);
+                    if (error != null) {
+                        reportError(error);
+                    }
+                }
+
+                rotateErrorFile(logDir, filenameBase, logFileCount);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the log files, if open, and forgets their paths, so the next message opens log files in the log directory
+     * of the installation then in effect. Called when the installation changes, or when new settings name different
+     * log files.
+     */
+    void releaseFiles() {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            closeFile();
+            this.curFile = null;
+            this.binFile = null;
+
+            this.errorLock.lock();
+            try {
+                closeErrorFile();
+                this.errorFile = null;
+            } finally {
+                this.errorLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the rotation schedule for the first time: rotates log files last written before the start of the current
+     * period, then schedules rotation at the next boundary. Called only while holding the lock.
+     */
+    private void startScheduledRotation() {
+
+        final ERotationSchedule schedule = getSettings().getRotateSchedule();
+        final ZonedDateTime now = ZonedDateTime.now();
+        final long periodStart = schedule.periodStart(now).toInstant().toEpochMilli();
+
+        if (isStale(this.curFile, periodStart) || isStale(this.binFile, periodStart)) {
+            rotateLogs();
+        }
+
+        scheduleRotation(schedule, now);
+    }
+
+    /**
+     * Tests whether a log file holds data last written before a time.
+     *
+     * @param file the file ({@code null} if none)
+     * @param time the time, in milliseconds since the epoch
+     * @return {@code true} if the file exists, is not empty, and was last modified before the time
+     */
+    private static boolean isStale(final File file, final long time) {
+
+        return file != null && file.length() > 0L && file.lastModified() < time;
+    }
+
+    /**
+     * Schedules the task that rotates the log files at the first boundary of a schedule after a time. Called only while
+     * holding the lock.
+     *
+     * @param schedule the schedule (not {@code NONE})
+     * @param after    the time after which to rotate
+     */
+    private void scheduleRotation(final ERotationSchedule schedule, final ZonedDateTime after) {
+
+        final ZonedDateTime boundary = schedule.nextBoundary(after);
+        final long delay = Math.max(0L, Duration.between(ZonedDateTime.now(), boundary).toMillis());
+
+        this.scheduledRotation = schedule;
+        this.nextRotation = boundary;
+        this.rotateTask = LogScheduler.schedule(this::timedRotate, delay);
+    }
+
+    /**
+     * Called by the log scheduler at a rotation boundary. Rotates the log files (unless the schedule has changed since
+     * the task was scheduled), then schedules the next rotation, or none if the schedule is now {@code NONE}.
+     */
+    private void timedRotate() {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            final ERotationSchedule schedule = getSettings().getRotateSchedule();
+            final ZonedDateTime boundary = this.nextRotation;
+            this.rotateTask = null;
+            this.nextRotation = null;
 
-                if (error != null) {
-                    // Turn off file logging to prevent infinite loop when logging error
-                    this.settings.setLogToFiles(false);
-                    writeMessage(error, true);
-                    this.settings.setLogToFiles(true);
+            if (schedule == ERotationSchedule.NONE) {
+                this.scheduledRotation = schedule;
+            } else {
+                final ZonedDateTime now = ZonedDateTime.now();
+
+                if (schedule == this.scheduledRotation) {
+                    if (getSettings().isLogToFiles()) {
+                        rotateLogs();
+                    }
+                    // The task can run a little early; never schedule the same boundary twice
+                    scheduleRotation(schedule, now.isBefore(boundary) ? boundary : now);
+                } else {
+                    scheduleRotation(schedule, now);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rotates the indexes of the text log files into numbered archives, alongside the log files they index. If there
+     * are archived indexes but the active log file has none, an empty index is rotated in its place, so each archived
+     * index stays with its log file. Called only while holding the lock.
+     *
+     * @param logDir       the log directory
+     * @param filenameBase the base of log filenames
+     * @param logFileCount the maximum number of log files
+     */
+    private void rotateIndexes(final File logDir, final String filenameBase, final int logFileCount) {
+
+        final File curIndex = LogIndexWriter.indexFor(this.curFile);
+        final String extension = EXTENSION + LogIndexWriter.EXTENSION;
+
+        if (curIndex.exists() || !LogRotator.listNumberedArchives(logDir, filenameBase, extension).isEmpty()) {
+            try {
+                if (curIndex.createNewFile() || curIndex.exists()) {
+                    final String error = LogRotator.rotateLogs(logDir, filenameBase, extension, (long) logFileCount,
+                            curIndex);
+                    if (error != null) {
+                        reportError(error);
+                    }
                 }
+            } catch (final IOException ex) {
+                final String simpleName = ex.getClass().getSimpleName();
+                reportError(Res.fmt(Res.INDEX_FAILED, curIndex.getPath(), simpleName));
             }
         }
     }
 
+    /**
+     * Writes an error that occurred while managing log files, without writing it to the log file itself.
+     *
+     * @param error the error text
+     */
+    private void reportError(final String error) {
+
+        final ReentrantLock lock = getLock();
+        lock.lock();
+        try {
+            writeWithoutFiles(error);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a message to every output but the log files (to prevent an infinite loop when reporting a failure to write
+     * them). Called only while holding the lock.
+     *
+     * @param msg the message
+     */
+    private void writeWithoutFiles(final String msg) {
+
+        final boolean wasSuppressed = this.suppressFiles;
+        this.suppressFiles = true;
+        try {
+            writeMessage(msg, true);
+        } finally {
+            this.suppressFiles = wasSuppressed;
+        }
+    }
+
     /**
      * Retrieves the log file path property from the log settings and the base directory from the installation (if
      * needed) and builds the path where log files should be written.
@@ -182,8 +1259,8 @@ public final class LogWriter extends LogEntryList {
         final Installation installation = LoggingSubsystem.getInstallation();
         File result = null;
 
-        if (installation != null && this.settings.isLogToFiles()) {
-            final String path = this.settings.getLogFilePath();
+        if (installation != null && getSettings().isLogToFiles()) {
+            final String path = getSettings().getLogFilePath();
 
             if (path != null && !path.isEmpty()) {
                 final int chr0 = (int) path.charAt(0);
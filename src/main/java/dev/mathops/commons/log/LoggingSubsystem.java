@@ -2,7 +2,11 @@ package dev.mathops.commons.log;
 
 import dev.mathops.commons.installation.Installation;
 
+import java.io.IOException;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Provides VM-wide control of the logging subsystem. There is a single log flow for the VM. Until an Installation has
@@ -10,17 +14,30 @@ import java.util.Properties;
  * installation is set, logging preferences are read from that installation's base directory and file-based logging may
  * begin. Note that there can be multiple Installations on a single server computer, but each must run in its own VM. A
  * single web server (such as Apache Tomcat) which runs in a VM may present only one Installation's websites.
+ *
+ * <p>
+ * The settings in effect are held as a single immutable {@code LogSettings} object in a volatile field. New settings
+ * are built, then published by replacing the object, so every logging thread sees either the old settings or the new
+ * ones, without taking a lock. Unless the "log-watch-settings" setting is false, the installation's configuration
+ * file is watched, and the settings are reloaded and republished whenever it changes, so (for example) the log levels
+ * can be changed without restarting. Settings that name the log files take effect when the log file is next opened.
  */
 public final class LoggingSubsystem {
 
+    /** The lock that serializes changes to the installation. */
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
     /** The singleton instance. */
     private static final LoggingSubsystem INSTANCE = new LoggingSubsystem();
 
-    /** The installation. */
-    private Installation installation = null;
+    /** The installation (volatile so it can be read on every log message without taking the lock). */
+    private volatile Installation installation = null;
+
+    /** The log settings (volatile so it can be read on every log message without taking the lock). */
+    private volatile LogSettings settings;
 
-    /** The log settings. */
-    private final LogSettings settings;
+    /** The watcher of the installation's configuration file ({@code null} if not watching); guarded by the lock. */
+    private LogSettingsWatcher watcher = null;
 
     /**
      * Private constructor to prevent direct instantiation.
@@ -29,30 +46,141 @@ public final class LoggingSubsystem {
 
         this.settings = new LogSettings();
 
-        configureSettings(this.settings, null);
+        if (!this.settings.isAppend()) {
+            Log.getWriter().rotateLogs();
+        }
     }
 
     /**
      * Sets the installation. On this call, the logging preferences (if any are found) are loaded from the
-     * installation's base directory and applied, which may begin file-based logging or alter the levels logged.
+     * installation's base directory and applied, which may begin file-based logging or alter the levels logged. Log
+     * files already open are closed, and the next message opens log files in the new installation's log directory.
      *
      * @param theInstallation the installation ({@code null} to un-set the installation and revert back to console-only
      *                        logging)
      */
     public static void setInstallation(final Installation theInstallation) {
 
-        synchronized (INSTANCE) {
-            if (INSTANCE.innerGetInstallation() == null) {
-                if (theInstallation != null) {
-                    INSTANCE.innerSetInstallation(theInstallation);
-                    final LogSettings theSettings = INSTANCE.innerGetSettings();
-                    configureSettings(theSettings, theInstallation);
-                }
-            } else if (!INSTANCE.innerGetInstallation().equals(theInstallation)) {
+        LOCK.lock();
+        try {
+            final Installation current = INSTANCE.innerGetInstallation();
+            final boolean changed = current == null ? theInstallation != null : !current.equals(theInstallation);
+
+            if (changed) {
+                INSTANCE.stopWatching();
                 INSTANCE.innerSetInstallation(theInstallation);
-                final LogSettings theSettings = INSTANCE.innerGetSettings();
-                configureSettings(theSettings, theInstallation);
+
+                final Properties properties = theInstallation == null ? null : theInstallation.getProperties();
+                final LogSettings theSettings = loadSettings(properties);
+                INSTANCE.innerSetSettings(theSettings);
+
+                final LogWriter writer = Log.getWriter();
+                if (!theSettings.isAppend()) {
+                    writer.rotateLogs();
+                }
+                writer.releaseFiles();
+                INSTANCE.updateWatcher(theInstallation, theSettings);
             }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Reloads the settings from an installation's configuration file, and publishes them if the installation is still
+     * the current installation. Called when the watcher sees the file change. If the file cannot be read, an error is
+     * written to the console and the current settings are kept.
+     *
+     * @param theInstallation the installation
+     */
+    static void reloadSettings(final Installation theInstallation) {
+
+        LOCK.lock();
+        try {
+            if (theInstallation.equals(INSTANCE.innerGetInstallation())) {
+                try {
+                    final Properties properties = theInstallation.readProperties();
+                    final LogSettings theSettings = loadSettings(properties);
+                    INSTANCE.innerSetSettings(theSettings);
+                    INSTANCE.updateWatcher(theInstallation, theSettings);
+                } catch (final IOException ex) {
+                    final String path = theInstallation.getCfgFilePath().getAbsolutePath();
+                    final String msg = Res.fmt(Res.SETTINGS_RELOAD_FAILED, path, ex.getMessage());
+                    System.err.println(msg);
+                }
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Changes the settings by applying changes to a builder that starts with the current settings, then publishing the
+     * settings it builds, so threads never see some of the changes without the others.
+     *
+     * @param changes the function that applies changes to the builder (it may throw {@code IllegalArgumentException}
+     *                from a setter, in which case nothing is published)
+     */
+    public static void updateSettings(final Consumer<? super LogSettings.Builder> changes) {
+
+        LOCK.lock();
+        try {
+            final LogSettings.Builder builder = INSTANCE.innerGetSettings().toBuilder();
+            changes.accept(builder);
+            final LogSettings theSettings = builder.build();
+            INSTANCE.innerSetSettings(theSettings);
+            INSTANCE.updateWatcher(INSTANCE.innerGetInstallation(), theSettings);
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Builds new settings from properties.
+     *
+     * @param properties the properties ({@code null} to use defaults)
+     * @return the settings
+     */
+    private static LogSettings loadSettings(final Properties properties) {
+
+        final LogSettings.Builder builder = new LogSettings.Builder();
+        builder.configure(properties);
+
+        return builder.build();
+    }
+
+    /**
+     * Starts or stops watching the installation's configuration file, as the settings require. Called only while
+     * holding the lock.
+     *
+     * @param theInstallation the current installation ({@code null} if none)
+     * @param theSettings     the current settings
+     */
+    private void updateWatcher(final Installation theInstallation, final LogSettings theSettings) {
+
+        if (theInstallation == null || !theSettings.isWatchSettings()) {
+            stopWatching();
+        } else if (this.watcher == null) {
+            try {
+                final LogSettingsWatcher newWatcher = new LogSettingsWatcher(theInstallation);
+                newWatcher.start();
+                this.watcher = newWatcher;
+            } catch (final IOException | RuntimeException ex) {
+                final String path = theInstallation.getCfgFilePath().getAbsolutePath();
+                final String msg = Res.fmt(Res.SETTINGS_WATCH_FAILED, path, ex.getMessage());
+                System.err.println(msg);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the configuration file, if watching. Called only while holding the lock.
+     */
+    private void stopWatching() {
+
+        if (this.watcher != null) {
+            this.watcher.close();
+            this.watcher = null;
         }
     }
 
@@ -86,6 +214,35 @@ public final class LoggingSubsystem {
         return this.settings;
     }
 
+    /**
+     * Mutator to encapsulate settings. If the new settings name different log files, the log files are closed, so the
+     * next message opens the newly named files. Called only while holding the lock.
+     *
+     * @param theSettings the new settings
+     */
+    private void innerSetSettings(final LogSettings theSettings) {
+
+        final LogSettings old = this.settings;
+        this.settings = theSettings;
+
+        if (old != null && !namesSameFiles(old, theSettings)) {
+            Log.getWriter().releaseFiles();
+        }
+    }
+
+    /**
+     * Tests whether two sets of settings name the same log files.
+     *
+     * @param first  the first settings
+     * @param second the second settings
+     * @return {@code true} if the log file path and filename base are the same
+     */
+    private static boolean namesSameFiles(final LogSettings first, final LogSettings second) {
+
+        return Objects.equals(first.getLogFilePath(), second.getLogFilePath())
+               && Objects.equals(first.getFilenameBase(), second.getFilenameBase());
+    }
+
     /**
      * Gets the installation.
      *
@@ -93,34 +250,29 @@ public final class LoggingSubsystem {
      */
     static Installation getInstallation() {
 
-        synchronized (INSTANCE) {
-            return INSTANCE.innerGetInstallation();
-        }
+        return INSTANCE.innerGetInstallation();
     }
 
     /**
-     * Configures the {@code LogSettings} based on the Installation.
+     * Configures a {@code LogSettings.Builder} based on the Installation.
      *
-     * @param theSettings     the setting to configure
+     * @param theBuilder      the builder to configure
      * @param theInstallation the installation (could be {@code null})
      */
-    public static void configureSettings(final LogSettings theSettings, final Installation theInstallation) {
+    public static void configureSettings(final LogSettings.Builder theBuilder, final Installation theInstallation) {
 
         if (theInstallation == null) {
-            theSettings.configure(null);
+            theBuilder.configure(null);
         } else {
             final Properties properties = theInstallation.getProperties();
-            theSettings.configure(properties);
-        }
-        theSettings.setDirty(false);
-
-        if (!theSettings.isAppend()) {
-            Log.getWriter().rotateLogs();
+            theBuilder.configure(properties);
         }
+        theBuilder.setDirty(false);
     }
 
     /**
-     * Gets the log settings.
+     * Gets the log settings currently in effect. Callers that read several settings together should call this once and
+     * read them all from the returned object.
      *
      * @return the log settings
      */
@@ -0,0 +1,83 @@
+package dev.mathops.commons.log;
+
+/**
+ * An appender that keeps the most recent messages in memory, in a fixed-capacity ring. Messages can be read at any
+ * time (without blocking the appender) with {@code getListMessage} or {@code snapshot}.
+ */
+public final class MemoryAppender extends LogEntryList implements ILogAppender {
+
+    /** The appender name. */
+    private final String name;
+
+    /** The levels the appender accepts. */
+    private final int levels;
+
+    /**
+     * Constructs a new {@code MemoryAppender}.
+     *
+     * @param theName       the appender name
+     * @param theLevels     the levels the appender accepts (bitwise OR of constants from {@code LogBase})
+     * @param theMaxEntries the maximum number of messages to retain
+     */
+    public MemoryAppender(final String theName, final int theLevels, final int theMaxEntries) {
+
+        super();
+
+        this.name = theName;
+        this.levels = theLevels;
+        startList(theMaxEntries);
+    }
+
+    /**
+     * Gets the name of the appender.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+
+        return this.name;
+    }
+
+    /**
+     * Gets the levels of messages the appender accepts.
+     *
+     * @return the levels
+     */
+    @Override
+    public int getLevels() {
+
+        return this.levels;
+    }
+
+    /**
+     * Adds a message to the ring.
+     *
+     * @param level    the level of the message
+     * @param msg      the message
+     * @param linefeed ignored - each message is a separate entry
+     */
+    @Override
+    public void append(final int level, final String msg, final boolean linefeed) {
+
+        addToList(level, msg);
+    }
+
+    /**
+     * Does nothing, since nothing is buffered.
+     */
+    @Override
+    public void flush() {
+
+        // No action
+    }
+
+    /**
+     * Does nothing; retained messages remain readable after the appender is removed.
+     */
+    @Override
+    public void close() {
+
+        // No action
+    }
+}
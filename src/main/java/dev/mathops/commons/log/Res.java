@@ -63,6 +63,81 @@ final class Res extends ResBundle {
     /** Resource key. */
     static final String CANT_MK_LOG_DIR = key(18);
 
+    /** Resource key. */
+    static final String SETTINGS_BAD_VALUE = key(19);
+
+    /** Resource key. */
+    static final String SETTINGS_PARSE_VALUE = key(20);
+
+    /** Resource key. */
+    static final String SETTINGS_BAD_POLICY = key(21);
+
+    /** Resource key. */
+    static final String ASYNC_DROPPED = key(22);
+
+    /** Resource key. */
+    static final String ASYNC_DELIVER_FAILED = key(23);
+
+    /** Resource key. */
+    static final String SCHEDULED_TASK_FAILED = key(24);
+
+    /** Resource key. */
+    static final String BAD_LIST_INDEX = key(25);
+
+    /** Resource key. */
+    static final String COMPRESS_FAIL = key(26);
+
+    /** Resource key. */
+    static final String APPENDER_FAILED = key(27);
+
+    /** Resource key. */
+    static final String APPENDER_DROPPED = key(28);
+
+    /** Resource key. */
+    static final String SETTINGS_BAD_FORMAT = key(29);
+
+    /** Resource key. */
+    static final String BINARY_BAD_HEADER = key(30);
+
+    /** Resource key. */
+    static final String BINARY_BAD_TAG = key(31);
+
+    /** Resource key. */
+    static final String BINARY_BAD_ID = key(32);
+
+    /** Resource key. */
+    static final String BINARY_BAD_VARINT = key(33);
+
+    /** Resource key. */
+    static final String EXCEPTION_SUMMARY = key(34);
+
+    /** Resource key. */
+    static final String RATE_BAD_LIMIT = key(35);
+
+    /** Resource key. */
+    static final String RATE_SUPPRESSED = key(36);
+
+    /** Resource key. */
+    static final String CONSOLE_DROPPED = key(37);
+
+    /** Resource key. */
+    static final String SETTINGS_BAD_SCHEDULE = key(38);
+
+    /** Resource key. */
+    static final String INDEX_FAILED = key(39);
+
+    /** Resource key. */
+    static final String SETTINGS_RELOAD_FAILED = key(40);
+
+    /** Resource key. */
+    static final String SETTINGS_WATCH_FAILED = key(41);
+
+    /** Resource key. */
+    static final String LOCK_NOT_HELD = key(42);
+
+    /** Resource key. */
+    static final String LOCK_UPGRADE = key(43);
+
     /** The resources - an array of key-values pairs. */
     private static final String[][] EN_US = {
             {MUT_IN_NOTIFY, "Attempt to mutate in notification"},
@@ -85,6 +160,32 @@ final class Res extends ResBundle {
             {SETTINGS_PARSE_SIZE, "Failed to parse log file size limit ''{0}''"},
             {SETTINGS_BAD_LEVEL, "Invalid log level: {0}"},
             {CANT_MK_LOG_DIR, "Unable to create directory: {0}"},
+            {SETTINGS_BAD_VALUE, "Invalid {0} ''{1}'' (must be >={2})"},
+            {SETTINGS_PARSE_VALUE, "Failed to parse {0} ''{1}''"},
+            {SETTINGS_BAD_POLICY, "Invalid back-pressure policy ''{0}''"},
+
+            {ASYNC_DROPPED, "Log buffer full: {0} log messages were dropped"},
+            {ASYNC_DELIVER_FAILED, "Failed to write asynchronous log message: {0}"},
+            {SCHEDULED_TASK_FAILED, "Log housekeeping task failed: {0}"},
+            {BAD_LIST_INDEX, "Log list index {0} out of range (list has {1} entries)"},
+            {COMPRESS_FAIL, "Unable to compress {0}: {1}"},
+            {APPENDER_FAILED, "Log appender ''{0}'' failed ({1}); suspended for {2} ms"},
+            {APPENDER_DROPPED, "Log appender ''{0}'' buffer full: {1} log messages were dropped"},
+            {SETTINGS_BAD_FORMAT, "Invalid log file format ''{0}''"},
+            {BINARY_BAD_HEADER, "Not a binary log file, or unsupported format version"},
+            {BINARY_BAD_TAG, "Invalid entry tag {0} in binary log"},
+            {BINARY_BAD_ID, "Undefined string id {0} in binary log"},
+            {BINARY_BAD_VARINT, "Invalid variable-length integer in binary log"},
+            {EXCEPTION_SUMMARY, "Exception {0} ({1}) repeated {2} more times in the last {3} seconds"},
+            {RATE_BAD_LIMIT, "Invalid log rate limit for ''{0}''"},
+            {RATE_SUPPRESSED, "Log rate limit ''{0}'' suppressed {1} messages in the last {2} seconds"},
+            {CONSOLE_DROPPED, "Console output blocked or too slow: {0} console messages were dropped"},
+            {SETTINGS_BAD_SCHEDULE, "Invalid rotation schedule ''{0}''"},
+            {INDEX_FAILED, "Failed to write log index {0}: {1}"},
+            {SETTINGS_RELOAD_FAILED, "Failed to reload log settings from {0}: {1}"},
+            {SETTINGS_WATCH_FAILED, "Unable to watch {0} for changes: {1}"},
+            {LOCK_NOT_HELD, "The current thread does not hold the lock"},
+            {LOCK_UPGRADE, "A read lock cannot be upgraded to a write lock"},
 
     };
 
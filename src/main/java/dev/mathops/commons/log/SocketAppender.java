@@ -0,0 +1,163 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.CoreConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An appender that sends messages over the network, as a stand-in for a log collector. With TCP, messages are written
+ * as UTF-8 lines over a connection that is opened on first use and re-opened after a failure. With UDP, each message is
+ * sent as one datagram.
+ */
+public final class SocketAppender implements ILogAppender {
+
+    /** Milliseconds to wait for a TCP connection. */
+    private static final int CONNECT_TIMEOUT_MS = 2_000;
+
+    /** Size of the TCP output buffer. */
+    private static final int BUF_SIZE = 8192;
+
+    /** The appender name. */
+    private final String name;
+
+    /** The levels the appender accepts. */
+    private final int levels;
+
+    /** The address to which to send messages. */
+    private final InetSocketAddress address;
+
+    /** {@code true} to send datagrams; {@code false} to use a TCP connection. */
+    private final boolean udp;
+
+    /** The TCP socket ({@code null} if not connected). */
+    private Socket socket = null;
+
+    /** The buffered stream over the TCP socket ({@code null} if not connected). */
+    private OutputStream out = null;
+
+    /** The UDP socket ({@code null} if not open). */
+    private DatagramSocket datagramSocket = null;
+
+    /**
+     * Constructs a new {@code SocketAppender}. No connection is made until the first message is appended.
+     *
+     * @param theName   the appender name
+     * @param theLevels the levels the appender accepts (bitwise OR of constants from {@code LogBase})
+     * @param theHost   the host to which to send messages
+     * @param thePort   the port to which to send messages
+     * @param isUdp     {@code true} to send datagrams; {@code false} to use a TCP connection
+     */
+    public SocketAppender(final String theName, final int theLevels, final String theHost, final int thePort,
+                          final boolean isUdp) {
+
+        this.name = theName;
+        this.levels = theLevels;
+        this.address = new InetSocketAddress(theHost, thePort);
+        this.udp = isUdp;
+    }
+
+    /**
+     * Gets the name of the appender.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+
+        return this.name;
+    }
+
+    /**
+     * Gets the levels of messages the appender accepts.
+     *
+     * @return the levels
+     */
+    @Override
+    public int getLevels() {
+
+        return this.levels;
+    }
+
+    /**
+     * Sends a message.
+     *
+     * @param level    the level of the message
+     * @param msg      the message
+     * @param linefeed {@code true} to terminate the message with a line feed
+     * @throws IOException if the message could not be sent
+     */
+    @Override
+    public void append(final int level, final String msg, final boolean linefeed) throws IOException {
+
+        final String text = linefeed ? msg + CoreConstants.CRLF : msg;
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            if (this.udp) {
+                if (this.datagramSocket == null) {
+                    this.datagramSocket = new DatagramSocket();
+                }
+                final DatagramPacket packet = new DatagramPacket(bytes, bytes.length, this.address);
+                this.datagramSocket.send(packet);
+            } else {
+                if (this.out == null) {
+                    this.socket = new Socket();
+                    this.socket.connect(this.address, CONNECT_TIMEOUT_MS);
+                    this.out = new BufferedOutputStream(this.socket.getOutputStream(), BUF_SIZE);
+                }
+                this.out.write(bytes);
+            }
+        } catch (final IOException ex) {
+            // Drop the connection so the next message (after the suspension period) reconnects
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes any buffered output to the TCP connection.
+     *
+     * @throws IOException if the output could not be written
+     */
+    @Override
+    public void flush() throws IOException {
+
+        if (this.out != null) {
+            try {
+                this.out.flush();
+            } catch (final IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Closes the connection or socket.
+     */
+    @Override
+    public void close() {
+
+        if (this.socket != null) {
+            try {
+                this.socket.close();
+            } catch (final IOException ex) {
+                // No action - the connection is being discarded
+            }
+            this.socket = null;
+            this.out = null;
+        }
+
+        if (this.datagramSocket != null) {
+            this.datagramSocket.close();
+            this.datagramSocket = null;
+        }
+    }
+}
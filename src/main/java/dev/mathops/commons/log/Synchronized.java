@@ -1,28 +1,32 @@
 package dev.mathops.commons.log;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
- * Base class for objects with a synchronization object.
+ * Base class for objects with a lock that guards member access. A {@code ReentrantLock} is used rather than an object
+ * monitor so that a virtual thread that blocks (on I/O, or waiting for the lock) while holding or acquiring it does not
+ * pin its carrier thread.
  */
 class Synchronized {
 
-    /** Object on which to synchronize member access. */
-    private final Object synch;
+    /** The lock that guards member access. */
+    private final ReentrantLock lock;
 
     /**
      * Constructs a new {@code Synchronized}.
      */
     Synchronized() {
 
-        this.synch = new Object();
+        this.lock = new ReentrantLock();
     }
 
     /**
-     * Gets the object on which to synchronize access to member variables.
+     * Gets the lock that guards access to member variables.
      *
-     * @return the synchronization object
+     * @return the lock
      */
-    final Object getSynch() {
+    final ReentrantLock getLock() {
 
-        return this.synch;
+        return this.lock;
     }
 }
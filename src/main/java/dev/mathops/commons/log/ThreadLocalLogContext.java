@@ -3,6 +3,10 @@ package dev.mathops.commons.log;
 /**
  * A thread-local variable that stores the {@code LogContext} under which the thread is operating. This is used by the
  * logging package to annotate log entries.
+ *
+ * <p>
+ * Once a thread has a context object, it keeps it: ending a transaction resets the context rather than removing it, so
+ * the next transaction on the thread reuses it.
  */
 final class ThreadLocalLogContext extends ThreadLocal<LogContext> {
 
@@ -24,4 +28,33 @@ final class ThreadLocalLogContext extends ThreadLocal<LogContext> {
 
         return null;
     }
+
+    /**
+     * Gets the context under which the thread is operating.
+     *
+     * @return the context; {@code null} if the thread has no context, or its context holds nothing to render
+     */
+    LogContext current() {
+
+        final LogContext ctx = get();
+
+        return ctx == null || !ctx.isActive() ? null : ctx;
+    }
+
+    /**
+     * Gets the thread's context object, creating it (empty) if the thread does not yet have one.
+     *
+     * @return the context
+     */
+    LogContext obtain() {
+
+        LogContext ctx = get();
+
+        if (ctx == null) {
+            ctx = new LogContext(null);
+            set(ctx);
+        }
+
+        return ctx;
+    }
 }
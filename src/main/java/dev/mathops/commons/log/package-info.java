@@ -18,14 +18,54 @@
  *  +- LogEntryList
  *      |
  *      +- LogWriter
+ *      |
+ *      +- MemoryAppender
  *
  * ELogSetting
  *
+ * EBackPressurePolicy
+ *
+ * ELogFileFormat
+ *
+ * ERotationSchedule
+ *
  * LogSettings
  *
  * LogEntry
  *
  * LogRotator (utility)
+ *
+ * LogFileChannel (the open active log file)
+ *
+ * LogIndexWriter (sidecar index of the active log file), LogSearch and LogQuery (indexed search of log files)
+ *
+ * LogTail (live subscription to the entries added to a LogEntryList)
+ *
+ * ConsoleSink (owned by LogWriter; batches console output for its own writer thread)
+ *
+ * LogFormatBuffer (per-thread reusable builder in which records are formatted)
+ *
+ * BinaryLogEncoder (writes the binary log format), BinaryLogReader (streams BinaryLogRecord objects back)
+ *
+ * BinaryLogConverter (utility, binary log files to text)
+ *
+ * ExceptionDeduplicator (fingerprints stack traces so repeats are logged as one-line references)
+ *
+ * LogRateLimiter (token bucket or 1-in-N sampling), LogRateLimits (registry, periodic suppression report)
+ *
+ * LogScheduler (utility, shared housekeeping thread)
+ *
+ * LogSettingsWatcher (owned by LoggingSubsystem; reloads settings when the configuration file changes)
+ *
+ * LogMetrics (owned by LogWriter; implements ILogMetricsMXBean), LogLatencyHistogram (write and lock wait times)
+ *
+ * AsyncLogDispatcher (owns a LogRingBuffer of LogEvent slots and its consumer thread)
+ *
+ * ILogAppender (additional destination registered with LogWriter)
+ *  |
+ *  +- ConsoleAppender, FileAppender, MemoryAppender, SocketAppender
+ *
+ * BufferedAppender (feeds one ILogAppender from its own LogRingBuffer and thread)
  * </pre>
  */
 package dev.mathops.commons.log;
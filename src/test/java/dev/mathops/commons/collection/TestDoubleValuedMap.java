@@ -0,0 +1,65 @@
+package dev.mathops.commons.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests for the {@code DoubleValuedMap} class.
+ */
+final class TestDoubleValuedMap {
+
+    /**
+     * Constructs a new {@code TestDoubleValuedMap}.
+     */
+    TestDoubleValuedMap() {
+
+        // No action
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test accumulation and removal")
+    void TestAccumulation() {
+
+        final DoubleValuedMap<String> testMap = new DoubleValuedMap<>();
+
+        final long millis = System.currentTimeMillis();
+        final RandomGenerator rnd = new Random(millis);
+
+        final int numKeys = 1000;
+        final double[] expected = new double[numKeys];
+
+        final int numUpdates = 200000;
+
+        for (int i = 0; i < numUpdates; ++i) {
+            final int index = rnd.nextInt(numKeys);
+            final String key = Integer.toString(index);
+
+            final double delta = rnd.nextDouble();
+            expected[index] += delta;
+            final double newValue = testMap.adjust(key, delta, 0.0);
+            assertEquals(expected[index], newValue, "New value returned by adjust was incorrect");
+        }
+
+        for (int i = 0; i < numKeys; i += 2) {
+            testMap.remove(Integer.toString(i));
+        }
+
+        for (int i = 0; i < numKeys; ++i) {
+            final String key = Integer.toString(i);
+            if (i % 2 == 0) {
+                assertFalse(testMap.hasValue(key), "Map has a value for a removed key");
+            } else {
+                assertEquals(expected[i], testMap.get(key, 0.0), "Map value after adjustments was incorrect");
+            }
+        }
+    }
+}
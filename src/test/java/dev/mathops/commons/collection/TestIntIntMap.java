@@ -0,0 +1,76 @@
+package dev.mathops.commons.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the {@code IntIntMap} class.
+ */
+final class TestIntIntMap {
+
+    /**
+     * Constructs a new {@code TestIntIntMap}.
+     */
+    TestIntIntMap() {
+
+        // No action
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test storage, adjustment, and removal against a HashMap")
+    void TestAgainstHashMap() {
+
+        final IntIntMap testMap = new IntIntMap();
+        final Map<Integer, Integer> expected = new HashMap<>(1000);
+
+        final long millis = System.currentTimeMillis();
+        final RandomGenerator rnd = new Random(millis);
+
+        // Include zero and negative keys
+        final int numKeys = 2000;
+        final int numOperations = 500000;
+
+        for (int i = 0; i < numOperations; ++i) {
+            final int key = rnd.nextInt(numKeys) - numKeys / 2;
+            final Integer boxed = Integer.valueOf(key);
+            final int which = rnd.nextInt(3);
+
+            if (which == 0) {
+                final boolean removed = testMap.remove(key);
+                assertEquals(expected.remove(boxed) != null, removed, "Remove returned an incorrect result");
+            } else if (which == 1) {
+                final int value = rnd.nextInt();
+                testMap.put(key, value);
+                expected.put(boxed, Integer.valueOf(value));
+            } else {
+                final int newValue = testMap.increment(key, 10);
+                final int expectedValue = expected.getOrDefault(boxed, Integer.valueOf(10)).intValue() + 1;
+                expected.put(boxed, Integer.valueOf(expectedValue));
+                assertEquals(expectedValue, newValue, "New value returned by increment was incorrect");
+            }
+        }
+
+        assertEquals(expected.size(), testMap.size(), "Map size was incorrect");
+        for (final Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            final int key = entry.getKey().intValue();
+            assertEquals(entry.getValue().intValue(), testMap.get(key, 0), "Map value was incorrect");
+        }
+
+        final int[] keys = testMap.getKeys();
+        Arrays.sort(keys);
+        final int[] expectedKeys = expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        assertArrayEquals(expectedKeys, keys, "Key array was incorrect");
+    }
+}
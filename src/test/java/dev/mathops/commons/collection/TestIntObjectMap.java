@@ -0,0 +1,57 @@
+package dev.mathops.commons.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the {@code IntObjectMap} class.
+ */
+final class TestIntObjectMap {
+
+    /**
+     * Constructs a new {@code TestIntObjectMap}.
+     */
+    TestIntObjectMap() {
+
+        // No action
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test storage, retrieval, and removal of values")
+    void TestStorageRetrieval() {
+
+        final IntObjectMap<String> testMap = new IntObjectMap<>(100);
+
+        final int numKeys = 10000;
+        for (int i = 0; i < numKeys; ++i) {
+            testMap.put(i * 7, Integer.toString(i));
+        }
+
+        assertEquals(numKeys, testMap.size(), "Map size was incorrect");
+        assertEquals(numKeys, testMap.getValues().size(), "Value list has the wrong size");
+        assertNull(testMap.get(1), "Map has a value for a key never set");
+        assertEquals("none", testMap.get(1, "none"), "Missing key does not return default value");
+
+        for (int i = 0; i < numKeys; i += 2) {
+            testMap.remove(i * 7);
+        }
+
+        for (int i = 0; i < numKeys; ++i) {
+            if (i % 2 == 0) {
+                assertFalse(testMap.hasValue(i * 7), "Map has a value for a removed key");
+            } else {
+                assertEquals(Integer.toString(i), testMap.get(i * 7), "Map value was incorrect");
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> testMap.put(0, null), "Null value was accepted");
+    }
+}
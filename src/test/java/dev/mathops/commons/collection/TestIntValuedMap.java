@@ -3,10 +3,15 @@ package dev.mathops.commons.collection;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.random.RandomGenerator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for the {@code IntValuedMap} class.
@@ -127,4 +132,88 @@ final class TestIntValuedMap {
         }
     }
 
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test removal, with growing and shrinking")
+    void TestRemoval() {
+
+        final IntValuedMap<Integer> testMap = new IntValuedMap<>();
+        final Map<Integer, Integer> expected = new HashMap<>(1000);
+
+        final long millis = System.currentTimeMillis();
+        final RandomGenerator rnd = new Random(millis);
+
+        // Small key range so removals land in long runs of occupied slots
+        final int numKeys = 2000;
+        final int numOperations = 500000;
+
+        for (int i = 0; i < numOperations; ++i) {
+            final Integer key = Integer.valueOf(rnd.nextInt(numKeys));
+
+            // Bias toward removal in the second half so the map shrinks as well as grows
+            final int bound = i < numOperations / 2 ? 3 : 2;
+            if (rnd.nextInt(bound) == 0) {
+                final boolean removed = testMap.remove(key);
+                assertEquals(expected.remove(key) != null, removed, "Remove returned an incorrect result");
+            } else {
+                final int value = rnd.nextInt();
+                testMap.put(key, value);
+                expected.put(key, Integer.valueOf(value));
+            }
+
+            assertEquals(expected.size(), testMap.size(), "Map size was incorrect");
+        }
+
+        for (int i = 0; i < numKeys; ++i) {
+            final Integer key = Integer.valueOf(i);
+            final Integer value = expected.get(key);
+
+            if (value == null) {
+                assertFalse(testMap.hasValue(key), "Map has a value for a removed key");
+            } else {
+                assertTrue(testMap.hasValue(key), "Map has no value for a key that was set");
+                assertEquals(value.intValue(), testMap.get(key, 0), "Map value after removals was incorrect");
+            }
+        }
+
+        final List<Integer> keys = testMap.getKeys();
+        assertEquals(expected.size(), keys.size(), "Key list has the wrong size");
+        assertTrue(expected.keySet().containsAll(keys), "Key list has a key not in the map");
+
+        for (final Integer key : keys) {
+            assertTrue(testMap.remove(key), "Unable to remove key from the key list");
+        }
+        assertEquals(0, testMap.size(), "Map not empty after removing every key");
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test number of slots as the map grows")
+    void TestSlotCount() {
+
+        assertEquals(8, new IntValuedMap<Integer>().slotCount(), "Empty map has the wrong number of slots");
+        assertEquals(2097152, new IntValuedMap<Integer>(1000000).slotCount(),
+                "Presized map has the wrong number of slots");
+
+        final IntValuedMap<Integer> testMap = new IntValuedMap<>();
+        int slots = testMap.slotCount();
+
+        final int numEntries = 1572865;
+        for (int i = 0; i < numEntries; ++i) {
+            testMap.put(Integer.valueOf(i), i);
+
+            final int newSlots = testMap.slotCount();
+            if (newSlots != slots) {
+                assertEquals(slots * 2, newSlots, "Map did not double in size when it grew");
+                slots = newSlots;
+            }
+            assertTrue(testMap.size() * 4 <= slots * 3, "Load factor above maximum");
+        }
+
+        assertEquals(4194304, testMap.slotCount(), "Map has the wrong number of slots after inserts");
+    }
 }
@@ -0,0 +1,60 @@
+package dev.mathops.commons.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LongIntMap} class.
+ */
+final class TestLongIntMap {
+
+    /**
+     * Constructs a new {@code TestLongIntMap}.
+     */
+    TestLongIntMap() {
+
+        // No action
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test keys that differ only in their high bits")
+    void TestHighBitKeys() {
+
+        final LongIntMap testMap = new LongIntMap();
+
+        final long millis = System.currentTimeMillis();
+        final RandomGenerator rnd = new Random(millis);
+
+        final int numKeys = 5000;
+        final int[] expected = new int[numKeys];
+
+        for (int i = 0; i < numKeys; ++i) {
+            expected[i] = rnd.nextInt();
+            testMap.put((long) i << 32, expected[i]);
+        }
+
+        assertEquals(numKeys, testMap.size(), "Map size was incorrect");
+        assertFalse(testMap.hasValue(1L), "Map has a value for a key never set");
+
+        for (int i = 0; i < numKeys; ++i) {
+            final long key = (long) i << 32;
+            assertEquals(expected[i], testMap.get(key, 0), "Map value was incorrect");
+            assertEquals(expected[i] - 1, testMap.decrement(key, 0), "New value returned by decrement was incorrect");
+        }
+
+        for (int i = 0; i < numKeys; ++i) {
+            assertTrue(testMap.remove((long) i << 32), "Unable to remove key");
+        }
+        assertEquals(0, testMap.size(), "Map not empty after removing every key");
+    }
+}
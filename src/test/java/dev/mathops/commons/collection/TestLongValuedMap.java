@@ -0,0 +1,64 @@
+package dev.mathops.commons.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the {@code LongValuedMap} class.
+ */
+final class TestLongValuedMap {
+
+    /**
+     * Constructs a new {@code TestLongValuedMap}.
+     */
+    TestLongValuedMap() {
+
+        // No action
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test counters that overflow an int")
+    void TestLargeCounters() {
+
+        final LongValuedMap<String> testMap = new LongValuedMap<>();
+
+        final long millis = System.currentTimeMillis();
+        final RandomGenerator rnd = new Random(millis);
+
+        final int numKeys = 1000;
+        final long[] expected = new long[numKeys];
+
+        final int numUpdates = 200000;
+        final long bigDelta = 1L << 40;
+
+        for (int i = 0; i < numUpdates; ++i) {
+            final int index = rnd.nextInt(numKeys);
+            final String key = Integer.toString(index);
+
+            final long newValue;
+            if (rnd.nextBoolean()) {
+                newValue = testMap.increment(key, 0L);
+                ++expected[index];
+            } else {
+                newValue = testMap.adjust(key, bigDelta, 0L);
+                expected[index] += bigDelta;
+            }
+            assertEquals(expected[index], newValue, "New value returned by adjustment was incorrect");
+        }
+
+        for (int i = 0; i < numKeys; ++i) {
+            final String key = Integer.toString(i);
+            assertEquals(expected[i], testMap.get(key, 0L), "Map value after adjustments was incorrect");
+        }
+
+        assertEquals(-1L, testMap.get("missing", -1L), "Missing key does not return default value");
+    }
+}
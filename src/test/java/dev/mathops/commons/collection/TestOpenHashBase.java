@@ -0,0 +1,175 @@
+package dev.mathops.commons.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code OpenHashBase} class, through a minimal subclass that stores only {@code int} keys.
+ */
+final class TestOpenHashBase {
+
+    /**
+     * Constructs a new {@code TestOpenHashBase}.
+     */
+    TestOpenHashBase() {
+
+        // No action
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test number of slots for an expected size")
+    void TestPresized() {
+
+        assertEquals(8, new IntSet(0).slotCount(), "Empty table has the wrong number of slots");
+        assertEquals(8, new IntSet(6).slotCount(), "Table for 6 entries has the wrong number of slots");
+        assertEquals(16, new IntSet(7).slotCount(), "Table for 7 entries has the wrong number of slots");
+        assertEquals(2097152, new IntSet(1000000).slotCount(),
+                "Table for 1000000 entries has the wrong number of slots");
+
+        // Every map built on the core sizes its table the same way
+        assertEquals(2048, new IntValuedMap<Integer>(1000).slotCount(), "IntValuedMap has the wrong number of slots");
+        assertEquals(2048, new LongValuedMap<Integer>(1000).slotCount(), "LongValuedMap has the wrong number of slots");
+        assertEquals(2048, new DoubleValuedMap<Integer>(1000).slotCount(),
+                "DoubleValuedMap has the wrong number of slots");
+        assertEquals(2048, new IntIntMap(1000).slotCount(), "IntIntMap has the wrong number of slots");
+        assertEquals(2048, new LongIntMap(1000).slotCount(), "LongIntMap has the wrong number of slots");
+        assertEquals(2048, new IntObjectMap<Integer>(1000).slotCount(), "IntObjectMap has the wrong number of slots");
+    }
+
+    /**
+     * A test case.
+     */
+    @Test
+    @DisplayName("Test number of slots as the table grows and shrinks")
+    void TestGrowShrink() {
+
+        final IntSet set = new IntSet(0);
+        int slots = set.slotCount();
+
+        final int numEntries = 100000;
+        for (int i = 0; i < numEntries; ++i) {
+            set.add(i);
+
+            final int newSlots = set.slotCount();
+            if (newSlots != slots) {
+                assertEquals(slots * 2, newSlots, "Table did not double in size when it grew");
+                slots = newSlots;
+            }
+            assertTrue(set.size() * 4 <= slots * 3, "Load factor above maximum after insert");
+        }
+        assertEquals(262144, set.slotCount(), "Table has the wrong number of slots after inserts");
+
+        for (int i = 0; i < numEntries; ++i) {
+            set.remove(i);
+
+            final int newSlots = set.slotCount();
+            if (newSlots != slots) {
+                assertTrue(newSlots < slots, "Table grew on removal");
+                final int size = set.size();
+                assertTrue(newSlots == 8 || size * 8 >= newSlots * 3, "Load factor below range after shrinking");
+                assertTrue(size * 4 <= newSlots * 3, "Load factor above maximum after shrinking");
+                slots = newSlots;
+            }
+        }
+        assertEquals(0, set.size(), "Table not empty after removing every key");
+        assertEquals(8, set.slotCount(), "Empty table has the wrong number of slots");
+    }
+
+    /**
+     * A minimal set of {@code int} values built on {@code OpenHashBase}.
+     */
+    private static final class IntSet extends OpenHashBase {
+
+        /** The keys in each slot. */
+        private int[] keys;
+
+        /**
+         * Constructs a new {@code IntSet}.
+         *
+         * @param expectedSize the expected number of entries
+         */
+        IntSet(final int expectedSize) {
+
+            super(expectedSize);
+
+            this.keys = new int[slotCount()];
+        }
+
+        /**
+         * Adds a key if it is not already present.
+         *
+         * @param key the key
+         */
+        void add(final int key) {
+
+            final int hash = spread(key);
+            if (find(this.keys, key, hash) == NOT_FOUND) {
+                final int slot = addSlot(hash);
+                this.keys[slot] = key;
+            }
+        }
+
+        /**
+         * Removes a key if it is present.
+         *
+         * @param key the key
+         */
+        void remove(final int key) {
+
+            final int slot = find(this.keys, key, spread(key));
+            if (slot != NOT_FOUND) {
+                deleteSlot(slot);
+            }
+        }
+
+        /**
+         * Copies the key in one slot to another slot.
+         *
+         * @param from the index of the slot to copy
+         * @param to   the index of the slot to which to copy
+         */
+        @Override
+        void moveSlot(final int from, final int to) {
+
+            this.keys[to] = this.keys[from];
+        }
+
+        /**
+         * Does nothing, since slots hold no object references.
+         *
+         * @param slot the slot index
+         */
+        @Override
+        void clearSlot(final int slot) {
+
+            // No action
+        }
+
+        /**
+         * Replaces the key array with an array of a new length, moving each key to a new slot.
+         *
+         * @param capacity the new number of slots
+         * @param targets  for each old slot, the new slot for its key ({@code NOT_FOUND} if the old slot was empty)
+         */
+        @Override
+        void relocate(final int capacity, final int[] targets) {
+
+            final int[] oldKeys = this.keys;
+            this.keys = new int[capacity];
+
+            final int len = targets.length;
+            for (int i = 0; i < len; ++i) {
+                final int slot = targets[i];
+                if (slot != NOT_FOUND) {
+                    this.keys[slot] = oldKeys[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the binary log format ({@code BinaryLogEncoder}, {@code BinaryLogReader}, and {@code BinaryLogConverter}).
+ */
+final class TestBinaryLog {
+
+    /** A remote address. */
+    private static final String REMOTE = "10.1.2.3";
+
+    /** A session ID. */
+    private static final String SESSION = "ABCDEF0123";
+
+    /** A user ID. */
+    private static final String USER = "12345";
+
+    /** A source location. */
+    private static final String SOURCE = "(TestBinaryLog.java:99)";
+
+    /** A log message. */
+    private static final String MSG1 = "Binary message 1";
+
+    /** A log message. */
+    private static final String MSG2 = "Binary message \u00E9\u4E2D";
+
+    /** A timestamp. */
+    private static final long MILLIS = 1_700_000_000_000L;
+
+    /**
+     * Constructs a new {@code TestBinaryLog}.
+     */
+    TestBinaryLog() {
+
+        // No action
+    }
+
+    /**
+     * Tests that records survive encoding and decoding, and render exactly as text log records do.
+     *
+     * @throws IOException if decoding fails
+     */
+    @Test
+    @DisplayName("Round trip")
+    void test001() throws IOException {
+
+        final Throwable thrown = new IllegalStateException("Failure for testing");
+        final LogEvent event = makeEvent(MILLIS, MSG1, thrown);
+        final String trace = LogBase.exceptionText(null, event.args);
+
+        final BinaryLogEncoder encoder = new BinaryLogEncoder();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1000);
+
+        encoder.start(true);
+        out.write(encoder.getBytes(), 0, encoder.length());
+        encoder.encode(event.millis, event.severity, event.level, true, REMOTE, SESSION, USER, SOURCE, MSG1, trace);
+        out.write(encoder.getBytes(), 0, encoder.length());
+        final int firstLength = encoder.length();
+        encoder.encode(MILLIS + 5L, 'W', LogBase.WARNING_BIT, true, REMOTE, SESSION, USER, SOURCE, MSG1, null);
+        out.write(encoder.getBytes(), 0, encoder.length());
+        final int secondLength = encoder.length();
+        encoder.encode(MILLIS - 1000L, (char) 0, LogBase.ALL, false, null, null, null, null, MSG2, null);
+        out.write(encoder.getBytes(), 0, encoder.length());
+
+        // Simulates reopening the file after a restart
+        encoder.start(false);
+        out.write(encoder.getBytes(), 0, encoder.length());
+        encoder.encode(MILLIS, 'I', LogBase.INFO_BIT, true, REMOTE, null, USER, null, MSG2, null);
+        out.write(encoder.getBytes(), 0, encoder.length());
+
+        assertTrue(secondLength < firstLength - REMOTE.length() - SOURCE.length(),
+                "Round trip: interned strings were repeated");
+
+        final List<BinaryLogRecord> records = new ArrayList<>(4);
+        try (final BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(out.toByteArray()))) {
+            for (BinaryLogRecord rec = reader.next(); rec != null; rec = reader.next()) {
+                records.add(rec);
+            }
+        }
+
+        assertEquals(4, records.size(), "Round trip: record count");
+
+        final BinaryLogRecord rec1 = records.getFirst();
+        assertEquals(MILLIS, rec1.getMillis(), "Round trip: millis");
+        assertEquals('S', rec1.getSeverity(), "Round trip: severity");
+        assertEquals(LogBase.SEVERE_BIT, rec1.getLevel(), "Round trip: level");
+        assertEquals(REMOTE, rec1.getRemoteAddress(), "Round trip: remote address");
+        assertEquals(SESSION, rec1.getSessionId(), "Round trip: session ID");
+        assertEquals(USER, rec1.getUserId(), "Round trip: user ID");
+        assertEquals(SOURCE, rec1.getSource(), "Round trip: source");
+        assertEquals(trace, rec1.getTrace(), "Round trip: trace");
+        assertEquals(LogBase.formatEvent(event, null), rec1.toText(), "Round trip: text layout");
+
+        final BinaryLogRecord rec2 = records.get(1);
+        assertEquals(MILLIS + 5L, rec2.getMillis(), "Round trip: second millis");
+        assertNull(rec2.getTrace(), "Round trip: second trace");
+
+        final BinaryLogRecord rec3 = records.get(2);
+        assertEquals(MILLIS - 1000L, rec3.getMillis(), "Round trip: negative delta");
+        assertEquals(MSG2, rec3.toText(), "Round trip: bare line");
+        assertFalse(rec3.isLinefeed(), "Round trip: linefeed flag");
+
+        final BinaryLogRecord rec4 = records.get(3);
+        assertEquals(MILLIS, rec4.getMillis(), "Round trip: millis after reset");
+        assertEquals(REMOTE, rec4.getRemoteAddress(), "Round trip: remote address after reset");
+        assertNull(rec4.getSessionId(), "Round trip: session ID after reset");
+        assertNull(rec4.getSource(), "Round trip: source after reset");
+        assertEquals(MSG2, rec4.getMessage(), "Round trip: message after reset");
+    }
+
+    /**
+     * Tests that a binary log file written through a log file channel converts to the same text a text log file holds,
+     * in fewer bytes.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("File conversion")
+    void test002() throws IOException {
+
+        final Path dir = Files.createTempDirectory("binlog");
+        final File binFile = new File(dir.toFile(), "test.logb");
+        final File textFile = new File(dir.toFile(), "test.log");
+        final File convertedFile = new File(dir.toFile(), "converted.log");
+
+        final BinaryLogEncoder encoder = new BinaryLogEncoder();
+        final LogFileChannel binOut = new LogFileChannel(binFile);
+        final LogFileChannel textOut = new LogFileChannel(textFile);
+
+        encoder.start(true);
+        binOut.write(encoder.getBytes(), encoder.length(), 4096, 0L);
+        for (int i = 0; i < 100; ++i) {
+            final LogEvent event = makeEvent(MILLIS + (long) i * 7L, MSG1, null);
+            encoder.encode(event.millis, event.severity, event.level, true, REMOTE, SESSION, USER, SOURCE, MSG1,
+                    null);
+            binOut.write(encoder.getBytes(), encoder.length(), 4096, 0L);
+            textOut.write(LogBase.formatEvent(event, null), true, 4096, 0L);
+        }
+        binOut.close();
+        textOut.close();
+
+        final int count = BinaryLogConverter.convert(binFile, convertedFile);
+        assertEquals(100, count, "File conversion: record count");
+
+        final String expected = Files.readString(textFile.toPath(), StandardCharsets.UTF_8);
+        final String actual = Files.readString(convertedFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(expected, actual, "File conversion: converted text");
+        assertTrue(binFile.length() * 2L < textFile.length(), "File conversion: binary file not smaller");
+
+        assertTrue(binFile.delete(), "File conversion: delete binary file");
+        assertTrue(textFile.delete(), "File conversion: delete text file");
+        assertTrue(convertedFile.delete(), "File conversion: delete converted file");
+        assertTrue(dir.toFile().delete(), "File conversion: delete directory");
+    }
+
+    /**
+     * Tests that data that is not a binary log is rejected.
+     */
+    @Test
+    @DisplayName("Invalid data")
+    void test003() {
+
+        final byte[] text = MSG1.getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> {
+            try (final BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(text))) {
+                reader.next();
+            }
+        }, "Invalid data: text accepted as binary log");
+    }
+
+    /**
+     * Builds a severe-level record event with the test context.
+     *
+     * @param millis  the timestamp
+     * @param content the message content
+     * @param thrown  an exception to attach ({@code null} if none)
+     * @return the event
+     */
+    private static LogEvent makeEvent(final long millis, final String content, final Throwable thrown) {
+
+        final LogEvent event = new LogEvent();
+
+        event.kind = LogEvent.RECORD;
+        event.level = LogBase.SEVERE_BIT;
+        event.severity = 'S';
+        event.millis = millis;
+        event.context = LogContext.render(REMOTE, USER);
+        event.remoteAddress = REMOTE;
+        event.sessionId = SESSION;
+        event.userId = USER;
+        event.content = content;
+        event.source = SOURCE;
+        event.args = thrown == null ? null : new Object[]{content, thrown};
+        event.linefeed = true;
+
+        return event;
+    }
+}
@@ -0,0 +1,232 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code ConsoleSink} class.
+ */
+final class TestConsoleSink {
+
+    /** The line separator. */
+    private static final String LF = System.lineSeparator();
+
+    /**
+     * Constructs a new {@code TestConsoleSink}.
+     */
+    TestConsoleSink() {
+
+        // No action
+    }
+
+    /**
+     * Creates settings for a console sink.
+     *
+     * @param bufferSize the buffer size, in characters
+     * @param interval   the flush interval, in milliseconds
+     * @return the source of the settings
+     */
+    private static Supplier<LogSettings> makeSettings(final int bufferSize, final int interval) {
+
+        final LogSettings.Builder builder = new LogSettings.Builder();
+        builder.setConsoleBufferSize(bufferSize);
+        builder.setConsoleFlushInterval(interval);
+        final LogSettings settings = builder.build();
+
+        return () -> settings;
+    }
+
+    /**
+     * Tests that buffered messages are written in order, in fewer writes than messages, and counted in the metrics.
+     */
+    @Test
+    @DisplayName("Batched output")
+    void test001() {
+
+        final CountingStream stream = new CountingStream(null);
+        final PrintStream out = new PrintStream(stream, false, StandardCharsets.UTF_8);
+        final LogMetrics metrics = new LogMetrics();
+        final ConsoleSink sink = new ConsoleSink(out, makeSettings(65536, 200), metrics, ConsoleSink.BLOCKED_MS);
+
+        final StringBuilder expected = new StringBuilder(1000);
+        for (int i = 0; i < 100; ++i) {
+            final String msg = "Message " + i;
+            assertTrue(sink.offer(LogBase.INFO_BIT, msg, true), "Batched output: message dropped");
+            expected.append(msg).append(LF);
+        }
+
+        assertTrue(sink.flush(5_000L), "Batched output: flush timed out");
+        assertEquals(expected.toString(), stream.toString(StandardCharsets.UTF_8), "Batched output: wrong output");
+        assertTrue(stream.getFlushCount() < 100, "Batched output: output was not batched");
+        assertEquals((long) expected.length(), metrics.getBytesWritten(LogMetrics.CONSOLE),
+                "Batched output: wrong console character count");
+    }
+
+    /**
+     * Tests that messages below WARNING are dropped while the console is blocked, that SEVERE and WARNING messages are
+     * kept, and that the number dropped is reported once output resumes.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Blocked console")
+    void test002() throws InterruptedException {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingStream stream = new CountingStream(release);
+        final PrintStream out = new PrintStream(stream, false, StandardCharsets.UTF_8);
+        final LogMetrics metrics = new LogMetrics();
+        final ConsoleSink sink = new ConsoleSink(out, makeSettings(1024, 1), metrics, 50L);
+
+        assertTrue(sink.offer(LogBase.INFO_BIT, "first", true), "Blocked console: first message dropped");
+        assertTrue(stream.awaitWrite(), "Blocked console: first message not written");
+        Thread.sleep(200L);
+
+        assertFalse(sink.offer(LogBase.INFO_BIT, "info", true), "Blocked console: INFO message kept");
+        assertFalse(sink.offer(LogBase.FINE_BIT, "fine", true), "Blocked console: FINE message kept");
+        assertTrue(sink.offer(LogBase.WARNING_BIT, "warning", true), "Blocked console: WARNING message dropped");
+        assertTrue(sink.offer(LogBase.SEVERE_BIT, "severe", true), "Blocked console: SEVERE message dropped");
+        assertFalse(sink.offer(LogBase.SEVERE_BIT, "x".repeat(2000), true),
+                "Blocked console: message larger than the buffer kept");
+        assertEquals(3L, sink.getDroppedCount(), "Blocked console: wrong dropped count");
+        assertEquals(3L, metrics.getDropped(), "Blocked console: wrong metrics dropped count");
+
+        release.countDown();
+        assertTrue(sink.flush(5_000L), "Blocked console: flush timed out");
+        assertTrue(sink.flush(5_000L), "Blocked console: second flush timed out");
+
+        final String report = Res.fmt(Res.CONSOLE_DROPPED, "3");
+        final String expected = "first" + LF + "warning" + LF + "severe" + LF + report + LF;
+        assertEquals(expected, stream.toString(StandardCharsets.UTF_8), "Blocked console: wrong output");
+    }
+
+    /**
+     * Tests that messages below WARNING are kept while the buffer fills behind a write that has not yet been in
+     * progress long enough for the console to be considered blocked.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Slow console")
+    void test003() throws InterruptedException {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingStream stream = new CountingStream(release);
+        final PrintStream out = new PrintStream(stream, false, StandardCharsets.UTF_8);
+        final LogMetrics metrics = new LogMetrics();
+        final ConsoleSink sink = new ConsoleSink(out, makeSettings(1024, 1), metrics, 60_000L);
+
+        assertTrue(sink.offer(LogBase.INFO_BIT, "first", true), "Slow console: first message dropped");
+        assertTrue(stream.awaitWrite(), "Slow console: first message not written");
+
+        // Fill the buffer well past half while the write is in progress
+        final String line = "x".repeat(99);
+        final StringBuilder expected = new StringBuilder(1000);
+        expected.append("first").append(LF);
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(sink.offer(LogBase.INFO_BIT, line, true), "Slow console: INFO message dropped");
+            expected.append(line).append(LF);
+        }
+        assertFalse(sink.offer(LogBase.INFO_BIT, line, true), "Slow console: message beyond capacity kept");
+        assertEquals(1L, sink.getDroppedCount(), "Slow console: wrong dropped count");
+
+        release.countDown();
+        assertTrue(sink.flush(5_000L), "Slow console: flush timed out");
+        assertTrue(sink.flush(5_000L), "Slow console: second flush timed out");
+
+        final String report = Res.fmt(Res.CONSOLE_DROPPED, "1");
+        expected.append(report).append(LF);
+        assertEquals(expected.toString(), stream.toString(StandardCharsets.UTF_8), "Slow console: wrong output");
+    }
+
+    /**
+     * An output stream that records what is written, counts flushes, and can block every write until released.
+     */
+    private static final class CountingStream extends ByteArrayOutputStream {
+
+        /** A latch that must be released before a write completes ({@code null} to never block). */
+        private final CountDownLatch release;
+
+        /** A latch released when the first write begins. */
+        private final CountDownLatch writing;
+
+        /** The number of flushes. */
+        private int flushCount = 0;
+
+        /**
+         * Constructs a new {@code CountingStream}.
+         *
+         * @param theRelease a latch that must be released before a write completes ({@code null} to never block)
+         */
+        CountingStream(final CountDownLatch theRelease) {
+
+            super(1024);
+
+            this.release = theRelease;
+            this.writing = new CountDownLatch(1);
+        }
+
+        /**
+         * Writes bytes, first waiting for the release latch.
+         *
+         * @param b   the data
+         * @param off the start offset in the data
+         * @param len the number of bytes to write
+         */
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+
+            this.writing.countDown();
+            if (this.release != null) {
+                try {
+                    this.release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            super.write(b, off, len);
+        }
+
+        /**
+         * Waits for the first write to begin.
+         *
+         * @return {@code true} if a write began within 5 seconds
+         * @throws InterruptedException if interrupted while waiting
+         */
+        boolean awaitWrite() throws InterruptedException {
+
+            return this.writing.await(5L, TimeUnit.SECONDS);
+        }
+
+        /**
+         * Counts a flush.
+         */
+        @Override
+        public synchronized void flush() {
+
+            ++this.flushCount;
+        }
+
+        /**
+         * Gets the number of flushes.
+         *
+         * @return the number of flushes
+         */
+        synchronized int getFlushCount() {
+
+            return this.flushCount;
+        }
+    }
+}
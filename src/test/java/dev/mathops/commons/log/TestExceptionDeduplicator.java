@@ -0,0 +1,149 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code ExceptionDeduplicator} class and its use when formatting log records.
+ */
+final class TestExceptionDeduplicator {
+
+    /** A log message. */
+    private static final String MSG = "Dedup message";
+
+    /** The text that marks a stack frame from this class in a rendered trace. */
+    private static final String FRAME = "TestExceptionDeduplicator.";
+
+    /** Settings saved before testing and restored after testing. */
+    private static LogSettings savedSettings = null;
+
+    /**
+     * Constructs a new {@code TestExceptionDeduplicator}.
+     */
+    TestExceptionDeduplicator() {
+
+        // No action
+    }
+
+    /**
+     * Saves the log settings and turns off console and file output.
+     */
+    @BeforeAll
+    static void runBeforeClass() {
+
+        savedSettings = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(false);
+        });
+    }
+
+    /**
+     * Restores the log settings.
+     */
+    @AfterAll
+    static void runAfterClass() {
+
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
+    }
+
+    /**
+     * Tests that the first occurrence of an exception is rendered in full and later occurrences are rendered as a
+     * reference, and that exceptions from different places get different fingerprints.
+     */
+    @Test
+    @DisplayName("Repeated stack traces")
+    void test001() {
+
+        LoggingSubsystem.updateSettings(builder -> builder.setExceptionDedupWindow(60));
+        final LogWriter writer = new LogWriter();
+        final ExceptionDeduplicator dedup = writer.getExceptionDeduplicator();
+
+        String first = null;
+        String second = null;
+        for (int i = 0; i < 3; ++i) {
+            final String text = LogBase.exceptionText(dedup, MSG, makeException(Integer.toString(i)));
+            if (i == 0) {
+                first = text;
+            } else if (i == 1) {
+                second = text;
+            }
+        }
+        final String other = LogBase.exceptionText(dedup, MSG, new IllegalStateException(MSG));
+
+        assertTrue(first.contains(FRAME), "Repeated stack traces: first occurrence has no stack");
+        assertTrue(first.contains("[exception "), "Repeated stack traces: first occurrence not tagged");
+        assertFalse(second.contains(FRAME), "Repeated stack traces: repeat has stack");
+        assertTrue(second.contains("[repeat 2 of exception "), "Repeated stack traces: repeat not a reference");
+        assertTrue(second.contains(": 1"), "Repeated stack traces: repeat lost its message");
+
+        final int start = first.indexOf("[exception ") + 11;
+        final String id = first.substring(start, start + 8);
+        assertTrue(second.contains(id), "Repeated stack traces: reference id mismatch");
+        assertTrue(other.contains(FRAME), "Repeated stack traces: other exception not in full");
+        assertFalse(other.contains(id), "Repeated stack traces: other exception has same id");
+
+        final Throwable ex1 = makeException("a");
+        final Throwable ex2 = new IllegalStateException("a");
+        assertNotEquals(ExceptionDeduplicator.computeHash(ex1), ExceptionDeduplicator.computeHash(ex2),
+                "Repeated stack traces: hashes from different sites match");
+    }
+
+    /**
+     * Tests that the summary reports repeat counts, and that a zero window disables deduplication.
+     */
+    @Test
+    @DisplayName("Summary and disable")
+    void test002() {
+
+        LoggingSubsystem.updateSettings(builder -> builder.setExceptionDedupWindow(60));
+        final LogWriter writer = new LogWriter();
+        final MemoryAppender memory = new MemoryAppender("memory", LogBase.ALL, 100);
+        writer.addAppender(memory);
+        final ExceptionDeduplicator dedup = writer.getExceptionDeduplicator();
+
+        String first = null;
+        for (int i = 0; i < 4; ++i) {
+            final String text = LogBase.exceptionText(dedup, makeException(MSG));
+            if (i == 0) {
+                first = text;
+            }
+        }
+
+        dedup.summarize();
+        writer.flush();
+
+        final int start = first.indexOf("[exception ") + 11;
+        final String id = first.substring(start, start + 8);
+        final String expected = Res.fmt(Res.EXCEPTION_SUMMARY, id, "IllegalArgumentException: " + MSG, "3", "60");
+        assertEquals(1, memory.getNumInList(), "Summary and disable: summary count");
+        assertTrue(memory.getListMessage(0).getMessage().endsWith(expected), "Summary and disable: summary text");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setExceptionDedupWindow(0));
+        for (int i = 0; i < 2; ++i) {
+            final String full = LogBase.exceptionText(dedup, makeException(MSG));
+            assertTrue(full.contains(FRAME), "Summary and disable: disabled output has no stack");
+            assertFalse(full.contains("[exception "), "Summary and disable: disabled output tagged");
+        }
+
+        writer.removeAppender("memory");
+    }
+
+    /**
+     * Creates an exception, always at the same place in the code.
+     *
+     * @param msg the exception message
+     * @return the exception
+     */
+    private static Throwable makeException(final String msg) {
+
+        return new IllegalArgumentException(msg);
+    }
+}
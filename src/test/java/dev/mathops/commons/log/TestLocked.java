@@ -0,0 +1,176 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code Locked} class.
+ */
+final class TestLocked {
+
+    /**
+     * Constructs a new {@code TestLocked}.
+     */
+    TestLocked() {
+
+        // No action
+    }
+
+    /**
+     * Tests that several threads can hold read locks at once, and that the write lock waits for them.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Concurrent readers exclude writer")
+    void test001() throws InterruptedException {
+
+        final Locked locked = new Locked();
+        final CountDownLatch allReading = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; ++i) {
+            readers[i] = Thread.ofPlatform().start(() -> {
+                locked.readLock();
+                try {
+                    allReading.countDown();
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    locked.readUnlock();
+                }
+            });
+        }
+
+        assertTrue(allReading.await(5L, TimeUnit.SECONDS), "Readers did not hold read locks together");
+        assertEquals(3, locked.getReadLockCount(), "Wrong read lock count");
+
+        final AtomicBoolean written = new AtomicBoolean(false);
+        final Thread writer = Thread.ofPlatform().start(() -> {
+            locked.writeLock();
+            written.set(true);
+            locked.writeUnlock();
+        });
+
+        writer.join(200L);
+        assertFalse(written.get(), "Writer did not wait for readers");
+
+        release.countDown();
+        writer.join(5000L);
+        assertTrue(written.get(), "Writer did not proceed after readers finished");
+        for (final Thread reader : readers) {
+            reader.join(5000L);
+        }
+    }
+
+    /**
+     * Tests that the write lock is reentrant, that the writer may read, and that misuse is reported.
+     */
+    @Test
+    @DisplayName("Reentrancy and misuse")
+    void test002() {
+
+        final Locked locked = new Locked();
+
+        locked.writeLock();
+        locked.writeLock();
+        assertTrue(locked.isCurWriter(), "Not writer after write lock");
+        locked.readLock();
+        locked.readUnlock();
+        locked.writeUnlock();
+        assertTrue(locked.isCurWriter(), "Not writer after one of two unlocks");
+        locked.writeUnlock();
+        assertFalse(locked.isCurWriter(), "Still writer after unlocks");
+
+        assertThrows(IllegalMonitorStateException.class, locked::writeUnlock, "Unheld write lock released");
+        assertThrows(IllegalMonitorStateException.class, locked::readUnlock, "Unheld read lock released");
+
+        locked.readLock();
+        locked.readLock();
+        assertThrows(IllegalStateException.class, locked::writeLock, "Read lock upgraded");
+        locked.readUnlock();
+        locked.readUnlock();
+        assertEquals(0, locked.getReadLockCount(), "Read locks not released");
+
+        locked.writeLock();
+        locked.readLock();
+        locked.writeUnlock();
+        assertFalse(locked.isCurWriter(), "Still writer after downgrade");
+        assertEquals(1, locked.getReadLockCount(), "Write lock not downgraded to read lock");
+        locked.readUnlock();
+        assertEquals(0, locked.getReadLockCount(), "Downgraded read lock not released");
+    }
+
+    /**
+     * Tests that an optimistic read is invalidated by a write.
+     */
+    @Test
+    @DisplayName("Optimistic reads")
+    void test003() {
+
+        final Locked locked = new Locked();
+
+        final long stamp = locked.tryOptimisticRead();
+        assertTrue(locked.validate(stamp), "Optimistic read invalid with no write");
+
+        locked.writeLock();
+        locked.writeUnlock();
+        assertFalse(locked.validate(stamp), "Optimistic read valid after write");
+    }
+
+    /**
+     * Tests that while a writer waits, new readers wait behind it, but a thread already reading does not.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Writer preference")
+    void test004() throws InterruptedException {
+
+        final Locked locked = new Locked();
+        locked.readLock();
+
+        final AtomicBoolean written = new AtomicBoolean(false);
+        final Thread writer = Thread.ofPlatform().start(() -> {
+            locked.writeLock();
+            written.set(true);
+            locked.writeUnlock();
+        });
+
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (writer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+
+        final AtomicBoolean readAfterWrite = new AtomicBoolean(false);
+        final Thread reader = Thread.ofPlatform().start(() -> {
+            locked.readLock();
+            readAfterWrite.set(written.get());
+            locked.readUnlock();
+        });
+
+        // Reentrant read while the writer waits must not deadlock
+        locked.readLock();
+        locked.readUnlock();
+
+        reader.join(200L);
+        assertTrue(reader.isAlive(), "New reader did not wait behind waiting writer");
+
+        locked.readUnlock();
+        writer.join(5000L);
+        reader.join(5000L);
+        assertTrue(written.get(), "Writer did not proceed");
+        assertTrue(readAfterWrite.get(), "New reader went ahead of waiting writer");
+    }
+}
@@ -15,6 +15,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -150,8 +157,7 @@ final class TestLog {
 
         deleteAll();
         // Store the current log settings, so we can restore after the test
-        final LogSettings settings = LoggingSubsystem.getSettings();
-        savedSettings = new LogSettings(settings);
+        savedSettings = LoggingSubsystem.getSettings();
     }
 
     /**
@@ -160,7 +166,7 @@ final class TestLog {
     @AfterAll
     static void runAfterClass() {
 
-        LoggingSubsystem.getSettings().setFrom(savedSettings);
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
         deleteAll();
     }
 
@@ -208,17 +214,19 @@ final class TestLog {
 
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogToConsole(true);
-        LoggingSubsystem.getSettings().setLogToFiles(false);
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(true);
+            builder.setLogToFiles(false);
+        });
 
         Log.finest(MSG12);
         Log.fine(", with a linefeed.");
-        LoggingSubsystem.getSettings().setLogToConsole(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
         Log.fine(MSG13);
-        LoggingSubsystem.getSettings().setLogToConsole(true);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(true));
         Log.finest(MSG14);
         Log.fine(", with a linefeed..");
-        LoggingSubsystem.getSettings().setLogToConsole(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
 
         final File file = new File(LOG_DIR, FNAME001);
         final boolean exists = file.exists();
@@ -239,17 +247,19 @@ final class TestLog {
 
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogToConsole(true);
-        LoggingSubsystem.getSettings().setLogToFiles(false);
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(true);
+            builder.setLogToFiles(false);
+        });
 
         Log.finest(MSG12);
         Log.fine(", with a linefeed...");
-        LoggingSubsystem.getSettings().setLogToConsole(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
         Log.fine(MSG13);
-        LoggingSubsystem.getSettings().setLogToConsole(true);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(true));
         Log.finest(MSG14);
         Log.fine(", with a linefeed....");
-        LoggingSubsystem.getSettings().setLogToConsole(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
 
         final File file = new File(LOG_DIR, FNAME001);
         final boolean exists = file.exists();
@@ -442,7 +452,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.SEVERE_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.SEVERE_BIT));
 
         logMessages();
 
@@ -476,7 +486,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.SEVERE_BIT | LogBase.WARNING_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.SEVERE_BIT | LogBase.WARNING_BIT));
 
         logMessages();
 
@@ -534,7 +544,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.INFO_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.INFO_BIT));
 
         logMessages();
 
@@ -571,7 +581,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.INFO_BIT | LogBase.CONFIG_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.INFO_BIT | LogBase.CONFIG_BIT));
 
         logMessages();
 
@@ -618,7 +628,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.ENTERING_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.ENTERING_BIT));
 
         logMessages();
 
@@ -652,7 +662,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.ENTERING_BIT | LogBase.EXITING_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.ENTERING_BIT | LogBase.EXITING_BIT));
 
         logMessages();
 
@@ -697,7 +707,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.FINE_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.FINE_BIT));
 
         logMessages();
 
@@ -743,7 +753,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.FINE_BIT | LogBase.FINEST_BIT);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.FINE_BIT | LogBase.FINEST_BIT));
 
         logMessages();
 
@@ -789,7 +799,7 @@ final class TestLog {
         LoggingSubsystem.setInstallation(installation);
         setLogSettings();
 
-        LoggingSubsystem.getSettings().setLogLevels(LogBase.NONE);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.NONE));
 
         logMessages();
 
@@ -797,20 +807,213 @@ final class TestLog {
         assertFalse(exists, "Logging of none: log file created");
     }
 
+    /**
+     * Tests that source information is omitted for levels not among the source levels.
+     */
+    @Test
+    @DisplayName("Logging without source")
+    void test014() {
+
+        deleteAll();
+        final Installation installation = Installations.get().getInstallation(null, null);
+        LoggingSubsystem.setInstallation(installation);
+        setLogSettings();
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogLevels(LogBase.SEVERE_BIT | LogBase.INFO_BIT);
+            builder.setSourceLevels(LogBase.SEVERE_BIT);
+        });
+
+        logMessages();
+
+        final String str1 = getFile(FILE01);
+        if (isDateInvalid(str1)) {
+            fail("Logging without source: file 1 date");
+        }
+        final String actual1 = str1.substring(45);
+        assertEquals(INFO + MSG04 + CoreConstants.CRLF, actual1, "Logging without source: file 1 content");
+
+        final String str2 = getFile(FILE02);
+        final int traceLen = TRACE.length();
+        final int msg02len = MSG02.length();
+        final String actual2 = str2.substring(45, 45 + 3 + msg02len + traceLen);
+        assertEquals(SEVERE + MSG02 + TRACE, actual2, "Logging without source: file 2 content");
+
+        deleteAll();
+    }
+
+    /**
+     * Tests that a message supplier is called only if its level is enabled.
+     */
+    @Test
+    @DisplayName("Logging with suppliers")
+    void test015() {
+
+        deleteAll();
+        final Installation installation = Installations.get().getInstallation(null, null);
+        LoggingSubsystem.setInstallation(installation);
+        setLogSettings();
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogLevels(LogBase.INFO_BIT));
+
+        final int[] calls = new int[1];
+        Log.fine(() -> {
+            ++calls[0];
+            return MSG08;
+        });
+        assertEquals(0, calls[0], "Logging with suppliers: supplier called for disabled level");
+        assertFalse(Log.isLoggable(LogBase.FINE_BIT), "Logging with suppliers: fine reported as loggable");
+
+        Log.info(() -> {
+            ++calls[0];
+            return MSG04;
+        });
+        assertEquals(1, calls[0], "Logging with suppliers: supplier not called for enabled level");
+
+        final String str1 = getFile(FILE01);
+        if (isDateInvalid(str1)) {
+            fail("Logging with suppliers: file 1 date");
+        }
+        final int traceLen = TRACE.length();
+        final int msg04len = MSG04.length();
+        final String actual = str1.substring(45, 45 + 3 + msg04len + traceLen);
+        assertEquals(INFO + MSG04 + TRACE, actual, "Logging with suppliers: file 1 content");
+
+        deleteAll();
+    }
+
+    /**
+     * Tests that thousands of virtual threads can log at once without starving the carrier threads: every message is
+     * written to the log file, and a virtual thread started while the loggers are running is still scheduled promptly.
+     * Messages are written to an unbuffered log file in a temporary installation, so each logging thread does file I/O
+     * while holding the log lock.
+     *
+     * @throws IOException          if a file operation fails
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Logging from virtual threads")
+    void test016() throws IOException, InterruptedException {
+
+        final Installation savedInstallation = LoggingSubsystem.getInstallation();
+        final LogSettings saved = LoggingSubsystem.getSettings();
+
+        final Path dir = Files.createTempDirectory("logvthreads");
+        final File cfg = new File(dir.toFile(), Installations.DEF_CFG_FILE_NAME);
+        Files.writeString(cfg.toPath(), "log-to-files=true\r\nlog-to-console=false\r\nlog-watch-settings=false\r\n",
+                StandardCharsets.UTF_8);
+
+        final Installation installation = Installations.get().getInstallation(dir.toFile(), null);
+        LoggingSubsystem.setInstallation(installation);
+        try {
+            LoggingSubsystem.updateSettings(builder -> {
+                builder.setLogLevels(LogBase.ALL);
+                builder.setSourceLevels(LogBase.NONE);
+                builder.setLogToConsole(false);
+                builder.setLogToFiles(true);
+                builder.setFileFlushSize(0);
+                builder.setFilenameBase("vthreads");
+            });
+
+            final int numThreads = 5000;
+            final int perThread = 10;
+            final List<Thread> threads = new ArrayList<>(numThreads);
+            for (int i = 0; i < numThreads; ++i) {
+                final int id = i;
+                final Thread thread = Thread.ofVirtual().start(() -> {
+                    for (int j = 0; j < perThread; ++j) {
+                        Log.info("Virtual thread ", Integer.toString(id), " message ", Integer.toString(j));
+                    }
+                });
+                threads.add(thread);
+            }
+
+            final long start = System.nanoTime();
+            final Thread probe = Thread.ofVirtual().start(() -> {
+                // No action - only needs to be scheduled
+            });
+            final boolean probeDone = probe.join(Duration.ofSeconds(10L));
+            final long probeMs = (System.nanoTime() - start) / 1_000_000L;
+
+            for (final Thread thread : threads) {
+                final boolean done = thread.join(Duration.ofSeconds(60L));
+                assertTrue(done, "Logging from virtual threads: logging thread did not finish");
+            }
+
+            assertTrue(probeDone, "Logging from virtual threads: probe thread not scheduled after " + probeMs + " ms");
+
+            final Path logFile = dir.resolve("logs").resolve("vthreads.log");
+            final long count;
+            try (final Stream<String> lines = Files.lines(logFile, StandardCharsets.UTF_8)) {
+                count = lines.count();
+            }
+            assertEquals((long) (numThreads * perThread), count, "Logging from virtual threads: message count");
+        } finally {
+            LoggingSubsystem.setInstallation(savedInstallation);
+            LoggingSubsystem.updateSettings(builder -> builder.setFrom(saved));
+            try (final Stream<Path> paths = Files.walk(dir)) {
+                final List<Path> toDelete = paths.sorted(Comparator.reverseOrder()).toList();
+                for (final Path path : toDelete) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a supplier that supplies an array of arguments is logged as that list of arguments, with the stack
+     * trace of a {@code Throwable} among them.
+     */
+    @Test
+    @DisplayName("Logging with a supplier of arguments")
+    void test017() {
+
+        final LogSettings saved = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogLevels(LogBase.ALL);
+            builder.setSourceLevels(LogBase.NONE);
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(false);
+            builder.setExceptionDedupWindow(0);
+        });
+
+        final LogWriter writer = Log.getWriter();
+        writer.clearList();
+        writer.startList(-1);
+        try {
+            final Exception ex = new IllegalStateException(MSG02);
+            Log.warning(() -> new Object[]{MSG03, ex});
+
+            assertEquals(1, writer.getNumInList(), "Logging with a supplier of arguments: message count");
+            final String message = writer.getListMessage(0).getMessage();
+            assertTrue(message.contains(WARN + MSG03), "Logging with a supplier of arguments: content");
+            assertFalse(message.contains("[Ljava.lang.Object;"), "Logging with a supplier of arguments: array logged");
+            assertTrue(message.contains(IllegalStateException.class.getSimpleName()),
+                    "Logging with a supplier of arguments: exception not logged");
+            assertTrue(message.contains(TestLog.class.getName() + ".test017"),
+                    "Logging with a supplier of arguments: stack trace not logged");
+        } finally {
+            writer.stopList();
+            writer.clearList();
+            LoggingSubsystem.updateSettings(builder -> builder.setFrom(saved));
+        }
+    }
+
     /**
      * Adjusts the log settings for a logger.
      */
     private static void setLogSettings() {
 
-        final LogSettings settings = LoggingSubsystem.getSettings();
-
-        settings.setLogLevels(LogBase.ALL);
-        settings.setLogToConsole(false);
-        settings.setLogToFiles(true);
-        settings.setLogFileCount(10);
-        settings.setLogFileSizeLimit(10);
-        settings.setAppend(false);
-        settings.setFilenameBase("testlog");
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogLevels(LogBase.ALL);
+            builder.setSourceLevels(LogBase.ALL);
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(true);
+            builder.setLogFileCount(10);
+            builder.setLogFileSizeLimit(10);
+            builder.setAppend(false);
+            builder.setFilenameBase("testlog");
+        });
     }
 
     /**
@@ -0,0 +1,359 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code ILogAppender} implementations and their registration with {@code LogWriter}.
+ */
+final class TestLogAppender {
+
+    /** A log message. */
+    private static final String MSG1 = "Appender message 1";
+
+    /** A log message. */
+    private static final String MSG2 = "Appender message 2";
+
+    /** Settings saved before testing and restored after testing. */
+    private static LogSettings savedSettings = null;
+
+    /**
+     * Constructs a new {@code TestLogAppender}.
+     */
+    TestLogAppender() {
+
+        // No action
+    }
+
+    /**
+     * Saves the log settings and turns off console and file output.
+     */
+    @BeforeAll
+    static void runBeforeClass() {
+
+        savedSettings = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(false);
+        });
+    }
+
+    /**
+     * Restores the log settings.
+     */
+    @AfterAll
+    static void runAfterClass() {
+
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
+    }
+
+    /**
+     * Tests that each appender receives only messages at its levels.
+     */
+    @Test
+    @DisplayName("Appender level routing")
+    void test001() {
+
+        final LogWriter writer = new LogWriter();
+        final MemoryAppender severe = new MemoryAppender("severe", LogBase.SEVERE_BIT, 100);
+        final MemoryAppender all = new MemoryAppender("all", LogBase.ALL, 100);
+        writer.addAppender(severe);
+        writer.addAppender(all);
+
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG1, true);
+        writer.writeMessage(LogBase.INFO_BIT, MSG2, true);
+        writer.flush();
+
+        assertEquals(1, severe.getNumInList(), "Appender level routing: severe count");
+        assertEquals(MSG1, severe.getListMessage(0).getMessage(), "Appender level routing: severe message");
+        assertEquals(2, all.getNumInList(), "Appender level routing: all count");
+
+        assertTrue(writer.removeAppender("severe"), "Appender level routing: remove failed");
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG1, true);
+        writer.flush();
+        assertEquals(1, severe.getNumInList(), "Appender level routing: removed appender received message");
+
+        writer.removeAppender("all");
+    }
+
+    /**
+     * Tests that a failing appender does not prevent other appenders from receiving messages, and that its failure is
+     * reported.
+     */
+    @Test
+    @DisplayName("Appender failure isolation")
+    void test002() {
+
+        final LogWriter writer = new LogWriter();
+        final MemoryAppender memory = new MemoryAppender("memory", LogBase.ALL, 100);
+        writer.addAppender(new FailingAppender());
+        writer.addAppender(memory);
+
+        writer.writeMessage(LogBase.INFO_BIT, MSG1, true);
+        writer.writeMessage(LogBase.INFO_BIT, MSG2, true);
+        writer.flush();
+
+        final List<String> messages = new ArrayList<>(10);
+        for (final LogEntry entry : memory.snapshot()) {
+            messages.add(entry.getMessage());
+        }
+
+        assertTrue(messages.contains(MSG1), "Appender failure isolation: first message lost");
+        assertTrue(messages.contains(MSG2), "Appender failure isolation: second message lost");
+        final String expected = Res.fmt(Res.APPENDER_FAILED, "failing", "IOException",
+                Long.toString(BufferedAppender.SUSPEND_MS));
+        assertTrue(messages.contains(expected), "Appender failure isolation: failure not reported");
+
+        writer.removeAppender("failing");
+        writer.removeAppender("memory");
+    }
+
+    /**
+     * Tests that a slow appender does not slow the logging thread, and that messages it cannot keep up with are
+     * dropped and counted.
+     */
+    @Test
+    @DisplayName("Slow appender")
+    void test003() {
+
+        final LogWriter writer = new LogWriter();
+        writer.addAppender(new SlowAppender(), 4);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 50; ++i) {
+            writer.writeMessage(LogBase.INFO_BIT, MSG1, true);
+        }
+        final long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+
+        assertTrue(elapsedMs < 1000L, "Slow appender: logging thread was delayed " + elapsedMs + " ms");
+        assertTrue(writer.getAppenderDroppedCount("slow") > 0L, "Slow appender: no messages dropped");
+
+        writer.removeAppender("slow");
+    }
+
+    /**
+     * Tests that a file appender writes its own file and rotates it.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("File appender")
+    void test004() throws IOException {
+
+        final Path dir = Files.createTempDirectory("appender");
+        final File logDir = dir.toFile();
+
+        final LogWriter writer = new LogWriter();
+        final FileAppender appender = new FileAppender("file", LogBase.SEVERE_BIT, logDir, "severe", 30L, 5, 0);
+        writer.addAppender(appender);
+
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG1, true);
+        writer.writeMessage(LogBase.INFO_BIT, MSG2, true);
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG2, true);
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG1, true);
+        writer.removeAppender("file");
+
+        final File archive = new File(logDir, "severe_001.log");
+        assertTrue(archive.exists(), "File appender: file not rotated");
+        final String archived = Files.readString(archive.toPath(), StandardCharsets.UTF_8);
+        assertEquals(MSG1 + "\r\n" + MSG2 + "\r\n", archived, "File appender: archive content");
+
+        final String active = Files.readString(appender.getFile().toPath(), StandardCharsets.UTF_8);
+        assertEquals(MSG1 + "\r\n", active, "File appender: active file content");
+
+        final File[] files = logDir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                assertTrue(file.delete(), "File appender: delete");
+            }
+        }
+        assertTrue(logDir.delete(), "File appender: delete directory");
+    }
+
+    /**
+     * Tests that a TCP socket appender sends messages as lines.
+     *
+     * @throws IOException if a socket operation fails
+     */
+    @Test
+    @DisplayName("Socket appender")
+    void test005() throws IOException {
+
+        try (final ServerSocket server = new ServerSocket(0)) {
+            server.setSoTimeout(10_000);
+
+            final LogWriter writer = new LogWriter();
+            final int port = server.getLocalPort();
+            writer.addAppender(new SocketAppender("socket", LogBase.ALL, "localhost", port, false));
+
+            writer.writeMessage(LogBase.INFO_BIT, MSG1, true);
+            writer.flush();
+
+            try (final Socket client = server.accept();
+                 final BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+                client.setSoTimeout(10_000);
+                final String line = reader.readLine();
+                assertEquals(MSG1, line, "Socket appender: received line");
+            }
+
+            writer.removeAppender("socket");
+        }
+    }
+
+    /**
+     * An appender that always fails.
+     */
+    private static final class FailingAppender implements ILogAppender {
+
+        /**
+         * Constructs a new {@code FailingAppender}.
+         */
+        FailingAppender() {
+
+            // No action
+        }
+
+        /**
+         * Gets the name of the appender.
+         *
+         * @return the name
+         */
+        @Override
+        public String getName() {
+
+            return "failing";
+        }
+
+        /**
+         * Gets the levels of messages the appender accepts.
+         *
+         * @return the levels
+         */
+        @Override
+        public int getLevels() {
+
+            return LogBase.ALL;
+        }
+
+        /**
+         * Fails.
+         *
+         * @param level    the level of the message
+         * @param msg      the message
+         * @param linefeed {@code true} to terminate the message with a line feed
+         * @throws IOException always
+         */
+        @Override
+        public void append(final int level, final String msg, final boolean linefeed) throws IOException {
+
+            throw new IOException("Failure for testing");
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void flush() {
+
+            // No action
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void close() {
+
+            // No action
+        }
+    }
+
+    /**
+     * An appender that takes a long time to write each message.
+     */
+    private static final class SlowAppender implements ILogAppender {
+
+        /**
+         * Constructs a new {@code SlowAppender}.
+         */
+        SlowAppender() {
+
+            // No action
+        }
+
+        /**
+         * Gets the name of the appender.
+         *
+         * @return the name
+         */
+        @Override
+        public String getName() {
+
+            return "slow";
+        }
+
+        /**
+         * Gets the levels of messages the appender accepts.
+         *
+         * @return the levels
+         */
+        @Override
+        public int getLevels() {
+
+            return LogBase.ALL;
+        }
+
+        /**
+         * Waits a while, then discards the message.
+         *
+         * @param level    the level of the message
+         * @param msg      the message
+         * @param linefeed {@code true} to terminate the message with a line feed
+         */
+        @Override
+        public void append(final int level, final String msg, final boolean linefeed) {
+
+            try {
+                Thread.sleep(20L);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void flush() {
+
+            // No action
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void close() {
+
+            // No action
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogContext} class and the diagnostic key/value pairs set through {@code LogBase}.
+ */
+final class TestLogContext {
+
+    /** A remote address. */
+    private static final String REMOTE = "10.1.2.3";
+
+    /** A user ID. */
+    private static final String USER = "user1";
+
+    /** Settings saved before testing and restored after testing. */
+    private static LogSettings savedSettings = null;
+
+    /**
+     * Constructs a new {@code TestLogContext}.
+     */
+    TestLogContext() {
+
+        // No action
+    }
+
+    /**
+     * Saves the log settings, enables all levels, and turns off console and file output.
+     */
+    @BeforeAll
+    static void runBeforeClass() {
+
+        savedSettings = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogLevels(LogBase.ALL);
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(false);
+            builder.setAsync(false);
+        });
+    }
+
+    /**
+     * Restores the log settings.
+     */
+    @AfterAll
+    static void runAfterClass() {
+
+        LogBase.setHostPath(null, null, null);
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
+    }
+
+    /**
+     * Tests that the rendered context is padded, cached until the context changes, and includes key/value pairs in
+     * the order they were first set.
+     */
+    @Test
+    @DisplayName("Rendering and caching")
+    void test001() {
+
+        final LogContext ctx = new LogContext(REMOTE);
+        final String plain = ctx.toString();
+        assertEquals(27, plain.length(), "Rendering and caching: padded length");
+        assertTrue(plain.startsWith(REMOTE + " "), "Rendering and caching: remote address");
+        assertSame(plain, ctx.toString(), "Rendering and caching: rendering not cached");
+
+        ctx.setSessionId("session");
+        assertSame(plain, ctx.toString(), "Rendering and caching: session change re-rendered");
+
+        ctx.setUserId(USER);
+        final String withUser = ctx.toString();
+        assertNotSame(plain, withUser, "Rendering and caching: user change not rendered");
+        assertEquals(REMOTE + ":" + USER, withUser.trim(), "Rendering and caching: user");
+
+        ctx.put("req", "7");
+        ctx.put("tenant", "abc");
+        ctx.put("req", "8");
+        assertEquals(REMOTE + ":" + USER + " req=8 tenant=abc", ctx.toString().trim(), "Rendering and caching: pairs");
+        assertEquals("req=8 tenant=abc", ctx.getEntries(), "Rendering and caching: entries");
+
+        ctx.put("req", null);
+        assertEquals("tenant=abc", ctx.getEntries(), "Rendering and caching: removed pair");
+        assertNull(ctx.get("req"), "Rendering and caching: removed value");
+
+        ctx.reset(null);
+        assertFalse(ctx.isActive(), "Rendering and caching: active after reset");
+        assertNull(ctx.getEntries(), "Rendering and caching: entries after reset");
+        assertNull(ctx.getUserId(), "Rendering and caching: user after reset");
+    }
+
+    /**
+     * Tests that key/value pairs set on a thread appear in its log records, and are cleared with the context.
+     */
+    @Test
+    @DisplayName("Context values in records")
+    void test002() {
+
+        final LogWriter writer = Log.getWriter();
+        final MemoryAppender memory = new MemoryAppender("context", LogBase.ALL, 100);
+        writer.addAppender(memory);
+
+        LogBase.setHostPath("host", "/path", REMOTE);
+        LogBase.setSessionInfo("session", USER);
+        LogBase.setContextValue("req", "42");
+        assertEquals("42", LogBase.getContextValue("req"), "Context values in records: value");
+        Log.info("first");
+
+        LogBase.setHostPath(null, null, null);
+        assertNull(LogBase.getContextValue("req"), "Context values in records: value after clear");
+        Log.info("second");
+
+        LogBase.setContextValue("job", "nightly");
+        Log.info("third");
+        LogBase.setContextValue("job", null);
+        writer.flush();
+
+        assertEquals(3, memory.getNumInList(), "Context values in records: record count");
+        final String first = memory.getListMessage(0).getMessage();
+        assertTrue(first.contains(REMOTE + ":" + USER + " req=42"), "Context values in records: first record");
+        final String second = memory.getListMessage(1).getMessage();
+        assertFalse(second.contains("req=42"), "Context values in records: second record");
+        final String third = memory.getListMessage(2).getMessage();
+        assertTrue(third.contains(" job=nightly"), "Context values in records: third record");
+
+        writer.removeAppender("context");
+    }
+
+    /**
+     * Tests that key/value pairs survive a round trip through the binary log format.
+     *
+     * @throws IOException if the data could not be read
+     */
+    @Test
+    @DisplayName("Binary round trip")
+    void test003() throws IOException {
+
+        final BinaryLogEncoder encoder = new BinaryLogEncoder();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(500);
+
+        encoder.start(true);
+        out.write(encoder.getBytes(), 0, encoder.length());
+        encoder.encode(1_000L, 'I', LogBase.INFO_BIT, true, REMOTE, null, USER, "req=1", null, "msg", null);
+        out.write(encoder.getBytes(), 0, encoder.length());
+        encoder.encode(2_000L, 'I', LogBase.INFO_BIT, true, REMOTE, null, USER, null, "msg", null);
+        out.write(encoder.getBytes(), 0, encoder.length());
+
+        try (final BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(out.toByteArray()))) {
+            final BinaryLogRecord rec1 = reader.next();
+            assertEquals("req=1", rec1.getEntries(), "Binary round trip: entries");
+            assertTrue(rec1.toText().contains(REMOTE + ":" + USER + " req=1"), "Binary round trip: text");
+
+            final BinaryLogRecord rec2 = reader.next();
+            assertNull(rec2.getEntries(), "Binary round trip: no entries");
+            assertEquals("msg", rec2.getMessage(), "Binary round trip: message");
+            assertNull(reader.next(), "Binary round trip: end of data");
+        }
+    }
+}
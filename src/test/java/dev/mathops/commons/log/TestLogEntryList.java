@@ -0,0 +1,87 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogEntryList} class.
+ */
+final class TestLogEntryList {
+
+    /**
+     * Constructs a new {@code TestLogEntryList}.
+     */
+    TestLogEntryList() {
+
+        // No action
+    }
+
+    /**
+     * Tests that the list grows past its initial capacity, then evicts the oldest entries once at its maximum size.
+     */
+    @Test
+    @DisplayName("Grow and wrap")
+    void test001() {
+
+        final LogEntryList list = new LogEntryList();
+        list.startList(120);
+
+        for (int i = 0; i < 300; ++i) {
+            list.addToList(Integer.toString(i));
+        }
+
+        assertEquals(120, list.getNumInList(), "Bad size after wrap");
+        assertEquals("180", list.getListMessage(0).getMessage(), "Bad oldest entry after wrap");
+        assertEquals("299", list.getListMessage(119).getMessage(), "Bad newest entry after wrap");
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getListMessage(120), "Bad index accepted");
+
+        final List<LogEntry> snapshot = list.snapshot();
+        assertEquals(120, snapshot.size(), "Bad snapshot size");
+        assertEquals("180", snapshot.getFirst().getMessage(), "Bad oldest entry in snapshot");
+
+        list.clearList();
+        assertEquals(0, list.getNumInList(), "List not cleared");
+
+        list.addToList("A");
+        assertEquals("A", list.getListMessage(0).getMessage(), "Bad entry after clear");
+    }
+
+    /**
+     * Tests that snapshots taken while a writer is adding entries are always contiguous runs in the order added.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Snapshot while writing")
+    void test002() throws InterruptedException {
+
+        final LogEntryList list = new LogEntryList();
+        list.startList(64);
+
+        final Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; ++i) {
+                list.addToList(Integer.toString(i));
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            final List<LogEntry> snapshot = list.snapshot();
+            assertTrue(snapshot.size() <= 64, "Snapshot larger than maximum");
+
+            for (int i = 1; i < snapshot.size(); ++i) {
+                final int prior = Integer.parseInt(snapshot.get(i - 1).getMessage());
+                final int next = Integer.parseInt(snapshot.get(i).getMessage());
+                assertEquals(prior + 1, next, "Snapshot not contiguous");
+            }
+        }
+
+        writer.join();
+    }
+}
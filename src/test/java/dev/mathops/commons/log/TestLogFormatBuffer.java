@@ -0,0 +1,92 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.CoreConstants;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogFormatBuffer} class and the encoding of formatted records by {@code LogFileChannel}.
+ */
+final class TestLogFormatBuffer {
+
+    /**
+     * Constructs a new {@code TestLogFormatBuffer}.
+     */
+    TestLogFormatBuffer() {
+
+        // No action
+    }
+
+    /**
+     * Tests that the builder is reused, that a nested use gets its own builder, and that the builder shrinks after an
+     * outlier.
+     */
+    @Test
+    @DisplayName("Reuse and shrink")
+    void test001() {
+
+        final StringBuilder first = LogFormatBuffer.acquire();
+        first.append("first");
+        final StringBuilder nested = LogFormatBuffer.acquire();
+        assertNotSame(first, nested, "Reuse and shrink: nested use shares builder");
+        LogFormatBuffer.release(nested);
+        LogFormatBuffer.release(first);
+
+        final StringBuilder second = LogFormatBuffer.acquire();
+        assertSame(first, second, "Reuse and shrink: builder not reused");
+        assertEquals(0, second.length(), "Reuse and shrink: reused builder not empty");
+        second.append("x".repeat(100_000));
+        LogFormatBuffer.release(second);
+        assertTrue(LogFormatBuffer.capacity() >= 100_000, "Reuse and shrink: builder did not grow");
+
+        for (int i = 0; i < 200; ++i) {
+            final StringBuilder builder = LogFormatBuffer.acquire();
+            builder.append("short record");
+            LogFormatBuffer.release(builder);
+        }
+        assertTrue(LogFormatBuffer.capacity() < 100_000, "Reuse and shrink: builder did not shrink");
+    }
+
+    /**
+     * Tests that text longer than the channel's character buffer, with surrogate pairs at chunk boundaries, is encoded
+     * correctly from a {@code StringBuilder}.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("Chunked encoding")
+    void test002() throws IOException {
+
+        final StringBuilder builder = new StringBuilder(10_000);
+        for (int i = 0; i < 1_500; ++i) {
+            builder.append("ab\uD83D\uDE00c");
+        }
+        final String expected = builder + CoreConstants.CRLF + "tail";
+
+        final Path dir = Files.createTempDirectory("fmtbuf");
+        final File file = new File(dir.toFile(), "test.log");
+        final LogFileChannel channel = new LogFileChannel(file);
+        channel.write(builder, true, 4096, 0L);
+        channel.write("tail", false, 4096, 0L);
+        final long size = channel.size();
+        channel.close();
+
+        final String actual = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(expected, actual, "Chunked encoding: file contents");
+        assertEquals((long) expected.getBytes(StandardCharsets.UTF_8).length, size, "Chunked encoding: tracked size");
+
+        assertTrue(file.delete(), "Chunked encoding: delete file");
+        assertTrue(dir.toFile().delete(), "Chunked encoding: delete directory");
+    }
+}
@@ -0,0 +1,159 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogMetrics} and {@code LogLatencyHistogram} classes.
+ */
+final class TestLogMetrics {
+
+    /** A log message. */
+    private static final String MSG = "Metrics message";
+
+    /** Settings saved before testing and restored after testing. */
+    private static LogSettings savedSettings = null;
+
+    /**
+     * Constructs a new {@code TestLogMetrics}.
+     */
+    TestLogMetrics() {
+
+        // No action
+    }
+
+    /**
+     * Saves the log settings and turns off console and file output.
+     */
+    @BeforeAll
+    static void runBeforeClass() {
+
+        savedSettings = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(false);
+        });
+    }
+
+    /**
+     * Restores the log settings.
+     */
+    @AfterAll
+    static void runAfterClass() {
+
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
+    }
+
+    /**
+     * Tests the count, mean, maximum, and percentiles of a histogram.
+     */
+    @Test
+    @DisplayName("Latency histogram")
+    void test001() {
+
+        final LogLatencyHistogram histogram = new LogLatencyHistogram();
+        assertEquals(0L, histogram.getPercentileNanos(50.0), "Latency histogram: empty percentile");
+        assertEquals(0L, histogram.getMeanNanos(), "Latency histogram: empty mean");
+
+        for (int i = 0; i < 99; ++i) {
+            histogram.record(100L);
+        }
+        histogram.record(5_000L);
+
+        assertEquals(100L, histogram.getCount(), "Latency histogram: count");
+        assertEquals(14_900L, histogram.getTotalNanos(), "Latency histogram: total");
+        assertEquals(149L, histogram.getMeanNanos(), "Latency histogram: mean");
+        assertEquals(5_000L, histogram.getMaxNanos(), "Latency histogram: max");
+        assertEquals(127L, histogram.getPercentileNanos(50.0), "Latency histogram: median");
+        assertEquals(127L, histogram.getPercentileNanos(99.0), "Latency histogram: 99th percentile");
+        assertEquals(5_000L, histogram.getPercentileNanos(100.0), "Latency histogram: 100th percentile");
+    }
+
+    /**
+     * Tests that messages, appender output, and suppressed messages are counted.
+     */
+    @Test
+    @DisplayName("Writer metrics")
+    void test002() {
+
+        final LogWriter writer = new LogWriter();
+        final MemoryAppender memory = new MemoryAppender("metrics", LogBase.ALL, 100);
+        writer.addAppender(memory);
+
+        writer.writeMessage(LogBase.WARNING_BIT, MSG, true);
+        writer.writeMessage(LogBase.WARNING_BIT, MSG, false);
+        writer.writeMessage(LogBase.FINE_BIT, MSG, true);
+        writer.writeMessage(MSG, true);
+        writer.flush();
+
+        final LogMetrics metrics = writer.getMetrics();
+        assertEquals(2L, metrics.getMessageCount(LogBase.WARNING_BIT), "Writer metrics: warning count");
+        assertEquals(1L, metrics.getMessageCount(LogBase.FINE_BIT), "Writer metrics: fine count");
+        assertEquals(0L, metrics.getMessageCount(LogBase.SEVERE_BIT), "Writer metrics: severe count");
+        assertEquals(1L, metrics.getMessageCount(LogBase.ALL), "Writer metrics: other count");
+        assertEquals(4L, metrics.getWriteCount(), "Writer metrics: write count");
+        assertEquals(4L, metrics.getLockWait().getCount(), "Writer metrics: lock wait count");
+
+        final long expected = (long) (MSG.length() * 4 + 3);
+        assertEquals(expected, metrics.getBytesWritten("metrics"), "Writer metrics: appender output");
+        assertEquals(0L, metrics.getBytesWritten(LogMetrics.CONSOLE), "Writer metrics: console output");
+
+        final Map<String, Long> counts = metrics.getMessageCounts();
+        assertEquals(Long.valueOf(2L), counts.get("WARNING"), "Writer metrics: warning in map");
+
+        final LogRateLimits limits = new LogRateLimits(writer);
+        limits.add(LogRateLimiter.sampling("key", 2), false);
+        for (int i = 0; i < 4; ++i) {
+            limits.allow("key");
+        }
+        assertEquals(2L, metrics.getSuppressed(), "Writer metrics: suppressed count");
+        assertEquals(0L, metrics.getDropped(), "Writer metrics: dropped count");
+        assertEquals(0L, metrics.getRotations(), "Writer metrics: rotation count");
+
+        writer.removeAppender("metrics");
+    }
+
+    /**
+     * Tests that metrics can be published over JMX.
+     *
+     * @throws JMException if an attribute could not be read
+     */
+    @Test
+    @DisplayName("JMX registration")
+    void test003() throws JMException {
+
+        final LogWriter writer = new LogWriter();
+        writer.writeMessage(LogBase.INFO_BIT, MSG, true);
+
+        final LogMetrics metrics = writer.getMetrics();
+        assertTrue(metrics.registerMBean("test-metrics"), "JMX registration: register failed");
+
+        final ObjectName name = metrics.getRegisteredName();
+        assertNotNull(name, "JMX registration: no registered name");
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(name), "JMX registration: not registered with server");
+        assertEquals(Long.valueOf(1L), server.getAttribute(name, "WriteCount"), "JMX registration: write count");
+
+        final LogMetrics other = new LogWriter().getMetrics();
+        assertFalse(other.registerMBean("test-metrics"), "JMX registration: duplicate name registered");
+
+        metrics.unregisterMBean();
+        assertNull(metrics.getRegisteredName(), "JMX registration: name after unregister");
+        assertFalse(server.isRegistered(name), "JMX registration: still registered with server");
+    }
+}
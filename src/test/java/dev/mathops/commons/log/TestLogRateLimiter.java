@@ -0,0 +1,214 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogRateLimiter} class and the rate-limiting methods of {@code Log}.
+ */
+final class TestLogRateLimiter {
+
+    /** A log message. */
+    private static final String MSG = "Rate limited message";
+
+    /** Settings saved before testing and restored after testing. */
+    private static LogSettings savedSettings = null;
+
+    /**
+     * Constructs a new {@code TestLogRateLimiter}.
+     */
+    TestLogRateLimiter() {
+
+        // No action
+    }
+
+    /**
+     * Saves the log settings, enables all levels, and turns off console and file output.
+     */
+    @BeforeAll
+    static void runBeforeClass() {
+
+        savedSettings = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogLevels(LogBase.ALL);
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(false);
+            builder.setAsync(false);
+        });
+    }
+
+    /**
+     * Restores the log settings.
+     */
+    @AfterAll
+    static void runAfterClass() {
+
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
+    }
+
+    /**
+     * Tests that a token bucket allows a burst, then suppresses and counts messages.
+     */
+    @Test
+    @DisplayName("Token bucket")
+    void test001() {
+
+        final LogRateLimiter limiter = LogRateLimiter.tokenBucket("bucket", 0.01, 5);
+
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(limiter.tryAcquire(), "Token bucket: burst message " + i + " suppressed");
+        }
+        assertFalse(limiter.tryAcquire(), "Token bucket: message beyond burst allowed");
+        assertFalse(limiter.tryAcquire(), "Token bucket: message beyond burst allowed");
+        assertEquals(2L, limiter.getSuppressedCount(), "Token bucket: suppressed count");
+        assertEquals(2L, limiter.drainSuppressed(), "Token bucket: first drain");
+        assertEquals(0L, limiter.drainSuppressed(), "Token bucket: second drain");
+    }
+
+    /**
+     * Tests that a sampling limiter allows exactly one in N messages, including under contention.
+     *
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    @Test
+    @DisplayName("Sampling")
+    void test002() throws InterruptedException {
+
+        final LogRateLimiter limiter = LogRateLimiter.sampling("sample", 3);
+        final boolean[] expected = {true, false, false, true, false, false, true};
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], limiter.tryAcquire(), "Sampling: message " + i);
+        }
+
+        final LogRateLimiter shared = LogRateLimiter.sampling("shared", 10);
+        final AtomicLong allowed = new AtomicLong(0L);
+        final List<Thread> threads = new ArrayList<>(8);
+        for (int i = 0; i < 8; ++i) {
+            final Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; ++j) {
+                    if (shared.tryAcquire()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8_000L, allowed.get(), "Sampling: allowed under contention");
+        assertEquals(72_000L, shared.getSuppressedCount(), "Sampling: suppressed under contention");
+    }
+
+    /**
+     * Tests call-site and explicit-key limits applied through {@code Log}, and the report of suppressed messages.
+     */
+    @Test
+    @DisplayName("Log limits")
+    void test003() {
+
+        final LogWriter writer = Log.getWriter();
+        final MemoryAppender memory = new MemoryAppender("rate", LogBase.ALL, 100);
+        writer.addAppender(memory);
+
+        final String site = TestLogRateLimiter.class.getName();
+        Log.setCallSiteRateLimit(LogRateLimiter.sampling(site, 2));
+        for (int i = 0; i < 6; ++i) {
+            Log.info(MSG);
+        }
+        writer.flush();
+        assertEquals(3, memory.getNumInList(), "Log limits: call-site sampling");
+        assertEquals(3L, Log.getSuppressedCount(site), "Log limits: call-site suppressed count");
+
+        assertTrue(Log.removeRateLimit(site), "Log limits: remove call-site limit");
+        Log.info(MSG);
+        writer.flush();
+        assertEquals(4, memory.getNumInList(), "Log limits: message after removal");
+
+        assertTrue(Log.allow("explicit"), "Log limits: unregistered key not allowed");
+        Log.setRateLimit(LogRateLimiter.tokenBucket("explicit", 0.01, 1));
+        assertTrue(Log.allow("explicit"), "Log limits: first explicit message suppressed");
+        assertFalse(Log.allow("explicit"), "Log limits: second explicit message allowed");
+        assertTrue(Log.removeRateLimit("explicit"), "Log limits: remove explicit limit");
+        assertFalse(Log.removeRateLimit("explicit"), "Log limits: remove missing limit");
+
+        writer.removeAppender("rate");
+    }
+
+    /**
+     * Tests that the periodic report writes the number of messages each limiter suppressed since the last report.
+     */
+    @Test
+    @DisplayName("Suppression report")
+    void test004() {
+
+        final LogWriter writer = new LogWriter();
+        final MemoryAppender memory = new MemoryAppender("report", LogBase.ALL, 100);
+        writer.addAppender(memory);
+
+        final LogRateLimits limits = new LogRateLimits(writer);
+        limits.add(LogRateLimiter.sampling("site.Cls:12", 4), true);
+        assertTrue(limits.hasCallSiteLimits(), "Suppression report: no call-site limits");
+        for (int i = 0; i < 8; ++i) {
+            limits.allowCallSite("site.Cls", 12);
+            limits.allowCallSite("site.Cls", 13);
+        }
+
+        limits.report();
+        limits.report();
+        writer.flush();
+
+        final String secondsStr = Long.toString(LogRateLimits.REPORT_INTERVAL_MS / 1000L);
+        final String expected = Res.fmt(Res.RATE_SUPPRESSED, "site.Cls:12", "6", secondsStr);
+        assertEquals(1, memory.getNumInList(), "Suppression report: report count");
+        assertTrue(memory.getListMessage(0).getMessage().endsWith(expected), "Suppression report: report text");
+
+        assertTrue(limits.remove("site.Cls:12"), "Suppression report: remove");
+        assertFalse(limits.hasCallSiteLimits(), "Suppression report: call-site limits remain");
+
+        writer.removeAppender("report");
+    }
+
+    /**
+     * Tests that a message logged at a call site with a rate limiter carries the source location of that call site.
+     */
+    @Test
+    @DisplayName("Source location with a call-site limit")
+    void test005() {
+
+        final LogSettings before = LoggingSubsystem.getSettings();
+        LoggingSubsystem.updateSettings(builder -> builder.setSourceLevels(LogBase.ALL));
+
+        final LogWriter writer = Log.getWriter();
+        final MemoryAppender memory = new MemoryAppender("source", LogBase.ALL, 100);
+        writer.addAppender(memory);
+
+        final String site = TestLogRateLimiter.class.getName();
+        Log.setCallSiteRateLimit(LogRateLimiter.sampling(site, 1));
+        try {
+            Log.warning(MSG);
+            writer.flush();
+
+            assertEquals(1, memory.getNumInList(), "Source location with a call-site limit: message count");
+            final String message = memory.getListMessage(0).getMessage();
+            assertTrue(message.contains("(" + site + ".java:"),
+                    "Source location with a call-site limit: source location missing");
+        } finally {
+            Log.removeRateLimit(site);
+            writer.removeAppender("source");
+            LoggingSubsystem.updateSettings(builder -> builder.setFrom(before));
+        }
+    }
+}
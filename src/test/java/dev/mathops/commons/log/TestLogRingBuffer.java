@@ -0,0 +1,179 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Tests for the {@code LogRingBuffer} and {@code AsyncLogDispatcher} classes.
+ */
+final class TestLogRingBuffer {
+
+    /** Number of producer threads in the concurrency test. */
+    private static final int NUM_PRODUCERS = 4;
+
+    /** Number of events each producer publishes in the concurrency test. */
+    private static final int PER_PRODUCER = 10_000;
+
+    /**
+     * Constructs a new {@code TestLogRingBuffer}.
+     */
+    TestLogRingBuffer() {
+
+        // No action
+    }
+
+    /**
+     * Tests that capacity is rounded up to a power of 2.
+     */
+    @Test
+    @DisplayName("Ring buffer capacity")
+    void test001() {
+
+        final LogRingBuffer ring1 = new LogRingBuffer(1);
+        assertEquals(2, ring1.capacity(), "Capacity 1 not rounded to 2");
+
+        final LogRingBuffer ring2 = new LogRingBuffer(100);
+        assertEquals(128, ring2.capacity(), "Capacity 100 not rounded to 128");
+    }
+
+    /**
+     * Tests that a full buffer refuses claims, and that events are consumed in the order published.
+     */
+    @Test
+    @DisplayName("Ring buffer full and ordering")
+    void test002() {
+
+        final LogRingBuffer ring = new LogRingBuffer(4);
+
+        for (int i = 0; i < 4; ++i) {
+            final long pos = ring.tryClaim();
+            assertNotEquals(LogRingBuffer.NONE, pos, "Claim failed before buffer full");
+            ring.get(pos).content = Integer.toString(i);
+            ring.publish(pos);
+        }
+
+        assertEquals(LogRingBuffer.NONE, ring.tryClaim(), "Claim succeeded on full buffer");
+        assertEquals(4, ring.size(), "Bad size when full");
+
+        for (int i = 0; i < 4; ++i) {
+            final long pos = ring.tryConsume();
+            assertNotEquals(LogRingBuffer.NONE, pos, "Consume failed on non-empty buffer");
+            assertEquals(Integer.toString(i), ring.get(pos).content, "Events consumed out of order");
+            ring.release(pos);
+        }
+
+        assertEquals(LogRingBuffer.NONE, ring.tryConsume(), "Consume succeeded on empty buffer");
+        assertNotEquals(LogRingBuffer.NONE, ring.tryClaim(), "Claim failed after buffer drained");
+    }
+
+    /**
+     * Tests that a claimed but unpublished slot is not visible to consumers.
+     */
+    @Test
+    @DisplayName("Ring buffer unpublished slot")
+    void test003() {
+
+        final LogRingBuffer ring = new LogRingBuffer(4);
+
+        final long pos = ring.tryClaim();
+        assertEquals(LogRingBuffer.NONE, ring.tryConsume(), "Unpublished slot was consumed");
+
+        ring.publish(pos);
+        assertEquals(pos, ring.tryConsume(), "Published slot was not consumed");
+    }
+
+    /**
+     * Tests that concurrent producers and a concurrent consumer transfer every event exactly once.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Ring buffer concurrent producers")
+    void test004() throws InterruptedException {
+
+        final LogRingBuffer ring = new LogRingBuffer(64);
+        final int total = NUM_PRODUCERS * PER_PRODUCER;
+        final Set<String> received = new HashSet<>(total * 2);
+
+        final Thread consumer = new Thread(() -> {
+            int count = 0;
+            while (count < total) {
+                final long pos = ring.tryConsume();
+                if (pos == LogRingBuffer.NONE) {
+                    Thread.onSpinWait();
+                } else {
+                    received.add(ring.get(pos).content);
+                    ring.release(pos);
+                    ++count;
+                }
+            }
+        });
+        consumer.start();
+
+        final List<Thread> producers = new ArrayList<>(NUM_PRODUCERS);
+        for (int p = 0; p < NUM_PRODUCERS; ++p) {
+            final int id = p;
+            final Thread producer = new Thread(() -> {
+                for (int i = 0; i < PER_PRODUCER; ++i) {
+                    long pos = ring.tryClaim();
+                    while (pos == LogRingBuffer.NONE) {
+                        Thread.onSpinWait();
+                        pos = ring.tryClaim();
+                    }
+                    ring.get(pos).content = id + ":" + i;
+                    ring.publish(pos);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        consumer.join(30_000L);
+
+        assertEquals(total, received.size(), "Events lost or duplicated");
+    }
+
+    /**
+     * Tests that the dispatcher writes published events to its writer, in order, without dropping any.
+     */
+    @Test
+    @DisplayName("Dispatcher writes events")
+    void test005() {
+
+        final LogWriter writer = new LogWriter();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
+        writer.startList(100);
+
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(8, writer);
+        dispatcher.start();
+
+        for (int i = 0; i < 5; ++i) {
+            final long pos = dispatcher.claim(EBackPressurePolicy.BLOCK);
+            final LogEvent event = dispatcher.get(pos);
+            event.kind = LogEvent.LINE;
+            event.content = "Line " + i;
+            event.linefeed = true;
+            dispatcher.publish(pos);
+        }
+        dispatcher.flush(10_000L);
+
+        assertEquals(5, writer.getNumInList(), "Dispatcher did not write all events");
+        assertEquals("Line 0", writer.getListMessage(0).getMessage(), "Dispatcher wrote events out of order");
+        assertEquals(0L, dispatcher.getDroppedCount(), "Dispatcher dropped events with BLOCK policy");
+
+        dispatcher.stop();
+        writer.stopList();
+        writer.clearList();
+    }
+}
@@ -0,0 +1,162 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogRotator} class.
+ */
+final class TestLogRotator {
+
+    /** The filename base used in tests. */
+    private static final String BASE = "rotlog";
+
+    /** Content written to log files in tests. */
+    private static final String CONTENT = "Log file content";
+
+    /**
+     * Constructs a new {@code TestLogRotator}.
+     */
+    TestLogRotator() {
+
+        // No action
+    }
+
+    /**
+     * Tests that the active file is moved to a timestamped archive, which is then compressed.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("Rotate to timestamped archive and compress")
+    void test001() throws IOException {
+
+        final Path dir = Files.createTempDirectory(BASE);
+        final File logDir = dir.toFile();
+        final File curFile = new File(logDir, BASE + ".log");
+        Files.writeString(curFile.toPath(), CONTENT);
+
+        final StringBuilder err = new StringBuilder(100);
+        final File archive = LogRotator.rotateToTimestamp(logDir, BASE, curFile, err);
+
+        assertNotNull(archive, "Active file was not archived");
+        assertFalse(curFile.exists(), "Active file still exists after rotation");
+        assertEquals(1, LogRotator.listTimestampedArchives(logDir, BASE).size(), "Archive not recognized");
+
+        final File compressed = LogRotator.compress(archive, err);
+
+        assertNotNull(compressed, "Archive was not compressed");
+        assertFalse(archive.exists(), "Uncompressed archive still exists");
+        assertEquals(1, LogRotator.listTimestampedArchives(logDir, BASE).size(), "Compressed archive not recognized");
+
+        try (final InputStream in = new GZIPInputStream(Files.newInputStream(compressed.toPath()))) {
+            final String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(CONTENT, content, "Bad content in compressed archive");
+        }
+
+        assertTrue(err.isEmpty(), "Errors reported: " + err);
+
+        deleteDir(logDir);
+    }
+
+    /**
+     * Tests that retention limits delete the oldest timestamped archives, and leave other files alone.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("Archive retention limits")
+    void test002() throws IOException {
+
+        final Path dir = Files.createTempDirectory(BASE);
+        final File logDir = dir.toFile();
+
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; ++i) {
+            final String name = LogRotator.makeTimestampedFilename(BASE, now - 1000L * (long) i, ".log");
+            Files.writeString(dir.resolve(name), CONTENT);
+        }
+        final File numbered = new File(logDir, BASE + "_001.log");
+        Files.writeString(numbered.toPath(), CONTENT);
+
+        final StringBuilder err = new StringBuilder(100);
+        LogRotator.applyRetention(logDir, BASE, 3, 0L, 0L, now, err);
+
+        final List<File> remaining = LogRotator.listTimestampedArchives(logDir, BASE);
+        assertEquals(3, remaining.size(), "File count limit not applied");
+
+        final String newest = LogRotator.makeTimestampedFilename(BASE, now, ".log");
+        assertTrue(new File(logDir, newest).exists(), "Newest archive was deleted");
+        assertTrue(numbered.exists(), "Numbered archive was deleted");
+
+        final long oneSize = (long) CONTENT.length();
+        LogRotator.applyRetention(logDir, BASE, 10, 0L, oneSize * 2L, now, err);
+        assertEquals(2, LogRotator.listTimestampedArchives(logDir, BASE).size(), "Total size limit not applied");
+
+        assertTrue(err.isEmpty(), "Errors reported: " + err);
+
+        deleteDir(logDir);
+    }
+
+    /**
+     * Tests the wall-clock boundaries of rotation schedules, including across a daylight saving time change.
+     */
+    @Test
+    @DisplayName("Rotation schedule boundaries")
+    void test003() {
+
+        final ZoneId zone = ZoneId.of("America/Denver");
+        final ZonedDateTime time = ZonedDateTime.of(2024, 3, 9, 13, 45, 10, 0, zone);
+
+        assertEquals(ZonedDateTime.of(2024, 3, 9, 13, 0, 0, 0, zone), ERotationSchedule.HOURLY.periodStart(time),
+                "Wrong hourly period start");
+        assertEquals(ZonedDateTime.of(2024, 3, 9, 14, 0, 0, 0, zone), ERotationSchedule.HOURLY.nextBoundary(time),
+                "Wrong hourly boundary");
+        assertEquals(ZonedDateTime.of(2024, 3, 9, 0, 0, 0, 0, zone), ERotationSchedule.DAILY.periodStart(time),
+                "Wrong daily period start");
+
+        // Clocks move ahead on March 10, so that day is 23 hours long
+        final ZonedDateTime midnight = ZonedDateTime.of(2024, 3, 10, 0, 0, 0, 0, zone);
+        assertEquals(midnight, ERotationSchedule.DAILY.nextBoundary(time), "Wrong daily boundary");
+        assertEquals(ZonedDateTime.of(2024, 3, 11, 0, 0, 0, 0, zone), ERotationSchedule.DAILY.nextBoundary(midnight),
+                "Wrong daily boundary across DST change");
+
+        assertNull(ERotationSchedule.NONE.nextBoundary(time), "NONE has a boundary");
+        assertEquals(ERotationSchedule.DAILY, ERotationSchedule.forName(" daily "), "forName failed");
+    }
+
+    /**
+     * Deletes a directory and the files in it.
+     *
+     * @param dir the directory
+     */
+    private static void deleteDir(final File dir) {
+
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final boolean deleted = file.delete();
+                assertTrue(deleted, "Unable to delete " + file.getName());
+            }
+        }
+        final boolean deleted = dir.delete();
+        assertTrue(deleted, "Unable to delete temporary directory");
+    }
+}
@@ -0,0 +1,166 @@
+package dev.mathops.commons.log;
+
+import dev.mathops.commons.CoreConstants;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogIndexWriter}, {@code LogQuery}, and {@code LogSearch} classes.
+ */
+final class TestLogSearch {
+
+    /** The time of the first record written in tests. */
+    private static final long BASE_MILLIS = 1_700_000_000_000L;
+
+    /** The number of records written in tests (enough to fill several index blocks). */
+    private static final int NUM_RECORDS = 1000;
+
+    /**
+     * Constructs a new {@code TestLogSearch}.
+     */
+    TestLogSearch() {
+
+        // No action
+    }
+
+    /**
+     * Gets the level of a test record.
+     *
+     * @param i the record number
+     * @return the level
+     */
+    private static int levelOf(final int i) {
+
+        return i % 5 == 0 ? LogBase.SEVERE_BIT : LogBase.INFO_BIT;
+    }
+
+    /**
+     * Gets the user ID of a test record.
+     *
+     * @param i the record number
+     * @return the user ID
+     */
+    private static String userOf(final int i) {
+
+        return "user" + (i % 3);
+    }
+
+    /**
+     * Writes a log file of test records, with an index.
+     *
+     * @param logFile the log file
+     * @throws IOException if the file could not be written
+     */
+    private static void writeTestLog(final File logFile) throws IOException {
+
+        final LogIndexWriter index = new LogIndexWriter(logFile);
+        long offset = 0L;
+
+        try (final FileOutputStream out = new FileOutputStream(logFile)) {
+            for (int i = 0; i < NUM_RECORDS; ++i) {
+                final String text = "Record " + i + CoreConstants.CRLF + "  continuation" + CoreConstants.CRLF;
+                final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+                index.add(offset, BASE_MILLIS + 1000L * (long) i, levelOf(i), "session" + (i / 100), userOf(i));
+                out.write(bytes);
+                offset += (long) bytes.length;
+            }
+        }
+
+        index.close(offset);
+    }
+
+    /**
+     * Tests that a search returns exactly the records (including continuation lines) that match a time range, level,
+     * and user, and that records outside the criteria are excluded.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("Search by time, level, and user")
+    void test001() throws IOException {
+
+        final Path dir = Files.createTempDirectory("logsearch");
+        final File logFile = new File(dir.toFile(), "search.log");
+        writeTestLog(logFile);
+
+        final long from = BASE_MILLIS + 100_000L;
+        final long to = BASE_MILLIS + 400_000L;
+        final LogQuery query = new LogQuery(from, to, LogBase.SEVERE_BIT, null, "user2");
+        final List<LogEntry> found = LogSearch.search(logFile, query);
+
+        final List<String> expected = new ArrayList<>(100);
+        for (int i = 100; i < 400; ++i) {
+            if (levelOf(i) == LogBase.SEVERE_BIT && "user2".equals(userOf(i))) {
+                expected.add("Record " + i + CoreConstants.CRLF + "  continuation");
+            }
+        }
+
+        assertEquals(expected.size(), found.size(), "Search: wrong number of records found");
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), found.get(i).getMessage(), "Search: wrong record text");
+        }
+        assertEquals(BASE_MILLIS + 110_000L, found.getFirst().getMillis(), "Search: wrong record time");
+
+        final LogQuery bySession = new LogQuery(Long.MIN_VALUE, Long.MAX_VALUE, LogBase.ALL, "session7", null);
+        assertEquals(100, LogSearch.search(logFile, bySession).size(), "Search: wrong number of records in session");
+
+        final LogQuery noUser = new LogQuery(Long.MIN_VALUE, Long.MAX_VALUE, LogBase.ALL, null, "nobody");
+        assertTrue(LogSearch.search(logFile, noUser).isEmpty(), "Search: records found for unknown user");
+
+        deleteDir(dir.toFile());
+    }
+
+    /**
+     * Tests that a directory search covers numbered archives oldest first, then the active file.
+     *
+     * @throws IOException if a file operation fails
+     */
+    @Test
+    @DisplayName("Search across archives")
+    void test002() throws IOException {
+
+        final Path dir = Files.createTempDirectory("logsearch");
+        final File logDir = dir.toFile();
+        writeTestLog(new File(logDir, "base_002.log"));
+        writeTestLog(new File(logDir, "base_001.log"));
+        writeTestLog(new File(logDir, "base.log"));
+
+        final LogQuery query = new LogQuery(BASE_MILLIS, BASE_MILLIS + 1000L, LogBase.ALL, null, null);
+        final List<LogEntry> found = LogSearch.search(logDir, "base", query);
+
+        assertEquals(3, found.size(), "Archives: wrong number of records found");
+
+        deleteDir(logDir);
+    }
+
+    /**
+     * Deletes a directory and the files in it.
+     *
+     * @param dir the directory
+     */
+    private static void deleteDir(final File dir) {
+
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final boolean deleted = file.delete();
+                assertTrue(deleted, "Unable to delete " + file.getName());
+            }
+        }
+        final boolean deleted = dir.delete();
+        assertTrue(deleted, "Unable to delete temporary directory");
+    }
+}
@@ -1,11 +1,22 @@
 package dev.mathops.commons.log;
 
+import dev.mathops.commons.installation.Installation;
 import dev.mathops.commons.installation.Installations;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -35,7 +46,8 @@ final class TestLogSettings {
     @DisplayName("LogSettings state on construction")
     void test001() {
 
-        final LogSettings settings = new LogSettings();
+        final LogSettings.Builder builder = new LogSettings.Builder();
+        final LogSettings settings = builder.build();
 
         final String logLevelName = settings.getLogLevelName();
         assertEquals(ALL, logLevelName, "Log level name default is ALL");
@@ -64,7 +76,10 @@ final class TestLogSettings {
         final boolean append = settings.isAppend();
         assertTrue(append, "Log append default us true");
 
-        final boolean dirty = settings.isDirty();
+        final int dedupWindow = settings.getExceptionDedupWindow();
+        assertEquals(0, dedupWindow, "Exception dedup window default is 0");
+
+        final boolean dirty = builder.isDirty();
         assertFalse(dirty, "Log settings are initially not dirty");
     }
 
@@ -76,10 +91,11 @@ final class TestLogSettings {
     @DisplayName("LogSettings state on construction with null installation")
     void test002() {
 
-        final LogSettings settings = new LogSettings();
+        final LogSettings.Builder builder = new LogSettings.Builder();
 
         // Test configuration with null installation
-        LoggingSubsystem.configureSettings(settings, null);
+        LoggingSubsystem.configureSettings(builder, null);
+        final LogSettings settings = builder.build();
 
         final String logLevelName = settings.getLogLevelName();
         assertEquals(ALL, logLevelName, "Log level name with null config is ALL");
@@ -108,7 +124,7 @@ final class TestLogSettings {
         final boolean append = settings.isAppend();
         assertTrue(append, "Log append with null config us true");
 
-        final boolean dirty = settings.isDirty();
+        final boolean dirty = builder.isDirty();
         assertFalse(dirty, "Log settings after load with null config not dirty");
     }
 
@@ -120,10 +136,11 @@ final class TestLogSettings {
     @DisplayName("LogSettings state on construction with installation")
     void test003() {
 
-        final LogSettings settings = new LogSettings();
+        final LogSettings.Builder builder = new LogSettings.Builder();
 
         // Test configuration with null installation
-        LoggingSubsystem.configureSettings(settings, null);
+        LoggingSubsystem.configureSettings(builder, null);
+        final LogSettings settings = builder.build();
 
         final String logLevelName = settings.getLogLevelName();
         assertEquals(ALL, logLevelName, "Log level name with null installation is ALL");
@@ -152,7 +169,127 @@ final class TestLogSettings {
         final boolean append = settings.isAppend();
         assertTrue(append, "Log append with null installation us true");
 
-        final boolean dirty = settings.isDirty();
+        final boolean dirty = builder.isDirty();
         assertFalse(dirty, "Log settings after load with null installation not dirty");
     }
+
+    /**
+     * Tests that {@code updateSettings} publishes new settings built with the changes, leaving the previous object as
+     * it was.
+     */
+    @Test
+    @DisplayName("Settings updated by publishing new settings")
+    void test004() {
+
+        final LogSettings before = LoggingSubsystem.getSettings();
+        final int level = before.getLogLevel();
+        final boolean console = before.isLogToConsole();
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogLevels(LogBase.SEVERE_BIT);
+            builder.setLogToConsole(!console);
+        });
+
+        final LogSettings after = LoggingSubsystem.getSettings();
+        assertNotSame(before, after, "Update did not publish a new object");
+        assertEquals(LogBase.SEVERE_BIT, after.getLogLevel(), "Updated log level not published");
+        assertEquals(!console, after.isLogToConsole(), "Updated console flag not published");
+        assertEquals(level, before.getLogLevel(), "Previous settings object was changed");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(before));
+        assertEquals(level, LoggingSubsystem.getSettings().getLogLevel(), "Settings not restored");
+    }
+
+    /**
+     * Tests that the settings are reloaded when the installation's configuration file changes.
+     *
+     * @throws IOException          if a file operation fails
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Settings reloaded when configuration file changes")
+    void test005() throws IOException, InterruptedException {
+
+        final LogSettings saved = LoggingSubsystem.getSettings();
+
+        final Path dir = Files.createTempDirectory("logwatch");
+        final File cfg = new File(dir.toFile(), Installations.DEF_CFG_FILE_NAME);
+        Files.writeString(cfg.toPath(), "log-levels=SEVERE\r\nlog-to-console=false\r\n", StandardCharsets.UTF_8);
+
+        final Installation installation = Installations.get().getInstallation(dir.toFile(), null);
+        LoggingSubsystem.setInstallation(installation);
+        try {
+            assertEquals(LogBase.SEVERE_BIT, LoggingSubsystem.getSettings().getLogLevel(), "Initial level not loaded");
+
+            Files.writeString(cfg.toPath(), "log-levels=SEVERE,WARNING\r\nlog-to-console=false\r\n",
+                    StandardCharsets.UTF_8);
+
+            final long deadline = System.currentTimeMillis() + 20_000L;
+            while (LoggingSubsystem.getSettings().getLogLevel() == LogBase.SEVERE_BIT
+                   && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+
+            assertEquals(LogBase.SEVERE_BIT | LogBase.WARNING_BIT, LoggingSubsystem.getSettings().getLogLevel(),
+                    "Changed level not reloaded");
+        } finally {
+            LoggingSubsystem.setInstallation(null);
+            LoggingSubsystem.updateSettings(builder -> builder.setFrom(saved));
+            Files.delete(cfg.toPath());
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Tests that a reload of the settings that changes the log filename base takes effect on the next message.
+     *
+     * @throws IOException          if a file operation fails
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Log file renamed when reloaded settings change the filename base")
+    void test006() throws IOException, InterruptedException {
+
+        final Installation savedInstallation = LoggingSubsystem.getInstallation();
+        final LogSettings saved = LoggingSubsystem.getSettings();
+
+        final Path dir = Files.createTempDirectory("logrename");
+        final File cfg = new File(dir.toFile(), Installations.DEF_CFG_FILE_NAME);
+        Files.writeString(cfg.toPath(), "log-to-files=true\r\nlog-to-console=false\r\nlog-file-name-base=first\r\n",
+                StandardCharsets.UTF_8);
+
+        final Installation installation = Installations.get().getInstallation(dir.toFile(), null);
+        LoggingSubsystem.setInstallation(installation);
+        try {
+            final Path logDir = dir.resolve(LOGS);
+            Log.info("Written to first");
+            assertTrue(Files.exists(logDir.resolve("first.log")), "First log file not written");
+
+            Files.writeString(cfg.toPath(),
+                    "log-to-files=true\r\nlog-to-console=false\r\nlog-file-name-base=second\r\n",
+                    StandardCharsets.UTF_8);
+
+            final long deadline = System.currentTimeMillis() + 20_000L;
+            while ("first".equals(LoggingSubsystem.getSettings().getFilenameBase())
+                   && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            assertEquals("second", LoggingSubsystem.getSettings().getFilenameBase(), "Changed base not reloaded");
+
+            Log.info("Written to second");
+            final String second = Files.readString(logDir.resolve("second.log"), StandardCharsets.UTF_8);
+            assertTrue(second.contains("Written to second"), "Second log file not written");
+            final String first = Files.readString(logDir.resolve("first.log"), StandardCharsets.UTF_8);
+            assertFalse(first.contains("Written to second"), "First log file written after reload");
+        } finally {
+            LoggingSubsystem.setInstallation(savedInstallation);
+            LoggingSubsystem.updateSettings(builder -> builder.setFrom(saved));
+            try (final Stream<Path> paths = Files.walk(dir)) {
+                final List<Path> toDelete = paths.sorted(Comparator.reverseOrder()).toList();
+                for (final Path path : toDelete) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@code LogTail} class.
+ */
+final class TestLogTail {
+
+    /**
+     * Constructs a new {@code TestLogTail}.
+     */
+    TestLogTail() {
+
+        // No action
+    }
+
+    /**
+     * Tests that a listener receives only entries at its levels, with their levels, and none after the tail is closed.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Level filter and close")
+    void test001() throws InterruptedException {
+
+        final MemoryAppender appender = new MemoryAppender("tail", LogBase.ALL, 100);
+        final List<LogEntry> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        final LogTail tail = appender.subscribe(LogBase.SEVERE_BIT | LogBase.WARNING_BIT, 16, entry -> {
+            received.add(entry);
+            latch.countDown();
+        });
+        assertTrue(appender.hasTails(), "Tail not attached");
+
+        appender.append(LogBase.INFO_BIT, "info", true);
+        appender.append(LogBase.SEVERE_BIT, "severe", true);
+        appender.append(LogBase.FINE_BIT, "fine", true);
+        appender.append(LogBase.WARNING_BIT, "warning", true);
+
+        assertTrue(latch.await(5L, TimeUnit.SECONDS), "Entries not delivered");
+        tail.close();
+        appender.append(LogBase.SEVERE_BIT, "after close", true);
+
+        assertTrue(!appender.hasTails(), "Tail not detached");
+        assertEquals(2, received.size(), "Wrong number of entries delivered");
+        assertEquals("severe", received.get(0).getMessage(), "Wrong first entry");
+        assertEquals(LogBase.SEVERE_BIT, received.get(0).getLevel(), "Wrong first entry level");
+        assertEquals("warning", received.get(1).getMessage(), "Wrong second entry");
+        assertEquals(5, appender.getNumInList(), "Entries not retained in list");
+    }
+
+    /**
+     * Tests that a blocked subscriber causes entries to be dropped rather than blocking the thread adding them.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Slow subscriber drops")
+    void test002() throws InterruptedException {
+
+        final LogEntryList list = new LogEntryList();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        try (final LogTail tail = list.subscribe(LogBase.ALL, 4, entry -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            list.addToList("first");
+            assertTrue(entered.await(5L, TimeUnit.SECONDS), "First entry not delivered");
+
+            final long start = System.nanoTime();
+            for (int i = 0; i < 1000; ++i) {
+                list.addToList(Integer.toString(i));
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            release.countDown();
+
+            assertTrue(elapsed < TimeUnit.SECONDS.toNanos(5L), "Adding entries blocked on the subscriber");
+            assertTrue(tail.getDroppedCount() >= 990L, "Entries not dropped for blocked subscriber");
+            assertEquals(0, list.getNumInList(), "Entries retained when list is not logging");
+        }
+    }
+}
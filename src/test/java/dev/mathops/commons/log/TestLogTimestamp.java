@@ -0,0 +1,87 @@
+package dev.mathops.commons.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the {@code LogTimestamp} class.
+ */
+final class TestLogTimestamp {
+
+    /** The formatter whose output the cached renderer must match. */
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("MM/dd HH:mm:ss.SSS", Locale.US);
+
+    /**
+     * Constructs a new {@code TestLogTimestamp}.
+     */
+    TestLogTimestamp() {
+
+        // No action
+    }
+
+    /**
+     * Formats a timestamp using {@code DateTimeFormatter}.
+     *
+     * @param millis the timestamp
+     * @return the formatted timestamp
+     */
+    private static String expected(final long millis) {
+
+        final Instant instant = Instant.ofEpochMilli(millis);
+        final LocalDateTime when = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+
+        return when.format(DATE_FMT);
+    }
+
+    /**
+     * Formats a timestamp using {@code LogTimestamp}.
+     *
+     * @param millis the timestamp
+     * @return the formatted timestamp
+     */
+    private static String actual(final long millis) {
+
+        final StringBuilder builder = new StringBuilder(LogTimestamp.LENGTH);
+        LogTimestamp.append(builder, millis);
+
+        return builder.toString();
+    }
+
+    /**
+     * Tests rendering of timestamps within one second, where only the milliseconds change.
+     */
+    @Test
+    @DisplayName("Timestamps within one second")
+    void test001() {
+
+        final long base = 1_700_000_000_000L;
+
+        for (int ms = 0; ms < 1000; ms += 7) {
+            final long millis = base + (long) ms;
+            assertEquals(expected(millis), actual(millis), "Timestamp mismatch within second");
+        }
+    }
+
+    /**
+     * Tests rendering of timestamps across second, minute, day, and year boundaries.
+     */
+    @Test
+    @DisplayName("Timestamps across boundaries")
+    void test002() {
+
+        final long[] times = {0L, 999L, 1_000L, 59_999L, 60_000L, 86_399_999L, 86_400_000L, 1_704_067_199_999L,
+                1_704_067_200_000L, System.currentTimeMillis()};
+
+        for (final long millis : times) {
+            assertEquals(expected(millis), actual(millis), "Timestamp mismatch at boundary");
+        }
+    }
+}
@@ -16,11 +16,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 /**
  * Tests for the classes supporting the LogWriter type.
@@ -99,8 +102,7 @@ final class TestLogWriter {
     static void runBeforeClass() {
 
         // Store the current log settings, so we can restore after the test
-        final LogSettings settings = LoggingSubsystem.getSettings();
-        savedSettings = new LogSettings(settings);
+        savedSettings = LoggingSubsystem.getSettings();
 
         final String tmpDirProperty = System.getProperty("java.io.tmpdir");
         final File tempDir = new File(tmpDirProperty);
@@ -155,7 +157,7 @@ final class TestLogWriter {
     @AfterAll
     static void runAfterClass() {
 
-        LoggingSubsystem.getSettings().setFrom(savedSettings);
+        LoggingSubsystem.updateSettings(builder -> builder.setFrom(savedSettings));
 
         if (installDir.exists()) {
             final File[] files = installDir.listFiles();
@@ -186,9 +188,9 @@ final class TestLogWriter {
 
         writer.writeConsole("Log to console: This should be the first line", false);
         writer.writeConsole(", with a newline", true);
-        settings.setLogToConsole(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
         writer.writeConsole("Log to console: This should NOT appear", true);
-        settings.setLogToConsole(true);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(true));
         writer.writeConsole("Log to console: This should be the second line", false);
         writer.writeConsole(", with a linefeed", true);
 
@@ -204,7 +206,7 @@ final class TestLogWriter {
 
         final LogWriter writer = new LogWriter();
 
-        writer.getSettings().setLogToConsole(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToConsole(false));
         writer.startList(5);
         final int count1 = writer.getNumInList();
         assertEquals(0, count1, "Log to list: list did not start empty");
@@ -258,16 +260,18 @@ final class TestLogWriter {
 
         final LogWriter writer = new LogWriter();
 
-        writer.getSettings().setLogToFiles(true);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
         final File logDir = writer.determineLogDir();
-        writer.getSettings().setLogToFiles(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
 
-        writer.getSettings().setLogToConsole(false);
-        writer.getSettings().setFilenameBase("testlog");
-        writer.getSettings().setLogFileSizeLimit(10);
-        writer.getSettings().setLogFileCount(10);
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setFilenameBase("testlog");
+            builder.setLogFileSizeLimit(10);
+            builder.setLogFileCount(10);
+        });
 
-        writer.getSettings().setLogToFiles(true);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
         writer.writeMessage(MSG01, true);
         writer.writeMessage(MSG02, true);
         writer.writeMessage(MSG03, true);
@@ -279,7 +283,7 @@ final class TestLogWriter {
         writer.writeMessage(MSG09, true);
         writer.writeMessage(MSG10, true);
         writer.writeMessage(MSG11, true);
-        writer.getSettings().setLogToFiles(false);
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
 
         // We should now have 10 files, named testlog_001.log --> testlog_010.log
         // containing the most recent 10 logged messages, most recent in the _001 log file
@@ -373,6 +377,327 @@ final class TestLogWriter {
         assertTrue(test10, "Log to files: delete 10");
     }
 
+    /**
+     * Test writing buffered log messages to a file, where nothing reaches the file until the buffer is flushed.
+     */
+    @Test
+    @DisplayName("Log to files with buffering")
+    void test004() {
+
+        final Installation inst = Installations.get().getInstallation(installDir, null);
+        LoggingSubsystem.setInstallation(inst);
+
+        final LogWriter writer = new LogWriter();
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        final File logDir = writer.determineLogDir();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setFilenameBase("buflog");
+            builder.setLogFileSizeLimit(1000000);
+            builder.setFileFlushSize(4096);
+            builder.setFileFlushInterval(60000);
+        });
+
+        final File log = new File(logDir, "buflog.log");
+        final boolean deleted = !log.exists() || log.delete();
+        assertTrue(deleted, "Log to files with buffering: delete before test");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        writer.writeMessage(MSG01, true);
+        writer.writeMessage(MSG02, true);
+
+        final long unflushedLen = log.length();
+        assertEquals(0L, unflushedLen, "Log to files with buffering: data written before flush");
+
+        writer.flush();
+
+        final String contents = getFile(log);
+        assertEquals(MSG01 + CoreConstants.CRLF + MSG02 + CoreConstants.CRLF, contents,
+                "Log to files with buffering: file content");
+
+        writer.rotateLogs();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToFiles(false);
+            builder.setFileFlushSize(0);
+        });
+
+        final File archive = new File(logDir, "buflog_001.log");
+        final boolean exists = archive.exists();
+        assertTrue(exists, "Log to files with buffering: file not rotated");
+
+        final boolean test01 = !archive.exists() || archive.delete();
+        assertTrue(test01, "Log to files with buffering: delete");
+    }
+
+    /**
+     * Test that, with a daily rotation schedule, a log file last written on an earlier day is rotated before new
+     * messages are appended.
+     */
+    @Test
+    @DisplayName("Startup rotation of a stale log file")
+    void test005() {
+
+        final Installation inst = Installations.get().getInstallation(installDir, null);
+        LoggingSubsystem.setInstallation(inst);
+
+        final LogWriter writer = new LogWriter();
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        final File logDir = writer.determineLogDir();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setFilenameBase("daylog");
+            builder.setLogFileSizeLimit(1000000);
+            builder.setAppend(true);
+            builder.setRotateSchedule(ERotationSchedule.DAILY);
+        });
+
+        final File log = new File(logDir, "daylog.log");
+        final File archive = new File(logDir, "daylog_001.log");
+        final boolean deleted = (!log.exists() || log.delete()) && (!archive.exists() || archive.delete());
+        assertTrue(deleted, "Startup rotation: delete before test");
+
+        try (final FileOutputStream out = new FileOutputStream(log)) {
+            out.write(MSG01.getBytes(StandardCharsets.UTF_8));
+            out.write(CoreConstants.CRLF.getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException ex) {
+            fail("Startup rotation: unable to write stale log file");
+        }
+        final boolean aged = log.setLastModified(System.currentTimeMillis() - 2L * 86_400_000L);
+        assertTrue(aged, "Startup rotation: unable to set modification time");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        writer.writeMessage(MSG02, true);
+        LoggingSubsystem.updateSettings(builder -> builder.setRotateSchedule(ERotationSchedule.NONE));
+
+        assertEquals(MSG01 + CoreConstants.CRLF, getFile(archive), "Startup rotation: stale file not archived");
+        assertEquals(MSG02 + CoreConstants.CRLF, getFile(log), "Startup rotation: new file content");
+
+        writer.rotateLogs();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
+
+        final File archive2 = new File(logDir, "daylog_002.log");
+        final boolean test01 = (!archive.exists() || archive.delete()) && (!archive2.exists() || archive2.delete());
+        assertTrue(test01, "Startup rotation: delete");
+    }
+
+    /**
+     * Test that an indexed log file is rotated with its index, and that records can then be found by level and user.
+     *
+     * @throws IOException if the search fails
+     */
+    @Test
+    @DisplayName("Indexed log files")
+    void test006() throws IOException {
+
+        final Installation inst = Installations.get().getInstallation(installDir, null);
+        LoggingSubsystem.setInstallation(inst);
+
+        final LogWriter writer = new LogWriter();
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        final File logDir = writer.determineLogDir();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setFilenameBase("idxlog");
+            builder.setLogFileSizeLimit(1000000);
+            builder.setFileIndex(true);
+        });
+
+        final File archive = new File(logDir, "idxlog_001.log");
+        final File archiveIndex = new File(logDir, "idxlog_001.log.idx");
+        final boolean deleted = (!archive.exists() || archive.delete())
+                                && (!archiveIndex.exists() || archiveIndex.delete());
+        assertTrue(deleted, "Indexed log files: delete before test");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        LogBase.setHostPath("host", "/path", "10.0.0.1");
+        LogBase.setSessionInfo("sess1", "user1");
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG01, true);
+        writer.writeMessage(LogBase.INFO_BIT, MSG02, true);
+        LogBase.setHostPath(null, null, null);
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG03, true);
+        writer.rotateLogs();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToFiles(false);
+            builder.setFileIndex(false);
+        });
+
+        assertTrue(archiveIndex.exists(), "Indexed log files: index not rotated");
+
+        final LogQuery query = new LogQuery(Long.MIN_VALUE, Long.MAX_VALUE, LogBase.SEVERE_BIT, null, "user1");
+        final List<LogEntry> found = LogSearch.search(logDir, "idxlog", query);
+        assertEquals(1, found.size(), "Indexed log files: wrong number of records found");
+        assertEquals(MSG01, found.getFirst().getMessage(), "Indexed log files: wrong record found");
+
+        final boolean test01 = archive.delete() && archiveIndex.delete();
+        assertTrue(test01, "Indexed log files: delete");
+    }
+
+    /**
+     * Test that records at the error file levels reach the error log file at once, even while the main log file is
+     * buffered, that records at other levels do not, and that the error log file is rotated with the log file.
+     */
+    @Test
+    @DisplayName("Error log file")
+    void test007() {
+
+        final Installation inst = Installations.get().getInstallation(installDir, null);
+        LoggingSubsystem.setInstallation(inst);
+
+        final LogWriter writer = new LogWriter();
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        final File logDir = writer.determineLogDir();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setFilenameBase("errlog");
+            builder.setLogFileSizeLimit(1000000);
+            builder.setFileFlushSize(4096);
+            builder.setFileFlushInterval(60000);
+            builder.setErrorFileLevels(LogBase.SEVERE_BIT | LogBase.WARNING_BIT);
+        });
+
+        final File errors = new File(logDir, "errlog_errors.log");
+        final boolean deleted = !errors.exists() || errors.delete();
+        assertTrue(deleted, "Error log file: delete before test");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        assertTrue(writer.writesErrorFile(LogBase.SEVERE_BIT), "Error log file: SEVERE not written");
+        assertFalse(writer.writesErrorFile(LogBase.INFO_BIT), "Error log file: INFO written");
+
+        writer.writeErrorRecord(LogBase.SEVERE_BIT, MSG01);
+        writer.writeMessage(LogBase.SEVERE_BIT, MSG01, true);
+        writer.writeErrorRecord(LogBase.INFO_BIT, MSG02);
+        writer.writeMessage(LogBase.INFO_BIT, MSG02, true);
+        writer.writeErrorRecord(LogBase.WARNING_BIT, MSG03);
+        writer.writeMessage(LogBase.WARNING_BIT, MSG03, true);
+
+        assertEquals(MSG01 + CoreConstants.CRLF + MSG03 + CoreConstants.CRLF, getFile(errors),
+                "Error log file: file content");
+        assertEquals(0L, new File(logDir, "errlog.log").length(), "Error log file: main file not buffered");
+
+        writer.rotateLogs();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToFiles(false);
+            builder.setFileFlushSize(0);
+            builder.setErrorFileLevels(0);
+        });
+
+        final File archive = new File(logDir, "errlog_001.log");
+        final File errorArchive = new File(logDir, "errlog_errors_001.log");
+        assertTrue(errorArchive.exists(), "Error log file: file not rotated");
+        assertFalse(errors.exists(), "Error log file: file not moved");
+
+        final boolean test01 = archive.delete() && errorArchive.delete();
+        assertTrue(test01, "Error log file: delete");
+    }
+
+    /**
+     * Test that an error log file left by an earlier run is rotated when a writer starts with append turned off, even if
+     * there is no main log file to rotate.
+     *
+     * @throws IOException if the earlier error log file could not be written
+     */
+    @Test
+    @DisplayName("Error log file rotated at startup")
+    void test009() throws IOException {
+
+        final Installation inst = Installations.get().getInstallation(installDir, null);
+        LoggingSubsystem.setInstallation(inst);
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setLogToFiles(true);
+            builder.setFilenameBase("startlog");
+            builder.setAppend(false);
+            builder.setErrorFileLevels(LogBase.SEVERE_BIT);
+        });
+
+        final File logDir = Log.getWriter().determineLogDir();
+        final File errors = new File(logDir, "startlog_errors.log");
+        final File errorArchive = new File(logDir, "startlog_errors_001.log");
+        final boolean deleted = !errorArchive.exists() || errorArchive.delete();
+        assertTrue(deleted, "Error log file rotated at startup: delete before test");
+        Files.writeString(errors.toPath(), MSG01 + CoreConstants.CRLF, StandardCharsets.UTF_8);
+
+        final LogWriter writer = new LogWriter();
+        writer.writeErrorRecord(LogBase.SEVERE_BIT, MSG02);
+
+        assertEquals(MSG01 + CoreConstants.CRLF, getFile(errorArchive), "Error log file rotated at startup: archive");
+        assertEquals(MSG02 + CoreConstants.CRLF, getFile(errors), "Error log file rotated at startup: new file");
+
+        writer.rotateLogs();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToFiles(false);
+            builder.setAppend(true);
+            builder.setErrorFileLevels(0);
+        });
+
+        final boolean test01 = new File(logDir, "startlog_errors_001.log").delete()
+                               && new File(logDir, "startlog_errors_002.log").delete();
+        assertTrue(test01, "Error log file rotated at startup: delete");
+    }
+
+    /**
+     * Test that an unbuffered log file that is moved away by another process is reopened at its original path.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    @DisplayName("Moved log file")
+    void test008() throws InterruptedException {
+
+        final Installation inst = Installations.get().getInstallation(installDir, null);
+        LoggingSubsystem.setInstallation(inst);
+
+        final LogWriter writer = new LogWriter();
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        final File logDir = writer.determineLogDir();
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(false));
+
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToConsole(false);
+            builder.setFilenameBase("movelog");
+            builder.setLogFileSizeLimit(1000000);
+            builder.setFileFlushSize(0);
+            builder.setFileFlushInterval(1);
+        });
+
+        final File file = new File(logDir, "movelog.log");
+        final File moved = new File(logDir, "movelog_moved.log");
+        final boolean deleted = (!file.exists() || file.delete()) && (!moved.exists() || moved.delete());
+        assertTrue(deleted, "Moved log file: delete before test");
+
+        LoggingSubsystem.updateSettings(builder -> builder.setLogToFiles(true));
+        writer.writeMessage(LogBase.INFO_BIT, MSG01, true);
+        assertTrue(file.renameTo(moved), "Moved log file: rename");
+        Thread.sleep(20L);
+        writer.writeMessage(LogBase.INFO_BIT, MSG02, true);
+
+        assertEquals(MSG01 + CoreConstants.CRLF, getFile(moved), "Moved log file: moved file content");
+        assertEquals(MSG02 + CoreConstants.CRLF, getFile(file), "Moved log file: reopened file content");
+
+        writer.rotateLogs();
+        LoggingSubsystem.updateSettings(builder -> {
+            builder.setLogToFiles(false);
+            builder.setFileFlushInterval(1000);
+        });
+
+        final boolean test01 = new File(logDir, "movelog_001.log").delete() && moved.delete();
+        assertTrue(test01, "Moved log file: delete");
+    }
+
     /**
      * Loads a text file, storing the file contents in a {@code String}. Lines in the returned file are separated by
      * single '\n' characters regardless of the line terminator in the source file. The last line will end with a '\n'